@@ -21,10 +21,16 @@ import io.top4j.javaagent.config.Constants;
 import io.top4j.javaagent.mbeans.StatsMXBean;
 import io.top4j.javaagent.mbeans.jvm.heap.HeapStatsMXBean;
 import io.top4j.javaagent.mbeans.jvm.memory.MemoryStatsMXBean;
+import io.top4j.javaagent.mbeans.jvm.nonheap.NonHeapStatsMXBean;
 import io.top4j.javaagent.mbeans.jvm.threads.BlockedThreadMXBean;
+import io.top4j.javaagent.mbeans.jvm.threads.HotLockMXBean;
 import io.top4j.javaagent.mbeans.jvm.threads.ThreadStatsMXBean;
+import io.top4j.javaagent.mbeans.jvm.threads.TopAllocatorMXBean;
+import io.top4j.javaagent.mbeans.jvm.threads.TopThreadGroupMXBean;
 import io.top4j.javaagent.mbeans.jvm.threads.TopThreadMXBean;
+import io.top4j.javaagent.mbeans.jvm.threads.WaitingThreadMXBean;
 import io.top4j.javaagent.utils.ThreadHelper;
+import io.top4j.javaagent.mbeans.jvm.gc.GCCauseMXBean;
 import io.top4j.javaagent.mbeans.jvm.gc.GCStatsMXBean;
 import jline.console.ConsoleReader;
 
@@ -43,18 +49,30 @@ public class ConsoleController {
     private final GCStatsMXBean gcStatsMXBean;
     private final MemoryStatsMXBean memoryStatsMXBean;
     private final HeapStatsMXBean heapStatsMXBean;
+    private final NonHeapStatsMXBean nonHeapStatsMXBean;
     private final ThreadStatsMXBean threadStatsMXBean;
     private List<TopThreadMXBean> topThreadMXBeans = new ArrayList<>();
     private List<BlockedThreadMXBean> blockedThreadMXBeans = new ArrayList<>();
+    private List<WaitingThreadMXBean> waitingThreadMXBeans = new ArrayList<>();
+    private List<TopAllocatorMXBean> topAllocatorMXBeans = new ArrayList<>();
+    private List<TopThreadGroupMXBean> topThreadGroupMXBeans = new ArrayList<>();
+    private List<HotLockMXBean> hotLockMXBeans = new ArrayList<>();
+    private List<GCCauseMXBean> gcCauseMXBeans = new ArrayList<>();
     private List<StatsMXBean> jvmStatsMBeans = new ArrayList<>();
     private final RuntimeMXBean runtimeMXBean;
     private final OperatingSystemMXBean osMXBean;
     private Map<Integer, Long> topThreadIds = new HashMap<>();
     private Map<Integer, Long> blockedThreadIds = new HashMap<>();
+    private Map<Integer, Long> waitingThreadIds = new HashMap<>();
+    private Map<Integer, Long> topAllocatorIds = new HashMap<>();
+    private Map<Integer, Long> hotLockOwnerIds = new HashMap<>();
     private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
     private ThreadHelper threadHelper;
     private final static int MAX_THREAD_NAME_LENGTH = 64;
     private final static int MAX_DISPLAY_NAME_LENGTH = 64;
+    private final static int MAX_GROUP_NAME_LENGTH = 64;
+    private final static int MAX_LOCK_NAME_LENGTH = 64;
+    private final static int MAX_GC_CAUSE_LENGTH = 64;
     private String mainScreenId;
     private DisplayConfig displayConfig;
     volatile boolean paused = false;
@@ -121,6 +139,20 @@ public class ConsoleController {
         // add heapStatsMXBean proxy to list of jvmStatsMBeans
         this.jvmStatsMBeans.add(this.heapStatsMXBean);
 
+        // create NonHeapStats objectName
+        ObjectName nonHeapStatsObjectName = null;
+        try {
+            nonHeapStatsObjectName = new ObjectName(Constants.DOMAIN + ":type=" + Constants.JVM_STATS_TYPE + ",statsType=" + Constants.NON_HEAP_STATS_TYPE);
+        } catch (MalformedObjectNameException e) {
+            String errorMessage = INIT_ERROR_MESSAGE + e.getMessage();
+            LOGGER.severe(errorMessage);
+            throw new IllegalStateException(errorMessage, e);
+        }
+        // instantiate new nonHeapStatsMXBean proxy based on nonHeapStatsObjectName
+        this.nonHeapStatsMXBean = JMX.newMBeanProxy(localMBS, nonHeapStatsObjectName, NonHeapStatsMXBean.class);
+        // add nonHeapStatsMXBean proxy to list of jvmStatsMBeans
+        this.jvmStatsMBeans.add(this.nonHeapStatsMXBean);
+
         // create ThreadStats objectName
         ObjectName threadStatsObjectName = null;
         try {
@@ -167,6 +199,101 @@ public class ConsoleController {
             this.blockedThreadMXBeans.add(JMX.newMBeanProxy(localMBS, blockedThreadObjectName, BlockedThreadMXBean.class));
         }
 
+        // populate waitingThread MBean list
+        for (int rank = 1; rank <= displayThreadCount; rank++) {
+
+            // create WaitingThread objectName
+            ObjectName waitingThreadObjectName = null;
+            try {
+                waitingThreadObjectName = new ObjectName(Constants.DOMAIN + ":type=" + Constants.JVM_STATS_TYPE + ",statsType=" + Constants.WAITING_THREAD_STATS_TYPE + ",rank=" + rank);
+            } catch (MalformedObjectNameException e) {
+                String errorMessage = INIT_ERROR_MESSAGE + e.getMessage();
+                LOGGER.severe(errorMessage);
+                throw new IllegalStateException(errorMessage, e);
+            }
+            // WaitingThread MBeans are only registered if thread contention monitoring is supported by the target JVM
+            if (localMBS.isRegistered(waitingThreadObjectName)) {
+                // instantiate and store waitingThreadMXBean proxy based on waitingThreadObjectName
+                this.waitingThreadMXBeans.add(JMX.newMBeanProxy(localMBS, waitingThreadObjectName, WaitingThreadMXBean.class));
+            }
+        }
+
+        // populate topAllocator MBean list
+        for (int rank = 1; rank <= displayThreadCount; rank++) {
+
+            // create TopAllocator objectName
+            ObjectName topAllocatorObjectName = null;
+            try {
+                topAllocatorObjectName = new ObjectName(Constants.DOMAIN + ":type=" + Constants.JVM_STATS_TYPE + ",statsType=" + Constants.TOP_ALLOCATOR_STATS_TYPE + ",rank=" + rank);
+            } catch (MalformedObjectNameException e) {
+                String errorMessage = INIT_ERROR_MESSAGE + e.getMessage();
+                LOGGER.severe(errorMessage);
+                throw new IllegalStateException(errorMessage, e);
+            }
+            // TopAllocator MBeans are only registered if the target JVM supports thread allocated memory measurement
+            if (localMBS.isRegistered(topAllocatorObjectName)) {
+                // instantiate and store topAllocatorMXBean proxy based on topAllocatorObjectName
+                this.topAllocatorMXBeans.add(JMX.newMBeanProxy(localMBS, topAllocatorObjectName, TopAllocatorMXBean.class));
+            }
+        }
+
+        // populate topThreadGroup MBean list
+        for (int rank = 1; rank <= displayThreadCount; rank++) {
+
+            // create ThreadGroup objectName
+            ObjectName threadGroupObjectName = null;
+            try {
+                threadGroupObjectName = new ObjectName(Constants.DOMAIN + ":type=" + Constants.JVM_STATS_TYPE + ",statsType=" + Constants.THREAD_GROUP_STATS_TYPE + ",rank=" + rank);
+            } catch (MalformedObjectNameException e) {
+                String errorMessage = INIT_ERROR_MESSAGE + e.getMessage();
+                LOGGER.severe(errorMessage);
+                throw new IllegalStateException(errorMessage, e);
+            }
+            // ThreadGroup MBeans are only registered if thread group tracking is enabled
+            if (localMBS.isRegistered(threadGroupObjectName)) {
+                // instantiate and store topThreadGroupMXBean proxy based on threadGroupObjectName
+                this.topThreadGroupMXBeans.add(JMX.newMBeanProxy(localMBS, threadGroupObjectName, TopThreadGroupMXBean.class));
+            }
+        }
+
+        // populate hotLock MBean list
+        for (int rank = 1; rank <= displayThreadCount; rank++) {
+
+            // create HotLock objectName
+            ObjectName hotLockObjectName = null;
+            try {
+                hotLockObjectName = new ObjectName(Constants.DOMAIN + ":type=" + Constants.JVM_STATS_TYPE + ",statsType=" + Constants.HOT_LOCK_STATS_TYPE + ",rank=" + rank);
+            } catch (MalformedObjectNameException e) {
+                String errorMessage = INIT_ERROR_MESSAGE + e.getMessage();
+                LOGGER.severe(errorMessage);
+                throw new IllegalStateException(errorMessage, e);
+            }
+            // HotLock MBeans are only registered if hot lock tracking is enabled
+            if (localMBS.isRegistered(hotLockObjectName)) {
+                // instantiate and store hotLockMXBean proxy based on hotLockObjectName
+                this.hotLockMXBeans.add(JMX.newMBeanProxy(localMBS, hotLockObjectName, HotLockMXBean.class));
+            }
+        }
+
+        // populate gcCause MBean list
+        for (int rank = 1; rank <= displayThreadCount; rank++) {
+
+            // create GCCause objectName
+            ObjectName gcCauseObjectName = null;
+            try {
+                gcCauseObjectName = new ObjectName(Constants.DOMAIN + ":type=" + Constants.JVM_STATS_TYPE + ",statsType=" + Constants.GC_CAUSE_STATS_TYPE + ",rank=" + rank);
+            } catch (MalformedObjectNameException e) {
+                String errorMessage = INIT_ERROR_MESSAGE + e.getMessage();
+                LOGGER.severe(errorMessage);
+                throw new IllegalStateException(errorMessage, e);
+            }
+            // GCCause MBeans are only registered if GC cause tracking is enabled
+            if (localMBS.isRegistered(gcCauseObjectName)) {
+                // instantiate and store gcCauseMXBean proxy based on gcCauseObjectName
+                this.gcCauseMXBeans.add(JMX.newMBeanProxy(localMBS, gcCauseObjectName, GCCauseMXBean.class));
+            }
+        }
+
         // create RuntimeMXBean objectName
         ObjectName runtimeMXBeanObjectName = null;
         try {
@@ -238,12 +365,27 @@ public class ConsoleController {
         mainScreenId = screenId;
         String screen;
         try {
-            if (userInput.isDigit()) {
+            if (userInput.isDigit() && !screenId.equals("g")) {
                 // create thread stack trace screen
                 screen = createThreadStackTraceScreen(Integer.valueOf(userText).intValue());
             } else if (screenId.equals("b")) {
                 // create blocked threads screen
                 screen = createBlockedThreadsScreen();
+            } else if (screenId.equals("w")) {
+                // create waiting threads screen
+                screen = createWaitingThreadsScreen();
+            } else if (screenId.equals("a")) {
+                // create top allocators screen
+                screen = createTopAllocatorsScreen();
+            } else if (screenId.equals("g")) {
+                // create thread groups screen
+                screen = createThreadGroupsScreen();
+            } else if (screenId.equals("l")) {
+                // create hot locks screen
+                screen = createHotLocksScreen();
+            } else if (screenId.equals("c")) {
+                // create GC causes screen
+                screen = createGCCausesScreen();
             } else {
                 // create top threads screen
                 screen = createTopThreadsScreen();
@@ -287,6 +429,12 @@ public class ConsoleController {
                     String.format("%.2f", memoryStatsMXBean.getMemorySurvivorRate()) + " survivor,        " +
                     String.format("%.2f", memoryStatsMXBean.getMemoryPromotionRate()) + " tenured\n");
         }
+        sb.append("Non-Heap(MB):        " + String.format("%.2f", nonHeapStatsMXBean.getDirectBufferUsed()) + " direct,        " +
+                String.format("%.2f", nonHeapStatsMXBean.getMetaspaceUsed()) + " metaspace,        " +
+                String.format("%.2f", nonHeapStatsMXBean.getCodeCacheUsed()) + " code cache\n");
+        sb.append("Non-Heap(MB/s):      " + String.format("%.2f", nonHeapStatsMXBean.getDirectBufferGrowthRate()) + " direct,        " +
+                String.format("%.2f", nonHeapStatsMXBean.getMetaspaceGrowthRate()) + " metaspace,        " +
+                String.format("%.2f", nonHeapStatsMXBean.getCodeCacheGrowthRate()) + " code cache\n");
         sb.append("GC Overhead(%):      " + String.format("%.4f", gcStatsMXBean.getGcOverhead()) + "\n");
 
         return sb.toString();
@@ -347,7 +495,7 @@ public class ConsoleController {
         sb.append("\n\n");
 
         sb.append(getThreadInteractionHelp(counter));
-        sb.append(", [b] to view blocked threads, [q] to quit\n");
+        sb.append(", [b] to view blocked threads, [w] to view waiting threads, [a] to view top allocators, [g] to view thread groups, [l] to view hot locks, [c] to view GC causes, [q] to quit\n");
 
         return sb.toString();
 
@@ -412,6 +560,260 @@ public class ConsoleController {
 
     }
 
+    private String createWaitingThreadsScreen() {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(createTop4JHeader());
+        sb.append("\n");
+        sb.append("WAITING THREADS:\n");
+        sb.append("\n");
+        sb.append(highlightHeading("#  TID     S  %WAITED   WAITED(ms)  THREAD NAME"));
+
+        // check waiting thread tracking is available for this JVM
+        if (waitingThreadMXBeans.isEmpty()) {
+            sb.append("\n");
+            sb.append("Waiting thread tracking disabled or not supported by the target JVM.\n");
+            sb.append("\n\n");
+            sb.append("Hit [t] to view top threads, [b] to view blocked threads, [q] to quit\n");
+
+            return sb.toString();
+        }
+
+        // initialise thread counter
+        int counter = 0;
+        for (WaitingThreadMXBean waitingThreadMXBean : waitingThreadMXBeans) {
+
+            String threadName = waitingThreadMXBean.getThreadName();
+            // check we've got a waiting thread, continue to next waitingThreadMXBean if not
+            if (threadName == null) {
+                continue;
+            }
+            Long threadId = waitingThreadMXBean.getThreadId();
+            String threadState = abbreviateThreadState(threadHelper.getThreadState(threadId));
+            Double threadWaitedPercentage = waitingThreadMXBean.getThreadWaitedPercentage();
+            if (threadName.length() > MAX_THREAD_NAME_LENGTH) {
+                threadName = threadName.substring(0, MAX_THREAD_NAME_LENGTH - 1);
+            }
+            sb.append(String.format("%1$-2s", counter) + " " +
+                    String.format("%1$-8s", threadId) +
+                    String.format("%1$-3s", threadState) +
+                    String.format("%1$-10.1f", threadWaitedPercentage) +
+                    String.format("%1$-12s", waitingThreadMXBean.getThreadWaitedTime()) +
+                    String.format("%1$-50s", threadName) +
+                    "\n");
+
+            // store thread Id
+            waitingThreadIds.put(counter, waitingThreadMXBean.getThreadId());
+            // increment thread counter
+            counter++;
+        }
+        if (counter == 0) {
+            sb.append("\n");
+            sb.append("No waiting threads detected.\n");
+        }
+        sb.append("\n\n");
+        sb.append(getThreadInteractionHelp(counter));
+        sb.append(", [t] to view top threads, [b] to view blocked threads, [q] to quit\n");
+
+        return sb.toString();
+
+    }
+
+    private String createTopAllocatorsScreen() {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(createTop4JHeader());
+        sb.append("\n");
+        sb.append("TOP ALLOCATORS:\n");
+        sb.append("\n");
+        sb.append(highlightHeading("#  TID     S  MB/S      %ALLOC  THREAD NAME"));
+
+        // check top allocator tracking is available for this JVM
+        if (topAllocatorMXBeans.isEmpty()) {
+            sb.append("\n");
+            sb.append("Thread allocation tracking not supported by the target JVM.\n");
+            sb.append("\n\n");
+            sb.append("Hit [t] to view top threads, [b] to view blocked threads, [q] to quit\n");
+
+            return sb.toString();
+        }
+
+        // initialise thread counter
+        int counter = 0;
+        for (TopAllocatorMXBean topAllocatorMXBean : topAllocatorMXBeans) {
+
+            String threadName = topAllocatorMXBean.getThreadName();
+            // check we've got a top allocator, continue to next topAllocatorMXBean if not
+            if (threadName == null) {
+                continue;
+            }
+            Long threadId = topAllocatorMXBean.getThreadId();
+            String threadState = abbreviateThreadState(threadHelper.getThreadState(threadId));
+            Double threadAllocationRate = topAllocatorMXBean.getThreadAllocationRate();
+            Double threadAllocationShare = topAllocatorMXBean.getThreadAllocationShare();
+            if (threadName.length() > MAX_THREAD_NAME_LENGTH) {
+                threadName = threadName.substring(0, MAX_THREAD_NAME_LENGTH - 1);
+            }
+            sb.append(String.format("%1$-2s", counter) + " " +
+                    String.format("%1$-8s", threadId) +
+                    String.format("%1$-3s", threadState) +
+                    String.format("%1$-10.2f", threadAllocationRate) +
+                    String.format("%1$-8.1f", threadAllocationShare) +
+                    String.format("%1$-64s", threadName) +
+                    "\n");
+
+            // store thread Id
+            topAllocatorIds.put(counter, topAllocatorMXBean.getThreadId());
+            // increment thread counter
+            counter++;
+        }
+        sb.append("\n\n");
+        sb.append(getThreadInteractionHelp(counter));
+        sb.append(", [t] to view top threads, [b] to view blocked threads, [q] to quit\n");
+
+        return sb.toString();
+
+    }
+
+    private String createThreadGroupsScreen() {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(createTop4JHeader());
+        sb.append("\n");
+        sb.append("THREAD GROUPS:\n");
+        sb.append("\n");
+        sb.append(highlightHeading("THREADS  R     B     W     T     %CPU    BLOCKED(ms)  GROUP NAME"));
+
+        // check thread group tracking is enabled
+        if (topThreadGroupMXBeans.isEmpty()) {
+            sb.append("\n");
+            sb.append("Thread group tracking disabled.\n");
+        }
+
+        for (TopThreadGroupMXBean topThreadGroupMXBean : topThreadGroupMXBeans) {
+
+            String groupName = topThreadGroupMXBean.getGroupName();
+            // check we've got a thread group, continue to next topThreadGroupMXBean if not
+            if (groupName == null) {
+                continue;
+            }
+            if (groupName.length() > MAX_GROUP_NAME_LENGTH) {
+                groupName = groupName.substring(0, MAX_GROUP_NAME_LENGTH - 1);
+            }
+            sb.append(String.format("%1$-9s", topThreadGroupMXBean.getThreadCount()) +
+                    String.format("%1$-6s", topThreadGroupMXBean.getRunnableThreadCount()) +
+                    String.format("%1$-6s", topThreadGroupMXBean.getBlockedThreadCount()) +
+                    String.format("%1$-6s", topThreadGroupMXBean.getWaitingThreadCount()) +
+                    String.format("%1$-6s", topThreadGroupMXBean.getTimedWaitingThreadCount()) +
+                    String.format("%1$-8.1f", topThreadGroupMXBean.getCpuUsage()) +
+                    String.format("%1$-13s", topThreadGroupMXBean.getBlockedTime()) +
+                    String.format("%1$-64s", groupName) +
+                    "\n");
+        }
+        sb.append("\n\n");
+        sb.append("Hit [t] to view top threads, [b] to view blocked threads, [a] to view top allocators, [l] to view hot locks, [c] to view GC causes, [q] to quit\n");
+
+        return sb.toString();
+
+    }
+
+    private String createHotLocksScreen() {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(createTop4JHeader());
+        sb.append("\n");
+        sb.append("HOT LOCKS:\n");
+        sb.append("\n");
+        sb.append(highlightHeading("#  WAITERS  BLOCKED(ms)  OWNER TID  LOCK NAME"));
+
+        // check hot lock tracking is enabled
+        if (hotLockMXBeans.isEmpty()) {
+            sb.append("\n");
+            sb.append("Hot lock tracking disabled.\n");
+            sb.append("\n\n");
+            sb.append("Hit [t] to view top threads, [b] to view blocked threads, [q] to quit\n");
+
+            return sb.toString();
+        }
+
+        // initialise lock counter
+        int counter = 0;
+        for (HotLockMXBean hotLockMXBean : hotLockMXBeans) {
+
+            String lockName = hotLockMXBean.getLockName();
+            // check we've got a contended lock, continue to next hotLockMXBean if not
+            if (lockName == null) {
+                continue;
+            }
+            if (lockName.length() > MAX_LOCK_NAME_LENGTH) {
+                lockName = lockName.substring(0, MAX_LOCK_NAME_LENGTH - 1);
+            }
+            sb.append(String.format("%1$-2s", counter) + " " +
+                    String.format("%1$-9s", hotLockMXBean.getWaiterCount()) +
+                    String.format("%1$-13s", hotLockMXBean.getBlockedTime()) +
+                    String.format("%1$-11s", hotLockMXBean.getOwnerThreadId()) +
+                    String.format("%1$-64s", lockName) +
+                    "\n");
+            // show the owner chain, i.e. what the lock owner is itself waiting on
+            sb.append("   top owners: " + hotLockMXBean.getTopOwners() + "\n");
+            sb.append("   owner chain: " + hotLockMXBean.getOwnerChain() + "\n");
+
+            // store lock owner thread Id
+            hotLockOwnerIds.put(counter, hotLockMXBean.getOwnerThreadId());
+            // increment lock counter
+            counter++;
+        }
+        sb.append("\n\n");
+        sb.append(getThreadInteractionHelp(counter).replace("thread stack trace", "lock owner stack trace"));
+        sb.append(", [t] to view top threads, [b] to view blocked threads, [q] to quit\n");
+
+        return sb.toString();
+
+    }
+
+    private String createGCCausesScreen() {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(createTop4JHeader());
+        sb.append("\n");
+        sb.append("GC CAUSES:\n");
+        sb.append("\n");
+        sb.append(highlightHeading("COUNT    PAUSE(ms)  MAX(ms)  TOTAL COUNT  TOTAL PAUSE(ms)  GC CAUSE"));
+
+        // check GC cause tracking is enabled
+        if (gcCauseMXBeans.isEmpty()) {
+            sb.append("\n");
+            sb.append("GC cause tracking disabled.\n");
+        }
+
+        // GC causes are ranked by the agent by pause time
+        for (GCCauseMXBean gcCauseMXBean : gcCauseMXBeans) {
+
+            String gcCause = gcCauseMXBean.getGcCause();
+            // check we've got a GC cause, continue to next gcCauseMXBean if not
+            if (gcCause == null) {
+                continue;
+            }
+            if (gcCause.length() > MAX_GC_CAUSE_LENGTH) {
+                gcCause = gcCause.substring(0, MAX_GC_CAUSE_LENGTH - 1);
+            }
+            sb.append(String.format("%1$-9s", gcCauseMXBean.getCollectionCount()) +
+                    String.format("%1$-11s", gcCauseMXBean.getPauseTime()) +
+                    String.format("%1$-9s", gcCauseMXBean.getMaxPauseTime()) +
+                    String.format("%1$-13s", gcCauseMXBean.getTotalCollectionCount()) +
+                    String.format("%1$-17s", gcCauseMXBean.getTotalPauseTime()) +
+                    String.format("%1$-64s", gcCause) +
+                    "\n");
+            // show the GC actions seen for this cause
+            sb.append("   actions: " + gcCauseMXBean.getGcActions() + "\n");
+        }
+        sb.append("\n\n");
+        sb.append("Hit [t] to view top threads, [b] to view blocked threads, [q] to quit\n");
+
+        return sb.toString();
+
+    }
+
     private String getThreadInteractionHelp(int counter) {
         if (counter <= 10)
             return "Hit [0-9] to view thread stack trace";
@@ -427,6 +829,12 @@ public class ConsoleController {
         long threadId;
         if (mainScreenId.equals("b")) {
             threadId = blockedThreadIds.get(threadNumber);
+        } else if (mainScreenId.equals("w")) {
+            threadId = waitingThreadIds.get(threadNumber);
+        } else if (mainScreenId.equals("a")) {
+            threadId = topAllocatorIds.get(threadNumber);
+        } else if (mainScreenId.equals("l")) {
+            threadId = hotLockOwnerIds.get(threadNumber);
         } else {
             threadId = topThreadIds.get(threadNumber);
         }
@@ -262,7 +262,11 @@ public class Top4J {
                 "thread.usage.cache.size=" + threadCacheSize + "," +
                 "thread.usage.cache.ttl=" + threadCacheTTL + "," +
                 "top.thread.count=" + displayThreadCount + "," +
-                "blocked.thread.count=" + displayThreadCount;
+                "blocked.thread.count=" + displayThreadCount + "," +
+                "waiting.thread.count=" + displayThreadCount + "," +
+                "top.allocator.count=" + displayThreadCount + "," +
+                "thread.group.count=" + displayThreadCount + "," +
+                "hot.lock.count=" + displayThreadCount;
         if (internalThreads)
             configOverrides += ",thread.internal.scan.limit=20";
 
@@ -33,9 +33,23 @@ public class Configurator {
     private boolean statsLoggerEnabled;
     private boolean topThreadsStackTraceLoggingEnabled;
     private boolean blockedThreadsStackTraceLoggingEnabled;
+    private boolean waitingThreadTrackingEnabled;
+    private boolean waitingThreadsStackTraceLoggingEnabled;
     private boolean threadContentionMonitoringEnabled;
+    private boolean threadContentionMonitoringAdaptiveEnabled;
     private boolean hotMethodProfilingEnabled;
+    private boolean hotMethodFlameGraphLoggingEnabled;
     private boolean threadUsageCacheEnabled;
+    private boolean threadUsageCacheAdaptiveEnabled;
+    private boolean threadUsageSamplingEnabled;
+    private boolean topAllocatorTrackingEnabled;
+    private boolean threadGroupTrackingEnabled;
+    private boolean hotLockTrackingEnabled;
+    private boolean gcCauseTrackingEnabled;
+    private boolean deadlockDetectionEnabled;
+    private String threadCpuSource;
+    private int procfsMaxOpenStatFiles;
+    private String hotMethodSampler;
 
     private static final Logger LOGGER = Logger.getLogger(Configurator.class.getName());
 
@@ -75,14 +89,56 @@ public class Configurator {
         // set blockedThreadsStackTraceLoggingEnabled status
         this.blockedThreadsStackTraceLoggingEnabled = Boolean.parseBoolean(config.get("blocked.threads.stack.trace.logging.enabled"));
 
+        // set waitingThreadTrackingEnabled status
+        this.waitingThreadTrackingEnabled = Boolean.parseBoolean(config.get("waiting.thread.tracking.enabled"));
+
+        // set waitingThreadsStackTraceLoggingEnabled status
+        this.waitingThreadsStackTraceLoggingEnabled = Boolean.parseBoolean(config.get("waiting.threads.stack.trace.logging.enabled"));
+
         // set threadContentionMonitoringEnabled status
         this.threadContentionMonitoringEnabled = Boolean.parseBoolean(config.get("thread.contention.monitoring.enabled"));
 
+        // set threadContentionMonitoringAdaptiveEnabled status
+        this.threadContentionMonitoringAdaptiveEnabled = Boolean.parseBoolean(config.get("thread.contention.monitoring.adaptive.enabled"));
+
         // set hotMethodProfilingEnabled status
         this.hotMethodProfilingEnabled = Boolean.parseBoolean(config.get("hot.method.profiling.enabled"));
 
+        // set hotMethodFlameGraphLoggingEnabled status
+        this.hotMethodFlameGraphLoggingEnabled = Boolean.parseBoolean(config.get("hot.method.flame.graph.logging.enabled"));
+
         // set threadUsageCacheEnabled status
         this.threadUsageCacheEnabled = Boolean.parseBoolean(config.get("thread.usage.cache.enabled"));
+
+        // set threadUsageCacheAdaptiveEnabled status
+        this.threadUsageCacheAdaptiveEnabled = Boolean.parseBoolean(config.get("thread.usage.cache.adaptive.enabled"));
+
+        // set threadUsageSamplingEnabled status
+        this.threadUsageSamplingEnabled = Boolean.parseBoolean(config.get("thread.usage.sampling.enabled"));
+
+        // set topAllocatorTrackingEnabled status
+        this.topAllocatorTrackingEnabled = Boolean.parseBoolean(config.get("top.allocator.tracking.enabled"));
+
+        // set threadGroupTrackingEnabled status
+        this.threadGroupTrackingEnabled = Boolean.parseBoolean(config.get("thread.group.tracking.enabled"));
+
+        // set hotLockTrackingEnabled status
+        this.hotLockTrackingEnabled = Boolean.parseBoolean(config.get("hot.lock.tracking.enabled"));
+
+        // set gcCauseTrackingEnabled status
+        this.gcCauseTrackingEnabled = Boolean.parseBoolean(config.get("gc.cause.tracking.enabled"));
+
+        // set deadlockDetectionEnabled status
+        this.deadlockDetectionEnabled = Boolean.parseBoolean(config.get("deadlock.detection.enabled"));
+
+        // set threadCpuSource
+        this.threadCpuSource = config.get("thread.cpu.source");
+
+        // set procfsMaxOpenStatFiles
+        this.procfsMaxOpenStatFiles = Integer.parseInt(config.get("thread.cpu.source.procfs.max.open.files"));
+
+        // set hotMethodSampler
+        this.hotMethodSampler = config.get("hot.method.sampler");
     }
 
     private void loadPropsFromClasspath(String propsFileName) {
@@ -213,10 +269,22 @@ public class Configurator {
         return this.blockedThreadsStackTraceLoggingEnabled;
     }
 
+    public boolean isWaitingThreadTrackingEnabled() {
+        return this.waitingThreadTrackingEnabled;
+    }
+
+    public boolean isWaitingThreadsStackTraceLoggingEnabled() {
+        return this.waitingThreadsStackTraceLoggingEnabled;
+    }
+
     public boolean isThreadContentionMonitoringEnabled() {
         return this.threadContentionMonitoringEnabled;
     }
 
+    public boolean isThreadContentionMonitoringAdaptiveEnabled() {
+        return this.threadContentionMonitoringAdaptiveEnabled;
+    }
+
     public boolean isHotMethodProfilingEnabledEnabled() {
         return this.hotMethodProfilingEnabled;
     }
@@ -225,10 +293,54 @@ public class Configurator {
         return this.topThreadsStackTraceLoggingEnabled;
     }
 
+    public boolean isHotMethodFlameGraphLoggingEnabled() {
+        return this.hotMethodFlameGraphLoggingEnabled;
+    }
+
     public boolean isThreadUsageCacheEnabled() {
         return this.threadUsageCacheEnabled;
     }
 
+    public boolean isThreadUsageCacheAdaptiveEnabled() {
+        return this.threadUsageCacheAdaptiveEnabled;
+    }
+
+    public boolean isThreadUsageSamplingEnabled() {
+        return this.threadUsageSamplingEnabled;
+    }
+
+    public boolean isTopAllocatorTrackingEnabled() {
+        return this.topAllocatorTrackingEnabled;
+    }
+
+    public boolean isThreadGroupTrackingEnabled() {
+        return this.threadGroupTrackingEnabled;
+    }
+
+    public boolean isHotLockTrackingEnabled() {
+        return this.hotLockTrackingEnabled;
+    }
+
+    public boolean isGCCauseTrackingEnabled() {
+        return this.gcCauseTrackingEnabled;
+    }
+
+    public boolean isDeadlockDetectionEnabled() {
+        return this.deadlockDetectionEnabled;
+    }
+
+    public String getThreadCpuSource() {
+        return this.threadCpuSource;
+    }
+
+    public int getProcfsMaxOpenStatFiles() {
+        return this.procfsMaxOpenStatFiles;
+    }
+
+    public String getHotMethodSampler() {
+        return this.hotMethodSampler;
+    }
+
     public MBeanServerConnection getMBeanServerConnection() {
         return mBeanServerConnection;
     }
@@ -30,18 +30,45 @@ public final class Constants {
     // JMX MXBean blocked thread stats type
     public static final String BLOCKED_THREAD_STATS_TYPE = "BlockedThread";
 
+    // JMX MXBean waiting thread stats type
+    public static final String WAITING_THREAD_STATS_TYPE = "WaitingThread";
+
+    // JMX MXBean top allocator stats type
+    public static final String TOP_ALLOCATOR_STATS_TYPE = "TopAllocator";
+
+    // JMX MXBean thread group stats type
+    public static final String THREAD_GROUP_STATS_TYPE = "ThreadGroup";
+
+    // JMX MXBean hot lock stats type
+    public static final String HOT_LOCK_STATS_TYPE = "HotLock";
+
+    // JMX MXBean GC cause stats type
+    public static final String GC_CAUSE_STATS_TYPE = "GCCause";
+
     // JMX MXBean hot method stats type
     public static final String HOT_METHOD_STATS_TYPE = "HotMethod";
 
     // JMX MXBean threads stats type
     public static final String THREADS_STATS_TYPE = "ThreadStats";
 
+    // JMX MXBean deadlock stats type
+    public static final String DEADLOCK_STATS_TYPE = "DeadlockStats";
+
+    // JMX notification type emitted when a deadlock is detected
+    public static final String DEADLOCK_NOTIFICATION_TYPE = "io.top4j.deadlock.detected";
+
+    // JMX notification type emitted when the projected time to heap exhaustion falls below the horizon
+    public static final String HEAP_EXHAUSTION_NOTIFICATION_TYPE = "io.top4j.heap.exhaustion.projected";
+
     // JMX MXBean memory stats type
     public static final String MEMORY_STATS_TYPE = "MemoryStats";
 
     // JMX MXBean heap stats type
     public static final String HEAP_STATS_TYPE = "HeapStats";
 
+    // JMX MXBean non-heap stats type
+    public static final String NON_HEAP_STATS_TYPE = "NonHeapStats";
+
     // JMX MXBean GC stats type
     public static final String GC_STATS_TYPE = "GCStats";
 
@@ -69,6 +96,12 @@ public final class Constants {
     // properties file name argument token (used to specify properties file location via agent argument)
     public static final String PROPERTIES_FILE_NAME_ARG = "config.file";
 
+    // procfs thread CPU source name (see thread.cpu.source property)
+    public static final String THREAD_CPU_SOURCE_PROCFS = "procfs";
+
+    // JFR hot method sampler name (see hot.method.sampler property)
+    public static final String HOT_METHOD_SAMPLER_JFR = "jfr";
+
     // 1 Mega Byte
     public static final int ONE_MEGA_BYTE = 1048576;
 
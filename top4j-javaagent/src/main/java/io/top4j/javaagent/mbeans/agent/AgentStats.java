@@ -17,6 +17,7 @@
 package io.top4j.javaagent.mbeans.agent;
 
 import io.top4j.javaagent.mbeans.StatsMXBean;
+import io.top4j.javaagent.mbeans.jvm.threads.DeadlockStatsMXBean;
 import io.top4j.javaagent.profiler.CpuTime;
 
 import java.lang.management.ManagementFactory;
@@ -29,18 +30,20 @@ public class AgentStats implements AgentStatsMXBean {
     volatile private double agentCpuTime;
     volatile private double agentCpuUtil;
     volatile private double mBeanCpuTime;
+    volatile private double deadlockDetectionCpuTime;
     volatile private long iterations;
     private int availableProcessors;
     private long lastCpuTime;
     private long lastSystemTime;
     private CpuTime cpuTime = new CpuTime();
     private List<StatsMXBean> jvmStatsMBeans;
+    private OverheadGovernor overheadGovernor;
     private boolean enabled = true;
     private String failureReason;
 
     private static final Logger LOGGER = Logger.getLogger(AgentStats.class.getName());
 
-    public AgentStats(List<StatsMXBean> jvmStatsMBeans) {
+    public AgentStats(List<StatsMXBean> jvmStatsMBeans, OverheadGovernor overheadGovernor) {
 
         this.setAgentCpuUtil(0);
         this.setMBeanCpuTime(0);
@@ -49,6 +52,7 @@ public class AgentStats implements AgentStatsMXBean {
         long systemTime = System.currentTimeMillis();
         this.setLastSystemTime(systemTime);
         this.jvmStatsMBeans = jvmStatsMBeans;
+        this.overheadGovernor = overheadGovernor;
 
         final OperatingSystemMXBean osbean =
                 ManagementFactory.getOperatingSystemMXBean();
@@ -77,6 +81,51 @@ public class AgentStats implements AgentStatsMXBean {
         return agentCpuUtil;
     }
 
+    @Override
+    public void setDeadlockDetectionCpuTime(double deadlockDetectionCpuTime) {
+        this.deadlockDetectionCpuTime = deadlockDetectionCpuTime;
+    }
+
+    @Override
+    public double getDeadlockDetectionCpuTime() {
+        return deadlockDetectionCpuTime;
+    }
+
+    @Override
+    public void setOverheadBudget(double overheadBudget) {
+        overheadGovernor.setOverheadBudget(overheadBudget);
+    }
+
+    @Override
+    public double getOverheadBudget() {
+        return overheadGovernor.getOverheadBudget();
+    }
+
+    @Override
+    public double getAgentCoreUsage() {
+        return overheadGovernor.getAgentCoreUsage();
+    }
+
+    @Override
+    public int getDegradationLevel() {
+        return overheadGovernor.getDegradationLevel();
+    }
+
+    @Override
+    public long getHotMethodSampleInterval() {
+        return overheadGovernor.getHotMethodSampleInterval();
+    }
+
+    @Override
+    public int getHotMethodMaxDepth() {
+        return overheadGovernor.getHotMethodMaxDepth();
+    }
+
+    @Override
+    public int getThreadSamplingLimit() {
+        return overheadGovernor.getThreadSamplingLimit();
+    }
+
     @Override
     public void setIterations(long iterations) {
         this.iterations = iterations;
@@ -133,7 +182,12 @@ public class AgentStats implements AgentStatsMXBean {
         // aggregate agentCpuTime in milliseconds accumulated during this iteration
         double agentCpuTime = 0;
         for (StatsMXBean jvmStats : jvmStatsMBeans) {
-            agentCpuTime += jvmStats.getMBeanCpuTime();
+            double mBeanCpuTime = jvmStats.getMBeanCpuTime();
+            if (jvmStats instanceof DeadlockStatsMXBean) {
+                // report the deadlock detector cost separately
+                this.deadlockDetectionCpuTime = mBeanCpuTime;
+            }
+            agentCpuTime += mBeanCpuTime;
         }
         double threadCpuUsage = (agentCpuTime / timeDiffMillis) * 100;
         double cpuUtil = threadCpuUsage / availableProcessors;
@@ -145,6 +199,8 @@ public class AgentStats implements AgentStatsMXBean {
         this.agentCpuTime = agentCpuTime;
         // update last system time
         this.lastSystemTime = systemTime;
+        // adjust collector fidelity to keep the agent CPU usage within the overhead budget
+        overheadGovernor.update(agentCpuTime, timeDiffMillis);
     }
 
     private synchronized void updateIterations() {
@@ -48,6 +48,64 @@ public interface AgentStatsMXBean extends StatsMXBean {
      */
     double getAgentCpuUtil();
 
+    /**
+     * Sets the amount of CPU time in milliseconds consumed by deadlock detection during the last iteration.
+     * @param deadlockDetectionCpuTime CPU time in milliseconds
+     */
+    void setDeadlockDetectionCpuTime(double deadlockDetectionCpuTime);
+
+    /**
+     * Returns the amount of CPU time in milliseconds consumed by deadlock detection during the last iteration.
+     * The deadlock detection CPU time is included within the AgentCpuTime.
+     * @return the CPU time in milliseconds
+     */
+    double getDeadlockDetectionCpuTime();
+
+    /**
+     * Sets the agent overhead budget, i.e. the CPU usage the Top4J JavaAgent may consume as a percentage of one core.
+     * While the agent is over budget the fidelity of the collectors is reduced (see DegradationLevel).
+     * @param overheadBudget the overhead budget as a percentage of one core (0 = no budget)
+     */
+    void setOverheadBudget(double overheadBudget);
+
+    /**
+     * Returns the agent overhead budget, i.e. the CPU usage the Top4J JavaAgent may consume as a percentage of one core.
+     * @return the overhead budget as a percentage of one core (0 = no budget)
+     */
+    double getOverheadBudget();
+
+    /**
+     * Returns the CPU usage of the Top4J JavaAgent background threads during the last iteration as a percentage of one core,
+     * i.e. the CPU usage compared with the overhead budget.
+     * @return CPU usage as a percentage of one core
+     */
+    double getAgentCoreUsage();
+
+    /**
+     * Returns the collector degradation level set by the overhead governor, where 0 is full fidelity and each level halves
+     * the hot method sampling rate, hot method stack depth and thread usage sampling size.
+     * @return the degradation level
+     */
+    int getDegradationLevel();
+
+    /**
+     * Returns the effective interval in milliseconds between hot method samples.
+     * @return the hot method sample interval in milliseconds or 0 if hot method sampling is not governed
+     */
+    long getHotMethodSampleInterval();
+
+    /**
+     * Returns the effective maximum stack depth of hot method samples.
+     * @return the hot method stack depth or 0 if hot method sampling is not governed
+     */
+    int getHotMethodMaxDepth();
+
+    /**
+     * Returns the maximum number of threads randomly sampled per thread usage update.
+     * @return the thread sampling limit or 0 if thread coverage is not limited
+     */
+    int getThreadSamplingLimit();
+
     /**
      * Sets the number of Top4J JavaAgent stats update iterations since the JavaAgent was enabled.
      * @param iterations the number of iterations
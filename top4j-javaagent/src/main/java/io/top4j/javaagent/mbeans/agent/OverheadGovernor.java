@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.agent;
+
+import io.top4j.javaagent.mbeans.jvm.threads.HotMethodTracker;
+import io.top4j.javaagent.mbeans.jvm.threads.HotMethods;
+import io.top4j.javaagent.mbeans.jvm.threads.ThreadUsage;
+
+import java.util.logging.Logger;
+
+/**
+ * Feedback loop which keeps the agent's CPU usage within an overhead budget by trading collector fidelity for cost.
+ * <p>
+ * On each AgentStats update the agent CPU usage (as a percentage of one core) is compared with the budget. While it's over
+ * budget the degradation level is raised one step per iteration, and once it's been below half of the budget for
+ * RESTORE_ITERATIONS consecutive iterations the degradation level is lowered one step. Each degradation level N (0 = full
+ * fidelity, MAX_LEVEL = lowest fidelity):
+ * <ul>
+ * <li>samples hot methods every 2^N hot method polls, i.e. at 2^N times the hot.method.poll.frequency interval</li>
+ * <li>caps the hot method stack depth at hot.method.profiler.max.depth / 2^N frames (but no less than MIN_MAX_DEPTH)</li>
+ * <li>limits the thread usage update to a statistical sample of thread count / 2^N threads (but no less than
+ * MIN_THREAD_SAMPLING_LIMIT) - see thread.usage.sampling.enabled</li>
+ * </ul>
+ * The hot method sampling rate and stack depth are only governed when hot methods are sampled via ThreadMXBean - the JFR
+ * hot method sampler has a fixed cost.
+ */
+public class OverheadGovernor {
+
+    public static final int MAX_LEVEL = 4;
+    public static final int RESTORE_ITERATIONS = 3;
+    private static final int MIN_MAX_DEPTH = 16;
+    private static final int MIN_THREAD_SAMPLING_LIMIT = 64;
+
+    private final ThreadUsage threadUsage;
+    private final HotMethodTracker hotMethodTracker;
+    private final HotMethods hotMethods;
+    private final long hotMethodPollInterval;
+    private final int hotMethodMaxDepth;
+    volatile private double overheadBudget;
+    volatile private double agentCoreUsage;
+    volatile private int degradationLevel;
+    private int underBudgetIterations;
+
+    private static final Logger LOGGER = Logger.getLogger(OverheadGovernor.class.getName());
+
+    /**
+     * @param overheadBudget        the agent CPU usage budget as a percentage of one core (0 = no budget)
+     * @param threadUsage           the thread usage collector or null if thread stats are not available
+     * @param hotMethodPollInterval the configured hot method poll interval in milliseconds
+     */
+    public OverheadGovernor(double overheadBudget, ThreadUsage threadUsage, long hotMethodPollInterval) {
+
+        this.overheadBudget = overheadBudget;
+        this.threadUsage = threadUsage;
+        this.hotMethodTracker = threadUsage != null ? threadUsage.getHotMethodTracker() : null;
+        this.hotMethods = threadUsage != null ? threadUsage.getHotMethods() : null;
+        this.hotMethodPollInterval = hotMethodPollInterval;
+        this.hotMethodMaxDepth = hotMethodTracker != null ? hotMethodTracker.getMaxDepth() : 0;
+    }
+
+    /**
+     * Adjust the degradation level according to the agent CPU time consumed during the last iteration.
+     *
+     * @param agentCpuTime   the agent CPU time in milliseconds consumed during the last iteration
+     * @param timeDiffMillis the length of the last iteration in milliseconds
+     */
+    public synchronized void update(double agentCpuTime, long timeDiffMillis) {
+
+        if (timeDiffMillis <= 0) {
+            return;
+        }
+        // agent CPU usage as a percentage of one core
+        this.agentCoreUsage = agentCpuTime / timeDiffMillis * 100;
+        int level = degradationLevel;
+        if (overheadBudget <= 0) {
+            // no budget - full fidelity
+            level = 0;
+            underBudgetIterations = 0;
+        } else if (agentCoreUsage > overheadBudget) {
+            // over budget - degrade collector fidelity
+            underBudgetIterations = 0;
+            level = Math.min(level + 1, MAX_LEVEL);
+        } else if (agentCoreUsage < overheadBudget / 2 && level > 0) {
+            // comfortably within budget - restore fidelity once the agent has been within budget for a while
+            if (++underBudgetIterations >= RESTORE_ITERATIONS) {
+                underBudgetIterations = 0;
+                level--;
+            }
+        } else {
+            underBudgetIterations = 0;
+        }
+        if (level != degradationLevel) {
+            LOGGER.info("Agent CPU usage " + String.format("%.3f", agentCoreUsage) + "% of one core (budget " +
+                    overheadBudget + "%) - changing degradation level from " + degradationLevel + " to " + level + ".");
+            this.degradationLevel = level;
+        }
+        // apply degradation level
+        applyDegradationLevel();
+    }
+
+    private void applyDegradationLevel() {
+
+        if (hotMethodTracker != null) {
+            // sample hot methods every 2^level polls
+            hotMethodTracker.setSampleStride(1 << degradationLevel);
+            hotMethods.setSamplePeriod(getHotMethodSampleInterval());
+            hotMethodTracker.setMaxDepth(getHotMethodMaxDepth());
+        }
+        if (threadUsage != null) {
+            // sample thread count / 2^level threads per update (the thread count is tracked as threads come and go)
+            threadUsage.setThreadSamplingLimit(getThreadSamplingLimit());
+        }
+    }
+
+    public void setOverheadBudget(double overheadBudget) {
+        this.overheadBudget = overheadBudget;
+    }
+
+    public double getOverheadBudget() {
+        return overheadBudget;
+    }
+
+    /**
+     * @return the agent CPU usage during the last iteration as a percentage of one core
+     */
+    public double getAgentCoreUsage() {
+        return agentCoreUsage;
+    }
+
+    public int getDegradationLevel() {
+        return degradationLevel;
+    }
+
+    /**
+     * @return the effective hot method sample interval in milliseconds or 0 if not governed
+     */
+    public long getHotMethodSampleInterval() {
+        return hotMethodTracker != null ? hotMethodPollInterval << degradationLevel : 0;
+    }
+
+    /**
+     * @return the effective hot method stack depth or 0 if not governed
+     */
+    public int getHotMethodMaxDepth() {
+        if (hotMethodTracker == null) {
+            return 0;
+        }
+        return degradationLevel == 0 ? hotMethodMaxDepth : Math.max(hotMethodMaxDepth >> degradationLevel, Math.min(MIN_MAX_DEPTH, hotMethodMaxDepth));
+    }
+
+    /**
+     * @return the thread usage sampling limit or 0 if all threads are covered
+     */
+    public int getThreadSamplingLimit() {
+        if (threadUsage == null || degradationLevel == 0) {
+            return 0;
+        }
+        return (int) Math.max(threadUsage.getThreadCount() >> degradationLevel, MIN_THREAD_SAMPLING_LIMIT);
+    }
+
+}
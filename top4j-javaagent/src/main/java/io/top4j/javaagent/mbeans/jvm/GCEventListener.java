@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.top4j.javaagent.mbeans.jvm.gc.CollectorDescriptor;
+
+/**
+ * Receives the GC events published by the GCNotificationBus.
+ */
+public interface GCEventListener {
+
+    /**
+     * Handle a GC event reported by the collector described by collectorDescriptor.
+     *
+     * @param collectorDescriptor the collector which reported the GC event
+     * @param info                the decoded GC notification information
+     */
+    void handleGCEvent(CollectorDescriptor collectorDescriptor, GarbageCollectionNotificationInfo info);
+
+}
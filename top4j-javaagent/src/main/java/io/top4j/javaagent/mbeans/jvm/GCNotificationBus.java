@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.top4j.javaagent.exception.MBeanInitException;
+import io.top4j.javaagent.mbeans.jvm.gc.CollectorDescriptor;
+import io.top4j.javaagent.mbeans.jvm.gc.GarbageCollectorMXBeanHelper;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServerConnection;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Listens for the GarbageCollectorMXBean notifications of every garbage collector, decodes each notification once and
+ * publishes it as a GC event to the GC pause histograms, GC cause tracker, memory accountant and GC timeline, rather than
+ * each of them registering its own listener and decoding the same notification separately.
+ * <p>
+ * GC notifications are delivered on a single thread. Listeners may be added while notifications are being delivered.
+ */
+public class GCNotificationBus implements NotificationListener {
+
+    private final Map<String, CollectorDescriptor> collectorDescriptors = new HashMap<>();
+    private final List<GCEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    private static final Logger LOGGER = Logger.getLogger(GCNotificationBus.class.getName());
+
+    public GCNotificationBus(MBeanServerConnection mbsc) throws MBeanInitException {
+
+        // register this bus with every GarbageCollectorMXBean
+        GarbageCollectorMXBeanHelper gcMXBeanHelper = new GarbageCollectorMXBeanHelper(mbsc);
+        List<ObjectName> registeredObjectNames = new ArrayList<>();
+        try {
+            for (CollectorDescriptor collectorDescriptor : gcMXBeanHelper.getCollectorDescriptors()) {
+                String gcName = collectorDescriptor.getName();
+                collectorDescriptors.put(gcName, collectorDescriptor);
+                ObjectName objectName = new ObjectName(ManagementFactory.GARBAGE_COLLECTOR_MXBEAN_DOMAIN_TYPE + ",name=" + gcName);
+                mbsc.addNotificationListener(objectName, this, null, null);
+                registeredObjectNames.add(objectName);
+            }
+        } catch (Exception | LinkageError e) {
+            // GC notifications not supported by this JVM - don't leave a partially registered bus behind
+            for (ObjectName objectName : registeredObjectNames) {
+                try {
+                    mbsc.removeNotificationListener(objectName, this);
+                } catch (Exception re) {
+                    LOGGER.fine("Unable to remove GC notification listener from " + objectName + " due to: " + re.getMessage());
+                }
+            }
+            throw new MBeanInitException(new Exception(e), "Unable to register GC notification listener due to: " + e.getMessage());
+        }
+        LOGGER.fine("GC notification bus garbage collectors = " + collectorDescriptors.keySet());
+
+    }
+
+    /**
+     * Add a listener to receive every subsequent GC event.
+     *
+     * @param listener the GC event listener
+     */
+    public void addListener(GCEventListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+
+        if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+            return;
+        }
+
+        // retrieve the GC notification information
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        CollectorDescriptor collectorDescriptor = collectorDescriptors.get(info.getGcName());
+        if (collectorDescriptor == null) {
+            return;
+        }
+
+        // publish GC event - a failing listener mustn't stop the others receiving it
+        for (GCEventListener listener : listeners) {
+            try {
+                listener.handleGCEvent(collectorDescriptor, info);
+            } catch (RuntimeException e) {
+                LOGGER.fine("GC event listener " + listener.getClass().getSimpleName() + " failed due to: " + e.getMessage());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.top4j.javaagent.mbeans.jvm;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.top4j.javaagent.mbeans.jvm.gc.CollectorDescriptor;
+
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the GC pause time of every garbage collection and the post-GC tenured (old generation) heap usage of every old,
+ * mixed or full collection, as reported via GarbageCollectorMXBean notifications, in a ring of per-second slots covering
+ * the last 15 minutes. Tenured heap usage after a young collection is ignored, as promotion makes it rise between old
+ * collections regardless of the long term trend, except on single generation heaps where every cycle collects the whole
+ * heap. The GC and heap stats read the ring to calculate the GC overhead over sliding windows of up to 15 minutes and to
+ * project the time to tenured heap exhaustion, independently of the collector poll frequency.
+ * <p>
+ * The ring is lock free: GC notifications are delivered on a single thread, which is the only writer, while readers sum
+ * the slots stamped with a second inside their window. A reader racing with the writer recycling a slot may miss the GC
+ * events of that one second.
+ */
+public class GCTimeline implements GCEventListener {
+
+    // the number of per-second slots, i.e. the longest window
+    public static final int WINDOW_SECONDS = 15 * 60;
+    // the minimum number of post-GC tenured heap usage samples required to project the time to heap exhaustion
+    private static final int MIN_USAGE_SAMPLES = 3;
+    // the minimum time span in seconds of the post-GC tenured heap usage samples, so that a projection isn't made from a
+    // handful of collections
+    private static final int MIN_USAGE_SPAN_SECONDS = 60;
+
+    // the GC action reported by collections of the old generation, e.g. a G1 full GC
+    private static final String MAJOR_GC_ACTION = "end of major GC";
+
+    private final String tenuredPoolName;
+    private final boolean singleGenerationHeap;
+    private final long startSecond;
+    private final AtomicLongArray seconds = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray pauseTimes = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray tenuredUsages = new AtomicLongArray(WINDOW_SECONDS);
+    private volatile long tenuredMax = -1;
+
+    public GCTimeline(String tenuredPoolName, boolean singleGenerationHeap, long startTimeMillis) {
+
+        this.tenuredPoolName = tenuredPoolName;
+        this.singleGenerationHeap = singleGenerationHeap;
+        this.startSecond = startTimeMillis / 1000;
+    }
+
+    @Override
+    public void handleGCEvent(CollectorDescriptor collectorDescriptor, GarbageCollectionNotificationInfo info) {
+
+        record(collectorDescriptor, info.getGcAction(), System.currentTimeMillis(), info.getGcInfo().getDuration(),
+                info.getGcInfo().getMemoryUsageAfterGc().get(tenuredPoolName));
+    }
+
+    /**
+     * Record a GC event reported by the collector described by collectorDescriptor.
+     *
+     * @param collectorDescriptor the collector which reported the GC event
+     * @param gcAction            the GC action, e.g. "end of minor GC" or "end of major GC" (or null if not available)
+     * @param timeMillis          the time the GC event was reported
+     * @param duration            the GC duration in milliseconds
+     * @param tenuredUsageAfterGC the tenured heap usage after the GC event (or null if not available)
+     */
+    public void record(CollectorDescriptor collectorDescriptor, String gcAction, long timeMillis, long duration, MemoryUsage tenuredUsageAfterGC) {
+
+        long second = timeMillis / 1000;
+        int slot = (int) (second % WINDOW_SECONDS);
+        if (seconds.get(slot) != second) {
+            // recycle the slot last used WINDOW_SECONDS ago (or more) - clear it before stamping it with this second
+            pauseTimes.set(slot, 0);
+            tenuredUsages.set(slot, -1);
+            seconds.set(slot, second);
+        }
+        if (collectorDescriptor.isPause()) {
+            // only stop-the-world pauses contribute to the GC overhead
+            pauseTimes.addAndGet(slot, duration);
+        }
+        if (collectorDescriptor.isCollection() && tenuredUsageAfterGC != null && isTenuredCollection(collectorDescriptor, gcAction)) {
+            // keep the latest post-GC tenured heap usage of this second
+            tenuredUsages.set(slot, tenuredUsageAfterGC.getUsed());
+            tenuredMax = tenuredUsageAfterGC.getMax();
+        }
+    }
+
+    /**
+     * @return true if the GC event collected the tenured heap, i.e. it was an old, mixed or full collection or a collection
+     * of a single generation heap
+     */
+    private boolean isTenuredCollection(CollectorDescriptor collectorDescriptor, String gcAction) {
+
+        return singleGenerationHeap || !collectorDescriptor.isYoung() || MAJOR_GC_ACTION.equals(gcAction);
+    }
+
+    /**
+     * Get the GC overhead over the last windowSeconds seconds (or since the timeline started, if more recent), i.e. the
+     * percentage of wall clock time spent in stop-the-world GC pauses.
+     *
+     * @param windowSeconds the window in seconds, up to WINDOW_SECONDS
+     * @param timeMillis    the current time
+     * @return the GC overhead percentage
+     */
+    public double getGCOverhead(int windowSeconds, long timeMillis) {
+
+        long second = timeMillis / 1000;
+        // don't dilute the overhead with the seconds before the timeline started
+        long window = Math.max(1, Math.min(Math.min(windowSeconds, WINDOW_SECONDS), second - startSecond + 1));
+        long pauseTime = 0;
+        for (long s = second - window + 1; s <= second; s++) {
+            int slot = (int) (s % WINDOW_SECONDS);
+            if (seconds.get(slot) == s) {
+                pauseTime += pauseTimes.get(slot);
+            }
+        }
+        return Math.min(100.0, pauseTime * 100.0 / (window * 1000));
+    }
+
+    /**
+     * Get the tenured heap growth rate, i.e. the slope of a least squares regression of the tenured heap usage after old,
+     * mixed or full collections over the last WINDOW_SECONDS seconds.
+     *
+     * @param timeMillis the current time
+     * @return the tenured heap growth rate in bytes per second, or 0 if there aren't enough post-GC usage samples
+     */
+    public double getTenuredGrowthRate(long timeMillis) {
+
+        double[] fit = fitTenuredUsage(timeMillis);
+        return fit == null ? 0.0 : fit[1];
+    }
+
+    /**
+     * Project the time until the tenured heap is exhausted, i.e. until post-GC tenured heap usage reaches the tenured heap
+     * max size if it keeps growing at the tenured heap growth rate.
+     *
+     * @param timeMillis the current time
+     * @return the time to tenured heap exhaustion in seconds, or -1 if the tenured heap isn't growing, its max size is
+     * undefined or there aren't enough post-GC usage samples
+     */
+    public long getTimeToExhaustion(long timeMillis) {
+
+        double[] fit = fitTenuredUsage(timeMillis);
+        long max = tenuredMax;
+        if (fit == null || fit[1] <= 0 || max < 0) {
+            return -1;
+        }
+        // fit[0] is the fitted tenured heap usage now
+        return (long) Math.max(0, (max - fit[0]) / fit[1]);
+    }
+
+    /**
+     * Fit post-GC tenured heap usage against time (in seconds relative to timeMillis) via least squares regression.
+     *
+     * @return the intercept (i.e. the fitted usage at timeMillis) and slope, or null if there aren't enough samples or they
+     * span less than MIN_USAGE_SPAN_SECONDS
+     */
+    private double[] fitTenuredUsage(long timeMillis) {
+
+        long second = timeMillis / 1000;
+        int n = 0;
+        double minX = 0;
+        double maxX = 0;
+        double sumX = 0;
+        double sumY = 0;
+        double sumXX = 0;
+        double sumXY = 0;
+        for (long s = second - WINDOW_SECONDS + 1; s <= second; s++) {
+            int slot = (int) (s % WINDOW_SECONDS);
+            long usage = tenuredUsages.get(slot);
+            if (seconds.get(slot) != s || usage < 0) {
+                continue;
+            }
+            double x = s - second;
+            if (n == 0) {
+                // samples are visited oldest first
+                minX = x;
+            }
+            maxX = x;
+            n++;
+            sumX += x;
+            sumY += usage;
+            sumXX += x * x;
+            sumXY += x * usage;
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        if (n < MIN_USAGE_SAMPLES || maxX - minX < MIN_USAGE_SPAN_SECONDS || denominator == 0) {
+            return null;
+        }
+        double slope = (n * sumXY - sumX * sumY) / denominator;
+        double intercept = (sumY - slope * sumX) / n;
+        return new double[]{intercept, slope};
+    }
+
+}
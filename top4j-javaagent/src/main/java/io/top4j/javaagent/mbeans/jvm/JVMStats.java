@@ -21,19 +21,25 @@ import io.top4j.javaagent.config.Constants;
 import io.top4j.javaagent.mbeans.StatsMXBean;
 import io.top4j.javaagent.mbeans.agent.AgentStats;
 import io.top4j.javaagent.mbeans.agent.AgentStatsMXBean;
+import io.top4j.javaagent.mbeans.agent.OverheadGovernor;
+import io.top4j.javaagent.mbeans.jvm.gc.GCCause;
+import io.top4j.javaagent.mbeans.jvm.gc.GCCauses;
 import io.top4j.javaagent.mbeans.jvm.gc.GCStats;
 import io.top4j.javaagent.mbeans.jvm.gc.GCStatsMXBean;
 import io.top4j.javaagent.mbeans.jvm.heap.HeapStats;
 import io.top4j.javaagent.mbeans.jvm.heap.HeapStatsMXBean;
+import io.top4j.javaagent.mbeans.jvm.memory.MemoryPoolMXBeanHelper;
 import io.top4j.javaagent.mbeans.jvm.memory.MemoryStats;
 import io.top4j.javaagent.mbeans.jvm.memory.MemoryStatsMXBean;
+import io.top4j.javaagent.mbeans.jvm.nonheap.NonHeapStats;
+import io.top4j.javaagent.mbeans.jvm.nonheap.NonHeapStatsMXBean;
 import io.top4j.javaagent.mbeans.jvm.threads.*;
 import io.top4j.javaagent.mbeans.logger.StatsLogger;
 import io.top4j.javaagent.messaging.LoggerQueue;
 import io.top4j.javaagent.profiler.CpuTime;
 import io.top4j.javaagent.utils.MBeanHelper;
+import io.top4j.javaagent.utils.StackTraceStore;
 
-import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -53,6 +59,10 @@ public class JVMStats implements JVMStatsMXBean {
     private List<StatsMXBean> jvmStatsMBeans = new ArrayList<>();
     private MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
     private Configurator config;
+    private ThreadUsage threadUsage;
+    private MemorySnapshotBus memorySnapshotBus;
+    private GCNotificationBus gcNotificationBus;
+    private GCTimeline gcTimeline;
     private boolean enabled = true;
     private String failureReason;
 
@@ -65,15 +75,35 @@ public class JVMStats implements JVMStatsMXBean {
         this.config = config;
         this.loggerQueue = loggerQueue;
 
+        // set the shared stack trace store limit
+        StackTraceStore.getSharedInstance().setLimit(Integer.parseInt(config.get("stack.trace.store.limit")));
+
         // initialise ThreadStats
         initThreadStats();
 
+        if (config.isDeadlockDetectionEnabled()) {
+            // initialise DeadlockStats
+            initDeadlockStats();
+        }
+
+        // initialise memory snapshot bus shared by HeapStats, NonHeapStats and GCStats
+        initMemorySnapshotBus();
+
+        // initialise GC notification bus shared by MemoryStats, GCStats, the GC cause tracker and the GC timeline
+        initGCNotificationBus();
+
+        // initialise GC timeline shared by HeapStats and GCStats
+        initGCTimeline();
+
         // initialise MemoryStats
         initMemoryStats();
 
         // initialise HeapStats
         initHeapStats();
 
+        // initialise NonHeapStats
+        initNonHeapStats();
+
         // initialise GCStats
         initGCStats();
 
@@ -113,6 +143,15 @@ public class JVMStats implements JVMStatsMXBean {
 
         LOGGER.fine("Updating JVM stats....");
 
+        if (memorySnapshotBus != null) {
+            // take memory snapshot used by this iteration's heap, non-heap and GC stats updates
+            try {
+                memorySnapshotBus.refresh();
+            } catch (Exception e) {
+                LOGGER.warning("Failed to refresh memory snapshot due to: " + e.getMessage());
+            }
+        }
+
         // update jvmStats
         for (StatsMXBean jvmStats : jvmStatsMBeans) {
             jvmStats.update();
@@ -150,6 +189,22 @@ public class JVMStats implements JVMStatsMXBean {
         boolean threadContentionMonitoringEnabled = config.isThreadContentionMonitoringEnabled();
         // get configured blocked thread count
         int blockedThreadCount = Integer.parseInt(config.get("blocked.thread.count"));
+        // get configured waiting thread tracking switch
+        boolean waitingThreadTrackingEnabled = threadContentionMonitoringEnabled && config.isWaitingThreadTrackingEnabled();
+        // get configured waiting thread count
+        int waitingThreadCount = Integer.parseInt(config.get("waiting.thread.count"));
+        // get configured top allocator tracking switch
+        boolean topAllocatorTrackingEnabled = config.isTopAllocatorTrackingEnabled();
+        // get configured top allocator count
+        int topAllocatorCount = Integer.parseInt(config.get("top.allocator.count"));
+        // get configured thread group tracking switch
+        boolean threadGroupTrackingEnabled = config.isThreadGroupTrackingEnabled();
+        // get configured thread group count
+        int threadGroupCount = Integer.parseInt(config.get("thread.group.count"));
+        // get configured hot lock tracking switch
+        boolean hotLockTrackingEnabled = config.isHotLockTrackingEnabled();
+        // get configured hot lock count
+        int hotLockCount = Integer.parseInt(config.get("hot.lock.count"));
         // get configured hot method profiling switch
         boolean hotMethodProfilingEnabled = config.isHotMethodProfilingEnabledEnabled();
         // get configured hot method count
@@ -209,15 +264,122 @@ public class JVMStats implements JVMStatsMXBean {
             }
         }
 
+        // instantiate Map of WaitingThread MBeans
+        Map<Integer, WaitingThread> waitingThreadsMap = new HashMap<>();
+
+        if (waitingThreadTrackingEnabled) {
+
+            for (int rank = 1; rank <= waitingThreadCount; rank++) {
+
+                // convert rank to String
+                String ranking = String.valueOf(rank);
+
+                // instantiate new MBeanHelper based on this type, statsType and rank
+                MBeanHelper waitingThreadsMBeanHelper = null;
+                try {
+                    waitingThreadsMBeanHelper = new MBeanHelper(
+                            Constants.JVM_STATS_TYPE, Constants.WAITING_THREAD_STATS_TYPE, ranking);
+                    // instantiate new WaitingThread MBean
+                    WaitingThread waitingThreadBean = new WaitingThread(config.getMBeanServerConnection());
+                    // add waitingThreadBean to Map of waitingThreads MBeans
+                    waitingThreadsMap.put(rank, waitingThreadBean);
+                    // register waitingThreadBean with MBean server
+                    waitingThreadsMBeanHelper.registerMBean(waitingThreadBean);
+
+                } catch (Exception e) {
+                    LOGGER.severe("Failed to initialise waiting threads MBean with rank " + ranking + " due to: " + e.getMessage());
+                }
+            }
+        }
+
+        // instantiate Map of TopAllocator MBeans
+        Map<Integer, TopAllocator> topAllocatorsMap = new HashMap<>();
+
+        if (topAllocatorTrackingEnabled) {
+
+            for (int rank = 1; rank <= topAllocatorCount; rank++) {
+
+                // convert rank to String
+                String ranking = String.valueOf(rank);
+
+                // instantiate new MBeanHelper based on this type, statsType and rank
+                MBeanHelper topAllocatorsMBeanHelper = null;
+                try {
+                    topAllocatorsMBeanHelper = new MBeanHelper(
+                            Constants.JVM_STATS_TYPE, Constants.TOP_ALLOCATOR_STATS_TYPE, ranking);
+                    // instantiate new TopAllocator MBean
+                    TopAllocator topAllocatorBean = new TopAllocator(config.getMBeanServerConnection());
+                    // add topAllocatorBean to Map of topAllocators MBeans
+                    topAllocatorsMap.put(rank, topAllocatorBean);
+                    // register topAllocatorBean with MBean server
+                    topAllocatorsMBeanHelper.registerMBean(topAllocatorBean);
+
+                } catch (Exception e) {
+                    LOGGER.severe("Failed to initialise top allocator MBean with rank " + ranking + " due to: " + e.getMessage());
+                }
+            }
+        }
+
+        // instantiate Map of TopThreadGroup MBeans
+        Map<Integer, TopThreadGroup> topThreadGroupsMap = new HashMap<>();
+
+        if (threadGroupTrackingEnabled) {
+
+            for (int rank = 1; rank <= threadGroupCount; rank++) {
+
+                // convert rank to String
+                String ranking = String.valueOf(rank);
+
+                // instantiate new MBeanHelper based on this type, statsType and rank
+                MBeanHelper threadGroupsMBeanHelper = null;
+                try {
+                    threadGroupsMBeanHelper = new MBeanHelper(
+                            Constants.JVM_STATS_TYPE, Constants.THREAD_GROUP_STATS_TYPE, ranking);
+                    // instantiate new TopThreadGroup MBean
+                    TopThreadGroup topThreadGroupBean = new TopThreadGroup();
+                    // add topThreadGroupBean to Map of topThreadGroups MBeans
+                    topThreadGroupsMap.put(rank, topThreadGroupBean);
+                    // register topThreadGroupBean with MBean server
+                    threadGroupsMBeanHelper.registerMBean(topThreadGroupBean);
+
+                } catch (Exception e) {
+                    LOGGER.severe("Failed to initialise thread group MBean with rank " + ranking + " due to: " + e.getMessage());
+                }
+            }
+        }
+
+        // instantiate Map of HotLock MBeans
+        Map<Integer, HotLock> hotLocksMap = new HashMap<>();
+
+        if (hotLockTrackingEnabled) {
+
+            for (int rank = 1; rank <= hotLockCount; rank++) {
+
+                // convert rank to String
+                String ranking = String.valueOf(rank);
+
+                // instantiate new MBeanHelper based on this type, statsType and rank
+                MBeanHelper hotLocksMBeanHelper = null;
+                try {
+                    hotLocksMBeanHelper = new MBeanHelper(
+                            Constants.JVM_STATS_TYPE, Constants.HOT_LOCK_STATS_TYPE, ranking);
+                    // instantiate new HotLock MBean
+                    HotLock hotLockBean = new HotLock(config.getMBeanServerConnection());
+                    // add hotLockBean to Map of hotLocks MBeans
+                    hotLocksMap.put(rank, hotLockBean);
+                    // register hotLockBean with MBean server
+                    hotLocksMBeanHelper.registerMBean(hotLockBean);
+
+                } catch (Exception e) {
+                    LOGGER.severe("Failed to initialise hot lock MBean with rank " + ranking + " due to: " + e.getMessage());
+                }
+            }
+        }
+
         // instantiate Map of HotMethod MBeans
         Map<Integer, HotMethod> hotMethodsMap = new HashMap<>();
         // instantiate new HotMethods object
-        HotMethods hotMethods = null;
-        try {
-            hotMethods = new HotMethods(config.getMBeanServerConnection(), hotMethodsMap);
-        } catch (IOException e) {
-            LOGGER.severe("Failed to initialise hot methods MBean due to: " + e.getMessage());
-        }
+        HotMethods hotMethods = new HotMethods(config, hotMethodsMap);
 
         if (hotMethodProfilingEnabled) {
 
@@ -244,11 +406,7 @@ public class JVMStats implements JVMStatsMXBean {
             }
 
             // instantiate new HotMethods object
-            try {
-                hotMethods = new HotMethods(config.getMBeanServerConnection(), hotMethodsMap);
-            } catch (IOException e) {
-                LOGGER.severe("Failed to initialise hot methods MBean due to: " + e.getMessage());
-            }
+            hotMethods = new HotMethods(config, hotMethodsMap);
 
         }
 
@@ -272,6 +430,31 @@ public class JVMStats implements JVMStatsMXBean {
                 threadStatsMBean = new ThreadStats(config, topThreadsMap);
             }
 
+            // store thread usage collector (governed by the agent overhead governor)
+            this.threadUsage = threadStatsMBean.getThreadUsage();
+
+            if (waitingThreadTrackingEnabled) {
+                // enable waiting thread tracking
+                threadStatsMBean.initWaitingThreadTracker(waitingThreadsMap);
+            }
+
+            if (topAllocatorTrackingEnabled) {
+                // enable top allocator tracking
+                threadStatsMBean.initTopAllocatorTracker(topAllocatorsMap);
+            }
+
+            if (threadGroupTrackingEnabled) {
+                // enable thread group aggregation with a window of thread.group.window.minutes worth of thread stats updates
+                long threadGroupWindow = Long.parseLong(config.get("thread.group.window.minutes")) * 60000;
+                long collectorPollInterval = Long.parseLong(config.get("collector.poll.frequency"));
+                threadStatsMBean.initThreadGroupTracker(new ThreadGroups(topThreadGroupsMap, config.get("thread.group.rules"), (int) (threadGroupWindow / collectorPollInterval)));
+            }
+
+            if (hotLockTrackingEnabled) {
+                // enable hot lock tracking
+                threadStatsMBean.initHotLockTracker(new HotLocks(hotLocksMap));
+            }
+
             // register threadStatsMBean with MBean server
             threadStatsMBeanHelper.registerMBean(threadStatsMBean);
 
@@ -284,6 +467,86 @@ public class JVMStats implements JVMStatsMXBean {
 
     }
 
+    /**
+     * Init Deadlock Stats MBean
+     */
+    private void initDeadlockStats() {
+
+        // init deadlock stats MBean
+        try {
+            // instantiate ThreadStatsMXBean proxy used to track the blocked thread count
+            MBeanHelper threadStatsMBeanHelper = new MBeanHelper(Constants.JVM_STATS_TYPE, Constants.THREADS_STATS_TYPE);
+            ThreadStatsMXBean threadStatsMXBean = JMX.newMBeanProxy(mbs, threadStatsMBeanHelper.getObjectName(), ThreadStatsMXBean.class);
+            // instantiate new MBeanHelper used to access DeadlockStats MBean attributes and operations
+            MBeanHelper deadlockStatsMBeanHelper = new MBeanHelper(Constants.JVM_STATS_TYPE, Constants.DEADLOCK_STATS_TYPE);
+            // instantiate new DeadlockStats MBean
+            DeadlockStats deadlockStatsMBean = new DeadlockStats(config, threadStatsMXBean);
+            // register deadlockStatsMBean with MBean server
+            deadlockStatsMBeanHelper.registerMBean(deadlockStatsMBean);
+            // instantiate and store new DeadlockStatsMXBean proxy
+            this.jvmStatsMBeans.add(JMX.newMBeanProxy(mbs, deadlockStatsMBeanHelper.getObjectName(), DeadlockStatsMXBean.class));
+
+        } catch (Exception e) {
+            LOGGER.severe("Failed to initialise deadlock stats MBean due to: " + e.getMessage());
+        }
+
+    }
+
+    /**
+     * Init Memory Snapshot Bus
+     */
+    private void initMemorySnapshotBus() {
+
+        // init memory snapshot bus - if it can't be initialised the heap, non-heap and GC stats read the MBeans directly
+        try {
+            this.memorySnapshotBus = new MemorySnapshotBus(config.getMBeanServerConnection());
+        } catch (Exception e) {
+            LOGGER.severe("Failed to initialise memory snapshot bus due to: " + e.getMessage());
+        }
+
+    }
+
+    /**
+     * Init GC Notification Bus
+     */
+    private void initGCNotificationBus() {
+
+        // init GC notification bus - if it can't be initialised the GC notification based stats are disabled
+        try {
+            this.gcNotificationBus = new GCNotificationBus(config.getMBeanServerConnection());
+        } catch (Exception e) {
+            LOGGER.warning("Failed to initialise GC notification bus due to: " + e.getMessage());
+        }
+
+    }
+
+    /**
+     * Init GC Timeline
+     */
+    private void initGCTimeline() {
+
+        if (gcNotificationBus == null) {
+            // GC notifications not available - sliding window GC overhead and heap exhaustion projection are disabled
+            LOGGER.warning("GC notifications not available - GC timeline disabled.");
+            return;
+        }
+
+        // init GC timeline - if it can't be initialised sliding window GC overhead and heap exhaustion projection are disabled
+        try {
+            MemoryPoolMXBeanHelper memoryPoolMXBeanHelper = new MemoryPoolMXBeanHelper(config.getMBeanServerConnection());
+            // track the tenured pool, or the whole heap of a single generation heap
+            boolean singleGenerationHeap = memoryPoolMXBeanHelper.isSingleGenerationHeap();
+            String tenuredPoolName = singleGenerationHeap ?
+                    memoryPoolMXBeanHelper.getNurseryPoolName() : memoryPoolMXBeanHelper.getTenuredPoolName();
+            GCTimeline gcTimeline = new GCTimeline(tenuredPoolName, singleGenerationHeap, System.currentTimeMillis());
+            gcNotificationBus.addListener(gcTimeline);
+            this.gcTimeline = gcTimeline;
+        } catch (Exception e) {
+            LOGGER.severe("Failed to initialise GC timeline due to: " + e.getMessage());
+        }
+
+    }
+
     /**
      * Init Memory Stats MBean
      */
@@ -294,7 +557,7 @@ public class JVMStats implements JVMStatsMXBean {
             // instantiate new MBeanHelper used to access MemoryStats MBean attributes and operations
             MBeanHelper memoryStatsMBeanHelper = new MBeanHelper(Constants.JVM_STATS_TYPE, Constants.MEMORY_STATS_TYPE);
             // instantiate new MemoryStats MBean
-            MemoryStats memoryStatsMBean = new MemoryStats(config.getMBeanServerConnection());
+            MemoryStats memoryStatsMBean = new MemoryStats(config.getMBeanServerConnection(), gcNotificationBus);
             // register memoryStatsMBean with MBean server
             memoryStatsMBeanHelper.registerMBean(memoryStatsMBean);
             // instantiate and store new MemoryStatsMXBean proxy
@@ -316,7 +579,8 @@ public class JVMStats implements JVMStatsMXBean {
             // instantiate new MBeanHelper used to access HeapStats MBean attributes and operations
             MBeanHelper heapStatsMBeanHelper = new MBeanHelper(Constants.JVM_STATS_TYPE, Constants.HEAP_STATS_TYPE);
             // instantiate new HeapStats MBean
-            HeapStats heapStatsMBean = new HeapStats(config.getMBeanServerConnection());
+            HeapStats heapStatsMBean = new HeapStats(config.getMBeanServerConnection(), memorySnapshotBus, gcTimeline,
+                    Long.parseLong(config.get("heap.exhaustion.horizon.minutes")) * 60);
             // register heapStatsMBean with MBean server
             heapStatsMBeanHelper.registerMBean(heapStatsMBean);
             // instantiate and store new HeapStatsMXBean proxy
@@ -328,6 +592,28 @@ public class JVMStats implements JVMStatsMXBean {
 
     }
 
+    /**
+     * Init Non-Heap Stats MBean
+     */
+    private void initNonHeapStats() {
+
+        // init non-heap stats MBean
+        try {
+            // instantiate new MBeanHelper used to access NonHeapStats MBean attributes and operations
+            MBeanHelper nonHeapStatsMBeanHelper = new MBeanHelper(Constants.JVM_STATS_TYPE, Constants.NON_HEAP_STATS_TYPE);
+            // instantiate new NonHeapStats MBean
+            NonHeapStats nonHeapStatsMBean = new NonHeapStats(config.getMBeanServerConnection(), memorySnapshotBus);
+            // register nonHeapStatsMBean with MBean server
+            nonHeapStatsMBeanHelper.registerMBean(nonHeapStatsMBean);
+            // instantiate and store new NonHeapStatsMXBean proxy
+            this.jvmStatsMBeans.add(JMX.newMBeanProxy(mbs, nonHeapStatsMBeanHelper.getObjectName(), NonHeapStatsMXBean.class));
+
+        } catch (Exception e) {
+            LOGGER.severe("Failed to initialise non-heap stats MBean due to: " + e.getMessage());
+        }
+
+    }
+
     /**
      * Init GC Stats MBean
      */
@@ -338,7 +624,15 @@ public class JVMStats implements JVMStatsMXBean {
             // instantiate new MBeanHelper used to access GCStats MBean attributes and operations
             MBeanHelper gcStatsMBeanHelper = new MBeanHelper(Constants.JVM_STATS_TYPE, Constants.GC_STATS_TYPE);
             // instantiate new GCStats MBean
-            GCStats gcStatsMBean = new GCStats(config.getMBeanServerConnection());
+            GCStats gcStatsMBean = new GCStats(config.getMBeanServerConnection(), memorySnapshotBus, gcNotificationBus, gcTimeline);
+            if (config.isGCCauseTrackingEnabled()) {
+                if (gcNotificationBus != null) {
+                    // enable GC cause tracking
+                    gcStatsMBean.initGCCauseTracker(initGCCauses());
+                } else {
+                    LOGGER.warning("GC notifications not available - GC cause tracking disabled.");
+                }
+            }
             // register gcStatsMBean with MBean server
             gcStatsMBeanHelper.registerMBean(gcStatsMBean);
             // instantiate and store new GCStatsMXBean proxy
@@ -349,6 +643,51 @@ public class JVMStats implements JVMStatsMXBean {
         }
     }
 
+    /**
+     * Init GCCause MBeans and the GC cause tracker which updates them
+     */
+    private GCCauses initGCCauses() throws Exception {
+
+        // get configured GC cause count
+        int gcCauseCount = Integer.parseInt(config.get("gc.cause.count"));
+        // get configured GC cause window in minutes
+        long gcCauseWindow = Long.parseLong(config.get("gc.cause.window.minutes")) * 60000;
+        // get configured collector polling interval
+        long collectorPollInterval = Long.parseLong(config.get("collector.poll.frequency"));
+
+        // instantiate Map of GCCause MBeans
+        Map<Integer, GCCause> gcCausesMap = new HashMap<>();
+
+        for (int rank = 1; rank <= gcCauseCount; rank++) {
+
+            // convert rank to String
+            String ranking = String.valueOf(rank);
+
+            // instantiate new MBeanHelper based on this type, statsType and rank
+            MBeanHelper gcCausesMBeanHelper = null;
+            try {
+                gcCausesMBeanHelper = new MBeanHelper(
+                        Constants.JVM_STATS_TYPE, Constants.GC_CAUSE_STATS_TYPE, ranking);
+                // instantiate new GCCause MBean
+                GCCause gcCauseBean = new GCCause();
+                // add gcCauseBean to Map of gcCauses MBeans
+                gcCausesMap.put(rank, gcCauseBean);
+                // register gcCauseBean with MBean server
+                gcCausesMBeanHelper.registerMBean(gcCauseBean);
+
+            } catch (Exception e) {
+                LOGGER.severe("Failed to initialise GC cause MBean with rank " + ranking + " due to: " + e.getMessage());
+            }
+        }
+
+        // instantiate new GCCauses tracker with a window of gcCauseWindow ms worth of GC stats updates
+        GCCauses gcCauses = new GCCauses(gcCausesMap, (int) (gcCauseWindow / collectorPollInterval));
+        // subscribe gcCauses to the GC notification bus
+        gcNotificationBus.addListener(gcCauses);
+
+        return gcCauses;
+    }
+
     /**
      * Init Agent Stats MBean
      */
@@ -358,8 +697,11 @@ public class JVMStats implements JVMStatsMXBean {
         try {
             // instantiate new MBeanHelper used to access AgentStats MBean attributes and operations
             MBeanHelper agentStatsMBeanHelper = new MBeanHelper(Constants.JVM_STATS_TYPE, Constants.AGENT_STATS_TYPE);
+            // instantiate new OverheadGovernor used to keep the agent CPU usage within the overhead budget
+            OverheadGovernor overheadGovernor = new OverheadGovernor(Double.parseDouble(config.get("agent.overhead.budget")),
+                    threadUsage, Long.parseLong(config.get("hot.method.poll.frequency")));
             // instantiate new AgentStats MBean
-            AgentStats agentStatsMBean = new AgentStats(jvmStatsMBeans);
+            AgentStats agentStatsMBean = new AgentStats(jvmStatsMBeans, overheadGovernor);
             // register agentStatsMBean with MBean server
             agentStatsMBeanHelper.registerMBean(agentStatsMBean);
             // instantiate and store new AgentStatsMXBean proxy
@@ -380,7 +722,9 @@ public class JVMStats implements JVMStatsMXBean {
             // instantiate new MBeanHelper used to access StatsLogger MBean attributes and operations
             MBeanHelper statsLoggerMBeanHelper = new MBeanHelper(Constants.AGENT_TYPE, Constants.STATS_LOGGER_TYPE);
             // instantiate new StatsLogger MBean
-            StatsLogger statsLoggerMBean = new StatsLogger(config);
+            // the stats logger rotates the hot method profiling windows directly (null if hot method profiling is disabled)
+            HotMethods hotMethods = threadUsage != null ? threadUsage.getHotMethods() : null;
+            StatsLogger statsLoggerMBean = new StatsLogger(config, hotMethods);
             // register statsLoggerMBean with MBean server
             statsLoggerMBeanHelper.registerMBean(statsLoggerMBean);
 
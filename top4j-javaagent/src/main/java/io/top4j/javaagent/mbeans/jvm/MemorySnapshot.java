@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm;
+
+import java.lang.management.MemoryUsage;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+/**
+ * Immutable snapshot of the garbage collector and memory pool MBean attributes read by MemorySnapshotBus during a single
+ * stats update iteration. The GC and heap stats calculators read the same snapshot, so their values are
+ * consistent with one another.
+ */
+public class MemorySnapshot {
+
+    private final long timestamp;
+    private final Map<ObjectName, Long> collectionCounts;
+    private final Map<ObjectName, Long> collectionTimes;
+    private final Map<ObjectName, MemoryUsage> usages;
+    private final Map<ObjectName, MemoryUsage> collectionUsages;
+    private final Map<ObjectName, MemoryUsage> peakUsages;
+
+    public MemorySnapshot(long timestamp,
+                          Map<ObjectName, Long> collectionCounts,
+                          Map<ObjectName, Long> collectionTimes,
+                          Map<ObjectName, MemoryUsage> usages,
+                          Map<ObjectName, MemoryUsage> collectionUsages,
+                          Map<ObjectName, MemoryUsage> peakUsages) {
+
+        this.timestamp = timestamp;
+        this.collectionCounts = Collections.unmodifiableMap(collectionCounts);
+        this.collectionTimes = Collections.unmodifiableMap(collectionTimes);
+        this.usages = Collections.unmodifiableMap(usages);
+        this.collectionUsages = Collections.unmodifiableMap(collectionUsages);
+        this.peakUsages = Collections.unmodifiableMap(peakUsages);
+    }
+
+    /**
+     * @return the time the snapshot was taken in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @param collectorObjectName the ObjectName of a garbage collector MBean
+     * @return the collector's CollectionCount or 0 if the collector is not part of the snapshot
+     */
+    public long getCollectionCount(ObjectName collectorObjectName) {
+        return getLong(collectionCounts, collectorObjectName);
+    }
+
+    /**
+     * @param collectorObjectName the ObjectName of a garbage collector MBean
+     * @return the collector's CollectionTime in milliseconds or 0 if the collector is not part of the snapshot
+     */
+    public long getCollectionTime(ObjectName collectorObjectName) {
+        return getLong(collectionTimes, collectorObjectName);
+    }
+
+    /**
+     * @param memoryPoolObjectName the ObjectName of a memory pool MBean
+     * @return the memory pool's Usage or null if the memory pool is not part of the snapshot
+     */
+    public MemoryUsage getUsage(ObjectName memoryPoolObjectName) {
+        return usages.get(memoryPoolObjectName);
+    }
+
+    /**
+     * @param memoryPoolObjectName the ObjectName of a memory pool MBean
+     * @return the memory pool's CollectionUsage or null if the memory pool doesn't support collection usage or is not
+     * part of the snapshot
+     */
+    public MemoryUsage getCollectionUsage(ObjectName memoryPoolObjectName) {
+        return collectionUsages.get(memoryPoolObjectName);
+    }
+
+    /**
+     * @param memoryPoolObjectName the ObjectName of a memory pool MBean
+     * @return the memory pool's PeakUsage or null if the memory pool is not part of the snapshot
+     */
+    public MemoryUsage getPeakUsage(ObjectName memoryPoolObjectName) {
+        return peakUsages.get(memoryPoolObjectName);
+    }
+
+    private static long getLong(Map<ObjectName, Long> values, ObjectName objectName) {
+
+        Long value = values.get(objectName);
+        return value == null ? 0 : value;
+    }
+
+}
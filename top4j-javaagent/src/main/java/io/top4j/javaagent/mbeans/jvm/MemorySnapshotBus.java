@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm;
+
+import io.top4j.javaagent.exception.MBeanInitException;
+import io.top4j.javaagent.exception.MBeanRuntimeException;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import javax.management.*;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Reads the garbage collector and memory pool MBean attributes once per stats update iteration and publishes them as an
+ * immutable MemorySnapshot, which is shared by the GC, heap and non-heap stats calculators (the GC and heap stats via
+ * their MXBean helpers) rather than each calculator reading the same attributes separately.
+ * <p>
+ * The attributes of each MBean are read via a single MBeanServerConnection.getAttributes() call, i.e. one round trip
+ * per garbage collector and memory pool per iteration.
+ */
+public class MemorySnapshotBus {
+
+    private static final String COLLECTION_COUNT = "CollectionCount";
+    private static final String COLLECTION_TIME = "CollectionTime";
+    private static final String USAGE = "Usage";
+    private static final String COLLECTION_USAGE = "CollectionUsage";
+    private static final String PEAK_USAGE = "PeakUsage";
+    private static final String[] COLLECTOR_ATTRIBUTES = {COLLECTION_COUNT, COLLECTION_TIME};
+    private static final String[] MEMORY_POOL_ATTRIBUTES = {USAGE, COLLECTION_USAGE, PEAK_USAGE};
+
+    private MBeanServerConnection mbsc;
+    private List<ObjectName> collectorObjectNames = new ArrayList<>();
+    private List<ObjectName> memoryPoolObjectNames = new ArrayList<>();
+    private volatile MemorySnapshot snapshot;
+
+    private static final Logger LOGGER = Logger.getLogger(MemorySnapshotBus.class.getName());
+
+    public MemorySnapshotBus(MBeanServerConnection mbsc) throws MBeanInitException {
+
+        // store MBean server connection
+        this.mbsc = mbsc;
+
+        // discover garbage collector and memory pool MBeans
+        try {
+            collectorObjectNames.addAll(mbsc.queryNames(new ObjectName(ManagementFactory.GARBAGE_COLLECTOR_MXBEAN_DOMAIN_TYPE + ",*"), null));
+            memoryPoolObjectNames.addAll(mbsc.queryNames(new ObjectName(ManagementFactory.MEMORY_POOL_MXBEAN_DOMAIN_TYPE + ",*"), null));
+        } catch (MalformedObjectNameException e) {
+            throw new MBeanInitException(e, "JMX MalformedObjectNameException: " + e.getMessage());
+        } catch (IOException e) {
+            throw new MBeanInitException(e, "JMX IOException: " + e.getMessage());
+        }
+        LOGGER.fine("Memory snapshot garbage collectors = " + collectorObjectNames);
+        LOGGER.fine("Memory snapshot memory pools = " + memoryPoolObjectNames);
+
+        // take initial snapshot
+        try {
+            refresh();
+        } catch (MBeanRuntimeException e) {
+            throw new MBeanInitException(e, "Failed to take initial memory snapshot due to: " + e.getMessage());
+        }
+
+    }
+
+    /**
+     * Read the garbage collector and memory pool MBean attributes and publish them as a new snapshot.
+     * @throws MBeanRuntimeException If an MBean runtime exception occurred
+     */
+    public void refresh() throws MBeanRuntimeException {
+
+        Map<ObjectName, Long> collectionCounts = new HashMap<>();
+        Map<ObjectName, Long> collectionTimes = new HashMap<>();
+        Map<ObjectName, MemoryUsage> usages = new HashMap<>();
+        Map<ObjectName, MemoryUsage> collectionUsages = new HashMap<>();
+        Map<ObjectName, MemoryUsage> peakUsages = new HashMap<>();
+        long timestamp = System.currentTimeMillis();
+
+        for (ObjectName collectorObjectName : collectorObjectNames) {
+            for (Attribute attribute : getAttributes(collectorObjectName, COLLECTOR_ATTRIBUTES).asList()) {
+                if (attribute.getValue() == null) {
+                    continue;
+                }
+                if (attribute.getName().equals(COLLECTION_COUNT)) {
+                    collectionCounts.put(collectorObjectName, (Long) attribute.getValue());
+                } else if (attribute.getName().equals(COLLECTION_TIME)) {
+                    collectionTimes.put(collectorObjectName, (Long) attribute.getValue());
+                }
+            }
+        }
+
+        for (ObjectName memoryPoolObjectName : memoryPoolObjectNames) {
+            for (Attribute attribute : getAttributes(memoryPoolObjectName, MEMORY_POOL_ATTRIBUTES).asList()) {
+                // CollectionUsage is null for memory pools which don't support it
+                if (attribute.getValue() == null) {
+                    continue;
+                }
+                MemoryUsage memoryUsage = MemoryUsage.from((CompositeData) attribute.getValue());
+                if (attribute.getName().equals(USAGE)) {
+                    usages.put(memoryPoolObjectName, memoryUsage);
+                } else if (attribute.getName().equals(COLLECTION_USAGE)) {
+                    collectionUsages.put(memoryPoolObjectName, memoryUsage);
+                } else if (attribute.getName().equals(PEAK_USAGE)) {
+                    peakUsages.put(memoryPoolObjectName, memoryUsage);
+                }
+            }
+        }
+
+        // publish new snapshot
+        this.snapshot = new MemorySnapshot(timestamp, collectionCounts, collectionTimes, usages, collectionUsages, peakUsages);
+
+    }
+
+    /**
+     * @return the most recently published snapshot
+     */
+    public MemorySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private AttributeList getAttributes(ObjectName objectName, String[] attributeNames) throws MBeanRuntimeException {
+
+        try {
+            return mbsc.getAttributes(objectName, attributeNames);
+        } catch (InstanceNotFoundException e) {
+            throw new MBeanRuntimeException(e, "JMX InstanceNotFoundException: " + e.getMessage());
+        } catch (ReflectionException e) {
+            throw new MBeanRuntimeException(e, "JMX ReflectionException: " + e.getMessage());
+        } catch (IOException e) {
+            throw new MBeanRuntimeException(e, "JMX IOException: " + e.getMessage());
+        }
+    }
+
+}
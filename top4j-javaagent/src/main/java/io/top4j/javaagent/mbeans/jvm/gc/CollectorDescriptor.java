@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.gc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Describes a garbage collector (GarbageCollectorMXBean) by what its collection time and count measure, so that GC stats
+ * can be calculated without hard-coding collector names.
+ * <p>
+ * Each collector is classified by kind:
+ * <ul>
+ * <li>COLLECTION - a stop-the-world collector, i.e. each event is one collection and one pause (e.g. G1 Young Generation)</li>
+ * <li>CYCLE - a concurrent collector, i.e. each event is one collection cycle which runs (mostly) alongside the application,
+ * so its collection time is not pause time (e.g. ZGC Cycles)</li>
+ * <li>CYCLE_PAUSE - the stop-the-world pauses taken during concurrent collection cycles, i.e. several events per
+ * collection (e.g. ZGC Pauses, G1 Concurrent GC)</li>
+ * </ul>
+ * and by generation, young or old. Collectors of single generation heaps (e.g. non-generational ZGC and Shenandoah) are
+ * classified as young, as every cycle collects the newly allocated objects.
+ * <p>
+ * Known collectors are described by name; any other collector is classified from its name.
+ */
+public class CollectorDescriptor {
+
+    public enum Kind {
+        COLLECTION,
+        CYCLE,
+        CYCLE_PAUSE
+    }
+
+    private static final Map<String, CollectorDescriptor> KNOWN_COLLECTORS = new HashMap<>();
+
+    static {
+        // Serial
+        known("Copy", Kind.COLLECTION, true);
+        known("MarkSweepCompact", Kind.COLLECTION, false);
+        // Parallel
+        known("PS Scavenge", Kind.COLLECTION, true);
+        known("PS MarkSweep", Kind.COLLECTION, false);
+        // CMS - the ConcurrentMarkSweep collection time covers the whole concurrent cycle
+        known("ParNew", Kind.COLLECTION, true);
+        known("ConcurrentMarkSweep", Kind.CYCLE, false);
+        // G1 - G1 Concurrent GC (JDK 20+) reports the remark and cleanup pauses of the concurrent cycle
+        known("G1 Young Generation", Kind.COLLECTION, true);
+        known("G1 Old Generation", Kind.COLLECTION, false);
+        known("G1 Concurrent GC", Kind.CYCLE_PAUSE, false);
+        // ZGC (JDK 11-16)
+        known("ZGC", Kind.CYCLE, true);
+        // ZGC (JDK 17+) and Shenandoah - single generation
+        known("ZGC Cycles", Kind.CYCLE, true);
+        known("ZGC Pauses", Kind.CYCLE_PAUSE, true);
+        known("Shenandoah Cycles", Kind.CYCLE, true);
+        known("Shenandoah Pauses", Kind.CYCLE_PAUSE, true);
+        // generational ZGC (JDK 21+)
+        known("ZGC Minor Cycles", Kind.CYCLE, true);
+        known("ZGC Minor Pauses", Kind.CYCLE_PAUSE, true);
+        known("ZGC Major Cycles", Kind.CYCLE, false);
+        known("ZGC Major Pauses", Kind.CYCLE_PAUSE, false);
+        // OpenJ9
+        known("scavenge", Kind.COLLECTION, true);
+        known("global", Kind.COLLECTION, false);
+        known("partial gc", Kind.COLLECTION, true);
+        known("global garbage collect", Kind.COLLECTION, false);
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final boolean young;
+
+    public CollectorDescriptor(String name, Kind kind, boolean young) {
+
+        this.name = name;
+        this.kind = kind;
+        this.young = young;
+    }
+
+    /**
+     * Describe a garbage collector by name.
+     *
+     * @param name the garbage collector (GarbageCollectorMXBean) name
+     * @return the collector descriptor
+     */
+    public static CollectorDescriptor describe(String name) {
+
+        CollectorDescriptor descriptor = KNOWN_COLLECTORS.get(name);
+        if (descriptor != null) {
+            return descriptor;
+        }
+        // unknown collector - classify by name
+        Kind kind = Kind.COLLECTION;
+        if (name.endsWith("Pauses")) {
+            kind = Kind.CYCLE_PAUSE;
+        } else if (name.endsWith("Cycles") || name.contains("Concurrent")) {
+            kind = Kind.CYCLE;
+        }
+        String lowerCaseName = name.toLowerCase();
+        boolean young = lowerCaseName.contains("young") ||
+                lowerCaseName.contains("minor") ||
+                lowerCaseName.contains("new") ||
+                lowerCaseName.contains("scavenge") ||
+                lowerCaseName.contains("nursery");
+        return new CollectorDescriptor(name, kind, young);
+    }
+
+    private static void known(String name, Kind kind, boolean young) {
+        KNOWN_COLLECTORS.put(name, new CollectorDescriptor(name, kind, young));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return true if the collector's collection time is stop-the-world pause time
+     */
+    public boolean isPause() {
+        return kind != Kind.CYCLE;
+    }
+
+    /**
+     * @return true if each collector event is a collection, i.e. the collector's collection count counts collections
+     */
+    public boolean isCollection() {
+        return kind != Kind.CYCLE_PAUSE;
+    }
+
+    public boolean isYoung() {
+        return young;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [" + (young ? "young" : "old") + ", " + kind.name().toLowerCase().replace('_', ' ') + "]";
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.top4j.javaagent.mbeans.jvm.gc;
+
+public class GCCause implements GCCauseMXBean {
+
+    volatile private String gcCause;
+    volatile private String gcActions;
+    volatile private long collectionCount;
+    volatile private long pauseTime;
+    volatile private long maxPauseTime;
+    volatile private long totalCollectionCount;
+    volatile private long totalPauseTime;
+
+    public void setGcCause(String gcCause) {
+        this.gcCause = gcCause;
+    }
+
+    public String getGcCause() {
+        return gcCause;
+    }
+
+    public void setGcActions(String gcActions) {
+        this.gcActions = gcActions;
+    }
+
+    public String getGcActions() {
+        return gcActions;
+    }
+
+    public void setCollectionCount(long collectionCount) {
+        this.collectionCount = collectionCount;
+    }
+
+    public long getCollectionCount() {
+        return collectionCount;
+    }
+
+    public void setPauseTime(long pauseTime) {
+        this.pauseTime = pauseTime;
+    }
+
+    public long getPauseTime() {
+        return pauseTime;
+    }
+
+    public void setMaxPauseTime(long maxPauseTime) {
+        this.maxPauseTime = maxPauseTime;
+    }
+
+    public long getMaxPauseTime() {
+        return maxPauseTime;
+    }
+
+    public void setTotalCollectionCount(long totalCollectionCount) {
+        this.totalCollectionCount = totalCollectionCount;
+    }
+
+    public long getTotalCollectionCount() {
+        return totalCollectionCount;
+    }
+
+    public void setTotalPauseTime(long totalPauseTime) {
+        this.totalPauseTime = totalPauseTime;
+    }
+
+    public long getTotalPauseTime() {
+        return totalPauseTime;
+    }
+
+}
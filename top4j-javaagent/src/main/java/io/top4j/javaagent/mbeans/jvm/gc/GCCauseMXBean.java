@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.top4j.javaagent.mbeans.jvm.gc;
+
+/**
+ * Used to store and expose stats relating to a GC cause, e.g. "Allocation Failure" or "System.gc()", that has been determined
+ * as one of the causes of the most GC pause time during the GC cause window. Each GC cause is ranked between 1 and N via the
+ * "rank" attribute on the GCCause MBean Object Name, where 1 is the cause of the most GC pause time and N is the cause of the
+ * least GC pause time (out of the top ranked causes).
+ */
+
+public interface GCCauseMXBean {
+
+    /**
+     * Sets the GC cause.
+     * @param gcCause the GC cause
+     */
+    void setGcCause(String gcCause);
+
+    /**
+     * Returns the GC cause as reported by the JVM, e.g. "Allocation Failure", "G1 Evacuation Pause" or "System.gc()".
+     * @return the GC cause
+     */
+    String getGcCause();
+
+    /**
+     * Sets the GC actions seen for this cause.
+     * @param gcActions the GC actions
+     */
+    void setGcActions(String gcActions);
+
+    /**
+     * Returns a semicolon separated list of the distinct GC actions seen for this cause, e.g. "end of minor GC; end of major GC".
+     * @return the GC actions
+     */
+    String getGcActions();
+
+    /**
+     * Sets the number of collections triggered by this cause during the GC cause window.
+     * @param collectionCount the collection count
+     */
+    void setCollectionCount(long collectionCount);
+
+    /**
+     * Returns the number of collections triggered by this cause during the GC cause window. A concurrent collection cycle
+     * is counted once, however many pauses it takes.
+     * @return the collection count
+     */
+    long getCollectionCount();
+
+    /**
+     * Sets the total stop-the-world GC pause time in milliseconds due to this cause during the GC cause window.
+     * @param pauseTime the GC pause time
+     */
+    void setPauseTime(long pauseTime);
+
+    /**
+     * Returns the total stop-the-world GC pause time in milliseconds due to this cause during the GC cause window.
+     * @return the GC pause time
+     */
+    long getPauseTime();
+
+    /**
+     * Sets the longest stop-the-world GC pause in milliseconds due to this cause during the GC cause window.
+     * @param maxPauseTime the max GC pause time
+     */
+    void setMaxPauseTime(long maxPauseTime);
+
+    /**
+     * Returns the longest stop-the-world GC pause in milliseconds due to this cause during the GC cause window.
+     * @return the max GC pause time
+     */
+    long getMaxPauseTime();
+
+    /**
+     * Sets the number of collections triggered by this cause since the agent started.
+     * @param totalCollectionCount the total collection count
+     */
+    void setTotalCollectionCount(long totalCollectionCount);
+
+    /**
+     * Returns the number of collections triggered by this cause since the agent started.
+     * @return the total collection count
+     */
+    long getTotalCollectionCount();
+
+    /**
+     * Sets the total stop-the-world GC pause time in milliseconds due to this cause since the agent started.
+     * @param totalPauseTime the total GC pause time
+     */
+    void setTotalPauseTime(long totalPauseTime);
+
+    /**
+     * Returns the total stop-the-world GC pause time in milliseconds due to this cause since the agent started.
+     * @return the total GC pause time
+     */
+    long getTotalPauseTime();
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.top4j.javaagent.mbeans.jvm.gc;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.top4j.javaagent.mbeans.jvm.GCEventListener;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Breaks down GC count and pause time by GC cause, e.g. "Allocation Failure" or "System.gc()", and publishes the causes of
+ * the most GC pause time to the GCCause MBeans.
+ * <p>
+ * The cause and action of every collection are recorded from the GC events published by the GCNotificationBus.
+ * Collections are counted from the collection collectors and pause time from the pause collectors (see
+ * CollectorDescriptor), so a concurrent cycle is counted once while each of its pauses contributes to the pause time of
+ * the cause reported for that pause. The stats recorded between updates are rolled into a sliding window of the last
+ * windowSize updates.
+ */
+public class GCCauses implements GCEventListener {
+
+    private final Map<Integer, GCCause> gcCausesMap;
+    private final int gcCauseCount;
+    private final int windowSize;
+    private int windowIndex;
+    private final Map<String, CauseUsage> causes = new HashMap<>();
+    private final List<CauseUsage> causeList = new ArrayList<>();
+
+    private static final Logger LOGGER = Logger.getLogger(GCCauses.class.getName());
+
+    private static final Comparator<CauseUsage> PAUSE_TIME_COMPARATOR = new Comparator<CauseUsage>() {
+        @Override
+        public int compare(CauseUsage cause1, CauseUsage cause2) {
+            // rank by window pause time, then by window collection count
+            if (cause1.windowPauseTime != cause2.windowPauseTime) {
+                return cause1.windowPauseTime > cause2.windowPauseTime ? -1 : 1;
+            }
+            if (cause1.windowCount != cause2.windowCount) {
+                return cause1.windowCount > cause2.windowCount ? -1 : 1;
+            }
+            return cause1.name.compareTo(cause2.name);
+        }
+    };
+
+    public GCCauses(Map<Integer, GCCause> gcCausesMap, int windowSize) {
+
+        this.gcCausesMap = gcCausesMap;
+        this.gcCauseCount = gcCausesMap.size();
+        this.windowSize = Math.max(1, windowSize);
+    }
+
+    @Override
+    public void handleGCEvent(CollectorDescriptor collectorDescriptor, GarbageCollectionNotificationInfo info) {
+
+        record(collectorDescriptor, info.getGcCause(), info.getGcAction(), info.getGcInfo().getDuration());
+    }
+
+    /**
+     * Record a GC event reported by the collector described by collectorDescriptor.
+     *
+     * @param collectorDescriptor the collector which reported the GC event
+     * @param gcCause             the GC cause
+     * @param gcAction            the GC action
+     * @param duration            the GC duration in milliseconds
+     */
+    public synchronized void record(CollectorDescriptor collectorDescriptor, String gcCause, String gcAction, long duration) {
+
+        CauseUsage cause = causes.get(gcCause);
+        if (cause == null) {
+            cause = new CauseUsage(gcCause, windowSize);
+            causes.put(gcCause, cause);
+        }
+        cause.addAction(gcAction);
+        if (collectorDescriptor.isCollection()) {
+            // count collections, i.e. each concurrent cycle once
+            cause.intervalCount++;
+            cause.totalCount++;
+        }
+        if (collectorDescriptor.isPause()) {
+            // accumulate stop-the-world pause time
+            cause.intervalPauseTime += duration;
+            cause.intervalMaxPauseTime = Math.max(cause.intervalMaxPauseTime, duration);
+            cause.totalPauseTime += duration;
+        }
+        LOGGER.finer(collectorDescriptor.getName() + " GC (" + gcAction + ", " + gcCause + ") = " + duration + "ms");
+    }
+
+    /**
+     * Roll the GC events recorded since the last update into the GC cause window and update the GCCause MBeans.
+     */
+    public synchronized void update() {
+
+        // roll the interval stats of each cause into the current window slot and rank the causes seen during the window
+        causeList.clear();
+        for (CauseUsage cause : causes.values()) {
+            cause.roll(windowIndex);
+            if (cause.windowCount > 0 || cause.windowPauseTime > 0) {
+                causeList.add(cause);
+            }
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+        Collections.sort(causeList, PAUSE_TIME_COMPARATOR);
+
+        // update GCCause MBeans
+        for (int rank = 1; rank <= gcCauseCount; rank++) {
+            GCCause gcCauseMBean = gcCausesMap.get(rank);
+            if (rank <= causeList.size()) {
+                CauseUsage cause = causeList.get(rank - 1);
+                gcCauseMBean.setGcCause(cause.name);
+                gcCauseMBean.setGcActions(cause.actions);
+                gcCauseMBean.setCollectionCount(cause.windowCount);
+                gcCauseMBean.setPauseTime(cause.windowPauseTime);
+                gcCauseMBean.setMaxPauseTime(cause.windowMaxPauseTime);
+                gcCauseMBean.setTotalCollectionCount(cause.totalCount);
+                gcCauseMBean.setTotalPauseTime(cause.totalPauseTime);
+                LOGGER.fine("gcCauseCounter: " + rank + ", gcCausePauseTime: " + cause.windowPauseTime + ", gcCause: " + cause.name);
+            } else {
+                // fewer GC causes than ranks - clear this rank
+                gcCauseMBean.setGcCause(null);
+                gcCauseMBean.setGcActions(null);
+                gcCauseMBean.setCollectionCount(0);
+                gcCauseMBean.setPauseTime(0);
+                gcCauseMBean.setMaxPauseTime(0);
+                gcCauseMBean.setTotalCollectionCount(0);
+                gcCauseMBean.setTotalPauseTime(0);
+            }
+        }
+    }
+
+    /**
+     * Per GC cause usage accumulator.
+     */
+    private static class CauseUsage {
+
+        private final String name;
+        private String actions;
+        // stats recorded since the last update
+        private long intervalCount;
+        private long intervalPauseTime;
+        private long intervalMaxPauseTime;
+        // per update stats within the sliding window
+        private final long[] counts;
+        private final long[] pauseTimes;
+        private final long[] maxPauseTimes;
+        private long windowCount;
+        private long windowPauseTime;
+        private long windowMaxPauseTime;
+        // stats since the agent started
+        private long totalCount;
+        private long totalPauseTime;
+
+        CauseUsage(String name, int windowSize) {
+            this.name = name;
+            this.counts = new long[windowSize];
+            this.pauseTimes = new long[windowSize];
+            this.maxPauseTimes = new long[windowSize];
+        }
+
+        void addAction(String action) {
+
+            if (actions == null) {
+                actions = action;
+            } else if (!Arrays.asList(actions.split("; ")).contains(action)) {
+                actions = actions + "; " + action;
+            }
+        }
+
+        void roll(int windowIndex) {
+
+            // replace the oldest window slot with the interval stats
+            windowCount += intervalCount - counts[windowIndex];
+            windowPauseTime += intervalPauseTime - pauseTimes[windowIndex];
+            counts[windowIndex] = intervalCount;
+            pauseTimes[windowIndex] = intervalPauseTime;
+            maxPauseTimes[windowIndex] = intervalMaxPauseTime;
+            intervalCount = 0;
+            intervalPauseTime = 0;
+            intervalMaxPauseTime = 0;
+            // the window max can't be maintained incrementally
+            windowMaxPauseTime = 0;
+            for (long maxPauseTime : maxPauseTimes) {
+                windowMaxPauseTime = Math.max(windowMaxPauseTime, maxPauseTime);
+            }
+        }
+    }
+
+}
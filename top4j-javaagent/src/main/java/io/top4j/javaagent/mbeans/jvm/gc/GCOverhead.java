@@ -17,6 +17,8 @@
 package io.top4j.javaagent.mbeans.jvm.gc;
 
 import io.top4j.javaagent.exception.MBeanInitException;
+import io.top4j.javaagent.exception.MBeanRuntimeException;
+import io.top4j.javaagent.mbeans.jvm.MemorySnapshotBus;
 
 import javax.management.MBeanServerConnection;
 import java.util.logging.Logger;
@@ -29,14 +31,14 @@ public class GCOverhead {
 
     private static final Logger LOGGER = Logger.getLogger(GCOverhead.class.getName());
 
-    public GCOverhead(MBeanServerConnection mbsc) throws Exception {
+    public GCOverhead(MBeanServerConnection mbsc, MemorySnapshotBus memorySnapshotBus) throws Exception {
 
         LOGGER.fine("Initialising GC Overhead....");
 
         // instantiate new GarbageCollectorMXBeanHelper and GCTimeBean
         try {
-            this.gcMXBeanHelper = new GarbageCollectorMXBeanHelper(mbsc);
-            this.gcTimeBean = new GCTimeBean(mbsc);
+            this.gcMXBeanHelper = new GarbageCollectorMXBeanHelper(mbsc, memorySnapshotBus);
+            this.gcTimeBean = new GCTimeBean(gcMXBeanHelper);
         } catch (Exception e) {
             throw new MBeanInitException(e, "Failed to initialise GC Overhead stats collector due to: " + e.getMessage());
         }
@@ -44,9 +46,11 @@ public class GCOverhead {
     }
 
     /**
-     * Update GC Overhead.
+     * Update GC Overhead, i.e. the percentage of time spent in stop-the-world GC pauses (concurrent collection cycles run
+     * alongside the application, so their collection time is not counted).
+     * @throws MBeanRuntimeException If an MBean runtime exception occurred
      */
-    public void update() {
+    public void update() throws MBeanRuntimeException {
 
         long systemTime = System.currentTimeMillis();
         long gcTime;
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.gc;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.top4j.javaagent.mbeans.jvm.GCEventListener;
+import io.top4j.javaagent.utils.LogLinearHistogram;
+
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Records the duration of every GC pause published by the GCNotificationBus in the pause histogram of the collector which
+ * ran it.
+ */
+public class GCPauseListener implements GCEventListener {
+
+    private Map<String, LogLinearHistogram> pauseHistograms;
+
+    private static final Logger LOGGER = Logger.getLogger(GCPauseListener.class.getName());
+
+    public GCPauseListener(Map<String, LogLinearHistogram> pauseHistograms) {
+
+        this.pauseHistograms = pauseHistograms;
+    }
+
+    @Override
+    public void handleGCEvent(CollectorDescriptor collectorDescriptor, GarbageCollectionNotificationInfo info) {
+
+        String gcName = collectorDescriptor.getName();
+        long duration = info.getGcInfo().getDuration();
+        LOGGER.finer(gcName + " GC pause (" + info.getGcAction() + ", " + info.getGcCause() + ") = " + duration + "ms");
+
+        // only stop-the-world collectors have a pause histogram
+        LogLinearHistogram pauseHistogram = pauseHistograms.get(gcName);
+        if (pauseHistogram != null) {
+            // record GC pause time
+            pauseHistogram.recordValue(duration);
+        }
+
+    }
+
+}
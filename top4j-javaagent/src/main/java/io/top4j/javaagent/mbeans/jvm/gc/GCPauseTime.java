@@ -17,8 +17,15 @@
 package io.top4j.javaagent.mbeans.jvm.gc;
 
 import io.top4j.javaagent.exception.MBeanInitException;
+import io.top4j.javaagent.mbeans.jvm.GCNotificationBus;
+import io.top4j.javaagent.mbeans.jvm.MemorySnapshotBus;
+import io.top4j.javaagent.utils.LogLinearHistogram;
 
 import javax.management.MBeanServerConnection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 public class GCPauseTime {
@@ -27,21 +34,49 @@ public class GCPauseTime {
     volatile private double meanTenuredGCTime;
     private GCTimeBean gcTimeBean;
     private GarbageCollectorMXBeanHelper gcMXBeanHelper;
+    // pause histograms per collector name - recorded by the GCPauseListener as GC events are reported
+    private Map<String, LogLinearHistogram> pauseHistograms = new LinkedHashMap<>();
+    // pause histograms per collector name for the last iteration
+    private Map<String, LogLinearHistogram> intervalPauseHistograms = new LinkedHashMap<>();
+    // pause histograms of all nursery and tenured collectors for the last iteration
+    private LogLinearHistogram intervalNurseryPauseHistogram = new LogLinearHistogram();
+    private LogLinearHistogram intervalTenuredPauseHistogram = new LogLinearHistogram();
+    private List<CollectorDescriptor> pauseCollectorDescriptors = new ArrayList<>();
 
     private static final Logger LOGGER = Logger.getLogger(GCPauseTime.class.getName());
 
-    public GCPauseTime(MBeanServerConnection mbsc) throws Exception {
+    public GCPauseTime(MBeanServerConnection mbsc, MemorySnapshotBus memorySnapshotBus, GCNotificationBus gcNotificationBus) throws Exception {
 
         LOGGER.fine("Initialising GC Pause Time....");
 
         // instantiate new GarbageCollectorMXBeanHelper and GCTimeBean
         try {
-            this.gcMXBeanHelper = new GarbageCollectorMXBeanHelper(mbsc);
-            this.gcTimeBean = new GCTimeBean(mbsc);
+            this.gcMXBeanHelper = new GarbageCollectorMXBeanHelper(mbsc, memorySnapshotBus);
+            this.gcTimeBean = new GCTimeBean(gcMXBeanHelper);
         } catch (Exception e) {
             throw new MBeanInitException(e, "Failed to initialise GC Pause Time stats collector due to: " + e.getMessage());
         }
 
+        if (gcNotificationBus == null) {
+            // GC notifications not supported by this JVM - pause time percentiles will not be available
+            LOGGER.warning("GC notifications not available - GC pause time histograms disabled.");
+            return;
+        }
+
+        // create a pause histogram for each stop-the-world collector (concurrent cycles are not pauses)
+        for (CollectorDescriptor collectorDescriptor : gcMXBeanHelper.getCollectorDescriptors()) {
+            if (!collectorDescriptor.isPause()) {
+                continue;
+            }
+            String gcName = collectorDescriptor.getName();
+            pauseCollectorDescriptors.add(collectorDescriptor);
+            pauseHistograms.put(gcName, new LogLinearHistogram());
+            intervalPauseHistograms.put(gcName, new LogLinearHistogram());
+        }
+
+        // subscribe GCPauseListener to the GC notification bus
+        gcNotificationBus.addListener(new GCPauseListener(pauseHistograms));
+
     }
 
     /**
@@ -90,6 +125,85 @@ public class GCPauseTime {
         gcTimeBean.setLastTenuredGCTime(tenuredGCTime);
         gcTimeBean.setLastTenuredGCCount(tenuredGCCount);
 
+        // take the pause histograms for this iteration
+        LogLinearHistogram nurseryPauseHistogram = new LogLinearHistogram();
+        LogLinearHistogram tenuredPauseHistogram = new LogLinearHistogram();
+        for (CollectorDescriptor collectorDescriptor : pauseCollectorDescriptors) {
+            LogLinearHistogram intervalPauseHistogram = intervalPauseHistograms.get(collectorDescriptor.getName());
+            pauseHistograms.get(collectorDescriptor.getName()).copyAndReset(intervalPauseHistogram);
+            if (collectorDescriptor.isYoung()) {
+                nurseryPauseHistogram.add(intervalPauseHistogram);
+            } else {
+                tenuredPauseHistogram.add(intervalPauseHistogram);
+            }
+        }
+        this.intervalNurseryPauseHistogram = nurseryPauseHistogram;
+        this.intervalTenuredPauseHistogram = tenuredPauseHistogram;
+
+    }
+
+    /**
+     * Get the nursery GC pause time at a given percentile during the last iteration, across all nursery collectors.
+     *
+     * @param percentile the percentile, e.g. 99.9
+     * @return the pause time in milliseconds or 0 if there were no nursery GC pauses during the last iteration
+     */
+    public double getNurseryPauseTimeAtPercentile(double percentile) {
+        return intervalNurseryPauseHistogram.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Get the tenured GC pause time at a given percentile during the last iteration, across all tenured collectors.
+     *
+     * @param percentile the percentile, e.g. 99.9
+     * @return the pause time in milliseconds or 0 if there were no tenured GC pauses during the last iteration
+     */
+    public double getTenuredPauseTimeAtPercentile(double percentile) {
+        return intervalTenuredPauseHistogram.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return the maximum nursery GC pause time in milliseconds during the last iteration
+     */
+    public double getMaxNurseryPauseTime() {
+        return intervalNurseryPauseHistogram.getMaxValue();
+    }
+
+    /**
+     * @return the maximum tenured GC pause time in milliseconds during the last iteration
+     */
+    public double getMaxTenuredPauseTime() {
+        return intervalTenuredPauseHistogram.getMaxValue();
+    }
+
+    /**
+     * Get a report of the GC pause histograms for the collectors which ran during the last iteration.
+     *
+     * @return the pause histogram report or null if no GC events occurred during the last iteration
+     */
+    public String getPauseHistogramReport() {
+
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LogLinearHistogram> entry : intervalPauseHistograms.entrySet()) {
+            LogLinearHistogram intervalPauseHistogram = entry.getValue();
+            long pauseCount = intervalPauseHistogram.getTotalCount();
+            if (pauseCount == 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append("\n");
+            }
+            sb.append(entry.getKey()).append(": count=").append(pauseCount);
+            sb.append(", max=").append(intervalPauseHistogram.getMaxValue()).append(" ms");
+            sb.append(", p50=").append(intervalPauseHistogram.getValueAtPercentile(50)).append(" ms");
+            sb.append(", p90=").append(intervalPauseHistogram.getValueAtPercentile(90)).append(" ms");
+            sb.append(", p99=").append(intervalPauseHistogram.getValueAtPercentile(99)).append(" ms");
+            sb.append(", p99.9=").append(intervalPauseHistogram.getValueAtPercentile(99.9)).append(" ms");
+            for (String bucket : intervalPauseHistogram.getBucketReport(" ms").split("\n")) {
+                sb.append("\n  ").append(bucket);
+            }
+        }
+        return sb.length() == 0 ? null : sb.toString();
     }
 
     public double getMeanNurseryGCTime() {
@@ -16,6 +16,10 @@
 
 package io.top4j.javaagent.mbeans.jvm.gc;
 
+import io.top4j.javaagent.exception.MBeanRuntimeException;
+import io.top4j.javaagent.mbeans.jvm.GCNotificationBus;
+import io.top4j.javaagent.mbeans.jvm.GCTimeline;
+import io.top4j.javaagent.mbeans.jvm.MemorySnapshotBus;
 import io.top4j.javaagent.profiler.CpuTime;
 
 import javax.management.MBeanServerConnection;
@@ -26,6 +30,12 @@ public class GCStats implements GCStatsMXBean {
 
     private GCOverhead gcOverhead;
     private GCPauseTime gcPauseTime;
+    private GCCauses gcCauses;
+    private GCTimeline gcTimeline;
+    volatile private double gcOverhead10s;
+    volatile private double gcOverhead1m;
+    volatile private double gcOverhead5m;
+    volatile private double gcOverhead15m;
     private CpuTime cpuTime = new CpuTime();
     private double mBeanCpuTime;
     private boolean enabled = true;
@@ -33,18 +43,30 @@ public class GCStats implements GCStatsMXBean {
 
     private static final Logger LOGGER = Logger.getLogger(GCStats.class.getName());
 
-    public GCStats(MBeanServerConnection mbsc) throws Exception {
+    public GCStats(MBeanServerConnection mbsc, MemorySnapshotBus memorySnapshotBus, GCNotificationBus gcNotificationBus,
+                   GCTimeline gcTimeline) throws Exception {
 
         LOGGER.fine("Initialising GC stats....");
 
         // instantiate new GC Overhead
-        GCOverhead gcOverhead = new GCOverhead(mbsc);
+        GCOverhead gcOverhead = new GCOverhead(mbsc, memorySnapshotBus);
 
         // instantiate new GC Pause Time
-        GCPauseTime gcPauseTime = new GCPauseTime(mbsc);
+        GCPauseTime gcPauseTime = new GCPauseTime(mbsc, memorySnapshotBus, gcNotificationBus);
 
         this.gcOverhead = gcOverhead;
         this.gcPauseTime = gcPauseTime;
+        // store GC timeline (null if sliding window GC overhead isn't available)
+        this.gcTimeline = gcTimeline;
+
+    }
+
+    public void initGCCauseTracker(GCCauses gcCauses) {
+
+        LOGGER.fine("Initialising GC Stats GC cause tracking....");
+
+        // enable GC cause tracking
+        this.gcCauses = gcCauses;
 
     }
 
@@ -68,7 +90,7 @@ public class GCStats implements GCStatsMXBean {
 
     }
 
-    private synchronized void updateGCStats() {
+    private synchronized void updateGCStats() throws MBeanRuntimeException {
 
         // initialise thread CPU timer
         cpuTime.init();
@@ -81,6 +103,21 @@ public class GCStats implements GCStatsMXBean {
         // update GC pause time stats
         gcPauseTime.update();
 
+        if (gcTimeline != null) {
+            // update sliding window GC overhead
+            long currentTime = System.currentTimeMillis();
+            this.gcOverhead10s = gcTimeline.getGCOverhead(10, currentTime);
+            this.gcOverhead1m = gcTimeline.getGCOverhead(60, currentTime);
+            this.gcOverhead5m = gcTimeline.getGCOverhead(5 * 60, currentTime);
+            this.gcOverhead15m = gcTimeline.getGCOverhead(15 * 60, currentTime);
+            LOGGER.fine("GC Overhead 10s/1m/5m/15m = " + gcOverhead10s + "/" + gcOverhead1m + "/" + gcOverhead5m + "/" + gcOverhead15m + "%");
+        }
+
+        if (gcCauses != null) {
+            // update GC cause stats
+            gcCauses.update();
+        }
+
         // update GC stats CPU time
         mBeanCpuTime = cpuTime.getMillis();
 
@@ -147,4 +184,79 @@ public class GCStats implements GCStatsMXBean {
         return this.gcPauseTime.getMeanTenuredGCTime();
     }
 
+    @Override
+    public double getGcOverhead10s() {
+        return gcOverhead10s;
+    }
+
+    @Override
+    public double getGcOverhead1m() {
+        return gcOverhead1m;
+    }
+
+    @Override
+    public double getGcOverhead5m() {
+        return gcOverhead5m;
+    }
+
+    @Override
+    public double getGcOverhead15m() {
+        return gcOverhead15m;
+    }
+
+    @Override
+    public double getNurseryGCPauseTimeMax() {
+        return gcPauseTime.getMaxNurseryPauseTime();
+    }
+
+    @Override
+    public double getNurseryGCPauseTimeP50() {
+        return gcPauseTime.getNurseryPauseTimeAtPercentile(50);
+    }
+
+    @Override
+    public double getNurseryGCPauseTimeP90() {
+        return gcPauseTime.getNurseryPauseTimeAtPercentile(90);
+    }
+
+    @Override
+    public double getNurseryGCPauseTimeP99() {
+        return gcPauseTime.getNurseryPauseTimeAtPercentile(99);
+    }
+
+    @Override
+    public double getNurseryGCPauseTimeP999() {
+        return gcPauseTime.getNurseryPauseTimeAtPercentile(99.9);
+    }
+
+    @Override
+    public double getTenuredGCPauseTimeMax() {
+        return gcPauseTime.getMaxTenuredPauseTime();
+    }
+
+    @Override
+    public double getTenuredGCPauseTimeP50() {
+        return gcPauseTime.getTenuredPauseTimeAtPercentile(50);
+    }
+
+    @Override
+    public double getTenuredGCPauseTimeP90() {
+        return gcPauseTime.getTenuredPauseTimeAtPercentile(90);
+    }
+
+    @Override
+    public double getTenuredGCPauseTimeP99() {
+        return gcPauseTime.getTenuredPauseTimeAtPercentile(99);
+    }
+
+    @Override
+    public double getTenuredGCPauseTimeP999() {
+        return gcPauseTime.getTenuredPauseTimeAtPercentile(99.9);
+    }
+
+    @Override
+    public String dumpGCPauseHistogram() {
+        return gcPauseTime.getPauseHistogramReport();
+    }
+
 }
@@ -74,4 +74,98 @@ public interface GCStatsMXBean extends StatsMXBean {
      */
     double getMeanTenuredGCTime();
 
+    /**
+     * Returns the GC overhead over the last 10 seconds, i.e. the percentage of real time spent in stop-the-world GC pauses, recorded
+     * per second via GC notifications. Unlike GcOverhead, which covers the last iteration, short GC storms aren't averaged away.
+     * @return the 10 second GC overhead
+     */
+    double getGcOverhead10s();
+
+    /**
+     * Returns the GC overhead over the last minute, i.e. the percentage of real time spent in stop-the-world GC pauses.
+     * @return the 1 minute GC overhead
+     */
+    double getGcOverhead1m();
+
+    /**
+     * Returns the GC overhead over the last 5 minutes, i.e. the percentage of real time spent in stop-the-world GC pauses.
+     * @return the 5 minute GC overhead
+     */
+    double getGcOverhead5m();
+
+    /**
+     * Returns the GC overhead over the last 15 minutes, i.e. the percentage of real time spent in stop-the-world GC pauses.
+     * @return the 15 minute GC overhead
+     */
+    double getGcOverhead15m();
+
+    /**
+     * Returns the maximum time in milliseconds spent during a single nursery or eden or new stop-the-world GC event during the last iteration.
+     * Unlike the mean GC time, this is recorded for every GC event, so a single long pause can't be hidden by many short ones.
+     * @return the maximum nursery GC pause time in milliseconds
+     */
+    double getNurseryGCPauseTimeMax();
+
+    /**
+     * Returns the 50th percentile (median) of the time in milliseconds spent during a single nursery or eden or new stop-the-world GC event during the last iteration.
+     * @return the 50th percentile nursery GC pause time in milliseconds
+     */
+    double getNurseryGCPauseTimeP50();
+
+    /**
+     * Returns the 90th percentile of the time in milliseconds spent during a single nursery or eden or new stop-the-world GC event during the last iteration.
+     * @return the 90th percentile nursery GC pause time in milliseconds
+     */
+    double getNurseryGCPauseTimeP90();
+
+    /**
+     * Returns the 99th percentile of the time in milliseconds spent during a single nursery or eden or new stop-the-world GC event during the last iteration.
+     * @return the 99th percentile nursery GC pause time in milliseconds
+     */
+    double getNurseryGCPauseTimeP99();
+
+    /**
+     * Returns the 99.9th percentile of the time in milliseconds spent during a single nursery or eden or new stop-the-world GC event during the last iteration.
+     * @return the 99.9th percentile nursery GC pause time in milliseconds
+     */
+    double getNurseryGCPauseTimeP999();
+
+    /**
+     * Returns the maximum time in milliseconds spent during a single tenured or full or old stop-the-world GC event during the last iteration.
+     * Unlike the mean GC time, this is recorded for every GC event, so a single long pause can't be hidden by many short ones.
+     * @return the maximum tenured GC pause time in milliseconds
+     */
+    double getTenuredGCPauseTimeMax();
+
+    /**
+     * Returns the 50th percentile (median) of the time in milliseconds spent during a single tenured or full or old stop-the-world GC event during the last iteration.
+     * @return the 50th percentile tenured GC pause time in milliseconds
+     */
+    double getTenuredGCPauseTimeP50();
+
+    /**
+     * Returns the 90th percentile of the time in milliseconds spent during a single tenured or full or old stop-the-world GC event during the last iteration.
+     * @return the 90th percentile tenured GC pause time in milliseconds
+     */
+    double getTenuredGCPauseTimeP90();
+
+    /**
+     * Returns the 99th percentile of the time in milliseconds spent during a single tenured or full or old stop-the-world GC event during the last iteration.
+     * @return the 99th percentile tenured GC pause time in milliseconds
+     */
+    double getTenuredGCPauseTimeP99();
+
+    /**
+     * Returns the 99.9th percentile of the time in milliseconds spent during a single tenured or full or old stop-the-world GC event during the last iteration.
+     * @return the 99.9th percentile tenured GC pause time in milliseconds
+     */
+    double getTenuredGCPauseTimeP999();
+
+    /**
+     * Returns a report of the GC pause time histograms of the garbage collectors which ran during the last iteration, i.e. the
+     * pause count, maximum and percentiles per collector followed by the number of pauses per histogram bucket.
+     * @return the GC pause histogram report or null if no GC events occurred during the last iteration
+     */
+    String dumpGCPauseHistogram();
+
 }
@@ -16,10 +16,7 @@
 
 package io.top4j.javaagent.mbeans.jvm.gc;
 
-import javax.management.MBeanServerConnection;
-import java.io.IOException;
-import java.lang.management.*;
-import java.util.List;
+import io.top4j.javaagent.exception.MBeanRuntimeException;
 
 public class GCTimeBean {
 
@@ -31,35 +28,15 @@ public class GCTimeBean {
     private long lastTenuredGCCount;
     private long lastSystemTime;
 
-    public GCTimeBean(MBeanServerConnection mbsc) throws IOException {
-
-        final List<GarbageCollectorMXBean> gcbeans =
-                ManagementFactory.getPlatformMXBeans(mbsc, GarbageCollectorMXBean.class);
-        long currentGCTime = 0;
-        long currentGCCount = 0;
-        long currentNurseryGCTime = 0;
-        long currentNurseryGCCount = 0;
-        long currentTenuredGCTime = 0;
-        long currentTenuredGCCount = 0;
-        for (GarbageCollectorMXBean gcbean : gcbeans) {
-            String name = gcbean.getName();
-            if (name.equals("Copy") || name.equals("PS Scavenge")) {
-                currentNurseryGCTime = gcbean.getCollectionTime();
-                currentNurseryGCCount = gcbean.getCollectionCount();
-            }
-            if (name.equals("MarkSweepCompact") || name.equals("PS MarkSweep")) {
-                currentTenuredGCTime = gcbean.getCollectionTime();
-                currentTenuredGCCount = gcbean.getCollectionCount();
-            }
-            currentGCTime += gcbean.getCollectionTime();
-            currentGCCount += gcbean.getCollectionCount();
-        }
-        this.setLastGCTime(currentGCTime);
-        this.setLastGCCount(currentGCCount);
-        this.setLastNurseryGCTime(currentNurseryGCTime);
-        this.setLastNurseryGCCount(currentNurseryGCCount);
-        this.setLastTenuredGCTime(currentTenuredGCTime);
-        this.setLastTenuredGCCount(currentTenuredGCCount);
+    public GCTimeBean(GarbageCollectorMXBeanHelper gcMXBeanHelper) throws MBeanRuntimeException {
+
+        // initialise GC pause times and counts
+        this.setLastGCTime(gcMXBeanHelper.getGCTime());
+        this.setLastGCCount(gcMXBeanHelper.getNurseryGCCount() + gcMXBeanHelper.getTenuredGCCount());
+        this.setLastNurseryGCTime(gcMXBeanHelper.getNurseryGCTime());
+        this.setLastNurseryGCCount(gcMXBeanHelper.getNurseryGCCount());
+        this.setLastTenuredGCTime(gcMXBeanHelper.getTenuredGCTime());
+        this.setLastTenuredGCCount(gcMXBeanHelper.getTenuredGCCount());
         this.setLastSystemTime(System.currentTimeMillis());
 
     }
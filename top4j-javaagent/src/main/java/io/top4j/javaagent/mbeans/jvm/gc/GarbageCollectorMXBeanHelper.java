@@ -19,6 +19,7 @@ package io.top4j.javaagent.mbeans.jvm.gc;
 import io.top4j.javaagent.exception.MBeanDiscoveryException;
 import io.top4j.javaagent.exception.MBeanInitException;
 import io.top4j.javaagent.exception.MBeanRuntimeException;
+import io.top4j.javaagent.mbeans.jvm.MemorySnapshotBus;
 
 import java.io.IOException;
 import java.lang.management.GarbageCollectorMXBean;
@@ -29,21 +30,41 @@ import java.util.logging.Logger;
 
 import javax.management.*;
 
+/**
+ * Provides access to the JVM garbage collector MBeans. Each collector is classified via its CollectorDescriptor, so that
+ * GC time and count can be aggregated by what they measure, i.e. stop-the-world pauses or collections, of the young or old
+ * generation, whichever collectors the JVM is running.
+ * <p>
+ * If a MemorySnapshotBus is provided, GC time and count are read from the bus's current snapshot rather than from the
+ * garbage collector MBeans directly.
+ */
 public class GarbageCollectorMXBeanHelper {
 
     private String nurseryCollectorName;
     private String tenuredCollectorName;
-    private ObjectName nurseryCollectorObjectName;
-    private ObjectName tenuredCollectorObjectName;
     private List<GarbageCollectorMXBean> gcbeans;
+    private List<CollectorDescriptor> collectorDescriptors = new ArrayList<>();
+    private List<ObjectName> pauseCollectorObjectNames = new ArrayList<>();
+    private List<ObjectName> nurseryPauseCollectorObjectNames = new ArrayList<>();
+    private List<ObjectName> tenuredPauseCollectorObjectNames = new ArrayList<>();
+    private List<ObjectName> nurseryCollectionCollectorObjectNames = new ArrayList<>();
+    private List<ObjectName> tenuredCollectionCollectorObjectNames = new ArrayList<>();
     private MBeanServerConnection mbsc;
+    private MemorySnapshotBus memorySnapshotBus;
 
     private static final Logger LOGGER = Logger.getLogger(GarbageCollectorMXBeanHelper.class.getName());
 
     public GarbageCollectorMXBeanHelper(MBeanServerConnection mbsc) throws MBeanInitException {
 
+        this(mbsc, null);
+    }
+
+    public GarbageCollectorMXBeanHelper(MBeanServerConnection mbsc, MemorySnapshotBus memorySnapshotBus) throws MBeanInitException {
+
         // store MBean server connection
         this.mbsc = mbsc;
+        // store memory snapshot bus (null if GC stats should be read from the garbage collector MBeans directly)
+        this.memorySnapshotBus = memorySnapshotBus;
         // get and store list of GarbageCollectorMXBean's
         try {
             this.gcbeans = ManagementFactory.getPlatformMXBeans(mbsc, GarbageCollectorMXBean.class);
@@ -52,21 +73,50 @@ public class GarbageCollectorMXBeanHelper {
         }
 
         try {
-            // discover nursery collector name
-            this.setNurseryCollectorName(this.discoverNurseryCollectorName());
-            this.nurseryCollectorObjectName = new ObjectName("java.lang:type=GarbageCollector,name=" + nurseryCollectorName);
-
-            if (!this.nurseryCollectorName.equals("ZGC")) {
-                // discover tenured collector name
-                this.setTenuredCollectorName(this.discoverTenuredCollectorName());
-                this.tenuredCollectorObjectName = new ObjectName("java.lang:type=GarbageCollector,name=" + tenuredCollectorName);
+            // classify garbage collectors
+            for (GarbageCollectorMXBean gcbean : gcbeans) {
+                String name = gcbean.getName();
+                CollectorDescriptor collectorDescriptor = CollectorDescriptor.describe(name);
+                LOGGER.fine("Garbage Collector = " + collectorDescriptor);
+                collectorDescriptors.add(collectorDescriptor);
+                ObjectName objectName = new ObjectName(ManagementFactory.GARBAGE_COLLECTOR_MXBEAN_DOMAIN_TYPE + ",name=" + name);
+                if (collectorDescriptor.isPause()) {
+                    pauseCollectorObjectNames.add(objectName);
+                    if (collectorDescriptor.isYoung()) {
+                        nurseryPauseCollectorObjectNames.add(objectName);
+                    } else {
+                        tenuredPauseCollectorObjectNames.add(objectName);
+                    }
+                }
+                if (collectorDescriptor.isCollection()) {
+                    if (collectorDescriptor.isYoung()) {
+                        nurseryCollectionCollectorObjectNames.add(objectName);
+                        if (nurseryCollectorName == null) {
+                            this.setNurseryCollectorName(name);
+                        }
+                    } else {
+                        tenuredCollectionCollectorObjectNames.add(objectName);
+                        if (tenuredCollectorName == null) {
+                            this.setTenuredCollectorName(name);
+                        }
+                    }
+                }
             }
         } catch (MalformedObjectNameException e) {
             throw new MBeanInitException(e, "JMX MalformedObjectNameException: " + e.getMessage());
         }
+        LOGGER.fine("Nursery Collector Name = " + nurseryCollectorName);
+        LOGGER.fine("Tenured Collector Name = " + tenuredCollectorName);
+        if (nurseryCollectorName == null) {
+            throw new MBeanDiscoveryException("Unable to auto discover nursery collector name.");
+        }
 
     }
 
+    /**
+     * @return the name of the (first) collector which collects the young generation, or the whole heap of a single
+     * generation heap
+     */
     public String getNurseryCollectorName() {
         return nurseryCollectorName;
     }
@@ -75,6 +125,9 @@ public class GarbageCollectorMXBeanHelper {
         this.nurseryCollectorName = nurseryCollectorName;
     }
 
+    /**
+     * @return the name of the (first) collector which collects the old generation, or null for a single generation heap
+     */
     public String getTenuredCollectorName() {
         return tenuredCollectorName;
     }
@@ -83,6 +136,13 @@ public class GarbageCollectorMXBeanHelper {
         this.tenuredCollectorName = tenuredCollectorName;
     }
 
+    /**
+     * @return the descriptors of all available garbage collectors
+     */
+    public List<CollectorDescriptor> getCollectorDescriptors() {
+        return collectorDescriptors;
+    }
+
     /**
      * Lists all available garbage collector names
      * @return list of garbage collector names
@@ -104,90 +164,112 @@ public class GarbageCollectorMXBeanHelper {
 
     }
 
-    private String discoverNurseryCollectorName() throws MBeanDiscoveryException {
+    /**
+     * Get the total stop-the-world GC pause time, i.e. excluding the time spent in concurrent collection cycles.
+     * @return the GC pause time in milliseconds
+     * @throws MBeanRuntimeException If an MBean runtime exception occurred
+     */
+    public long getGCTime() throws MBeanRuntimeException {
 
-        String collectorName = null;
+        return getCollectionTime(pauseCollectorObjectNames);
 
-        for (GarbageCollectorMXBean gcbean : gcbeans) {
-            String name = gcbean.getName();
-            LOGGER.finest("GC MX Bean Name = " + name);
-            if (name.equals("Copy") ||
-                    name.equals("PS Scavenge") ||
-                    name.endsWith("Young Collector") ||
-                    name.equals("ParNew") ||
-                    name.equals("G1 Young Generation") ||
-                    name.equals("ZGC")) {
-                collectorName = name;
-            }
-        }
-        LOGGER.fine("Nursery Collector Name = " + collectorName);
-        if (collectorName == null) {
-            throw new MBeanDiscoveryException("Unable to auto discover nursery collector name.");
-        }
-        return collectorName;
     }
 
-    private String discoverTenuredCollectorName() throws MBeanDiscoveryException {
+    /**
+     * @return the nursery (young generation) stop-the-world GC pause time in milliseconds
+     * @throws MBeanRuntimeException If an MBean runtime exception occurred
+     */
+    public long getNurseryGCTime() throws MBeanRuntimeException {
 
-        String collectorName = null;
+        return getCollectionTime(nurseryPauseCollectorObjectNames);
 
-        for (GarbageCollectorMXBean gcbean : gcbeans) {
-            String name = gcbean.getName();
-            LOGGER.finest("GC MX Bean Name = " + name);
-            if (name.equals("MarkSweepCompact") ||
-                    name.equals("PS MarkSweep") ||
-                    name.endsWith("Old Collector") ||
-                    name.equals("ConcurrentMarkSweep") ||
-                    name.equals("G1 Old Generation")) {
-                collectorName = name;
-            }
-        }
-        LOGGER.fine("Tenured Collector Name = " + collectorName);
-        if (collectorName == null) {
-            throw new MBeanDiscoveryException("Unable to auto discover tenured collector name.");
-        }
-        return collectorName;
     }
 
-    public long getGCTime() {
+    /**
+     * @return the tenured (old generation) stop-the-world GC pause time in milliseconds
+     * @throws MBeanRuntimeException If an MBean runtime exception occurred
+     */
+    public long getTenuredGCTime() throws MBeanRuntimeException {
 
-        long gcTime = 0;
+        return getCollectionTime(tenuredPauseCollectorObjectNames);
 
-        for (GarbageCollectorMXBean gcbean : gcbeans) {
-            String name = gcbean.getName();
-            long collectionTime = gcbean.getCollectionTime();
-            LOGGER.finer(name + "Collector GC Collection Time = " + collectionTime);
-            gcTime += collectionTime;
-        }
+    }
+
+    /**
+     * @return the number of nursery (young generation) stop-the-world GC pauses
+     * @throws MBeanRuntimeException If an MBean runtime exception occurred
+     */
+    public long getNurseryGCCount() throws MBeanRuntimeException {
 
-        return gcTime;
+        return getCollectionCount(nurseryPauseCollectorObjectNames);
 
     }
 
-    public long getNurseryGCTime() throws MBeanRuntimeException {
+    /**
+     * @return the number of tenured (old generation) stop-the-world GC pauses
+     * @throws MBeanRuntimeException If an MBean runtime exception occurred
+     */
+    public long getTenuredGCCount() throws MBeanRuntimeException {
 
-        long nurseryGCTime;
+        return getCollectionCount(tenuredPauseCollectorObjectNames);
 
-        nurseryGCTime = getCollectionTime(nurseryCollectorObjectName);
+    }
 
-        return nurseryGCTime;
+    /**
+     * Get the number of nursery (young generation) collections, which (unlike the number of GC pauses) counts each
+     * concurrent collection cycle once.
+     * @return the number of nursery collections
+     * @throws MBeanRuntimeException If an MBean runtime exception occurred
+     */
+    public long getNurseryCollectionCount() throws MBeanRuntimeException {
+
+        return getCollectionCount(nurseryCollectionCollectorObjectNames);
 
     }
 
-    public long getTenuredGCTime() throws MBeanRuntimeException {
+    /**
+     * Get the number of tenured (old generation) collections, which (unlike the number of GC pauses) counts each
+     * concurrent collection cycle once.
+     * @return the number of tenured collections
+     * @throws MBeanRuntimeException If an MBean runtime exception occurred
+     */
+    public long getTenuredCollectionCount() throws MBeanRuntimeException {
+
+        return getCollectionCount(tenuredCollectionCollectorObjectNames);
+
+    }
 
-        long tenuredGCTime;
+    private long getCollectionTime(List<ObjectName> objectNames) throws MBeanRuntimeException {
 
-        tenuredGCTime = getCollectionTime(tenuredCollectorObjectName);
+        long collectionTime = 0;
 
-        return tenuredGCTime;
+        for (ObjectName objectName : objectNames) {
+            collectionTime += getCollectionTime(objectName);
+        }
 
+        return collectionTime;
+    }
+
+    private long getCollectionCount(List<ObjectName> objectNames) throws MBeanRuntimeException {
+
+        long collectionCount = 0;
+
+        for (ObjectName objectName : objectNames) {
+            collectionCount += getCollectionCount(objectName);
+        }
+
+        return collectionCount;
     }
 
     private long getCollectionTime(ObjectName objectName) throws MBeanRuntimeException {
 
         long collectionTime = 0;
 
+        if (memorySnapshotBus != null) {
+            // read collection time from current memory snapshot
+            return memorySnapshotBus.getSnapshot().getCollectionTime(objectName);
+        }
+
         try {
             collectionTime = (long) mbsc.getAttribute(objectName, "CollectionTime");
         } catch (AttributeNotFoundException e) {
@@ -205,30 +287,15 @@ public class GarbageCollectorMXBeanHelper {
         return collectionTime;
     }
 
-    public long getNurseryGCCount() throws MBeanRuntimeException {
-
-        long nurseryGCCount;
-
-        nurseryGCCount = getCollectionCount(nurseryCollectorObjectName);
-
-        return nurseryGCCount;
-
-    }
-
-    public long getTenuredGCCount() throws MBeanRuntimeException {
-
-        long tenuredGCCount = 0;
-
-        tenuredGCCount = getCollectionCount(tenuredCollectorObjectName);
-
-        return tenuredGCCount;
-
-    }
-
     private long getCollectionCount(ObjectName objectName) throws MBeanRuntimeException {
 
         long collectionCount = 0;
 
+        if (memorySnapshotBus != null) {
+            // read collection count from current memory snapshot
+            return memorySnapshotBus.getSnapshot().getCollectionCount(objectName);
+        }
+
         try {
             collectionCount = (long) mbsc.getAttribute(objectName, "CollectionCount");
         } catch (AttributeNotFoundException e) {
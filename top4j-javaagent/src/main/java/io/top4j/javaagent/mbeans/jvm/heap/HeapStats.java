@@ -16,15 +16,32 @@
 
 package io.top4j.javaagent.mbeans.jvm.heap;
 
+import io.top4j.javaagent.config.Constants;
 import io.top4j.javaagent.exception.MBeanRuntimeException;
+import io.top4j.javaagent.mbeans.jvm.GCTimeline;
+import io.top4j.javaagent.mbeans.jvm.MemorySnapshotBus;
 import io.top4j.javaagent.profiler.CpuTime;
 
 import javax.management.MBeanServerConnection;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
 import java.util.logging.Logger;
 
-public class HeapStats implements HeapStatsMXBean {
+/**
+ * Exposes the heap utilisation following the most recent garbage collection event and, via the GC timeline, the tenured
+ * heap growth rate and projected time to tenured heap exhaustion. A JMX notification is emitted when the projected time to
+ * heap exhaustion falls below the heap exhaustion horizon, and again whenever the projection recovers and then falls below
+ * the horizon once more.
+ */
+public class HeapStats extends NotificationBroadcasterSupport implements HeapStatsMXBean {
 
     private HeapUtilisation heapUtilisation;
+    private GCTimeline gcTimeline;
+    private long heapExhaustionHorizon;
+    volatile private double tenuredHeapGrowthRate;
+    volatile private long timeToHeapExhaustion = -1;
+    private boolean belowHeapExhaustionHorizon;
+    private long notificationSequence;
     private CpuTime cpuTime = new CpuTime();
     private double mBeanCpuTime;
     private boolean enabled = true;
@@ -32,12 +49,16 @@ public class HeapStats implements HeapStatsMXBean {
 
     private static final Logger LOGGER = Logger.getLogger(HeapStats.class.getName());
 
-    public HeapStats(MBeanServerConnection mbsc) throws Exception {
+    public HeapStats(MBeanServerConnection mbsc, MemorySnapshotBus memorySnapshotBus, GCTimeline gcTimeline, long heapExhaustionHorizon) throws Exception {
 
         LOGGER.fine("Initialising Heap Stats....");
 
         // instantiate new HeapUtilisation to store heap utilisation
-        this.heapUtilisation = new HeapUtilisation(mbsc);
+        this.heapUtilisation = new HeapUtilisation(mbsc, memorySnapshotBus);
+        // store GC timeline (null if the time to heap exhaustion can't be projected)
+        this.gcTimeline = gcTimeline;
+        // store heap exhaustion horizon in seconds (0 to disable heap exhaustion notifications)
+        this.heapExhaustionHorizon = heapExhaustionHorizon;
 
     }
 
@@ -70,11 +91,36 @@ public class HeapStats implements HeapStatsMXBean {
         // update heap utilisation
         this.heapUtilisation.update();
 
+        if (gcTimeline != null) {
+            // project time to tenured heap exhaustion
+            long currentTime = System.currentTimeMillis();
+            this.tenuredHeapGrowthRate = gcTimeline.getTenuredGrowthRate(currentTime) / Constants.ONE_MEGA_BYTE;
+            this.timeToHeapExhaustion = gcTimeline.getTimeToExhaustion(currentTime);
+            LOGGER.fine("Tenured Heap Growth Rate = " + tenuredHeapGrowthRate + " MB/s, Time To Heap Exhaustion = " + timeToHeapExhaustion + "s");
+            checkHeapExhaustionHorizon();
+        }
+
         // update heap stats CPU time
         mBeanCpuTime = cpuTime.getMillis();
 
     }
 
+    private void checkHeapExhaustionHorizon() {
+
+        boolean belowHorizon = heapExhaustionHorizon > 0 && timeToHeapExhaustion >= 0 && timeToHeapExhaustion < heapExhaustionHorizon;
+        if (belowHorizon && !belowHeapExhaustionHorizon) {
+            // projection has just fallen below the horizon - notify listeners
+            String message = "Tenured heap projected to be exhausted in " + timeToHeapExhaustion + "s (growing at "
+                    + String.format("%.3f", tenuredHeapGrowthRate) + " MB/s)";
+            LOGGER.warning(message);
+            Notification notification = new Notification(Constants.HEAP_EXHAUSTION_NOTIFICATION_TYPE, this, ++notificationSequence,
+                    System.currentTimeMillis(), message);
+            notification.setUserData(timeToHeapExhaustion);
+            sendNotification(notification);
+        }
+        this.belowHeapExhaustionHorizon = belowHorizon;
+    }
+
     @Override
     public void setMBeanCpuTime(double agentCpuTime) {
         this.mBeanCpuTime = agentCpuTime;
@@ -135,6 +181,16 @@ public class HeapStats implements HeapStatsMXBean {
         return this.failureReason;
     }
 
+    @Override
+    public double getTenuredHeapGrowthRate() {
+        return tenuredHeapGrowthRate;
+    }
+
+    @Override
+    public long getTimeToHeapExhaustion() {
+        return timeToHeapExhaustion;
+    }
+
     public boolean isSingleGenerationHeap() {
         return this.heapUtilisation.isSingleGenerationHeap();
     }
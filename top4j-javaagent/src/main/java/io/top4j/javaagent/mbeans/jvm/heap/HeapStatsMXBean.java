@@ -83,6 +83,21 @@ public interface HeapStatsMXBean extends StatsMXBean {
      */
     double getTenuredHeapUtil();
 
+    /**
+     * Returns the tenured (or old) heap growth rate in MB/s, i.e. the slope of a least squares regression of the tenured heap usage
+     * following each garbage collection event over the last 15 minutes.
+     * @return the tenured heap growth rate
+     */
+    double getTenuredHeapGrowthRate();
+
+    /**
+     * Returns the projected time in seconds until the tenured (or old) heap is exhausted, i.e. until the tenured heap usage following
+     * garbage collection reaches the tenured heap max size if it keeps growing at the tenured heap growth rate. A JMX notification is
+     * emitted when the projection falls below the configured heap exhaustion horizon.
+     * @return the time to tenured heap exhaustion in seconds, or -1 if the tenured heap isn't growing
+     */
+    long getTimeToHeapExhaustion();
+
     /**
      * @return true if the heap is a single-generation (thus no survivor/tenured generations).
      */
@@ -18,6 +18,7 @@ package io.top4j.javaagent.mbeans.jvm.heap;
 
 import io.top4j.javaagent.exception.MBeanInitException;
 import io.top4j.javaagent.exception.MBeanRuntimeException;
+import io.top4j.javaagent.mbeans.jvm.MemorySnapshotBus;
 import io.top4j.javaagent.mbeans.jvm.memory.MemoryPoolMXBeanHelper;
 
 import javax.management.MBeanServerConnection;
@@ -32,13 +33,13 @@ public class HeapUtilisation {
 
     private static final Logger LOGGER = Logger.getLogger(HeapUtilisation.class.getName());
 
-    public HeapUtilisation(MBeanServerConnection mbsc) throws Exception {
+    public HeapUtilisation(MBeanServerConnection mbsc, MemorySnapshotBus memorySnapshotBus) throws Exception {
 
         LOGGER.fine("Initialising Heap Utilisation....");
 
         // instantiate new MemoryPoolMXBeanHelper
         try {
-            this.memoryPoolMxBeanHelper = new MemoryPoolMXBeanHelper(mbsc);
+            this.memoryPoolMxBeanHelper = new MemoryPoolMXBeanHelper(mbsc, memorySnapshotBus);
         } catch (Exception e) {
             throw new MBeanInitException(e, "Failed to initialise heap utilisation stats collector due to: " + e.getMessage());
         }
@@ -71,29 +72,31 @@ public class HeapUtilisation {
         }
         LOGGER.finer("Eden Space Util = " + edenSpaceUtil + "%");
 
+        if (memoryPoolMxBeanHelper.hasSurvivorSpace()) {
+            // update survivor space util
+            long survivorSpaceUsed = 0;
+            try {
+                survivorSpaceUsed = memoryPoolMxBeanHelper.getSurvivorCollectionUsed();
+            } catch (Exception e) {
+                throw new MBeanRuntimeException(e, "ERROR: Unable to retrieve survivor collection used from MemoryPool MBean due to: " + e.getMessage());
+            }
+            long survivorSpaceCommitted = 0;
+            try {
+                survivorSpaceCommitted = memoryPoolMxBeanHelper.getSurvivorCollectionCommitted();
+            } catch (Exception e) {
+                throw new MBeanRuntimeException(e, "ERROR: Unable to retrieve survivor collection committed from MemoryPool MBean due to: " + e.getMessage());
+            }
+            LOGGER.finer("Survivor Collection Used = " + survivorSpaceUsed);
+            LOGGER.finer("Survivor Collection Committed = " + survivorSpaceCommitted);
+            if (survivorSpaceCommitted > 0) {
+                this.survivorSpaceUtil = calculateHeapUtil(survivorSpaceUsed, survivorSpaceCommitted);
+            }
+            LOGGER.fine("Survivor Space Util = " + survivorSpaceUtil + "%");
+        }
+
         if (this.isSingleGenerationHeap())
             return;
 
-        // update survivor space util
-        long survivorSpaceUsed = 0;
-        try {
-            survivorSpaceUsed = memoryPoolMxBeanHelper.getSurvivorCollectionUsed();
-        } catch (Exception e) {
-            throw new MBeanRuntimeException(e, "ERROR: Unable to retrieve survivor collection used from MemoryPool MBean due to: " + e.getMessage());
-        }
-        long survivorSpaceCommitted = 0;
-        try {
-            survivorSpaceCommitted = memoryPoolMxBeanHelper.getSurvivorCollectionCommitted();
-        } catch (Exception e) {
-            throw new MBeanRuntimeException(e, "ERROR: Unable to retrieve survivor collection committed from MemoryPool MBean due to: " + e.getMessage());
-        }
-        LOGGER.finer("Survivor Collection Used = " + survivorSpaceUsed);
-        LOGGER.finer("Survivor Collection Committed = " + survivorSpaceCommitted);
-        if (survivorSpaceCommitted > 0) {
-            this.survivorSpaceUtil = calculateHeapUtil(survivorSpaceUsed, survivorSpaceCommitted);
-        }
-        LOGGER.fine("Survivor Space Util = " + survivorSpaceUtil + "%");
-
         // update tenured heap util
         long tenuredHeapUsed = 0;
         try {
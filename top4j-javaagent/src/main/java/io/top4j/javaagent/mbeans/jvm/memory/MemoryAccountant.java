@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.memory;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import io.top4j.javaagent.mbeans.jvm.GCEventListener;
+import io.top4j.javaagent.mbeans.jvm.gc.CollectorDescriptor;
+
+import java.lang.management.MemoryUsage;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Accounts for the memory allocated, survived and promoted by the application using the before and after memory pool
+ * usage reported for every collection via the GC events published by the GCNotificationBus. The running totals are held
+ * in lock-free counters, which are updated by the JMX notification thread and read by the stats update process.
+ * <p>
+ * For each collection:
+ * <ul>
+ * <li>allocated - the growth of the nursery since the end of the previous collection, i.e. the nursery used before this
+ * collection minus the nursery used after the previous collection</li>
+ * <li>survived - the survivor space used after a young collection</li>
+ * <li>promoted - the growth of the tenured pool during a young collection</li>
+ * </ul>
+ * Only collection events are accounted for, i.e. the pauses of concurrent collection cycles are ignored. Concurrent old
+ * generation cycles (e.g. CMS) are also ignored, as young collections carry on during the cycle, so the nursery usage
+ * before and after the cycle doesn't describe a single collection.
+ */
+public class MemoryAccountant implements GCEventListener {
+
+    private final String nurseryPoolName;
+    private final String survivorSpacePoolName;
+    private final String tenuredPoolName;
+    private final Map<String, CollectorDescriptor> accountedCollectors = new HashMap<>();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong survivedBytes = new AtomicLong();
+    private final AtomicLong promotedBytes = new AtomicLong();
+    private final AtomicLong collectionCount = new AtomicLong();
+    // nursery used following the last accounted collection
+    private volatile long nurseryUsedAfterGC;
+
+    private static final Logger LOGGER = Logger.getLogger(MemoryAccountant.class.getName());
+
+    /**
+     * @param nurseryPoolName the nursery (or single generation heap) memory pool name
+     * @param survivorSpacePoolName the survivor space memory pool name or null if the heap has no survivor space
+     * @param tenuredPoolName the tenured memory pool name or null for a single generation heap
+     * @param collectorDescriptors the descriptors of the JVM's garbage collectors
+     * @param nurseryUsed the nursery used now, i.e. the baseline for the allocation of the first collection
+     */
+    public MemoryAccountant(String nurseryPoolName, String survivorSpacePoolName, String tenuredPoolName,
+                            List<CollectorDescriptor> collectorDescriptors, long nurseryUsed) {
+
+        this.nurseryPoolName = nurseryPoolName;
+        this.survivorSpacePoolName = survivorSpacePoolName;
+        this.tenuredPoolName = tenuredPoolName;
+        this.nurseryUsedAfterGC = nurseryUsed;
+
+        for (CollectorDescriptor collectorDescriptor : collectorDescriptors) {
+            if (isAccounted(collectorDescriptor)) {
+                accountedCollectors.put(collectorDescriptor.getName(), collectorDescriptor);
+            }
+        }
+        LOGGER.fine("Memory accountant collectors = " + accountedCollectors.keySet());
+    }
+
+    /**
+     * @param collectorDescriptor a garbage collector descriptor
+     * @return true if the collector's GC events are accounted for
+     */
+    public static boolean isAccounted(CollectorDescriptor collectorDescriptor) {
+
+        // collections only - and no concurrent old generation cycles
+        return collectorDescriptor.isCollection() &&
+                (collectorDescriptor.isYoung() || collectorDescriptor.getKind() != CollectorDescriptor.Kind.CYCLE);
+    }
+
+    @Override
+    public void handleGCEvent(CollectorDescriptor collectorDescriptor, GarbageCollectionNotificationInfo info) {
+
+        if (!accountedCollectors.containsKey(collectorDescriptor.getName())) {
+            return;
+        }
+        GcInfo gcInfo = info.getGcInfo();
+        account(collectorDescriptor, gcInfo.getMemoryUsageBeforeGc(), gcInfo.getMemoryUsageAfterGc());
+
+    }
+
+    /**
+     * Account for a single collection.
+     *
+     * @param collectorDescriptor the descriptor of the collector which ran the collection
+     * @param memoryUsageBeforeGc the memory pool usage before the collection by memory pool name
+     * @param memoryUsageAfterGc the memory pool usage after the collection by memory pool name
+     */
+    public void account(CollectorDescriptor collectorDescriptor,
+                        Map<String, MemoryUsage> memoryUsageBeforeGc,
+                        Map<String, MemoryUsage> memoryUsageAfterGc) {
+
+        // allocated since the previous collection
+        long nurseryUsedBeforeGC = getUsed(memoryUsageBeforeGc, nurseryPoolName);
+        long allocated = Math.max(0, nurseryUsedBeforeGC - nurseryUsedAfterGC);
+        allocatedBytes.addAndGet(allocated);
+        this.nurseryUsedAfterGC = getUsed(memoryUsageAfterGc, nurseryPoolName);
+
+        long survived = 0;
+        long promoted = 0;
+        if (collectorDescriptor.isYoung()) {
+            if (survivorSpacePoolName != null) {
+                // survived this young collection
+                survived = getUsed(memoryUsageAfterGc, survivorSpacePoolName);
+                survivedBytes.addAndGet(survived);
+            }
+            if (tenuredPoolName != null) {
+                // promoted by this young collection
+                promoted = Math.max(0, getUsed(memoryUsageAfterGc, tenuredPoolName) - getUsed(memoryUsageBeforeGc, tenuredPoolName));
+                promotedBytes.addAndGet(promoted);
+            }
+        }
+        collectionCount.incrementAndGet();
+        LOGGER.finer(collectorDescriptor.getName() + " allocated = " + allocated + " survived = " + survived + " promoted = " + promoted);
+
+    }
+
+    /**
+     * @return the total number of bytes allocated up to the last collection
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * Get the total number of bytes allocated, including the allocation since the last collection.
+     *
+     * @param nurseryUsed the nursery used now
+     * @return the total number of bytes allocated
+     */
+    public long getAllocatedBytes(long nurseryUsed) {
+        return allocatedBytes.get() + Math.max(0, nurseryUsed - nurseryUsedAfterGC);
+    }
+
+    /**
+     * @return the total number of bytes which survived young collections (into the survivor space)
+     */
+    public long getSurvivedBytes() {
+        return survivedBytes.get();
+    }
+
+    /**
+     * @return the total number of bytes promoted to the tenured pool by young collections
+     */
+    public long getPromotedBytes() {
+        return promotedBytes.get();
+    }
+
+    /**
+     * @return the number of collections accounted for
+     */
+    public long getCollectionCount() {
+        return collectionCount.get();
+    }
+
+    private static long getUsed(Map<String, MemoryUsage> memoryUsage, String poolName) {
+
+        MemoryUsage poolUsage = memoryUsage.get(poolName);
+        return poolUsage == null ? 0 : poolUsage.getUsed();
+    }
+
+}
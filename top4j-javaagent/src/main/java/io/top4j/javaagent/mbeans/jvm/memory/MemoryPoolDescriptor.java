@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.memory;
+
+import java.lang.management.MemoryType;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Describes a memory pool (MemoryPoolMXBean) by its role in the heap, so that memory stats can be calculated without
+ * hard-coding memory pool names.
+ * <p>
+ * Heap pools are classified as NURSERY (where new objects are allocated), SURVIVOR (where young objects are copied
+ * between young collections) or TENURED (where long lived objects are promoted to). The single pool of a single
+ * generation heap (e.g. ZHeap) is classified as NURSERY. Pools which aren't part of the heap are classified as NON_HEAP.
+ * <p>
+ * Known pools are described by name; any other heap pool is classified from its name (if possible).
+ */
+public class MemoryPoolDescriptor {
+
+    public enum Role {
+        NURSERY,
+        SURVIVOR,
+        TENURED,
+        NON_HEAP
+    }
+
+    private static final Map<String, Role> KNOWN_POOLS = new HashMap<>();
+
+    static {
+        // Serial, Parallel, CMS and G1
+        KNOWN_POOLS.put("Eden Space", Role.NURSERY);
+        KNOWN_POOLS.put("PS Eden Space", Role.NURSERY);
+        KNOWN_POOLS.put("Par Eden Space", Role.NURSERY);
+        KNOWN_POOLS.put("G1 Eden Space", Role.NURSERY);
+        KNOWN_POOLS.put("Survivor Space", Role.SURVIVOR);
+        KNOWN_POOLS.put("PS Survivor Space", Role.SURVIVOR);
+        KNOWN_POOLS.put("Par Survivor Space", Role.SURVIVOR);
+        KNOWN_POOLS.put("G1 Survivor Space", Role.SURVIVOR);
+        KNOWN_POOLS.put("Tenured Gen", Role.TENURED);
+        KNOWN_POOLS.put("PS Old Gen", Role.TENURED);
+        KNOWN_POOLS.put("CMS Old Gen", Role.TENURED);
+        KNOWN_POOLS.put("G1 Old Gen", Role.TENURED);
+        // ZGC and Shenandoah - single generation
+        KNOWN_POOLS.put("ZHeap", Role.NURSERY);
+        KNOWN_POOLS.put("Shenandoah", Role.NURSERY);
+        // generational ZGC
+        KNOWN_POOLS.put("ZGC Young Generation", Role.NURSERY);
+        KNOWN_POOLS.put("ZGC Old Generation", Role.TENURED);
+        // OpenJ9
+        KNOWN_POOLS.put("nursery-allocate", Role.NURSERY);
+        KNOWN_POOLS.put("nursery-survivor", Role.SURVIVOR);
+        KNOWN_POOLS.put("tenured-SOA", Role.TENURED);
+        KNOWN_POOLS.put("tenured", Role.TENURED);
+    }
+
+    private final String name;
+    private final Role role;
+
+    public MemoryPoolDescriptor(String name, Role role) {
+
+        this.name = name;
+        this.role = role;
+    }
+
+    /**
+     * Describe a memory pool by name and type.
+     *
+     * @param name the memory pool (MemoryPoolMXBean) name
+     * @param type the memory pool type
+     * @return the memory pool descriptor - the role is null if the heap pool can't be classified
+     */
+    public static MemoryPoolDescriptor describe(String name, MemoryType type) {
+
+        if (type == MemoryType.NON_HEAP) {
+            return new MemoryPoolDescriptor(name, Role.NON_HEAP);
+        }
+        Role role = KNOWN_POOLS.get(name);
+        if (role == null) {
+            // unknown heap pool - classify by name
+            String lowerCaseName = name.toLowerCase();
+            if (lowerCaseName.contains("survivor")) {
+                role = Role.SURVIVOR;
+            } else if (lowerCaseName.contains("eden") || lowerCaseName.contains("young") || lowerCaseName.contains("nursery")) {
+                role = Role.NURSERY;
+            } else if (lowerCaseName.contains("old") || lowerCaseName.contains("tenured")) {
+                role = Role.TENURED;
+            }
+        }
+        return new MemoryPoolDescriptor(name, role);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [" + (role == null ? "unclassified" : role.name().toLowerCase().replace('_', '-')) + "]";
+    }
+
+}
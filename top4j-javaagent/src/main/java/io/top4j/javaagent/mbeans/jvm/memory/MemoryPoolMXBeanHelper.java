@@ -19,6 +19,7 @@ package io.top4j.javaagent.mbeans.jvm.memory;
 import io.top4j.javaagent.exception.MBeanDiscoveryException;
 import io.top4j.javaagent.exception.MBeanInitException;
 import io.top4j.javaagent.exception.MBeanRuntimeException;
+import io.top4j.javaagent.mbeans.jvm.MemorySnapshotBus;
 
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
@@ -31,6 +32,15 @@ import java.util.logging.Logger;
 import javax.management.*;
 import javax.management.openmbean.CompositeData;
 
+/**
+ * Provides access to the JVM heap memory pool MBeans. Each memory pool is classified via its MemoryPoolDescriptor, so that
+ * the nursery, survivor space and tenured pools can be discovered whichever collector the JVM is running. The survivor
+ * space and tenured pools are optional, e.g. generational ZGC has no survivor space and single generation heaps
+ * (e.g. ZGC and Shenandoah) consist of a single (nursery) pool.
+ * <p>
+ * If a MemorySnapshotBus is provided, memory pool usage, collection usage and peak usage are read from the bus's current
+ * snapshot rather than from the memory pool MBeans directly.
+ */
 public class MemoryPoolMXBeanHelper {
 
     private String nurseryPoolName;
@@ -42,13 +52,21 @@ public class MemoryPoolMXBeanHelper {
     private List<MemoryPoolMXBean> memPoolMXBeans;
     private MBeanServerConnection mbsc;
     private boolean onegen = false; // single-generation heap?
+    private MemorySnapshotBus memorySnapshotBus;
 
     private static final Logger LOGGER = Logger.getLogger(MemoryPoolMXBeanHelper.class.getName());
 
     public MemoryPoolMXBeanHelper(MBeanServerConnection mbsc) throws MBeanInitException {
 
+        this(mbsc, null);
+    }
+
+    public MemoryPoolMXBeanHelper(MBeanServerConnection mbsc, MemorySnapshotBus memorySnapshotBus) throws MBeanInitException {
+
         // store MBean server connection
         this.mbsc = mbsc;
+        // store memory snapshot bus (null if memory pool usage should be read from the memory pool MBeans directly)
+        this.memorySnapshotBus = memorySnapshotBus;
         // get and store list of MemoryPoolMXBean
         try {
             this.memPoolMXBeans = ManagementFactory.getPlatformMXBeans(mbsc, MemoryPoolMXBean.class);
@@ -56,22 +74,45 @@ public class MemoryPoolMXBeanHelper {
             throw new MBeanInitException(e, "JMX IOException: " + e.getMessage());
         }
 
-        try {
-            // discover nursery Pool name
-            this.setNurseryPoolName(this.discoverNurseryPoolName());
-            this.nurseryPoolObjectName = new ObjectName("java.lang:type=MemoryPool,name=" + nurseryPoolName);
-
-            this.onegen = this.nurseryPoolName.equals("ZHeap");
-
-            if (!onegen) {
-                // discover survivor space Pool name
-                this.setSurvivorSpacePoolName(this.discoverSurvivorSpacePoolName());
-                // discover tenured Pool name
-                this.setTenuredPoolName(this.discoverTenuredPoolName());
-                this.survivorSpacePoolObjectName = new ObjectName("java.lang:type=MemoryPool,name=" + survivorSpacePoolName);
-                this.tenuredPoolObjectName = new ObjectName("java.lang:type=MemoryPool,name=" + tenuredPoolName);
+        // classify heap memory pools - the first pool found in each role is used
+        List<String> heapPoolNames = new ArrayList<>();
+        for (MemoryPoolMXBean memPoolMXBean : memPoolMXBeans) {
+            MemoryPoolDescriptor memoryPoolDescriptor = MemoryPoolDescriptor.describe(memPoolMXBean.getName(), memPoolMXBean.getType());
+            LOGGER.fine("Memory Pool = " + memoryPoolDescriptor);
+            if (memoryPoolDescriptor.getRole() == MemoryPoolDescriptor.Role.NON_HEAP) {
+                continue;
+            }
+            heapPoolNames.add(memoryPoolDescriptor.getName());
+            if (memoryPoolDescriptor.getRole() == MemoryPoolDescriptor.Role.NURSERY && nurseryPoolName == null) {
+                this.setNurseryPoolName(memoryPoolDescriptor.getName());
+            } else if (memoryPoolDescriptor.getRole() == MemoryPoolDescriptor.Role.SURVIVOR && survivorSpacePoolName == null) {
+                this.setSurvivorSpacePoolName(memoryPoolDescriptor.getName());
+            } else if (memoryPoolDescriptor.getRole() == MemoryPoolDescriptor.Role.TENURED && tenuredPoolName == null) {
+                this.setTenuredPoolName(memoryPoolDescriptor.getName());
             }
+        }
+        if (nurseryPoolName == null && heapPoolNames.size() == 1) {
+            // unclassified single pool heap - treat as a single generation heap
+            this.setNurseryPoolName(heapPoolNames.get(0));
+        }
+        LOGGER.fine("Nursery Pool Name = " + nurseryPoolName);
+        LOGGER.fine("Survivor Space Pool Name = " + survivorSpacePoolName);
+        LOGGER.fine("Tenured Pool Name = " + tenuredPoolName);
+        if (nurseryPoolName == null) {
+            throw new MBeanDiscoveryException("Unable to auto discover nursery pool name.");
+        }
+
+        // a heap without a tenured pool is a single generation heap
+        this.onegen = tenuredPoolName == null;
 
+        try {
+            this.nurseryPoolObjectName = new ObjectName(ManagementFactory.MEMORY_POOL_MXBEAN_DOMAIN_TYPE + ",name=" + nurseryPoolName);
+            if (survivorSpacePoolName != null) {
+                this.survivorSpacePoolObjectName = new ObjectName(ManagementFactory.MEMORY_POOL_MXBEAN_DOMAIN_TYPE + ",name=" + survivorSpacePoolName);
+            }
+            if (tenuredPoolName != null) {
+                this.tenuredPoolObjectName = new ObjectName(ManagementFactory.MEMORY_POOL_MXBEAN_DOMAIN_TYPE + ",name=" + tenuredPoolName);
+            }
         } catch (MalformedObjectNameException e) {
             throw new MBeanInitException(e, "JMX MalformedObjectNameException: " + e.getMessage());
         }
@@ -123,76 +164,6 @@ public class MemoryPoolMXBeanHelper {
 
     }
 
-    private String discoverNurseryPoolName() throws MBeanDiscoveryException {
-
-        String poolName = null;
-
-        for (MemoryPoolMXBean memPoolMXBean : memPoolMXBeans) {
-
-            String mpName = memPoolMXBean.getName();
-            LOGGER.finest("Memory Pool MX Bean Name = " + mpName);
-
-            if (mpName.endsWith("Eden Space") ||
-                    mpName.equals("Nursery") ||
-                    mpName.equals("ZHeap")) {
-                poolName = mpName;
-            }
-
-        }
-        LOGGER.fine("Nursery Pool Name = " + poolName);
-        if (poolName == null) {
-            throw new MBeanDiscoveryException("Unable to auto discover nursery pool name.");
-        }
-        return poolName;
-
-    }
-
-    private String discoverSurvivorSpacePoolName() throws MBeanDiscoveryException {
-
-        String poolName = null;
-
-        for (MemoryPoolMXBean memPoolMXBean : memPoolMXBeans) {
-
-            String mpName = memPoolMXBean.getName();
-            LOGGER.finest("Memory Pool MX Bean Name = " + mpName);
-
-            if (mpName.endsWith("Survivor Space")) {
-                poolName = mpName;
-            }
-
-        }
-        LOGGER.fine("Survivor Space Pool Name = " + poolName);
-        if (nurseryPoolName == null) {
-            throw new MBeanDiscoveryException("Unable to auto discover survivor space pool name.");
-        }
-        return poolName;
-
-    }
-
-    private String discoverTenuredPoolName() throws MBeanDiscoveryException {
-
-        String poolName = null;
-
-        for (MemoryPoolMXBean memPoolMXBean : memPoolMXBeans) {
-
-            String mpName = memPoolMXBean.getName();
-            LOGGER.finest("Memory Pool MX Bean Name = " + mpName);
-
-            if (mpName.equals("Tenured Gen") ||
-                    mpName.endsWith("Old Gen") ||
-                    mpName.equals("Old Space")) {
-                poolName = mpName;
-            }
-
-        }
-        LOGGER.fine("Tenured Pool Name = " + poolName);
-        if (nurseryPoolName == null) {
-            throw new MBeanDiscoveryException("Unable to auto discover tenured pool name.");
-        }
-        return poolName;
-
-    }
-
     public long getNurseryHeapUsed() throws MBeanRuntimeException {
 
         long nurseryHeapUsed;
@@ -227,6 +198,12 @@ public class MemoryPoolMXBeanHelper {
 
         long heapUsed = 0;
 
+        if (memorySnapshotBus != null) {
+            // read Usage from current memory snapshot
+            MemoryUsage memoryUsage = memorySnapshotBus.getSnapshot().getUsage(objectName);
+            return memoryUsage == null ? 0 : memoryUsage.getUsed();
+        }
+
         try {
             MemoryUsage memoryUsage = MemoryUsage.from((CompositeData) mbsc.getAttribute(objectName, "Usage"));
             heapUsed = (long) memoryUsage.getUsed();
@@ -279,6 +256,12 @@ public class MemoryPoolMXBeanHelper {
 
         long heapCommitted = 0;
 
+        if (memorySnapshotBus != null) {
+            // read Usage from current memory snapshot
+            MemoryUsage memoryUsage = memorySnapshotBus.getSnapshot().getUsage(objectName);
+            return memoryUsage == null ? 0 : memoryUsage.getCommitted();
+        }
+
         try {
             MemoryUsage memoryUsage = MemoryUsage.from((CompositeData) mbsc.getAttribute(objectName, "Usage"));
             heapCommitted = (long) memoryUsage.getCommitted();
@@ -331,6 +314,12 @@ public class MemoryPoolMXBeanHelper {
 
         long collectionUsed = 0;
 
+        if (memorySnapshotBus != null) {
+            // read CollectionUsage from current memory snapshot
+            MemoryUsage memoryUsage = memorySnapshotBus.getSnapshot().getCollectionUsage(objectName);
+            return memoryUsage == null ? 0 : memoryUsage.getUsed();
+        }
+
         try {
             MemoryUsage memoryUsage = MemoryUsage.from((CompositeData) mbsc.getAttribute(objectName, "CollectionUsage"));
             collectionUsed = (long) memoryUsage.getUsed();
@@ -383,6 +372,12 @@ public class MemoryPoolMXBeanHelper {
 
         long collectionCommitted = 0;
 
+        if (memorySnapshotBus != null) {
+            // read CollectionUsage from current memory snapshot
+            MemoryUsage memoryUsage = memorySnapshotBus.getSnapshot().getCollectionUsage(objectName);
+            return memoryUsage == null ? 0 : memoryUsage.getCommitted();
+        }
+
         try {
             MemoryUsage collectionUsage = MemoryUsage.from((CompositeData) mbsc.getAttribute(objectName, "CollectionUsage"));
             collectionCommitted = (long) collectionUsage.getCommitted();
@@ -513,6 +508,12 @@ public class MemoryPoolMXBeanHelper {
 
         long peakUsed = 0;
 
+        if (memorySnapshotBus != null) {
+            // read PeakUsage from current memory snapshot
+            MemoryUsage memoryUsage = memorySnapshotBus.getSnapshot().getPeakUsage(objectName);
+            return memoryUsage == null ? 0 : memoryUsage.getUsed();
+        }
+
         try {
             MemoryUsage peakMemoryUsage = MemoryUsage.from((CompositeData) mbsc.getAttribute(objectName, "PeakUsage"));
             peakUsed = (long) peakMemoryUsage.getUsed();
@@ -569,4 +570,11 @@ public class MemoryPoolMXBeanHelper {
         return this.onegen;
     }
 
+    /**
+     * @return true if the heap has a survivor space pool
+     */
+    public boolean hasSurvivorSpace() {
+        return this.survivorSpacePoolObjectName != null;
+    }
+
 }
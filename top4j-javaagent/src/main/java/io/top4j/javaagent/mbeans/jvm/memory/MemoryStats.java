@@ -16,82 +16,67 @@
 
 package io.top4j.javaagent.mbeans.jvm.memory;
 
-import java.lang.management.ManagementFactory;
-import java.lang.management.MemoryMXBean;
-
 import java.util.logging.*;
 
 import javax.management.MBeanServerConnection;
-import javax.management.NotificationEmitter;
 
-import io.top4j.javaagent.listener.CollectionListener;
+import io.top4j.javaagent.config.Constants;
+import io.top4j.javaagent.exception.MBeanInitException;
+import io.top4j.javaagent.exception.MBeanRuntimeException;
+import io.top4j.javaagent.mbeans.jvm.GCNotificationBus;
+import io.top4j.javaagent.mbeans.jvm.gc.GarbageCollectorMXBeanHelper;
 import io.top4j.javaagent.profiler.CpuTime;
 
 public class MemoryStats implements MemoryStatsMXBean {
 
-    private MemoryPoolAllocationRate memoryAllocationRate;
-    private MemoryPoolAllocationRate memorySurvivorRate;
-    private MemoryPoolAllocationRate memoryPromotionRate;
+    volatile private double memoryAllocationRate;
+    volatile private double memorySurvivorRate;
+    volatile private double memoryPromotionRate;
+    private MemoryPoolMXBeanHelper memoryPoolMxBeanHelper;
+    private MemoryAccountant memoryAccountant;
+    private long lastAllocatedBytes;
+    private long lastSurvivedBytes;
+    private long lastPromotedBytes;
+    private long lastSystemTime;
     private CpuTime cpuTime = new CpuTime();
     private double mBeanCpuTime;
     private boolean enabled = true;
     private String failureReason;
-    private boolean onegen = false;
 
     private static final Logger LOGGER = Logger.getLogger(MemoryStats.class.getName());
 
-    public MemoryStats(MBeanServerConnection mbsc) throws Exception {
+    public MemoryStats(MBeanServerConnection mbsc, GCNotificationBus gcNotificationBus) throws Exception {
 
         LOGGER.fine("Initialising Memory stats....");
 
-        // instantiate new MemoryPoolUsageTracker to track nursery pool usage
-        MemoryPoolUsageTracker nurseryPoolUsageTracker = new MemoryPoolUsageTracker(mbsc, "Nursery");
-        this.onegen = nurseryPoolUsageTracker.getMemoryPoolName().equals("ZHeap");
-
-        // instantiate new MemoryPoolAllocationRate to store memory allocation rate
-        MemoryPoolAllocationRate memoryAllocationRate = new MemoryPoolAllocationRate(mbsc, "Nursery", nurseryPoolUsageTracker);
-
-        MemoryPoolUsageTracker survivorPoolUsageTracker = null, tenuredPoolUsageTracker = null;
-        MemoryPoolAllocationRate memorySurvivorRate = null, memoryPromotionRate = null;
-        if (!onegen) {
-            // instantiate new MemoryPoolUsageTracker to track survivor pool usage
-            survivorPoolUsageTracker = new MemoryPoolUsageTracker(mbsc, "Survivor");
+        if (gcNotificationBus == null) {
+            // GC notifications not supported by this JVM - memory stats can't be accounted for
+            throw new MBeanInitException(new Exception("GC notifications not available"), "GC notifications not available - memory stats disabled.");
+        }
 
-            // instantiate new MemoryPoolUsageTracker to track tenured pool usage
-            tenuredPoolUsageTracker = new MemoryPoolUsageTracker(mbsc, "Tenured");
+        // instantiate new MemoryPoolMXBeanHelper used to discover the heap memory pools and read the nursery usage - the
+        // nursery usage is read directly rather than from the memory snapshot, as it must be read alongside the memory
+        // accountant's totals
+        this.memoryPoolMxBeanHelper = new MemoryPoolMXBeanHelper(mbsc);
 
+        // instantiate new GarbageCollectorMXBeanHelper used to discover the garbage collectors
+        GarbageCollectorMXBeanHelper gcMXBeanHelper = new GarbageCollectorMXBeanHelper(mbsc);
 
-            // instantiate new MemorySurvivorRate to store memory survivor rate
-            memorySurvivorRate = new MemoryPoolAllocationRate(mbsc, "Survivor", survivorPoolUsageTracker);
+        // instantiate new MemoryAccountant to account for the memory allocated, survived and promoted by each collection
+        long nurseryUsed = memoryPoolMxBeanHelper.getNurseryHeapUsed();
+        this.memoryAccountant = new MemoryAccountant(
+                memoryPoolMxBeanHelper.getNurseryPoolName(),
+                memoryPoolMxBeanHelper.getSurvivorSpacePoolName(),
+                memoryPoolMxBeanHelper.getTenuredPoolName(),
+                gcMXBeanHelper.getCollectorDescriptors(),
+                nurseryUsed);
 
-            // instantiate new MemoryPoolAllocationRate to store memory promotion rate
-            memoryPromotionRate = new MemoryPoolAllocationRate(mbsc, "Tenured", tenuredPoolUsageTracker);
-        }
-        // instantiate new MemoryPoolMXBeanHelper
-        MemoryPoolMXBeanHelper memoryPoolMxBeanHelper = new MemoryPoolMXBeanHelper(mbsc);
-
-        // register CollectionListener with MemoryMXBean
-        MemoryMXBean memoryMXBean = ManagementFactory.getPlatformMXBean(mbsc, MemoryMXBean.class);
-        NotificationEmitter emitter = (NotificationEmitter) memoryMXBean;
-        CollectionListener listener = new CollectionListener(mbsc, nurseryPoolUsageTracker, survivorPoolUsageTracker, tenuredPoolUsageTracker);
-        emitter.addNotificationListener(listener, null, null);
-
-        // set memory pool usage thresholds
-        int memoryUsageThreshold = 1;
-        if (!onegen)
-            memoryPoolMxBeanHelper.setTenuredUsageThreshold(memoryUsageThreshold);
-
-        // set memory pool collection usage thresholds
-        int collectionUsageThreshold = 1;
-        memoryPoolMxBeanHelper.setNurseryCollectionUsageThreshold(collectionUsageThreshold);
-        if (!onegen) {
-            memoryPoolMxBeanHelper.setSurvivorCollectionUsageThreshold(collectionUsageThreshold);
-            memoryPoolMxBeanHelper.setTenuredCollectionUsageThreshold(collectionUsageThreshold);
-        }
+        // subscribe MemoryAccountant to the GC notification bus
+        gcNotificationBus.addListener(memoryAccountant);
 
-        this.memoryAllocationRate = memoryAllocationRate;
-        this.memorySurvivorRate = memorySurvivorRate;
-        this.memoryPromotionRate = memoryPromotionRate;
+        // initialise last memory totals
+        this.lastAllocatedBytes = memoryAccountant.getAllocatedBytes(nurseryUsed);
+        this.lastSystemTime = System.currentTimeMillis();
 
     }
 
@@ -114,24 +99,45 @@ public class MemoryStats implements MemoryStatsMXBean {
         }
     }
 
-    private synchronized void updateMemoryStats() {
+    private synchronized void updateMemoryStats() throws MBeanRuntimeException {
 
         // initialise thread CPU timer
         cpuTime.init();
 
         LOGGER.fine("Updating Memory stats....");
 
-        // update memory allocation rate
-        this.memoryAllocationRate.update();
-
-        if (!onegen) {
-            // update memory survivor rate
-            this.memorySurvivorRate.update();
-
-            // update memory promotion rate
-            this.memoryPromotionRate.update();
+        long systemTime = System.currentTimeMillis();
+        double intervalSystemTimeSecs = ((double) systemTime - (double) lastSystemTime) / 1000;
+        if (intervalSystemTimeSecs <= 0) {
+            return;
         }
 
+        // get memory totals - the allocated total includes the nursery growth since the last collection, so retry if a
+        // collection is accounted for whilst the nursery usage is read
+        long collectionCount;
+        long allocatedBytes;
+        do {
+            collectionCount = memoryAccountant.getCollectionCount();
+            allocatedBytes = memoryAccountant.getAllocatedBytes(memoryPoolMxBeanHelper.getNurseryHeapUsed());
+        } while (collectionCount != memoryAccountant.getCollectionCount());
+        long survivedBytes = memoryAccountant.getSurvivedBytes();
+        long promotedBytes = memoryAccountant.getPromotedBytes();
+        LOGGER.finer("Allocated = " + allocatedBytes + " Survived = " + survivedBytes + " Promoted = " + promotedBytes);
+
+        // calculate memory allocation, survivor and promotion rates in MB/s
+        this.memoryAllocationRate = calculateRate(allocatedBytes - lastAllocatedBytes, intervalSystemTimeSecs);
+        this.memorySurvivorRate = calculateRate(survivedBytes - lastSurvivedBytes, intervalSystemTimeSecs);
+        this.memoryPromotionRate = calculateRate(promotedBytes - lastPromotedBytes, intervalSystemTimeSecs);
+        LOGGER.fine("Memory Allocation Rate = " + memoryAllocationRate + " MB/s");
+        LOGGER.fine("Memory Survivor Rate = " + memorySurvivorRate + " MB/s");
+        LOGGER.fine("Memory Promotion Rate = " + memoryPromotionRate + " MB/s");
+
+        // store memory totals
+        this.lastAllocatedBytes = allocatedBytes;
+        this.lastSurvivedBytes = survivedBytes;
+        this.lastPromotedBytes = promotedBytes;
+        this.lastSystemTime = systemTime;
+
         // update memory stats CPU time
         mBeanCpuTime = cpuTime.getMillis();
 
@@ -149,36 +155,32 @@ public class MemoryStats implements MemoryStatsMXBean {
 
     @Override
     public void setMemoryAllocationRate(double memoryAllocationRate) {
-        this.memoryAllocationRate.setMemoryPoolAllocationRate(memoryAllocationRate);
+        this.memoryAllocationRate = memoryAllocationRate;
     }
 
     @Override
     public double getMemoryAllocationRate() {
-        return this.memoryAllocationRate.getMemoryPoolAllocationRate();
+        return this.memoryAllocationRate;
     }
 
     @Override
     public void setMemorySurvivorRate(double memorySurvivorRate) {
-        this.memorySurvivorRate.setMemoryPoolAllocationRate(memorySurvivorRate);
+        this.memorySurvivorRate = memorySurvivorRate;
     }
 
     @Override
     public double getMemorySurvivorRate() {
-        if (this.memorySurvivorRate == null)
-            return 0.0;
-        return this.memorySurvivorRate.getMemoryPoolAllocationRate();
+        return this.memorySurvivorRate;
     }
 
     @Override
     public void setMemoryPromotionRate(double memoryPromotionRate) {
-        this.memoryPromotionRate.setMemoryPoolAllocationRate(memoryPromotionRate);
+        this.memoryPromotionRate = memoryPromotionRate;
     }
 
     @Override
     public double getMemoryPromotionRate() {
-        if (this.memoryPromotionRate == null)
-            return 0.0;
-        return this.memoryPromotionRate.getMemoryPoolAllocationRate();
+        return this.memoryPromotionRate;
     }
 
     @Override
@@ -201,4 +203,11 @@ public class MemoryStats implements MemoryStatsMXBean {
         return this.failureReason;
     }
 
+    private double calculateRate(long intervalBytes, double intervalSystemTimeSecs) {
+
+        // calculate rate in MB/s
+        return ((double) intervalBytes / intervalSystemTimeSecs) / Constants.ONE_MEGA_BYTE;
+
+    }
+
 }
@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.top4j.javaagent.mbeans.jvm.nonheap;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import io.top4j.javaagent.config.Constants;
+import io.top4j.javaagent.exception.MBeanInitException;
+import io.top4j.javaagent.mbeans.jvm.MemorySnapshotBus;
+import io.top4j.javaagent.profiler.CpuTime;
+
+import javax.management.MBeanServerConnection;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+public class NonHeapStats implements NonHeapStatsMXBean {
+
+    private static final String DIRECT_BUFFER_POOL_NAME = "direct";
+    private static final String MAPPED_BUFFER_POOL_NAME = "mapped";
+    private static final String METASPACE_POOL_NAME = "Metaspace";
+    private static final String COMPRESSED_CLASS_SPACE_POOL_NAME = "Compressed Class Space";
+    private static final String NON_NMETHODS_CODE_HEAP_POOL_NAME = "CodeHeap 'non-nmethods'";
+    private static final String PROFILED_CODE_HEAP_POOL_NAME = "CodeHeap 'profiled nmethods'";
+    private static final String NON_PROFILED_CODE_HEAP_POOL_NAME = "CodeHeap 'non-profiled nmethods'";
+    // the code cache pool name when the code cache isn't segmented
+    private static final String CODE_CACHE_POOL_NAME = "Code Cache";
+
+    private MemorySnapshotBus memorySnapshotBus;
+    private BufferPoolMXBean directBufferPool;
+    private BufferPoolMXBean mappedBufferPool;
+    private MemoryPoolMXBean metaspacePool;
+    private MemoryPoolMXBean compressedClassSpacePool;
+    private MemoryPoolMXBean nonNMethodsCodeHeapPool;
+    private MemoryPoolMXBean profiledCodeHeapPool;
+    private MemoryPoolMXBean nonProfiledCodeHeapPool;
+    private List<MemoryPoolMXBean> codeCachePools = new ArrayList<>();
+    private long maxDirectMemory = -1;
+    volatile private long directBufferCount;
+    volatile private double directBufferCapacity;
+    volatile private long mappedBufferCount;
+    volatile private double mappedBufferCapacity;
+    private final NonHeapUsage directBuffers = new NonHeapUsage();
+    private final NonHeapUsage mappedBuffers = new NonHeapUsage();
+    private final NonHeapUsage metaspace = new NonHeapUsage();
+    private final NonHeapUsage compressedClassSpace = new NonHeapUsage();
+    private final NonHeapUsage codeCache = new NonHeapUsage();
+    private final NonHeapUsage nonNMethodsCodeHeap = new NonHeapUsage();
+    private final NonHeapUsage profiledCodeHeap = new NonHeapUsage();
+    private final NonHeapUsage nonProfiledCodeHeap = new NonHeapUsage();
+    private long lastSystemTime;
+    private CpuTime cpuTime = new CpuTime();
+    private double mBeanCpuTime;
+    private boolean enabled = true;
+    private String failureReason;
+
+    private static final Logger LOGGER = Logger.getLogger(NonHeapStats.class.getName());
+
+    public NonHeapStats(MBeanServerConnection mbsc, MemorySnapshotBus memorySnapshotBus) throws MBeanInitException {
+
+        LOGGER.fine("Initialising Non-Heap Stats....");
+
+        // store memory snapshot bus (null if memory pool usage should be read from the memory pool MBeans directly)
+        this.memorySnapshotBus = memorySnapshotBus;
+
+        try {
+            // discover direct and mapped buffer pools
+            for (BufferPoolMXBean bufferPool : ManagementFactory.getPlatformMXBeans(mbsc, BufferPoolMXBean.class)) {
+                if (bufferPool.getName().equals(DIRECT_BUFFER_POOL_NAME)) {
+                    this.directBufferPool = bufferPool;
+                } else if (bufferPool.getName().equals(MAPPED_BUFFER_POOL_NAME)) {
+                    this.mappedBufferPool = bufferPool;
+                }
+            }
+            // discover non-heap memory pools
+            for (MemoryPoolMXBean memoryPool : ManagementFactory.getPlatformMXBeans(mbsc, MemoryPoolMXBean.class)) {
+                if (memoryPool.getType() != MemoryType.NON_HEAP) {
+                    continue;
+                }
+                String name = memoryPool.getName();
+                LOGGER.fine("Non-Heap Memory Pool = " + name);
+                if (name.equals(METASPACE_POOL_NAME)) {
+                    this.metaspacePool = memoryPool;
+                } else if (name.equals(COMPRESSED_CLASS_SPACE_POOL_NAME)) {
+                    this.compressedClassSpacePool = memoryPool;
+                } else if (name.equals(NON_NMETHODS_CODE_HEAP_POOL_NAME)) {
+                    this.nonNMethodsCodeHeapPool = memoryPool;
+                } else if (name.equals(PROFILED_CODE_HEAP_POOL_NAME)) {
+                    this.profiledCodeHeapPool = memoryPool;
+                } else if (name.equals(NON_PROFILED_CODE_HEAP_POOL_NAME)) {
+                    this.nonProfiledCodeHeapPool = memoryPool;
+                }
+                if (name.startsWith("CodeHeap") || name.equals(CODE_CACHE_POOL_NAME)) {
+                    // the code cache is the sum of all code heap segments
+                    codeCachePools.add(memoryPool);
+                }
+            }
+        } catch (IOException e) {
+            throw new MBeanInitException(e, "JMX IOException: " + e.getMessage());
+        }
+
+        // get direct memory limit
+        this.maxDirectMemory = getMaxDirectMemory(mbsc);
+        LOGGER.fine("Max Direct Memory = " + maxDirectMemory);
+
+        // initialise last system time
+        this.lastSystemTime = System.currentTimeMillis();
+
+    }
+
+    /**
+     * Update Non-Heap stats.
+     */
+    public synchronized void update() {
+
+        if (enabled) {
+            try {
+                // update non-heap stats
+                updateNonHeapStats();
+            } catch (Exception e) {
+                // something went wrong - record failure reason and disable any further updates
+                this.failureReason = e.getMessage();
+                this.enabled = false;
+                LOGGER.severe("TOP4J ERROR: Failed to update NonHeapStats MBean due to: " + e.getMessage());
+                LOGGER.severe("TOP4J ERROR: Further NonHeapStats MBean updates will be disabled from now on.");
+            }
+        }
+    }
+
+    private synchronized void updateNonHeapStats() {
+
+        // initialise thread CPU timer
+        cpuTime.init();
+
+        LOGGER.fine("Updating Non-Heap stats....");
+
+        long systemTime = System.currentTimeMillis();
+        double intervalSystemTimeSecs = ((double) systemTime - (double) lastSystemTime) / 1000;
+
+        // update buffer pool stats
+        if (directBufferPool != null) {
+            this.directBufferCount = directBufferPool.getCount();
+            this.directBufferCapacity = (double) directBufferPool.getTotalCapacity() / Constants.ONE_MEGA_BYTE;
+            directBuffers.update(directBufferPool.getMemoryUsed(), maxDirectMemory, intervalSystemTimeSecs);
+        }
+        if (mappedBufferPool != null) {
+            this.mappedBufferCount = mappedBufferPool.getCount();
+            this.mappedBufferCapacity = (double) mappedBufferPool.getTotalCapacity() / Constants.ONE_MEGA_BYTE;
+            mappedBuffers.update(mappedBufferPool.getMemoryUsed(), -1, intervalSystemTimeSecs);
+        }
+        LOGGER.fine("Direct Buffer Used = " + directBuffers.getUsed() + " MB, Mapped Buffer Used = " + mappedBuffers.getUsed() + " MB");
+
+        // update memory pool stats
+        updateMemoryPoolUsage(metaspace, metaspacePool, intervalSystemTimeSecs);
+        updateMemoryPoolUsage(compressedClassSpace, compressedClassSpacePool, intervalSystemTimeSecs);
+        updateMemoryPoolUsage(nonNMethodsCodeHeap, nonNMethodsCodeHeapPool, intervalSystemTimeSecs);
+        updateMemoryPoolUsage(profiledCodeHeap, profiledCodeHeapPool, intervalSystemTimeSecs);
+        updateMemoryPoolUsage(nonProfiledCodeHeap, nonProfiledCodeHeapPool, intervalSystemTimeSecs);
+        LOGGER.fine("Metaspace Used = " + metaspace.getUsed() + " MB, Metaspace Growth Rate = " + metaspace.getGrowthRate() + " MB/s");
+
+        // update code cache stats, i.e. the sum of all code heap segments
+        long codeCacheUsed = codeCachePools.isEmpty() ? -1 : 0;
+        long codeCacheMax = 0;
+        for (MemoryPoolMXBean codeCachePool : codeCachePools) {
+            MemoryUsage usage = getUsage(codeCachePool);
+            codeCacheUsed += usage.getUsed();
+            codeCacheMax = codeCacheMax < 0 || usage.getMax() < 0 ? -1 : codeCacheMax + usage.getMax();
+        }
+        codeCache.update(codeCacheUsed, codeCacheMax, intervalSystemTimeSecs);
+        LOGGER.fine("Code Cache Used = " + codeCache.getUsed() + " MB, Code Cache Headroom = " + codeCache.getHeadroom() + " MB");
+
+        this.lastSystemTime = systemTime;
+
+        // update non-heap stats CPU time
+        mBeanCpuTime = cpuTime.getMillis();
+
+    }
+
+    private void updateMemoryPoolUsage(NonHeapUsage nonHeapUsage, MemoryPoolMXBean memoryPool, double intervalSystemTimeSecs) {
+
+        if (memoryPool == null) {
+            // memory pool not available in this JVM
+            nonHeapUsage.update(-1, -1, intervalSystemTimeSecs);
+            return;
+        }
+        MemoryUsage usage = getUsage(memoryPool);
+        nonHeapUsage.update(usage.getUsed(), usage.getMax(), intervalSystemTimeSecs);
+    }
+
+    private MemoryUsage getUsage(MemoryPoolMXBean memoryPool) {
+
+        if (memorySnapshotBus != null) {
+            // read memory pool usage from current memory snapshot
+            MemoryUsage usage = memorySnapshotBus.getSnapshot().getUsage(memoryPool.getObjectName());
+            if (usage != null) {
+                return usage;
+            }
+        }
+        return memoryPool.getUsage();
+    }
+
+    private long getMaxDirectMemory(MBeanServerConnection mbsc) {
+
+        try {
+            // the direct memory limit is -XX:MaxDirectMemorySize, which defaults to the max heap size
+            HotSpotDiagnosticMXBean hotSpotDiagnosticMXBean = ManagementFactory.getPlatformMXBean(mbsc, HotSpotDiagnosticMXBean.class);
+            long maxDirectMemorySize = Long.parseLong(hotSpotDiagnosticMXBean.getVMOption("MaxDirectMemorySize").getValue());
+            if (maxDirectMemorySize > 0) {
+                return maxDirectMemorySize;
+            }
+            return ManagementFactory.getPlatformMXBean(mbsc, MemoryMXBean.class).getHeapMemoryUsage().getMax();
+        } catch (Exception | LinkageError e) {
+            // not a HotSpot JVM - direct buffer headroom will not be available
+            LOGGER.fine("Unable to retrieve max direct memory size due to: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    @Override
+    public long getDirectBufferCount() {
+        return directBufferCount;
+    }
+
+    @Override
+    public double getDirectBufferCapacity() {
+        return directBufferCapacity;
+    }
+
+    @Override
+    public double getDirectBufferUsed() {
+        return directBuffers.getUsed();
+    }
+
+    @Override
+    public double getDirectBufferGrowthRate() {
+        return directBuffers.getGrowthRate();
+    }
+
+    @Override
+    public double getDirectBufferHeadroom() {
+        return directBuffers.getHeadroom();
+    }
+
+    @Override
+    public long getMappedBufferCount() {
+        return mappedBufferCount;
+    }
+
+    @Override
+    public double getMappedBufferCapacity() {
+        return mappedBufferCapacity;
+    }
+
+    @Override
+    public double getMappedBufferUsed() {
+        return mappedBuffers.getUsed();
+    }
+
+    @Override
+    public double getMappedBufferGrowthRate() {
+        return mappedBuffers.getGrowthRate();
+    }
+
+    @Override
+    public double getMetaspaceUsed() {
+        return metaspace.getUsed();
+    }
+
+    @Override
+    public double getMetaspaceGrowthRate() {
+        return metaspace.getGrowthRate();
+    }
+
+    @Override
+    public double getMetaspaceHeadroom() {
+        return metaspace.getHeadroom();
+    }
+
+    @Override
+    public double getCompressedClassSpaceUsed() {
+        return compressedClassSpace.getUsed();
+    }
+
+    @Override
+    public double getCompressedClassSpaceGrowthRate() {
+        return compressedClassSpace.getGrowthRate();
+    }
+
+    @Override
+    public double getCompressedClassSpaceHeadroom() {
+        return compressedClassSpace.getHeadroom();
+    }
+
+    @Override
+    public double getCodeCacheUsed() {
+        return codeCache.getUsed();
+    }
+
+    @Override
+    public double getCodeCacheGrowthRate() {
+        return codeCache.getGrowthRate();
+    }
+
+    @Override
+    public double getCodeCacheHeadroom() {
+        return codeCache.getHeadroom();
+    }
+
+    @Override
+    public double getNonNMethodsCodeHeapUsed() {
+        return nonNMethodsCodeHeap.getUsed();
+    }
+
+    @Override
+    public double getNonNMethodsCodeHeapGrowthRate() {
+        return nonNMethodsCodeHeap.getGrowthRate();
+    }
+
+    @Override
+    public double getNonNMethodsCodeHeapHeadroom() {
+        return nonNMethodsCodeHeap.getHeadroom();
+    }
+
+    @Override
+    public double getProfiledCodeHeapUsed() {
+        return profiledCodeHeap.getUsed();
+    }
+
+    @Override
+    public double getProfiledCodeHeapGrowthRate() {
+        return profiledCodeHeap.getGrowthRate();
+    }
+
+    @Override
+    public double getProfiledCodeHeapHeadroom() {
+        return profiledCodeHeap.getHeadroom();
+    }
+
+    @Override
+    public double getNonProfiledCodeHeapUsed() {
+        return nonProfiledCodeHeap.getUsed();
+    }
+
+    @Override
+    public double getNonProfiledCodeHeapGrowthRate() {
+        return nonProfiledCodeHeap.getGrowthRate();
+    }
+
+    @Override
+    public double getNonProfiledCodeHeapHeadroom() {
+        return nonProfiledCodeHeap.getHeadroom();
+    }
+
+    @Override
+    public void setMBeanCpuTime(double agentCpuTime) {
+        this.mBeanCpuTime = agentCpuTime;
+    }
+
+    @Override
+    public double getMBeanCpuTime() {
+        return mBeanCpuTime;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean getEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    @Override
+    public String getFailureReason() {
+        return this.failureReason;
+    }
+
+}
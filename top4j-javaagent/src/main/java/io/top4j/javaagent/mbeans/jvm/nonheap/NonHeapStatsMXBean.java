@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.top4j.javaagent.mbeans.jvm.nonheap;
+
+import io.top4j.javaagent.mbeans.StatsMXBean;
+
+/**
+ * Used to store and expose stats relating to the JVM memory used outside the Java heap, i.e. the direct and mapped buffer pools,
+ * metaspace, the compressed class space and the code cache. Regions which don't exist in the running JVM, e.g. the code heap
+ * segments when the segmented code cache is disabled, report zero usage and a headroom of -1.
+ */
+
+public interface NonHeapStatsMXBean extends StatsMXBean {
+
+    /**
+     * Returns the number of buffers within the direct buffer pool.
+     * @return the direct buffer count
+     */
+    long getDirectBufferCount();
+
+    /**
+     * Returns the total capacity of the buffers within the direct buffer pool in MB.
+     * @return the direct buffer capacity in MB
+     */
+    double getDirectBufferCapacity();
+
+    /**
+     * Returns the memory used by the direct buffer pool, i.e. the native memory reserved for direct ByteBuffers, in MB.
+     * @return the direct buffer memory used in MB
+     */
+    double getDirectBufferUsed();
+
+    /**
+     * Returns the rate at which the memory used by the direct buffer pool grew during the last iteration in MB/s (negative if it shrank).
+     * @return the direct buffer growth rate in MB/s
+     */
+    double getDirectBufferGrowthRate();
+
+    /**
+     * Returns the memory left before the direct buffer pool reaches its max size in MB, or -1 if it's unbounded.
+     * @return the direct buffer headroom in MB
+     */
+    double getDirectBufferHeadroom();
+
+    /**
+     * Returns the number of buffers within the mapped buffer pool.
+     * @return the mapped buffer count
+     */
+    long getMappedBufferCount();
+
+    /**
+     * Returns the total capacity of the buffers within the mapped buffer pool in MB.
+     * @return the mapped buffer capacity in MB
+     */
+    double getMappedBufferCapacity();
+
+    /**
+     * Returns the memory used by the mapped buffer pool, i.e. the memory mapped files mapped via MappedByteBuffers, in MB.
+     * @return the mapped buffer memory used in MB
+     */
+    double getMappedBufferUsed();
+
+    /**
+     * Returns the rate at which the memory used by the mapped buffer pool grew during the last iteration in MB/s (negative if it shrank).
+     * @return the mapped buffer growth rate in MB/s
+     */
+    double getMappedBufferGrowthRate();
+
+    /**
+     * Returns the memory used by the metaspace memory pool, i.e. class metadata, in MB.
+     * @return the metaspace memory used in MB
+     */
+    double getMetaspaceUsed();
+
+    /**
+     * Returns the rate at which the memory used by the metaspace grew during the last iteration in MB/s (negative if it shrank).
+     * @return the metaspace growth rate in MB/s
+     */
+    double getMetaspaceGrowthRate();
+
+    /**
+     * Returns the memory left before the metaspace reaches its max size in MB, or -1 if it's unbounded (e.g. MaxMetaspaceSize is not set).
+     * @return the metaspace headroom in MB
+     */
+    double getMetaspaceHeadroom();
+
+    /**
+     * Returns the memory used by the compressed class space memory pool, i.e. the class metadata referenced via compressed class pointers, in MB.
+     * @return the compressed class space memory used in MB
+     */
+    double getCompressedClassSpaceUsed();
+
+    /**
+     * Returns the rate at which the memory used by the compressed class space grew during the last iteration in MB/s (negative if it shrank).
+     * @return the compressed class space growth rate in MB/s
+     */
+    double getCompressedClassSpaceGrowthRate();
+
+    /**
+     * Returns the memory left before the compressed class space reaches its max size in MB, or -1 if it's unbounded.
+     * @return the compressed class space headroom in MB
+     */
+    double getCompressedClassSpaceHeadroom();
+
+    /**
+     * Returns the memory used by the code cache, i.e. all code heap segments, where the JIT compiler stores compiled code, in MB.
+     * @return the code cache memory used in MB
+     */
+    double getCodeCacheUsed();
+
+    /**
+     * Returns the rate at which the memory used by the code cache grew during the last iteration in MB/s (negative if it shrank).
+     * @return the code cache growth rate in MB/s
+     */
+    double getCodeCacheGrowthRate();
+
+    /**
+     * Returns the memory left before the code cache reaches its max size in MB, or -1 if it's unbounded.
+     * @return the code cache headroom in MB
+     */
+    double getCodeCacheHeadroom();
+
+    /**
+     * Returns the memory used by the CodeHeap 'non-nmethods' segment of the code cache, i.e. JVM internal code such as the interpreter, in MB.
+     * @return the non-nmethods code heap memory used in MB
+     */
+    double getNonNMethodsCodeHeapUsed();
+
+    /**
+     * Returns the rate at which the memory used by the non-nmethods code heap grew during the last iteration in MB/s (negative if it shrank).
+     * @return the non-nmethods code heap growth rate in MB/s
+     */
+    double getNonNMethodsCodeHeapGrowthRate();
+
+    /**
+     * Returns the memory left before the non-nmethods code heap reaches its max size in MB, or -1 if it's unbounded.
+     * @return the non-nmethods code heap headroom in MB
+     */
+    double getNonNMethodsCodeHeapHeadroom();
+
+    /**
+     * Returns the memory used by the CodeHeap 'profiled nmethods' segment of the code cache, i.e. lightly optimised code compiled with profiling, in MB.
+     * @return the profiled code heap memory used in MB
+     */
+    double getProfiledCodeHeapUsed();
+
+    /**
+     * Returns the rate at which the memory used by the profiled code heap grew during the last iteration in MB/s (negative if it shrank).
+     * @return the profiled code heap growth rate in MB/s
+     */
+    double getProfiledCodeHeapGrowthRate();
+
+    /**
+     * Returns the memory left before the profiled code heap reaches its max size in MB, or -1 if it's unbounded.
+     * @return the profiled code heap headroom in MB
+     */
+    double getProfiledCodeHeapHeadroom();
+
+    /**
+     * Returns the memory used by the CodeHeap 'non-profiled nmethods' segment of the code cache, i.e. fully optimised code, in MB.
+     * @return the non-profiled code heap memory used in MB
+     */
+    double getNonProfiledCodeHeapUsed();
+
+    /**
+     * Returns the rate at which the memory used by the non-profiled code heap grew during the last iteration in MB/s (negative if it shrank).
+     * @return the non-profiled code heap growth rate in MB/s
+     */
+    double getNonProfiledCodeHeapGrowthRate();
+
+    /**
+     * Returns the memory left before the non-profiled code heap reaches its max size in MB, or -1 if it's unbounded.
+     * @return the non-profiled code heap headroom in MB
+     */
+    double getNonProfiledCodeHeapHeadroom();
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.top4j.javaagent.mbeans.jvm.nonheap;
+
+import io.top4j.javaagent.config.Constants;
+
+/**
+ * Tracks the usage of a non-heap memory region, e.g. metaspace or the direct buffer pool, between stats updates, i.e. the
+ * memory used, its growth rate and the headroom left before the region's max size is reached.
+ */
+public class NonHeapUsage {
+
+    volatile private double used;
+    volatile private double growthRate;
+    volatile private double headroom = -1;
+    private long lastUsedBytes = -1;
+
+    /**
+     * Update the region usage.
+     *
+     * @param usedBytes              the memory used in bytes, or -1 if the region doesn't exist in this JVM
+     * @param maxBytes               the region max size in bytes, or -1 if it's unbounded
+     * @param intervalSystemTimeSecs the time in seconds since the last update
+     */
+    public void update(long usedBytes, long maxBytes, double intervalSystemTimeSecs) {
+
+        if (usedBytes < 0) {
+            // region not available
+            this.used = 0;
+            this.growthRate = 0;
+            this.headroom = -1;
+            this.lastUsedBytes = -1;
+            return;
+        }
+        this.used = (double) usedBytes / Constants.ONE_MEGA_BYTE;
+        if (lastUsedBytes >= 0 && intervalSystemTimeSecs > 0) {
+            // calculate growth rate in MB/s
+            this.growthRate = ((double) (usedBytes - lastUsedBytes) / intervalSystemTimeSecs) / Constants.ONE_MEGA_BYTE;
+        }
+        this.headroom = maxBytes < 0 ? -1 : (double) Math.max(0, maxBytes - usedBytes) / Constants.ONE_MEGA_BYTE;
+        this.lastUsedBytes = usedBytes;
+    }
+
+    /**
+     * @return the memory used in MB
+     */
+    public double getUsed() {
+        return used;
+    }
+
+    /**
+     * @return the memory used growth rate during the last iteration in MB/s
+     */
+    public double getGrowthRate() {
+        return growthRate;
+    }
+
+    /**
+     * @return the memory left before the region max size is reached in MB, or -1 if the region is unbounded
+     */
+    public double getHeadroom() {
+        return headroom;
+    }
+
+}
@@ -30,11 +30,14 @@ public class BlockedThread implements BlockedThreadMXBean {
     volatile private State threadState;
     volatile private long threadBlockedTime;
     volatile private double threadBlockedPercentage;
+    volatile private boolean threadBlockedTimeEstimated;
     private ThreadHelper threadHelper;
+    private StackTraceIdCache stackTraceIdCache;
 
     public BlockedThread(MBeanServerConnection mbsc) throws IOException {
 
         this.threadHelper = new ThreadHelper(mbsc);
+        this.stackTraceIdCache = new StackTraceIdCache(threadHelper);
 
     }
 
@@ -48,6 +51,8 @@ public class BlockedThread implements BlockedThreadMXBean {
 
     public void setThreadId(long threadId) {
         this.threadId = threadId;
+        // new thread usage update - capture the stack trace again when next requested
+        stackTraceIdCache.reset();
     }
 
     public long getThreadId() {
@@ -86,9 +91,27 @@ public class BlockedThread implements BlockedThreadMXBean {
         return threadBlockedPercentage;
     }
 
+    @Override
+    public void setThreadBlockedTimeEstimated(boolean threadBlockedTimeEstimated) {
+
+        this.threadBlockedTimeEstimated = threadBlockedTimeEstimated;
+
+    }
+
+    @Override
+    public boolean isThreadBlockedTimeEstimated() {
+        return threadBlockedTimeEstimated;
+    }
+
     public String getStackTrace(int maxDepth) {
 
-        return threadHelper.getStackTrace(threadId, maxDepth);
+        return stackTraceIdCache.getStackTrace(threadId, maxDepth);
+
+    }
+
+    public int getStackTraceId(int maxDepth) {
+
+        return stackTraceIdCache.getStackTraceId(threadId, maxDepth);
 
     }
 
@@ -91,6 +91,20 @@ public interface BlockedThreadMXBean {
      */
     public double getThreadBlockedPercentage();
 
+    /**
+     * Sets whether the thread blocked time was estimated from the sampled thread states (thread contention monitoring inactive)
+     * rather than measured during a thread contention monitoring window.
+     * @param threadBlockedTimeEstimated true if the blocked time was estimated
+     */
+    public void setThreadBlockedTimeEstimated(boolean threadBlockedTimeEstimated);
+
+    /**
+     * Returns true if the thread blocked time was estimated from the sampled thread states (thread contention monitoring inactive)
+     * rather than measured during a thread contention monitoring window.
+     * @return true if the blocked time was estimated
+     */
+    public boolean isThreadBlockedTimeEstimated();
+
     /**
      * Returns the stack trace for this blocked thread with a maximum frame depth of maxDepth.
      * @param maxDepth maximum frame depth
@@ -98,6 +112,14 @@ public interface BlockedThreadMXBean {
      */
     public String getStackTrace(int maxDepth);
 
+    /**
+     * Returns the ID of the stack trace for this blocked thread with a maximum frame depth of maxDepth, as interned in the
+     * agent's shared stack trace store. Repeated calls return the same ID while the thread's stack trace is unchanged.
+     * @param maxDepth maximum frame depth
+     * @return the stack trace ID or -1 if no stack trace is available or the stack trace store is full
+     */
+    public int getStackTraceId(int maxDepth);
+
     /**
      * Returns the stack trace for this blocked thread with context, e.g. thread name and thread state, with a maximum frame depth of maxDepth.
      * @param maxDepth maximum frame depth
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import java.util.*;
+
+/**
+ * Interned call-tree (trie) of sampled stack traces with self and total sample counts per node and per method.
+ * <p>
+ * Each stack trace is merged into the trie from the outermost frame (the thread entry point) down to the executing frame,
+ * so samples which share callers share nodes. Frames (class, method and line) and methods (class and method) are interned
+ * to int IDs and the trie is held in parallel primitive arrays, with children looked up via a LongIndexMap keyed by
+ * (parent node, frame), so no objects are allocated per sample once a call path has been seen.
+ * <p>
+ * A method's self samples count the samples in which it was the executing frame and its total samples count the samples
+ * in which it appeared anywhere on the stack (once per sample, even if it recursed).
+ * <p>
+ * Memory is bounded by the node limit, which caps the number of trie nodes, interned frames and interned methods. Once the
+ * limit has been reached, samples which take a new call path are truncated at the deepest existing node and counted as
+ * truncated samples, although the method counts of any already interned methods are still updated.
+ */
+public class CallTree {
+
+    // the root node has no frame - its children are the outermost frames of the sampled stacks
+    private static final int ROOT = 0;
+
+    private final int nodeLimit;
+    // interned frames
+    private final Map<StackTraceElement, Integer> frameIds = new HashMap<>();
+    private StackTraceElement[] frames = new StackTraceElement[16];
+    private int[] frameMethods = new int[16];
+    // interned methods
+    private final Map<String, Integer> methodIds = new HashMap<>();
+    private final List<String> methodNames = new ArrayList<>();
+    private long[] methodSelfSamples = new long[16];
+    private long[] methodTotalSamples = new long[16];
+    private long[] methodLastSamples = new long[16];
+    private int[] methodNodes = new int[16];
+    private long[] methodThreadIds = new long[16];
+    private String[] methodThreadNames = new String[16];
+    // trie nodes
+    private final LongIndexMap children = new LongIndexMap();
+    private int[] nodeParents = new int[16];
+    private int[] nodeFrames = new int[16];
+    private long[] nodeSelfSamples = new long[16];
+    private long[] nodeTotalSamples = new long[16];
+    private int nodeCount;
+    private long sampleCount;
+    private long truncatedSampleCount;
+
+    public CallTree(int nodeLimit) {
+
+        this.nodeLimit = Math.max(nodeLimit, 1);
+        clear();
+    }
+
+    /**
+     * Merge a sampled stack trace into the call-tree.
+     *
+     * @param stackTrace the sampled stack trace, executing frame first
+     * @param threadName the name of the sampled thread
+     * @param threadId   the ID of the sampled thread
+     */
+    public void addSample(StackTraceElement[] stackTrace, String threadName, long threadId) {
+
+        if (stackTrace == null || stackTrace.length == 0) {
+            return;
+        }
+        sampleCount++;
+        // walk the trie from the outermost frame to the executing frame, adding nodes for new call paths
+        int node = ROOT;
+        nodeTotalSamples[ROOT]++;
+        int depth = stackTrace.length - 1;
+        for (; depth >= 0; depth--) {
+            int frame = internFrame(stackTrace[depth]);
+            if (frame < 0) {
+                // node limit reached
+                break;
+            }
+            int child = children.get(childKey(node, frame));
+            if (child < 0) {
+                if (nodeCount >= nodeLimit) {
+                    // node limit reached
+                    break;
+                }
+                child = addNode(node, frame);
+            }
+            node = child;
+            nodeTotalSamples[node]++;
+        }
+        nodeSelfSamples[node]++;
+        boolean truncated = depth >= 0;
+        if (truncated) {
+            truncatedSampleCount++;
+        }
+        // credit the executing method with a self sample and every method on the stack with a total sample
+        for (int i = 0; i < stackTrace.length; i++) {
+            int method = getMethodId(stackTrace[i]);
+            if (method < 0) {
+                continue;
+            }
+            if (i == 0) {
+                methodSelfSamples[method]++;
+            }
+            if (methodLastSamples[method] != sampleCount) {
+                // first time the method has been seen in this sample
+                methodLastSamples[method] = sampleCount;
+                methodTotalSamples[method]++;
+                if (!truncated || methodNodes[method] == ROOT) {
+                    // remember the call path and thread of the most recent sample which included the method
+                    methodNodes[method] = node;
+                    methodThreadIds[method] = threadId;
+                    methodThreadNames[method] = threadName;
+                }
+            }
+        }
+    }
+
+    /**
+     * Clear the call-tree ready for the next profiling iteration.
+     */
+    public void clear() {
+
+        frameIds.clear();
+        methodIds.clear();
+        methodNames.clear();
+        children.clear();
+        Arrays.fill(frames, null);
+        Arrays.fill(methodLastSamples, 0);
+        Arrays.fill(methodThreadNames, null);
+        this.nodeCount = 0;
+        this.sampleCount = 0;
+        this.truncatedSampleCount = 0;
+        // add root node
+        addNode(-1, -1);
+    }
+
+    /**
+     * @return the number of samples added since the call-tree was last cleared
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return the number of samples which were truncated because the node limit had been reached
+     */
+    public long getTruncatedSampleCount() {
+        return truncatedSampleCount;
+    }
+
+    /**
+     * @return the number of trie nodes, including the root node
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return the number of interned methods - method IDs run from 0 to getMethodCount() - 1
+     */
+    public int getMethodCount() {
+        return methodNames.size();
+    }
+
+    /**
+     * @return the method name in the form class.method
+     */
+    public String getMethodName(int method) {
+        return methodNames.get(method);
+    }
+
+    public long getMethodSelfSamples(int method) {
+        return methodSelfSamples[method];
+    }
+
+    public long getMethodTotalSamples(int method) {
+        return methodTotalSamples[method];
+    }
+
+    /**
+     * @return the ID of the thread of the most recent sample which included the method
+     */
+    public long getMethodThreadId(int method) {
+        return methodThreadIds[method];
+    }
+
+    /**
+     * @return the name of the thread of the most recent sample which included the method
+     */
+    public String getMethodThreadName(int method) {
+        return methodThreadNames[method];
+    }
+
+    /**
+     * @return the call path of the most recent sample which included the method, executing frame first
+     */
+    public StackTraceElement[] getMethodStackTrace(int method) {
+        return getStackTrace(methodNodes[method]);
+    }
+
+    public int getNodeParent(int node) {
+        return nodeParents[node];
+    }
+
+    /**
+     * @return the method ID of the node's frame or -1 for the root node
+     */
+    public int getNodeMethod(int node) {
+        return node == ROOT ? -1 : frameMethods[nodeFrames[node]];
+    }
+
+    public long getNodeSelfSamples(int node) {
+        return nodeSelfSamples[node];
+    }
+
+    public long getNodeTotalSamples(int node) {
+        return nodeTotalSamples[node];
+    }
+
+    /**
+     * Rebuild the stack trace of the call path ending at node.
+     *
+     * @param node the trie node
+     * @return the call path frames, executing frame first
+     */
+    public StackTraceElement[] getStackTrace(int node) {
+
+        int depth = 0;
+        for (int n = node; n != ROOT; n = nodeParents[n]) {
+            depth++;
+        }
+        StackTraceElement[] stackTrace = new StackTraceElement[depth];
+        int i = 0;
+        for (int n = node; n != ROOT; n = nodeParents[n]) {
+            stackTrace[i++] = frames[nodeFrames[n]];
+        }
+        return stackTrace;
+    }
+
+    /**
+     * Export the call-tree in the collapsed stack format used by flame graph tools, i.e. one line per distinct call path of
+     * the form "frame;frame;frame count", outermost frame first, where count is the number of samples in which the last
+     * frame was the executing frame. Frames are named class.method, so call paths which only differ by line number are merged.
+     * Samples which were truncated at the root node (no frame could be interned) are omitted.
+     *
+     * @return the collapsed stacks, one per line
+     */
+    public String getCollapsedStacks() {
+
+        Map<String, Long> stacks = new LinkedHashMap<>();
+        StringBuilder stack = new StringBuilder();
+        int[] path = new int[32];
+        for (int node = ROOT + 1; node < nodeCount; node++) {
+            long selfSamples = nodeSelfSamples[node];
+            if (selfSamples == 0) {
+                continue;
+            }
+            // collect the call path from the node up to (but excluding) the root node
+            int depth = 0;
+            for (int n = node; n != ROOT; n = nodeParents[n]) {
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth << 1);
+                }
+                path[depth++] = n;
+            }
+            stack.setLength(0);
+            for (int i = depth - 1; i >= 0; i--) {
+                stack.append(methodNames.get(getNodeMethod(path[i])));
+                if (i > 0) {
+                    stack.append(';');
+                }
+            }
+            String key = stack.toString();
+            Long samples = stacks.get(key);
+            stacks.put(key, samples == null ? selfSamples : samples + selfSamples);
+        }
+        StringBuilder collapsedStacks = new StringBuilder();
+        for (Map.Entry<String, Long> entry : stacks.entrySet()) {
+            collapsedStacks.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        return collapsedStacks.toString();
+    }
+
+    private int addNode(int parent, int frame) {
+
+        if (nodeCount == nodeParents.length) {
+            int capacity = nodeParents.length << 1;
+            this.nodeParents = Arrays.copyOf(nodeParents, capacity);
+            this.nodeFrames = Arrays.copyOf(nodeFrames, capacity);
+            this.nodeSelfSamples = Arrays.copyOf(nodeSelfSamples, capacity);
+            this.nodeTotalSamples = Arrays.copyOf(nodeTotalSamples, capacity);
+        }
+        int node = nodeCount++;
+        nodeParents[node] = parent;
+        nodeFrames[node] = frame;
+        nodeSelfSamples[node] = 0;
+        nodeTotalSamples[node] = 0;
+        if (parent >= 0) {
+            children.put(childKey(parent, frame), node);
+        }
+        return node;
+    }
+
+    /**
+     * @return the interned frame ID or -1 if the frame hasn't been interned and the node limit has been reached
+     */
+    private int internFrame(StackTraceElement stackTraceElement) {
+
+        Integer frame = frameIds.get(stackTraceElement);
+        if (frame != null) {
+            return frame;
+        }
+        if (frameIds.size() >= nodeLimit) {
+            return -1;
+        }
+        int method = getMethodId(stackTraceElement);
+        if (method < 0) {
+            return -1;
+        }
+        int id = frameIds.size();
+        if (id == frames.length) {
+            this.frames = Arrays.copyOf(frames, id << 1);
+            this.frameMethods = Arrays.copyOf(frameMethods, id << 1);
+        }
+        frames[id] = stackTraceElement;
+        frameMethods[id] = method;
+        frameIds.put(stackTraceElement, id);
+        return id;
+    }
+
+    /**
+     * @return the interned method ID or -1 if the method hasn't been interned and the node limit has been reached
+     */
+    private int getMethodId(StackTraceElement stackTraceElement) {
+
+        Integer frame = frameIds.get(stackTraceElement);
+        if (frame != null) {
+            return frameMethods[frame];
+        }
+        String methodName = stackTraceElement.getClassName() + "." + stackTraceElement.getMethodName();
+        Integer method = methodIds.get(methodName);
+        if (method != null) {
+            return method;
+        }
+        if (methodNames.size() >= nodeLimit) {
+            return -1;
+        }
+        int id = methodNames.size();
+        if (id == methodSelfSamples.length) {
+            int capacity = id << 1;
+            this.methodSelfSamples = Arrays.copyOf(methodSelfSamples, capacity);
+            this.methodTotalSamples = Arrays.copyOf(methodTotalSamples, capacity);
+            this.methodLastSamples = Arrays.copyOf(methodLastSamples, capacity);
+            this.methodNodes = Arrays.copyOf(methodNodes, capacity);
+            this.methodThreadIds = Arrays.copyOf(methodThreadIds, capacity);
+            this.methodThreadNames = Arrays.copyOf(methodThreadNames, capacity);
+        }
+        methodSelfSamples[id] = 0;
+        methodTotalSamples[id] = 0;
+        methodLastSamples[id] = 0;
+        methodNodes[id] = ROOT;
+        methodNames.add(methodName);
+        methodIds.put(methodName, id);
+        return id;
+    }
+
+    private static long childKey(int parent, int frame) {
+
+        // parent + 1 keeps the key non-zero (LongIndexMap reserves 0 for empty slots)
+        return ((long) (parent + 1) << 32) | frame;
+    }
+
+}
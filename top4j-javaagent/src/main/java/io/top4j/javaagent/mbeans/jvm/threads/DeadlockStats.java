@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import io.top4j.javaagent.config.Configurator;
+import io.top4j.javaagent.config.Constants;
+import io.top4j.javaagent.profiler.CpuTime;
+
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import java.io.IOException;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Periodically calls ThreadMXBean.findDeadlockedThreads() on an adaptive schedule. Deadlock checks are performed every
+ * iteration while the blocked thread count is rising and back off exponentially (up to deadlock.detection.max.interval
+ * iterations) while the JVM has no blocked threads. The interval is further bounded by deadlock.detection.time.budget, i.e.
+ * an expensive check delays the next check so that the average cost per iteration stays within budget. The cost is measured
+ * as the wall-clock time spent in findDeadlockedThreads() and getThreadInfo(), as both are safepoint operations whose work
+ * is mostly done by the VM thread rather than the calling thread (and so wouldn't show up in the caller's CPU time).
+ * <p>
+ * When a new deadlock is detected the deadlocked threads' lock owners and stack traces are captured and a JMX notification
+ * is emitted.
+ */
+public class DeadlockStats extends NotificationBroadcasterSupport implements DeadlockStatsMXBean {
+
+    volatile private int deadlockedThreadCount;
+    volatile private long deadlockCount;
+    volatile private long checkCount;
+    volatile private int checkInterval = 1;
+    volatile private double checkTime;
+    volatile private double mBeanCpuTime;
+    private final ThreadMXBean threadMXBean;
+    private final ThreadStatsMXBean threadStats;
+    private final int maxCheckInterval;
+    private final double timeBudget;
+    private int iterationsSinceCheck;
+    private long lastBlockedThreadCount;
+    private long[] deadlockedThreadIds = new long[0];
+    private volatile ThreadInfo[] deadlockedThreadInfos;
+    private long notificationSequence;
+    private CpuTime cpuTime = new CpuTime();
+    private boolean enabled = true;
+    private String failureReason;
+
+    private static final Logger LOGGER = Logger.getLogger(DeadlockStats.class.getName());
+
+    public DeadlockStats(Configurator config, ThreadStatsMXBean threadStats) throws IOException {
+
+        LOGGER.fine("Initialising Deadlock Stats....");
+
+        this.threadMXBean = ManagementFactory.getPlatformMXBean(config.getMBeanServerConnection(), ThreadMXBean.class);
+        this.threadStats = threadStats;
+        this.maxCheckInterval = Math.max(Integer.parseInt(config.get("deadlock.detection.max.interval")), 1);
+        this.timeBudget = Double.parseDouble(config.get("deadlock.detection.time.budget"));
+    }
+
+    /**
+     * Update Deadlock Stats.
+     */
+    @Override
+    public synchronized void update() {
+
+        if (enabled) {
+            try {
+                // update deadlock stats
+                updateDeadlockStats();
+            } catch (Exception e) {
+                // something went wrong - record failure reason and disable any further updates
+                this.failureReason = e.getMessage();
+                this.enabled = false;
+                LOGGER.severe("TOP4J ERROR: Failed to update DeadlockStats MBean due to: " + e.getMessage());
+                LOGGER.severe("TOP4J ERROR: Further DeadlockStats MBean updates will be disabled from now on.");
+            }
+        }
+    }
+
+    private synchronized void updateDeadlockStats() {
+
+        // initialise thread CPU timer
+        cpuTime.init();
+
+        iterationsSinceCheck++;
+        // get latest blocked thread count (updated by ThreadStats earlier this iteration)
+        long blockedThreadCount = threadStats.getBlockedThreadCount();
+        if (blockedThreadCount > lastBlockedThreadCount) {
+            // contention is rising - check straight away
+            this.checkInterval = 1;
+        }
+        this.lastBlockedThreadCount = blockedThreadCount;
+
+        // never check more often than the time budget allows
+        int budgetInterval = timeBudget > 0 ? (int) Math.ceil(checkTime / timeBudget) : 1;
+        if (iterationsSinceCheck >= Math.max(checkInterval, budgetInterval)) {
+
+            LOGGER.fine("Checking for deadlocked threads....");
+
+            // check for deadlocked threads
+            checkForDeadlocks();
+            iterationsSinceCheck = 0;
+
+            if (deadlockedThreadCount == 0 && blockedThreadCount == 0) {
+                // the JVM is quiet - back off
+                this.checkInterval = Math.min(checkInterval * 2, maxCheckInterval);
+            }
+        }
+
+        // update deadlock stats CPU time
+        mBeanCpuTime = cpuTime.getMillis();
+
+    }
+
+    private void checkForDeadlocks() {
+
+        // initialise deadlock check wall-clock timer
+        long checkStartTime = System.nanoTime();
+
+        long[] threadIds = threadMXBean.findDeadlockedThreads();
+        this.checkCount++;
+        if (threadIds == null) {
+            // no deadlocked threads
+            this.deadlockedThreadCount = 0;
+            this.deadlockedThreadIds = new long[0];
+        } else {
+            this.deadlockedThreadCount = threadIds.length;
+            Arrays.sort(threadIds);
+            if (!Arrays.equals(threadIds, deadlockedThreadIds)) {
+                // new deadlock - capture lock owners and stack traces
+                this.deadlockedThreadIds = threadIds;
+                this.deadlockedThreadInfos = threadMXBean.getThreadInfo(threadIds, Integer.MAX_VALUE);
+                this.deadlockCount++;
+                LOGGER.warning("Deadlock detected between " + threadIds.length + " threads: " + Arrays.toString(threadIds));
+                // notify listeners
+                Notification notification = new Notification(Constants.DEADLOCK_NOTIFICATION_TYPE, this, ++notificationSequence,
+                        System.currentTimeMillis(), "Deadlock detected between " + threadIds.length + " threads");
+                notification.setUserData(getDeadlockReport(0));
+                sendNotification(notification);
+            }
+        }
+
+        // record deadlock check time
+        this.checkTime = (System.nanoTime() - checkStartTime) / 1000000.0;
+    }
+
+    @Override
+    public String getDeadlockReport(int maxDepth) {
+
+        ThreadInfo[] threadInfos = this.deadlockedThreadInfos;
+        if (threadInfos == null) {
+            return null;
+        }
+        if (maxDepth == 0) {
+            maxDepth = Integer.MAX_VALUE;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (ThreadInfo threadInfo : threadInfos) {
+            if (threadInfo == null) {
+                // thread has since terminated
+                continue;
+            }
+            sb.append("\"").append(threadInfo.getThreadName()).append("\" (").append(threadInfo.getThreadId()).append(") ");
+            sb.append(threadInfo.getThreadState());
+            LockInfo lockInfo = threadInfo.getLockInfo();
+            if (lockInfo != null) {
+                sb.append(" waiting on ").append(lockInfo);
+                sb.append(" owned by \"").append(threadInfo.getLockOwnerName()).append("\" (").append(threadInfo.getLockOwnerId()).append(")");
+            }
+            StackTraceElement[] stackTraceElements = threadInfo.getStackTrace();
+            for (int i = 0; i < stackTraceElements.length && i < maxDepth; i++) {
+                sb.append("\n\tat ").append(stackTraceElements[i]);
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void setDeadlockedThreadCount(int deadlockedThreadCount) {
+        this.deadlockedThreadCount = deadlockedThreadCount;
+    }
+
+    @Override
+    public int getDeadlockedThreadCount() {
+        return deadlockedThreadCount;
+    }
+
+    @Override
+    public void setDeadlockCount(long deadlockCount) {
+        this.deadlockCount = deadlockCount;
+    }
+
+    @Override
+    public long getDeadlockCount() {
+        return deadlockCount;
+    }
+
+    @Override
+    public void setCheckCount(long checkCount) {
+        this.checkCount = checkCount;
+    }
+
+    @Override
+    public long getCheckCount() {
+        return checkCount;
+    }
+
+    @Override
+    public void setCheckInterval(int checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+
+    @Override
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    @Override
+    public void setCheckTime(double checkTime) {
+        this.checkTime = checkTime;
+    }
+
+    @Override
+    public double getCheckTime() {
+        return checkTime;
+    }
+
+    @Override
+    public void setMBeanCpuTime(double mBeanCpuTime) {
+        this.mBeanCpuTime = mBeanCpuTime;
+    }
+
+    @Override
+    public double getMBeanCpuTime() {
+        return mBeanCpuTime;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean getEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    @Override
+    public String getFailureReason() {
+        return this.failureReason;
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import io.top4j.javaagent.mbeans.StatsMXBean;
+
+/**
+ * Used to store and expose stats relating to JVM deadlock detection.
+ */
+
+public interface DeadlockStatsMXBean extends StatsMXBean {
+
+    /**
+     * Sets the number of deadlocked threads found by the most recent deadlock check.
+     * @param deadlockedThreadCount the number of deadlocked threads
+     */
+    void setDeadlockedThreadCount(int deadlockedThreadCount);
+
+    /**
+     * Returns the number of deadlocked threads found by the most recent deadlock check.
+     * @return the number of deadlocked threads
+     */
+    int getDeadlockedThreadCount();
+
+    /**
+     * Sets the number of distinct deadlocks detected since the Top4J JavaAgent was enabled.
+     * @param deadlockCount the number of deadlocks
+     */
+    void setDeadlockCount(long deadlockCount);
+
+    /**
+     * Returns the number of distinct deadlocks detected since the Top4J JavaAgent was enabled.
+     * @return the number of deadlocks
+     */
+    long getDeadlockCount();
+
+    /**
+     * Sets the number of deadlock checks performed since the Top4J JavaAgent was enabled.
+     * @param checkCount the number of deadlock checks
+     */
+    void setCheckCount(long checkCount);
+
+    /**
+     * Returns the number of deadlock checks performed since the Top4J JavaAgent was enabled.
+     * @return the number of deadlock checks
+     */
+    long getCheckCount();
+
+    /**
+     * Sets the current deadlock check interval in iterations, i.e. a deadlock check is performed every CheckInterval iterations.
+     * @param checkInterval the deadlock check interval in iterations
+     */
+    void setCheckInterval(int checkInterval);
+
+    /**
+     * Returns the current deadlock check interval in iterations.
+     * <p>
+     * The interval drops to 1 (check every iteration) when the blocked thread count rises and backs off exponentially
+     * while the JVM has no blocked threads, subject to the configured deadlock detection CPU budget.
+     * @return the deadlock check interval in iterations
+     */
+    int getCheckInterval();
+
+    /**
+     * Sets the wall-clock time in milliseconds taken by the most recent deadlock check.
+     * @param checkTime check time in milliseconds
+     */
+    void setCheckTime(double checkTime);
+
+    /**
+     * Returns the wall-clock time in milliseconds taken by the most recent deadlock check, i.e. the time spent in the
+     * findDeadlockedThreads() and getThreadInfo() safepoint operations.
+     * @return the check time in milliseconds
+     */
+    double getCheckTime();
+
+    /**
+     * Returns a report of the most recently detected deadlock, i.e. each deadlocked thread, the lock it is waiting on,
+     * the lock owner and the thread stack trace, as captured when the deadlock was detected.
+     * @param maxDepth the maximum number of stack trace frames to report per thread (0 for all)
+     * @return the deadlock report or null if no deadlock has been detected
+     */
+    String getDeadlockReport(int maxDepth);
+
+}
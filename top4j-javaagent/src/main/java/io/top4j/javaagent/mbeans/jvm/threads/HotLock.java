@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import io.top4j.javaagent.utils.ThreadHelper;
+
+import javax.management.MBeanServerConnection;
+import java.io.IOException;
+
+public class HotLock implements HotLockMXBean {
+
+    volatile private String lockName;
+    volatile private long waiterCount;
+    volatile private long blockedTime;
+    volatile private long ownerThreadId;
+    volatile private String ownerThreadName;
+    volatile private long ownerCount;
+    volatile private long ownerTotalBlockedTime;
+    volatile private String topOwners;
+    volatile private String ownerChain;
+    private ThreadHelper threadHelper;
+
+    public HotLock(MBeanServerConnection mbsc) throws IOException {
+
+        this.threadHelper = new ThreadHelper(mbsc);
+
+    }
+
+    public void setLockName(String lockName) {
+        this.lockName = lockName;
+    }
+
+    public String getLockName() {
+        return lockName;
+    }
+
+    public void setWaiterCount(long waiterCount) {
+        this.waiterCount = waiterCount;
+    }
+
+    public long getWaiterCount() {
+        return waiterCount;
+    }
+
+    public void setBlockedTime(long blockedTime) {
+        this.blockedTime = blockedTime;
+    }
+
+    public long getBlockedTime() {
+        return blockedTime;
+    }
+
+    public void setOwnerThreadId(long ownerThreadId) {
+        this.ownerThreadId = ownerThreadId;
+    }
+
+    public long getOwnerThreadId() {
+        return ownerThreadId;
+    }
+
+    public void setOwnerThreadName(String ownerThreadName) {
+        this.ownerThreadName = ownerThreadName;
+    }
+
+    public String getOwnerThreadName() {
+        return ownerThreadName;
+    }
+
+    public void setOwnerCount(long ownerCount) {
+        this.ownerCount = ownerCount;
+    }
+
+    public long getOwnerCount() {
+        return ownerCount;
+    }
+
+    public void setOwnerTotalBlockedTime(long ownerTotalBlockedTime) {
+        this.ownerTotalBlockedTime = ownerTotalBlockedTime;
+    }
+
+    public long getOwnerTotalBlockedTime() {
+        return ownerTotalBlockedTime;
+    }
+
+    public void setTopOwners(String topOwners) {
+        this.topOwners = topOwners;
+    }
+
+    public String getTopOwners() {
+        return topOwners;
+    }
+
+    public void setOwnerChain(String ownerChain) {
+        this.ownerChain = ownerChain;
+    }
+
+    public String getOwnerChain() {
+        return ownerChain;
+    }
+
+    public String getOwnerStackTraceWithContext(int maxDepth) {
+
+        return threadHelper.getStackTraceWithContext(ownerThreadId, maxDepth);
+
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+/**
+ * Used to store and expose stats relating to a lock (object monitor or ownable synchronizer) that has been determined as one of the most
+ * contended locks during the last iteration. Each hot lock is ranked between 1 and N via the "rank" attribute on the HotLock MBean Object
+ * Name, where 1 is the lock that threads have spent the most time blocked on and N is the lock they have spent the least time blocked on
+ * (out of the top ranked locks).
+ */
+
+public interface HotLockMXBean {
+
+    /**
+     * Sets the lock name, i.e. the lock class name and identity hash code.
+     * @param lockName the lock name
+     */
+    void setLockName(String lockName);
+
+    /**
+     * Returns the lock name, i.e. the lock class name and identity hash code, e.g. java.lang.Object@6d06d69c
+     * @return the lock name
+     */
+    String getLockName();
+
+    /**
+     * Sets the number of threads waiting to acquire the lock at the time of the last stats update.
+     * @param waiterCount the waiter count
+     */
+    void setWaiterCount(long waiterCount);
+
+    /**
+     * Returns the number of threads waiting to acquire the lock at the time of the last stats update.
+     * @return the waiter count
+     */
+    long getWaiterCount();
+
+    /**
+     * Sets the total time in milliseconds the waiting threads spent blocked during the last iteration.
+     * @param blockedTime the lock blocked time
+     */
+    void setBlockedTime(long blockedTime);
+
+    /**
+     * Returns the total time in milliseconds the waiting threads spent blocked during the last iteration.
+     * <p>
+     * Blocked time is only available for object monitors and requires thread contention monitoring.
+     * @return the lock blocked time
+     */
+    long getBlockedTime();
+
+    /**
+     * Sets the ID of the lock owner thread which the waiting threads spent the most time blocked on.
+     * @param ownerThreadId the owner thread ID
+     */
+    void setOwnerThreadId(long ownerThreadId);
+
+    /**
+     * Returns the ID of the lock owner thread which the waiting threads spent the most time blocked on.
+     * @return the owner thread ID
+     */
+    long getOwnerThreadId();
+
+    /**
+     * Sets the name of the lock owner thread which the waiting threads spent the most time blocked on.
+     * @param ownerThreadName the owner thread name
+     */
+    void setOwnerThreadName(String ownerThreadName);
+
+    /**
+     * Returns the name of the lock owner thread which the waiting threads spent the most time blocked on.
+     * @return the owner thread name
+     */
+    String getOwnerThreadName();
+
+    /**
+     * Sets the number of distinct owner threads seen by the waiting threads during the last stats update.
+     * @param ownerCount the owner count
+     */
+    void setOwnerCount(long ownerCount);
+
+    /**
+     * Returns the number of distinct owner threads seen by the waiting threads during the last stats update.
+     * @return the owner count
+     */
+    long getOwnerCount();
+
+    /**
+     * Sets the time in milliseconds threads spent blocked on locks owned by the top lock owner during the last iteration, across all locks.
+     * @param ownerTotalBlockedTime the top lock owner's total blocked time
+     */
+    void setOwnerTotalBlockedTime(long ownerTotalBlockedTime);
+
+    /**
+     * Returns the time in milliseconds threads spent blocked on locks owned by the top lock owner during the last iteration, across all locks,
+     * i.e. including locks other than this one.
+     * @return the top lock owner's total blocked time
+     */
+    long getOwnerTotalBlockedTime();
+
+    /**
+     * Sets the top lock owners.
+     * @param topOwners the top lock owners
+     */
+    void setTopOwners(String topOwners);
+
+    /**
+     * Returns the lock owner threads which the waiting threads spent the most time blocked on, highest first, each followed by the blocked
+     * time it accounted for on this lock and across all locks, e.g. "worker-1 (12) 340/520 ms, worker-2 (13) 120/120 ms".
+     * @return the top lock owners
+     */
+    String getTopOwners();
+
+    /**
+     * Sets the lock owner chain.
+     * @param ownerChain the lock owner chain
+     */
+    void setOwnerChain(String ownerChain);
+
+    /**
+     * Returns the lock owner chain, i.e. the lock owner thread followed by the lock it is itself waiting on and that lock's owner, and so on,
+     * e.g. "worker-1 (12) -&gt; java.lang.Object@6d06d69c -&gt; worker-2 (13)". A chain which loops back on itself ends with "[DEADLOCK]".
+     * @return the lock owner chain
+     */
+    String getOwnerChain();
+
+    /**
+     * Returns the stack trace for the lock owner thread with context, e.g. thread name and thread state, with a maximum frame depth of maxDepth.
+     * @param maxDepth maximum frame depth
+     * @return a String representation of the stack trace with some additional context
+     */
+    String getOwnerStackTraceWithContext(int maxDepth);
+
+}
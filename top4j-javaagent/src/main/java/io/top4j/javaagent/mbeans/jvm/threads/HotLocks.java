@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Builds a wait-for graph of the sampled threads on each thread usage update, i.e. which lock each waiting thread is waiting
+ * on and which thread owns it, aggregates blocked time by lock, by lock owner and by owner thread across all locks and
+ * publishes the most contended locks, along with their top owners, to the HotLock MBeans.
+ * <p>
+ * A waiting thread's blocked time for the interval is attributed to the object monitor it is blocked on at the time it is
+ * sampled. Threads waiting on an ownable synchronizer (e.g. a ReentrantLock) are counted as waiters but, as they park
+ * rather than block, don't accumulate blocked time.
+ */
+public class HotLocks {
+
+    // guard against following very long owner chains
+    private static final int MAX_OWNER_CHAIN_LENGTH = 10;
+    // number of lock owners published per lock
+    private static final int TOP_OWNER_COUNT = 3;
+
+    private final Map<Integer, HotLock> hotLocksMap;
+    private final int hotLockCount;
+    private final Map<String, LockUsage> locks = new HashMap<>();
+    private final List<LockUsage> lockList = new ArrayList<>();
+    private final TopKSelector lockSelector = new TopKSelector(0);
+    // wait-for graph edges: waiter thread ID -> (lock, owner thread)
+    private final LongIndexMap waitForIndex = new LongIndexMap();
+    private String[] waitForLockNames = new String[16];
+    private long[] waitForOwnerIds = new long[16];
+    private String[] waitForOwnerNames = new String[16];
+    private int waitForCount;
+    private final long[] ownerChainIds = new long[MAX_OWNER_CHAIN_LENGTH];
+    // owner thread ID -> blocked time attributed to the owner across all locks
+    private final LongIndexMap ownerTotalIndex = new LongIndexMap();
+    private long[] ownerTotalBlockedTimes = new long[16];
+    private int ownerTotalCount;
+    private final int[] topOwners = new int[TOP_OWNER_COUNT];
+
+    private static final Logger LOGGER = Logger.getLogger(HotLocks.class.getName());
+
+    public HotLocks(Map<Integer, HotLock> hotLocksMap) {
+
+        this.hotLocksMap = hotLocksMap;
+        this.hotLockCount = hotLocksMap.size();
+    }
+
+    /**
+     * Clear the wait-for graph ready for the next thread usage update.
+     */
+    synchronized void reset() {
+
+        for (LockUsage lock : locks.values()) {
+            lock.reset();
+        }
+        waitForIndex.clear();
+        waitForCount = 0;
+        ownerTotalIndex.clear();
+        ownerTotalCount = 0;
+    }
+
+    /**
+     * Add a wait-for edge to the graph.
+     *
+     * @param threadId        the waiting thread ID
+     * @param lockName        the name of the lock the thread is waiting on
+     * @param ownerThreadId   the lock owner thread ID
+     * @param ownerThreadName the lock owner thread name
+     * @param blockedTime     the time in milliseconds the waiting thread spent blocked during the last interval
+     */
+    synchronized void addWaiter(long threadId, String lockName, long ownerThreadId, String ownerThreadName, long blockedTime) {
+
+        // record wait-for edge
+        if (waitForCount == waitForLockNames.length) {
+            waitForLockNames = Arrays.copyOf(waitForLockNames, waitForCount << 1);
+            waitForOwnerIds = Arrays.copyOf(waitForOwnerIds, waitForCount << 1);
+            waitForOwnerNames = Arrays.copyOf(waitForOwnerNames, waitForCount << 1);
+        }
+        waitForIndex.put(threadId, waitForCount);
+        waitForLockNames[waitForCount] = lockName;
+        waitForOwnerIds[waitForCount] = ownerThreadId;
+        waitForOwnerNames[waitForCount] = ownerThreadName;
+        waitForCount++;
+
+        // aggregate by lock and lock owner
+        LockUsage lock = locks.get(lockName);
+        if (lock == null) {
+            lock = new LockUsage(lockName);
+            locks.put(lockName, lock);
+        }
+        lock.waiterCount++;
+        lock.blockedTime += blockedTime;
+        lock.addOwner(ownerThreadId, ownerThreadName, blockedTime);
+
+        // aggregate by owner thread across all locks
+        int owner = ownerTotalIndex.get(ownerThreadId);
+        if (owner < 0) {
+            if (ownerTotalCount == ownerTotalBlockedTimes.length) {
+                ownerTotalBlockedTimes = Arrays.copyOf(ownerTotalBlockedTimes, ownerTotalCount << 1);
+            }
+            owner = ownerTotalCount++;
+            ownerTotalIndex.put(ownerThreadId, owner);
+            ownerTotalBlockedTimes[owner] = 0;
+        }
+        ownerTotalBlockedTimes[owner] += blockedTime;
+    }
+
+    /**
+     * Returns the time in milliseconds threads spent blocked on locks owned by ownerThreadId since the last reset, across all locks.
+     *
+     * @param ownerThreadId the lock owner thread ID
+     * @return the owner's total blocked time
+     */
+    synchronized long getOwnerTotalBlockedTime(long ownerThreadId) {
+
+        int owner = ownerTotalIndex.get(ownerThreadId);
+        return owner < 0 ? 0 : ownerTotalBlockedTimes[owner];
+    }
+
+    /**
+     * Rank the locks recorded since the last reset by blocked time (then waiter count) and update the HotLock MBeans.
+     */
+    synchronized void update() {
+
+        // drop locks which no longer have any waiters
+        lockList.clear();
+        Iterator<LockUsage> iterator = locks.values().iterator();
+        while (iterator.hasNext()) {
+            LockUsage lock = iterator.next();
+            if (lock.waiterCount == 0) {
+                iterator.remove();
+            } else {
+                lockList.add(lock);
+            }
+        }
+        lockSelector.reset(hotLockCount);
+        for (int i = 0; i < lockList.size(); i++) {
+            LockUsage lock = lockList.get(i);
+            // rank by blocked time, then by waiter count
+            lockSelector.offer((lock.blockedTime << 16) + Math.min(lock.waiterCount, 0xFFFF), i);
+        }
+        lockSelector.sort();
+
+        // update HotLock MBeans
+        for (int rank = 1; rank <= hotLockCount; rank++) {
+            HotLock hotLockMBean = hotLocksMap.get(rank);
+            if (rank <= lockSelector.size()) {
+                LockUsage lock = lockList.get((int) lockSelector.getValue(rank - 1));
+                int topOwnerCount = lock.getTopOwners(topOwners);
+                int owner = topOwners[0];
+                hotLockMBean.setLockName(lock.name);
+                hotLockMBean.setWaiterCount(lock.waiterCount);
+                hotLockMBean.setBlockedTime(lock.blockedTime);
+                hotLockMBean.setOwnerThreadId(lock.ownerIds[owner]);
+                hotLockMBean.setOwnerThreadName(lock.ownerNames[owner]);
+                hotLockMBean.setOwnerCount(lock.ownerCount);
+                hotLockMBean.setOwnerTotalBlockedTime(getOwnerTotalBlockedTime(lock.ownerIds[owner]));
+                hotLockMBean.setTopOwners(getTopOwners(lock, topOwnerCount));
+                hotLockMBean.setOwnerChain(getOwnerChain(lock.ownerIds[owner], lock.ownerNames[owner]));
+                LOGGER.fine("lockCounter: " + rank + ", lockBlockedTime: " + lock.blockedTime + ", lockName: " + lock.name);
+            } else {
+                // fewer contended locks than ranks - clear this rank
+                hotLockMBean.setLockName(null);
+                hotLockMBean.setWaiterCount(0);
+                hotLockMBean.setBlockedTime(0);
+                hotLockMBean.setOwnerThreadId(0);
+                hotLockMBean.setOwnerThreadName(null);
+                hotLockMBean.setOwnerCount(0);
+                hotLockMBean.setOwnerTotalBlockedTime(0);
+                hotLockMBean.setTopOwners(null);
+                hotLockMBean.setOwnerChain(null);
+            }
+        }
+    }
+
+    /**
+     * Describe the top owners of a lock, i.e. the blocked time each owner accounted for on this lock and across all locks.
+     *
+     * @param lock          the lock
+     * @param topOwnerCount the number of top owners selected into topOwners
+     * @return the top owners, e.g. "worker-1 (12) 340/520 ms, worker-2 (13) 120/120 ms"
+     */
+    private String getTopOwners(LockUsage lock, int topOwnerCount) {
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < topOwnerCount; i++) {
+            int owner = topOwners[i];
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(lock.ownerNames[owner]).append(" (").append(lock.ownerIds[owner]).append(") ");
+            sb.append(lock.ownerBlockedTimes[owner]).append("/").append(getOwnerTotalBlockedTime(lock.ownerIds[owner])).append(" ms");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Follow the wait-for graph from ownerThreadId, i.e. the lock the owner is itself waiting on, that lock's owner and so on.
+     *
+     * @param ownerThreadId   the lock owner thread ID to start from
+     * @param ownerThreadName the lock owner thread name
+     * @return the owner chain, e.g. "worker-1 (12) -&gt; java.lang.Object@6d06d69c -&gt; worker-2 (13)"
+     */
+    synchronized String getOwnerChain(long ownerThreadId, String ownerThreadName) {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(ownerThreadName).append(" (").append(ownerThreadId).append(")");
+        int chainLength = 0;
+        long threadId = ownerThreadId;
+        while (chainLength < MAX_OWNER_CHAIN_LENGTH) {
+            ownerChainIds[chainLength++] = threadId;
+            int edge = waitForIndex.get(threadId);
+            if (edge < 0) {
+                // owner isn't waiting on a lock - end of the chain
+                break;
+            }
+            threadId = waitForOwnerIds[edge];
+            sb.append(" -> ").append(waitForLockNames[edge]);
+            sb.append(" -> ").append(waitForOwnerNames[edge]).append(" (").append(threadId).append(")");
+            for (int i = 0; i < chainLength; i++) {
+                if (ownerChainIds[i] == threadId) {
+                    // the chain has looped back on itself
+                    return sb.append(" [DEADLOCK]").toString();
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Per lock usage accumulator.
+     */
+    private static class LockUsage {
+
+        private final String name;
+        private long waiterCount;
+        private long blockedTime;
+        private long[] ownerIds = new long[2];
+        private String[] ownerNames = new String[2];
+        private long[] ownerBlockedTimes = new long[2];
+        private int ownerCount;
+
+        LockUsage(String name) {
+            this.name = name;
+        }
+
+        void reset() {
+
+            waiterCount = 0;
+            blockedTime = 0;
+            ownerCount = 0;
+        }
+
+        void addOwner(long ownerId, String ownerName, long ownerBlockedTime) {
+
+            // the lock is normally seen with one (or a handful of) owners per update so a linear scan will do
+            for (int i = 0; i < ownerCount; i++) {
+                if (ownerIds[i] == ownerId) {
+                    ownerBlockedTimes[i] += ownerBlockedTime;
+                    return;
+                }
+            }
+            if (ownerCount == ownerIds.length) {
+                ownerIds = Arrays.copyOf(ownerIds, ownerCount << 1);
+                ownerNames = Arrays.copyOf(ownerNames, ownerCount << 1);
+                ownerBlockedTimes = Arrays.copyOf(ownerBlockedTimes, ownerCount << 1);
+            }
+            ownerIds[ownerCount] = ownerId;
+            ownerNames[ownerCount] = ownerName;
+            ownerBlockedTimes[ownerCount] = ownerBlockedTime;
+            ownerCount++;
+        }
+
+        /**
+         * Select the owners which accounted for the most blocked time on this lock, highest first.
+         *
+         * @param topOwners the array to store the selected owner indexes in
+         * @return the number of owners selected
+         */
+        int getTopOwners(int[] topOwners) {
+
+            int count = 0;
+            for (int i = 0; i < ownerCount; i++) {
+                // insert into the (short) sorted top owners array
+                int position = count;
+                while (position > 0 && ownerBlockedTimes[i] > ownerBlockedTimes[topOwners[position - 1]]) {
+                    position--;
+                }
+                if (position < topOwners.length) {
+                    int end = Math.min(count, topOwners.length - 1);
+                    System.arraycopy(topOwners, position, topOwners, position + 1, end - position);
+                    topOwners[position] = i;
+                    if (count < topOwners.length) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+}
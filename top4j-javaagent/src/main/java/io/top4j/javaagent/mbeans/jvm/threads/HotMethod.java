@@ -16,6 +16,7 @@
 
 package io.top4j.javaagent.mbeans.jvm.threads;
 
+import io.top4j.javaagent.utils.StackTraceStore;
 import io.top4j.javaagent.utils.ThreadHelper;
 
 import javax.management.MBeanServerConnection;
@@ -27,6 +28,11 @@ public class HotMethod implements HotMethodMXBean {
     volatile private String threadName;
     volatile private long threadId;
     volatile private double loadProfile;
+    volatile private double totalLoadProfile;
+    volatile private long selfTime;
+    volatile private long totalTime;
+    volatile private int stackTraceId = StackTraceStore.NO_STACK_TRACE_ID;
+    // only retained if the stack trace couldn't be interned, i.e. the stack trace store is full
     volatile private StackTraceElement[] stackTrace;
     private ThreadHelper threadHelper;
 
@@ -76,14 +82,56 @@ public class HotMethod implements HotMethodMXBean {
         return loadProfile;
     }
 
+    @Override
+    public void setTotalLoadProfile(double totalLoadProfile) {
+        this.totalLoadProfile = totalLoadProfile;
+    }
+
+    @Override
+    public double getTotalLoadProfile() {
+        return totalLoadProfile;
+    }
+
+    @Override
+    public void setSelfTime(long selfTime) {
+        this.selfTime = selfTime;
+    }
+
+    @Override
+    public long getSelfTime() {
+        return selfTime;
+    }
+
+    @Override
+    public void setTotalTime(long totalTime) {
+        this.totalTime = totalTime;
+    }
+
+    @Override
+    public long getTotalTime() {
+        return totalTime;
+    }
+
     @Override
     public String getStackTrace(int maxDepth) {
-        return threadHelper.getStackTraceAsString(stackTrace);
+        StackTraceElement[] stackTrace = this.stackTrace;
+        if (stackTrace != null) {
+            return threadHelper.getStackTraceAsString(stackTrace);
+        }
+        return threadHelper.getStackTraceAsString(stackTraceId);
+    }
+
+    @Override
+    public int getStackTraceId(int maxDepth) {
+        return stackTraceId;
     }
 
     public void setStackTrace(StackTraceElement[] stackTrace) {
         if (stackTrace != null) {
-            this.stackTrace = stackTrace.clone();
+            // intern stack trace via shared stack trace store
+            int stackTraceId = StackTraceStore.getSharedInstance().intern(stackTrace);
+            this.stackTrace = stackTraceId == StackTraceStore.NO_STACK_TRACE_ID ? stackTrace.clone() : null;
+            this.stackTraceId = stackTraceId;
         }
     }
 }
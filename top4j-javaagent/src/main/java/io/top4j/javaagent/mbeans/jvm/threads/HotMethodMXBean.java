@@ -61,8 +61,8 @@ public interface HotMethodMXBean {
     /**
      * Sets the hot method load profile which is an indication of how hot the method has been during the last iteration.
      * <p>
-     * The load profile is calculated as the CPU time used by a top thread that has executed a hot method as
-     * a percentage of the total CPU time used by all top threads during the last iteration.
+     * The load profile is calculated as the number of samples in which the method was the executing frame (self samples)
+     * as a percentage of all RUNNABLE thread samples taken during the last iteration.
      * @param loadProfile the load profile
      */
     void setLoadProfile(double loadProfile);
@@ -70,12 +70,54 @@ public interface HotMethodMXBean {
     /**
      * Returns the hot method load profile which is an indication of how hot the method has been during the last iteration.
      * <p>
-     * The load profile is calculated as the CPU time used by a top thread that has executed a hot method as
-     * a percentage of the total CPU time used by all top threads during the last iteration.
+     * The load profile is calculated as the number of samples in which the method was the executing frame (self samples)
+     * as a percentage of all RUNNABLE thread samples taken during the last iteration.
      * @return the load profile
      */
     double getLoadProfile();
 
+    /**
+     * Sets the hot method total load profile, i.e. the number of samples in which the method appeared anywhere on the stack
+     * (total samples) as a percentage of all RUNNABLE thread samples taken during the last iteration.
+     * @param totalLoadProfile the total load profile
+     */
+    void setTotalLoadProfile(double totalLoadProfile);
+
+    /**
+     * Returns the hot method total load profile, i.e. the number of samples in which the method appeared anywhere on the stack
+     * (total samples) as a percentage of all RUNNABLE thread samples taken during the last iteration.
+     * @return the total load profile
+     */
+    double getTotalLoadProfile();
+
+    /**
+     * Sets the estimated time in milliseconds that RUNNABLE threads spent executing the method itself during the last
+     * iteration, i.e. the self samples multiplied by the hot method poll frequency.
+     * @param selfTime the self time in milliseconds
+     */
+    void setSelfTime(long selfTime);
+
+    /**
+     * Returns the estimated time in milliseconds that RUNNABLE threads spent executing the method itself during the last
+     * iteration, i.e. the self samples multiplied by the hot method poll frequency.
+     * @return the self time in milliseconds
+     */
+    long getSelfTime();
+
+    /**
+     * Sets the estimated time in milliseconds that RUNNABLE threads spent executing the method or its callees during the last
+     * iteration, i.e. the total samples multiplied by the hot method poll frequency.
+     * @param totalTime the total time in milliseconds
+     */
+    void setTotalTime(long totalTime);
+
+    /**
+     * Returns the estimated time in milliseconds that RUNNABLE threads spent executing the method or its callees during the last
+     * iteration, i.e. the total samples multiplied by the hot method poll frequency.
+     * @return the total time in milliseconds
+     */
+    long getTotalTime();
+
     /**
      * Returns the most recent stack trace for the hot method.
      * @param maxDepth the stack trace maximum frame depth
@@ -83,4 +125,11 @@ public interface HotMethodMXBean {
      */
     String getStackTrace(int maxDepth);
 
+    /**
+     * Returns the ID of the most recent stack trace for the hot method, as interned in the agent's shared stack trace store.
+     * @param maxDepth the stack trace maximum frame depth
+     * @return the stack trace ID or -1 if no stack trace is available or the stack trace store is full
+     */
+    int getStackTraceId(int maxDepth);
+
 }
@@ -18,52 +18,90 @@ package io.top4j.javaagent.mbeans.jvm.threads;
 
 import io.top4j.javaagent.profiler.CpuTime;
 
-import java.util.Map;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
 import java.util.TimerTask;
 import java.util.logging.Logger;
 
+/**
+ * Sampling profiler task - on each poll the stack traces of all threads are fetched in a single ThreadMXBean call and the
+ * stack traces of the RUNNABLE threads are merged into the hot methods call-tree.
+ * <p>
+ * The sample stride and maximum stack depth can be lowered at run-time (e.g. by the agent overhead governor) to trade
+ * profiling fidelity for a lower sampling cost - with a sample stride of N only every Nth poll takes a sample.
+ */
 public class HotMethodTracker extends TimerTask {
 
-    private Map<Integer, TopThread> topThreadMap;
+    private ThreadMXBean threadMXBean;
     private HotMethods hotMethods;
+    private volatile int maxDepth;
+    private volatile int sampleStride = 1;
+    private long polls;
     private CpuTime cpuTime = new CpuTime();
 
     private static final Logger LOGGER = Logger.getLogger(HotMethodTracker.class.getName());
 
-    public HotMethodTracker(Map<Integer, TopThread> topThreadMap, HotMethods hotMethods) {
+    public HotMethodTracker(ThreadMXBean threadMXBean, HotMethods hotMethods, int maxDepth) {
 
-        // store topThreadMap
-        this.topThreadMap = topThreadMap;
+        // store threadMXBean
+        this.threadMXBean = threadMXBean;
         // store hotMethods
         this.hotMethods = hotMethods;
+        // store stack trace maximum frame depth
+        this.maxDepth = maxDepth;
 
     }
 
     @Override
     public void run() {
 
+        if (polls++ % sampleStride != 0) {
+            // skip this poll
+            return;
+        }
+
         // initialise thread CPU timer
         cpuTime.init();
 
-        // iterate over topThreadsMap
-        for (TopThread topThread : topThreadMap.values()) {
-
-            // get topThread stack trace
-            StackTraceElement[] stackTrace = topThread.getStackTraceElements();
-            // get topThread name
-            String threadName = topThread.getThreadName();
-            // get topThread Id
-            long threadId = topThread.getThreadId();
-            // get topThread state
-            Thread.State threadState = topThread.getThreadState();
-            if (stackTrace != null && threadName != null && threadId != 0 && threadState.equals(Thread.State.RUNNABLE)) {
-                // add top thread stack trace, name and ID to hotMethods
-                hotMethods.addHotMethod(topThread.getStackTraceElements(), topThread.getThreadName(), topThread.getThreadId());
+        // don't sample the profiler thread itself
+        long profilerThreadId = Thread.currentThread().getId();
+        try {
+            // get stack traces for all threads in a single call
+            ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds(), maxDepth);
+            for (ThreadInfo threadInfo : threadInfos) {
+                if (threadInfo != null && threadInfo.getThreadState() == Thread.State.RUNNABLE && threadInfo.getThreadId() != profilerThreadId) {
+                    // add RUNNABLE thread stack trace, name and ID to hotMethods
+                    hotMethods.addSample(threadInfo.getStackTrace(), threadInfo.getThreadName(), threadInfo.getThreadId());
+                }
             }
+        } catch (RuntimeException e) {
+            // keep the profiler timer running - try again on the next poll
+            LOGGER.fine("Unable to sample thread stack traces due to: " + e.getMessage());
         }
 
         LOGGER.finer("Hot Method Tracker CPU Time: " + cpuTime.getMillis() + " ms");
         // update hot method tracker CPU time
         hotMethods.addMBeanCpuTime(cpuTime.getMillis());
     }
+
+    /**
+     * Set the sample stride, i.e. take a sample on every sampleStride-th poll only.
+     *
+     * @param sampleStride the sample stride (1 = sample on every poll)
+     */
+    public void setSampleStride(int sampleStride) {
+        this.sampleStride = Math.max(sampleStride, 1);
+    }
+
+    public int getSampleStride() {
+        return sampleStride;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
 }
@@ -16,94 +16,131 @@
 
 package io.top4j.javaagent.mbeans.jvm.threads;
 
-import io.top4j.javaagent.utils.ThreadHelper;
+import io.top4j.javaagent.config.Configurator;
 
-import javax.management.MBeanServerConnection;
-import java.io.IOException;
 import java.util.*;
 import java.util.logging.Logger;
 
+/**
+ * Aggregates the stack traces sampled by the HotMethodTracker into a call-tree and publishes the hottest methods to the
+ * HotMethod MBeans on each thread usage update.
+ * <p>
+ * Each sample of a RUNNABLE thread credits the executing method with self time and every method on the stack with total
+ * time, where each sample represents one poll interval of RUNNABLE time. Methods are ranked by self time (where the CPU is
+ * actually spent) or by total time (the callers responsible for it) according to the hot method ranking.
+ * <p>
+ * The samples are also accumulated into a profiling window call-tree which spans iterations and can be exported in the
+ * collapsed stack (flame graph) format. While flame graph logging is enabled the stats logger rotates the window as it
+ * writes each window to file; otherwise the window is rotated every hot.method.flame.graph.window.minutes, so that an
+ * on-demand dump always covers recent samples.
+ */
 public class HotMethods {
 
-    private Map<String, StackTraceElement[]> stackTraces;
-    private Map<String, String> threadNames;
-    private Map<String, Long> threadIds;
-    private Map<String, Long> hotMethodCpuTime;
-    private Map<Long, Long> threadCpuTime;
-    private long totalCpuTime;
-    private Map<Integer, HotMethod> hotMethods;
-    private int hotMethodCount;
+    private final CallTree callTree;
+    private final CallTree windowCallTree;
+    // the profiling window rotation interval in ms (0 = rotated by the stats logger)
+    private final long windowRotationInterval;
+    private long windowStartTime;
+    private volatile long samplePeriod;
+    private final Map<Integer, HotMethod> hotMethods;
+    private final int hotMethodCount;
+    private volatile String hotMethodRanking = HOT_METHOD_RANKING_SELF;
+    private final TopKSelector hotMethodSelector = new TopKSelector(0);
     private final Object lock = new Object();
-    private ThreadHelper threadHelper;
     private double mBeanCpuTime;
 
+    // hot method ranking metrics
+    private static final String HOT_METHOD_RANKING_SELF = "self";
+    private static final String HOT_METHOD_RANKING_TOTAL = "total";
+    // the profiling window length used when the window is rotated per stats log file date stamp but not logged
+    private static final long DEFAULT_WINDOW_MINUTES = 15;
+
     private static final Logger LOGGER = Logger.getLogger(HotMethods.class.getName());
 
-    public HotMethods(MBeanServerConnection mbsc, Map<Integer, HotMethod> hotMethods) throws IOException {
+    public HotMethods(Configurator config, Map<Integer, HotMethod> hotMethods) {
+
+        this(hotMethods, Integer.parseInt(config.get("hot.method.profiler.node.limit")), Long.parseLong(config.get("hot.method.poll.frequency")),
+                getWindowRotationInterval(config));
+        // set hot method ranking metric
+        if (config.get("hot.method.ranking") != null) {
+            try {
+                setHotMethodRanking(config.get("hot.method.ranking"));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning(e.getMessage() + " - ranking hot methods by " + HOT_METHOD_RANKING_SELF + " time.");
+            }
+        }
+    }
+
+    public HotMethods(Map<Integer, HotMethod> hotMethods, int nodeLimit, long samplePeriod, long windowRotationInterval) {
 
-        this.stackTraces = new HashMap<>();
-        this.threadNames = new HashMap<>();
-        this.threadIds = new HashMap<>();
-        this.hotMethodCpuTime = new HashMap<>();
-        this.threadCpuTime = new HashMap<>();
+        this.callTree = new CallTree(nodeLimit);
+        this.windowCallTree = new CallTree(nodeLimit);
+        this.windowRotationInterval = windowRotationInterval;
+        this.windowStartTime = System.currentTimeMillis();
+        this.samplePeriod = samplePeriod;
         this.hotMethods = hotMethods;
         this.hotMethodCount = hotMethods.size();
-        this.threadHelper = new ThreadHelper(mbsc);
     }
 
-    public void addHotMethod(StackTraceElement[] ste, String threadName, long threadId) {
+    /**
+     * @return the profiling window rotation interval in ms, or 0 if the stats logger rotates the window
+     */
+    private static long getWindowRotationInterval(Configurator config) {
+
+        if (config.isStatsLoggerEnabled() && config.isHotMethodFlameGraphLoggingEnabled()) {
+            // the stats logger rotates the window as it writes each window to file
+            return 0;
+        }
+        long windowMinutes = Long.parseLong(config.get("hot.method.flame.graph.window.minutes"));
+        return (windowMinutes > 0 ? windowMinutes : DEFAULT_WINDOW_MINUTES) * 60000;
+    }
+
+    /**
+     * Add a sampled stack trace of a RUNNABLE thread to the call-tree.
+     *
+     * @param ste        the sampled stack trace, executing frame first
+     * @param threadName the name of the sampled thread
+     * @param threadId   the ID of the sampled thread
+     */
+    public void addSample(StackTraceElement[] ste, String threadName, long threadId) {
 
         synchronized (lock) {
 
-            String hotMethod;
-            if (ste.length > 0 && threadName != null && threadId != 0) {
-                // get hot method
-                hotMethod = ste[0].getClassName() + "." + ste[0].getMethodName();
-                LOGGER.finer("Adding hot method " + hotMethod + " to hot methods store.");
-            } else {
+            if (ste == null || ste.length == 0 || threadName == null || threadId == 0) {
                 return;
             }
+            callTree.addSample(ste, threadName, threadId);
+            windowCallTree.addSample(ste, threadName, threadId);
+        }
+    }
 
-            // store hot method stack trace
-            stackTraces.put(hotMethod, ste);
-
-            // store hot method thread name
-            this.threadNames.put(hotMethod, threadName);
-
-            // store hot method thread Id
-            this.threadIds.put(hotMethod, threadId);
-
-            // get thread CPU time
-            long cpuTime = threadHelper.getThreadCpuTime(threadId);
-
-            if (cpuTime > -1) {
-
-                // add cpuTime to totalCpuTime
-                totalCpuTime += cpuTime;
-
-                if (threadCpuTime.containsKey(threadId)) {
-                    // get previous thread CPU time
-                    long previousCpuTime = threadCpuTime.get(threadId);
-                    // calculate CPU burn since last iteration
-                    long cpuTimeDiff = cpuTime - previousCpuTime;
-                    // store new thread CPU time
-                    threadCpuTime.put(threadId, cpuTime);
-
-                    if (hotMethodCpuTime.containsKey(hotMethod)) {
-                        // get previous hot method CPU time
-                        long previousHotMethodCpuTime = hotMethodCpuTime.get(hotMethod);
-                        // store new hot method CPU time
-                        hotMethodCpuTime.put(hotMethod, previousHotMethodCpuTime + cpuTimeDiff);
-                    } else {
-                        // initialise hot method CPU time
-                        hotMethodCpuTime.put(hotMethod, cpuTimeDiff);
-                    }
-                } else {
-                    // initialise thread CPU time
-                    threadCpuTime.put(threadId, cpuTime);
-                }
-            }
+    /**
+     * Get the samples of the current profiling window in the collapsed stack format, i.e. "frame;frame;frame count" lines,
+     * which can be rendered as a flame graph. The profiling window accumulates samples across iterations until it is rotated.
+     *
+     * @return the collapsed stacks of the current profiling window
+     */
+    public String getCollapsedStacks() {
+
+        synchronized (lock) {
+            return windowCallTree.getCollapsedStacks();
+        }
+    }
 
+    /**
+     * Get the samples of the current profiling window in the collapsed stack format and start a new profiling window.
+     *
+     * @return the collapsed stacks of the completed profiling window or null if no samples were taken during the window
+     */
+    public String rotateCollapsedStacks() {
+
+        synchronized (lock) {
+            String collapsedStacks = windowCallTree.getSampleCount() > 0 ? windowCallTree.getCollapsedStacks() : null;
+            LOGGER.fine("Rotating hot method profiling window - samples: " + windowCallTree.getSampleCount() +
+                    ", truncated samples: " + windowCallTree.getTruncatedSampleCount());
+            windowCallTree.clear();
+            windowStartTime = System.currentTimeMillis();
+            return collapsedStacks;
         }
     }
 
@@ -114,93 +151,89 @@ public class HotMethods {
         }
     }
 
+    /**
+     * Set the metric used to rank hot methods.
+     * @param hotMethodRanking one of self or total
+     */
+    public void setHotMethodRanking(String hotMethodRanking) {
+
+        String ranking = hotMethodRanking == null ? "" : hotMethodRanking.trim();
+        if (!(ranking.equals(HOT_METHOD_RANKING_SELF) || ranking.equals(HOT_METHOD_RANKING_TOTAL))) {
+            throw new IllegalArgumentException("Invalid hot method ranking: " + hotMethodRanking);
+        }
+        this.hotMethodRanking = ranking;
+    }
+
+    public String getHotMethodRanking() {
+        return this.hotMethodRanking;
+    }
+
     public void update() {
 
         synchronized (lock) {
 
-            // convert invocationCounter to TreeMap
-            MethodTimeMap hotMethodSortedMap = new MethodTimeMap();
-            for (Map.Entry<String, Long> entry : hotMethodCpuTime.entrySet()) {
-                hotMethodSortedMap.put(entry.getValue(), entry.getKey());
+            if (windowRotationInterval > 0 && System.currentTimeMillis() - windowStartTime >= windowRotationInterval) {
+                // the profiling window isn't rotated by the stats logger - start a new window
+                windowCallTree.clear();
+                windowStartTime = System.currentTimeMillis();
             }
-            LOGGER.finer("Hot Method Sorted Map: " + hotMethodSortedMap.toString());
-            if (hotMethodSortedMap.size() == 0) {
+
+            long sampleCount = callTree.getSampleCount();
+            boolean rankByTotal = hotMethodRanking.equals(HOT_METHOD_RANKING_TOTAL);
+            // select top hotMethodCount methods by self (or total) samples
+            hotMethodSelector.reset(hotMethodCount);
+            for (int method = 0; method < callTree.getMethodCount(); method++) {
+                long samples = rankByTotal ? callTree.getMethodTotalSamples(method) : callTree.getMethodSelfSamples(method);
+                if (samples > 0) {
+                    hotMethodSelector.offer(samples, method);
+                }
+            }
+            hotMethodSelector.sort();
+            LOGGER.finer("Hot Method Count: " + hotMethodSelector.size() + ", samples: " + sampleCount +
+                    ", call-tree nodes: " + callTree.getNodeCount() + ", truncated samples: " + callTree.getTruncatedSampleCount());
+            if (hotMethodSelector.size() == 0) {
                 // no hot methods to process on this occasion - set default values and return
                 setDefaultValues();
+                callTree.clear();
                 return;
             }
 
-            // convert hotMethodSortedMap to object array
-            Object[] hotMethodArray = hotMethodSortedMap.descendingKeySet().toArray();
-
-            // get hotMethodSortedMap size
-            int hotMethodMapSize = hotMethodSortedMap.size();
-
-            // initialise hotMethodCounter
-            int hotMethodCounter = 1;
+            for (int rank = 0; rank < hotMethodCount; rank++) {
 
-            hotMethodCountLoop:
-            for (int i = 0; i < hotMethodCount; i++) {
+                // retrieve hotMethodCounter HotMethod
+                int hotMethodCounter = rank + 1;
+                HotMethod hotMethodMBean = hotMethods.get(hotMethodCounter);
 
-                if (hotMethodCounter >= hotMethodMapSize) {
+                if (rank >= hotMethodSelector.size()) {
                     // no more hot methods to process - set default values and continue
-                    // retrieve hotMethodCounter HotMethod
-                    HotMethod hotMethodMBean = hotMethods.get(hotMethodCounter);
                     setDefaultValues(hotMethodMBean);
-                    // check hotMethodCount
-                    if (hotMethodCounter == hotMethodCount) {
-                        // hotMethodCount reached - break out of loop
-                        break hotMethodCountLoop;
-                    }
-                    // increment hotMethodCounter and continue
-                    hotMethodCounter++;
                     continue;
                 }
 
-                // get hotMethodCpuTime
-                Long hotMethodCpuTime = (Long) hotMethodArray[i];
-
-                // get methodNames
-                List<String> methodNames = hotMethodSortedMap.get(hotMethodCpuTime);
-
-                for (String methodName : methodNames) {
-
-                    // get threadName
-                    String threadName = threadNames.get(methodName);
-                    // get threadId
-                    Long threadId = threadIds.get(methodName);
-                    // get stackTrace
-                    StackTraceElement[] stackTrace = stackTraces.get(methodName);
-                    // calculate load profile
-                    double loadProfile = ((double) hotMethodCpuTime / totalCpuTime) * 100;
-                    // retrieve hotMethodCounter HotMethod
-                    HotMethod hotMethodMBean = hotMethods.get(hotMethodCounter);
-                    // update hotMethodsMBean attributes
-                    hotMethodMBean.setMethodName(methodName);
-                    hotMethodMBean.setThreadName(threadName);
-                    hotMethodMBean.setThreadId(threadId);
-                    hotMethodMBean.setStackTrace(stackTrace);
-                    hotMethodMBean.setLoadProfile(loadProfile);
-                    LOGGER.finer("hotMethodCounter: " + hotMethodCounter + ", methodName: " + methodName +
-                            ", threadName: " + threadName + ", loadProfile: " + loadProfile);
-                    // check hotMethodCount
-                    if (hotMethodCounter == hotMethodCount) {
-                        // hotMethodCount reached - break out of loop
-                        break hotMethodCountLoop;
-                    }
-                    // increment hotMethodCounter
-                    hotMethodCounter++;
-                }
-
+                int method = (int) hotMethodSelector.getValue(rank);
+                // get methodName
+                String methodName = callTree.getMethodName(method);
+                // get self and total samples
+                long selfSamples = callTree.getMethodSelfSamples(method);
+                long totalSamples = callTree.getMethodTotalSamples(method);
+                // calculate self and total load profiles, i.e. share of all RUNNABLE samples
+                double loadProfile = ((double) selfSamples / sampleCount) * 100;
+                double totalLoadProfile = ((double) totalSamples / sampleCount) * 100;
+                // update hotMethodsMBean attributes
+                hotMethodMBean.setMethodName(methodName);
+                hotMethodMBean.setThreadName(callTree.getMethodThreadName(method));
+                hotMethodMBean.setThreadId(callTree.getMethodThreadId(method));
+                hotMethodMBean.setStackTrace(callTree.getMethodStackTrace(method));
+                hotMethodMBean.setLoadProfile(loadProfile);
+                hotMethodMBean.setTotalLoadProfile(totalLoadProfile);
+                hotMethodMBean.setSelfTime(selfSamples * samplePeriod);
+                hotMethodMBean.setTotalTime(totalSamples * samplePeriod);
+                LOGGER.finer("hotMethodCounter: " + hotMethodCounter + ", methodName: " + methodName +
+                        ", selfSamples: " + selfSamples + ", totalSamples: " + totalSamples + ", loadProfile: " + loadProfile);
             }
 
-            // clear down hot method maps
-            stackTraces.clear();
-            threadNames.clear();
-            threadIds.clear();
-            hotMethodCpuTime.clear();
-            threadCpuTime.clear();
-            totalCpuTime = 0;
+            // start a new call-tree for the next iteration
+            callTree.clear();
         }
 
     }
@@ -212,6 +245,10 @@ public class HotMethods {
         hotMethod.setStackTrace(null);
         hotMethod.setThreadId(0);
         hotMethod.setThreadName(null);
+        hotMethod.setLoadProfile(0.0);
+        hotMethod.setTotalLoadProfile(0.0);
+        hotMethod.setSelfTime(0);
+        hotMethod.setTotalTime(0);
 
     }
 
@@ -223,6 +260,20 @@ public class HotMethods {
         }
     }
 
+    /**
+     * Set the time represented by each sample, i.e. the interval between samples, used to convert sample counts to
+     * self and total times.
+     *
+     * @param samplePeriod the sample period in milliseconds
+     */
+    public void setSamplePeriod(long samplePeriod) {
+        this.samplePeriod = samplePeriod;
+    }
+
+    public long getSamplePeriod() {
+        return samplePeriod;
+    }
+
     public void addMBeanCpuTime(double agentCpuTime) {
 
         synchronized (lock) {
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+/**
+ * Hot method sampler which feeds JDK Flight Recorder jdk.ExecutionSample events into HotMethods.
+ * <p>
+ * The JFR event streaming API requires Java 14 or later, so the sampler is packaged in the multi-release jar under
+ * META-INF/versions/14. This is the fallback implementation loaded by older JVMs, which reports the sampler as not
+ * supported so that the ThreadMXBean based HotMethodTracker is used instead.
+ */
+public class JfrHotMethodSampler {
+
+    public JfrHotMethodSampler(HotMethods hotMethods, long samplePeriod, int maxDepth) {
+    }
+
+    /**
+     * @return true if JFR event streaming is available in this JVM
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Start streaming execution samples into HotMethods.
+     */
+    public void start() {
+        throw new UnsupportedOperationException("JFR event streaming requires Java 14 or later.");
+    }
+
+    /**
+     * Stop streaming execution samples.
+     */
+    public void close() {
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import java.util.Arrays;
+
+/**
+ * Minimal open-addressing map from positive long keys (e.g. thread IDs) to int indexes, used to look up per-thread
+ * columns without boxing. Entries are never removed individually - the map is cleared and rebuilt.
+ */
+class LongIndexMap {
+
+    private long[] keys;
+    private int[] indexes;
+    private int size;
+    private int mask;
+
+    LongIndexMap() {
+
+        allocate(64);
+    }
+
+    /**
+     * @return the index mapped to key or -1 if key is not mapped
+     */
+    int get(long key) {
+
+        int slot = hash(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return indexes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    void put(long key, int index) {
+
+        if (size >= keys.length >> 1) {
+            // keep the load factor at or below 0.5
+            long[] oldKeys = keys;
+            int[] oldIndexes = indexes;
+            allocate(keys.length << 1);
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    put(oldKeys[slot], oldIndexes[slot]);
+                }
+            }
+        }
+        int slot = hash(key);
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            size++;
+        }
+        keys[slot] = key;
+        indexes[slot] = index;
+    }
+
+    void clear() {
+
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    private int hash(long key) {
+
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+
+        this.keys = new long[capacity];
+        this.indexes = new int[capacity];
+        this.mask = capacity - 1;
+        this.size = 0;
+    }
+
+}
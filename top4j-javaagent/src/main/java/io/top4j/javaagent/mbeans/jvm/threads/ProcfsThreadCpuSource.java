@@ -0,0 +1,505 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import io.top4j.javaagent.config.Constants;
+
+import javax.management.MBeanServerConnection;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Linux thread CPU source which reads per-thread user and system CPU ticks from /proc/&lt;pid&gt;/task/&lt;tid&gt;/stat
+ * rather than making a ThreadMXBean call per thread.
+ * <p>
+ * Native thread IDs (TIDs) are mapped to Java thread IDs without stopping the JVM: HotSpot names each native thread after
+ * its Java thread, so an unmapped Java thread is matched to the task with the same (truncated) name, and where several
+ * tasks share a name, to the task whose CPU time agrees with ThreadMXBean.getThreadCpuTime(). The mapping is refreshed when
+ * unmapped threads are sampled, at most once every MAPPING_REFRESH_INTERVAL ms; threads which can't be mapped (yet) are
+ * sampled via ThreadMXBean in the meantime.
+ * <p>
+ * Tasks which don't belong to any Java thread returned by ThreadMXBean.getAllThreadIds() are JVM internal threads (e.g.
+ * GC, compiler and VM threads). These are reported via getInternalThreadIds() as -TID, so no internal thread ID scan is
+ * required. Note: a Java thread renamed by another thread after it started can only be matched by CPU time, so until
+ * it has used enough CPU to be told apart its task may also be reported as an internal thread.
+ * <p>
+ * The stat files of sampled tasks are held open between samples and re-read in place into a shared buffer.
+ * <p>
+ * Note: procfs reports CPU time in clock ticks (10ms), so this source trades resolution for a much cheaper sample.
+ */
+public class ProcfsThreadCpuSource implements ThreadCpuSource {
+
+    // USER_HZ - fixed at 100 on all mainstream Linux architectures
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+    private static final long NANOS_PER_CLOCK_TICK = 1000000000L / CLOCK_TICKS_PER_SECOND;
+    private static final long MAPPING_REFRESH_INTERVAL = 1000;
+    // the kernel truncates task names (comm) to 15 bytes
+    private static final int TASK_NAME_LENGTH = 15;
+    // a Java thread is only matched to a task by CPU time if the two agree to within a couple of clock ticks...
+    private static final long CPU_TIME_MATCH_TOLERANCE = 2 * NANOS_PER_CLOCK_TICK;
+    // ...and the thread has used enough CPU to be told apart from idle threads
+    private static final long CPU_TIME_MATCH_MINIMUM = 10 * NANOS_PER_CLOCK_TICK;
+    private static final Charset TASK_NAME_CHARSET = Charset.forName("ISO-8859-1");
+    private static final Charset THREAD_NAME_CHARSET = Charset.forName("UTF-8");
+
+    private final ThreadMXBean threadMXBean;
+    // the maximum number of task stat files held open between samples
+    private final int maxOpenStatFiles;
+    private final String taskDirectory;
+    private final long processId;
+    // all tasks of the process keyed by TID
+    private final Map<Long, Task> tasks = new HashMap<>();
+    // Java thread ID (or -TID for internal threads) to taskTable index
+    private final LongIndexMap taskIndex = new LongIndexMap();
+    private Task[] taskTable = new Task[0];
+    private long[] internalThreadIds = new long[0];
+    private long lastMappingTime;
+    private int openStatFiles;
+    private final ByteBuffer statBuffer = ByteBuffer.allocate(1024);
+    private long userTicks;
+    private long systemTicks;
+
+    private static final Logger LOGGER = Logger.getLogger(ProcfsThreadCpuSource.class.getName());
+
+    public ProcfsThreadCpuSource(ThreadMXBean threadMXBean, String pid, int maxOpenStatFiles) throws IOException {
+
+        this.threadMXBean = threadMXBean;
+        this.maxOpenStatFiles = maxOpenStatFiles;
+        this.taskDirectory = "/proc/" + pid + "/task/";
+        try {
+            this.processId = Long.parseLong(pid);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid process ID " + pid);
+        }
+        // build initial TID mapping
+        refreshTaskMapping();
+    }
+
+    /**
+     * Get the process ID of the JVM monitored via mbsc if its threads can be read via procfs, i.e. the JVM is running on
+     * this (Linux) host.
+     *
+     * @param mbsc the MBean server connection of the monitored JVM
+     * @return the process ID of the monitored JVM or null if procfs thread sampling is not supported
+     */
+    public static String getSupportedProcessId(MBeanServerConnection mbsc) {
+
+        try {
+            RuntimeMXBean runtimeMXBean = ManagementFactory.getPlatformMXBean(mbsc, RuntimeMXBean.class);
+            // RuntimeMXBean name is of the form pid@hostname
+            String[] name = runtimeMXBean.getName().split("@", 2);
+            String[] localName = ManagementFactory.getRuntimeMXBean().getName().split("@", 2);
+            if (name.length != 2 || localName.length != 2 || !name[1].equals(localName[1])) {
+                LOGGER.fine("Monitored JVM is not running on this host.");
+                return null;
+            }
+            File taskDirectory = new File("/proc/" + name[0] + "/task");
+            if (!taskDirectory.isDirectory() || !taskDirectory.canRead()) {
+                LOGGER.fine("Unable to read " + taskDirectory);
+                return null;
+            }
+            return name[0];
+        } catch (Exception e) {
+            LOGGER.fine("Unable to determine procfs thread sampling support due to: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void sampleThreadTimes(long[] threadIds, int count, long[] threadCpuTimes, long[] threadUserTimes, long[] systemTimes) {
+
+        if (System.currentTimeMillis() > lastMappingTime + MAPPING_REFRESH_INTERVAL && hasUnmappedThreads(threadIds, count)) {
+            // new threads have started since the last mapping refresh - refresh TID mapping
+            refreshTaskMapping();
+        }
+
+        for (int i = 0; i < count; i++) {
+            int index = taskIndex.get(threadIds[i]);
+            if (index >= 0 && readTaskStat(taskTable[index])) {
+                threadCpuTimes[i] = (userTicks + systemTicks) * NANOS_PER_CLOCK_TICK;
+                threadUserTimes[i] = userTicks * NANOS_PER_CLOCK_TICK;
+            } else if (index < 0 && threadIds[i] > 0) {
+                // thread not mapped to a TID (yet) - fall back to ThreadMXBean
+                threadCpuTimes[i] = threadMXBean.getThreadCpuTime(threadIds[i]);
+                threadUserTimes[i] = threadMXBean.getThreadUserTime(threadIds[i]);
+            } else {
+                // task has gone - thread died
+                threadCpuTimes[i] = -1;
+                threadUserTimes[i] = -1;
+            }
+            systemTimes[i] = System.nanoTime();
+        }
+    }
+
+    /**
+     * @return the IDs (-TID) of the JVM internal threads found at the last mapping refresh
+     */
+    @Override
+    public long[] getInternalThreadIds() {
+
+        if (System.currentTimeMillis() > lastMappingTime + MAPPING_REFRESH_INTERVAL) {
+            // pick up internal threads which have started since the last mapping refresh
+            refreshTaskMapping();
+        }
+        return internalThreadIds;
+    }
+
+    @Override
+    public String getInternalThreadName(long threadId) {
+
+        int index = taskIndex.get(threadId);
+        return index >= 0 ? taskTable[index].name : null;
+    }
+
+    @Override
+    public String getName() {
+        return Constants.THREAD_CPU_SOURCE_PROCFS;
+    }
+
+    private boolean hasUnmappedThreads(long[] threadIds, int count) {
+
+        for (int i = 0; i < count; i++) {
+            if (threadIds[i] > 0 && taskIndex.get(threadIds[i]) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rescan the task directory, match unmapped Java threads to tasks and rebuild the Java thread ID to task index.
+     */
+    private void refreshTaskMapping() {
+
+        this.lastMappingTime = System.currentTimeMillis();
+        String[] taskNames = new File(taskDirectory).list();
+        if (taskNames == null) {
+            LOGGER.warning("Unable to list " + taskDirectory);
+            return;
+        }
+        // release tasks claimed by Java threads which have since died (the TID may be re-used)
+        Set<Long> liveThreadIds = new HashSet<>();
+        for (long threadId : threadMXBean.getAllThreadIds()) {
+            liveThreadIds.add(threadId);
+        }
+        Set<Long> liveTids = new HashSet<>();
+        for (String taskName : taskNames) {
+            long tid;
+            try {
+                tid = Long.parseLong(taskName);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            liveTids.add(tid);
+            Task task = tasks.get(tid);
+            if (task == null) {
+                task = new Task(tid, taskDirectory + tid);
+                tasks.put(tid, task);
+            } else if (task.threadId != 0 && !liveThreadIds.contains(task.threadId)) {
+                task.threadId = 0;
+            }
+            if (task.threadId == 0) {
+                // (re-)read the names of unclaimed tasks - the TID may have been re-used or the thread renamed itself
+                task.name = readTaskName(task);
+            }
+        }
+        // drop tasks which have exited
+        Set<Long> mappedThreadIds = new HashSet<>();
+        for (Iterator<Task> iterator = tasks.values().iterator(); iterator.hasNext(); ) {
+            Task task = iterator.next();
+            if (!liveTids.contains(task.tid) || task.name == null) {
+                closeStatChannel(task);
+                iterator.remove();
+            } else if (task.threadId != 0) {
+                mappedThreadIds.add(task.threadId);
+            }
+        }
+        // match live Java threads which aren't mapped yet to unclaimed tasks
+        List<Long> unmappedThreadIds = new ArrayList<>();
+        for (Long threadId : liveThreadIds) {
+            if (!mappedThreadIds.contains(threadId)) {
+                unmappedThreadIds.add(threadId);
+            }
+        }
+        Set<String> unmatchedTaskNames = mapThreads(unmappedThreadIds);
+        // rebuild index - tasks which may belong to an unmatched Java thread are not reported as internal threads
+        taskIndex.clear();
+        List<Task> indexedTasks = new ArrayList<>();
+        List<Long> internalIds = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            if (task.threadId != 0) {
+                taskIndex.put(task.threadId, indexedTasks.size());
+            } else if (task.tid != processId && !unmatchedTaskNames.contains(task.name)) {
+                taskIndex.put(-task.tid, indexedTasks.size());
+                internalIds.add(-task.tid);
+            } else {
+                closeStatChannel(task);
+                continue;
+            }
+            indexedTasks.add(task);
+        }
+        this.taskTable = indexedTasks.toArray(new Task[indexedTasks.size()]);
+        long[] ids = new long[internalIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = internalIds.get(i);
+        }
+        this.internalThreadIds = ids;
+        LOGGER.fine("Mapped " + (taskTable.length - ids.length) + " Java threads and " + ids.length + " internal threads to native thread IDs.");
+    }
+
+    /**
+     * Match Java threads to unclaimed tasks by name, falling back to CPU time where names are ambiguous.
+     *
+     * @param threadIds the IDs of the Java threads to match
+     * @return the task names of the Java threads which could not be matched
+     */
+    private Set<String> mapThreads(List<Long> threadIds) {
+
+        Set<String> unmatchedTaskNames = new HashSet<>();
+        if (threadIds.isEmpty()) {
+            return unmatchedTaskNames;
+        }
+        // group unclaimed tasks by name
+        List<Task> unclaimedTasks = new ArrayList<>();
+        Map<String, List<Task>> tasksByName = new HashMap<>();
+        for (Task task : tasks.values()) {
+            if (task.threadId == 0 && task.tid != processId) {
+                unclaimedTasks.add(task);
+                List<Task> namedTasks = tasksByName.get(task.name);
+                if (namedTasks == null) {
+                    namedTasks = new ArrayList<>();
+                    tasksByName.put(task.name, namedTasks);
+                }
+                namedTasks.add(task);
+            }
+        }
+        // group Java threads by task name (no stack traces are requested, so no safepoint is required)
+        long[] ids = new long[threadIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = threadIds.get(i);
+        }
+        Map<String, List<Long>> threadsByName = new HashMap<>();
+        for (ThreadInfo threadInfo : threadMXBean.getThreadInfo(ids)) {
+            if (threadInfo != null) {
+                String taskName = toTaskName(threadInfo.getThreadName());
+                List<Long> namedThreads = threadsByName.get(taskName);
+                if (namedThreads == null) {
+                    namedThreads = new ArrayList<>();
+                    threadsByName.put(taskName, namedThreads);
+                }
+                namedThreads.add(threadInfo.getThreadId());
+            }
+        }
+        List<Long> renamedThreadIds = new ArrayList<>();
+        for (Map.Entry<String, List<Long>> entry : threadsByName.entrySet()) {
+            List<Task> candidates = tasksByName.get(entry.getKey());
+            List<Long> namedThreads = entry.getValue();
+            if (candidates == null) {
+                // the thread was renamed after it started
+                renamedThreadIds.addAll(namedThreads);
+            } else if (namedThreads.size() == 1 && candidates.size() == 1) {
+                claim(candidates.get(0), namedThreads.get(0), unclaimedTasks);
+            } else if (!matchByCpuTime(namedThreads, candidates, unclaimedTasks)) {
+                unmatchedTaskNames.add(entry.getKey());
+            }
+        }
+        if (!matchByCpuTime(renamedThreadIds, unclaimedTasks, unclaimedTasks)) {
+            // renamed threads could be behind any unclaimed task - they're retried on the next mapping refresh
+            LOGGER.fine("Unable to map " + renamedThreadIds.size() + " renamed Java threads to native thread IDs.");
+        }
+        return unmatchedTaskNames;
+    }
+
+    /**
+     * Match Java threads to candidate tasks by CPU time.
+     *
+     * @return true if all threads were matched
+     */
+    private boolean matchByCpuTime(List<Long> threadIds, List<Task> candidates, List<Task> unclaimedTasks) {
+
+        boolean allMatched = true;
+        for (Long threadId : threadIds) {
+            long threadCpuTime = threadMXBean.getThreadCpuTime(threadId);
+            Task match = null;
+            int matches = 0;
+            if (threadCpuTime >= CPU_TIME_MATCH_MINIMUM) {
+                for (Task candidate : candidates) {
+                    if (candidate.threadId == 0 && readTaskStat(candidate)
+                            && Math.abs((userTicks + systemTicks) * NANOS_PER_CLOCK_TICK - threadCpuTime) <= CPU_TIME_MATCH_TOLERANCE) {
+                        match = candidate;
+                        matches++;
+                    }
+                }
+            }
+            if (matches == 1) {
+                claim(match, threadId, unclaimedTasks);
+            } else {
+                allMatched = false;
+            }
+        }
+        return allMatched;
+    }
+
+    private void claim(Task task, long threadId, List<Task> unclaimedTasks) {
+
+        task.threadId = threadId;
+        unclaimedTasks.remove(task);
+    }
+
+    /**
+     * @return the task name (comm) the kernel holds for a thread named threadName
+     */
+    private static String toTaskName(String threadName) {
+
+        byte[] name = threadName.getBytes(THREAD_NAME_CHARSET);
+        return new String(name, 0, Math.min(name.length, TASK_NAME_LENGTH), TASK_NAME_CHARSET);
+    }
+
+    /**
+     * @return the name (comm) of task or null if the task has exited
+     */
+    private String readTaskName(Task task) {
+
+        try {
+            byte[] name = Files.readAllBytes(Paths.get(task.path, "comm"));
+            int length = name.length;
+            while (length > 0 && name[length - 1] == '\n') {
+                length--;
+            }
+            return new String(name, 0, length, TASK_NAME_CHARSET);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read the utime and stime fields from the task's /proc/&lt;pid&gt;/task/&lt;tid&gt;/stat file into userTicks and
+     * systemTicks. The stat file is kept open (up to maxOpenStatFiles) and re-read from the start on each sample.
+     *
+     * @param task the task to read
+     * @return true if the stat file was read successfully
+     */
+    private boolean readTaskStat(Task task) {
+
+        int length;
+        FileChannel channel = task.statChannel;
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(Paths.get(task.path, "stat"));
+                if (openStatFiles < maxOpenStatFiles) {
+                    task.statChannel = channel;
+                    openStatFiles++;
+                }
+            }
+            statBuffer.clear();
+            length = channel.read(statBuffer, 0);
+        } catch (IOException e) {
+            // task has exited
+            closeStatChannel(task);
+            return false;
+        } finally {
+            if (channel != null && channel != task.statChannel) {
+                // over the open stat file budget - don't hold the stat file open
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    LOGGER.fine("Unable to close " + task.path + "/stat due to: " + e.getMessage());
+                }
+            }
+        }
+        byte[] stat = statBuffer.array();
+        // the comm field may contain spaces and brackets - the remaining fields start after the last ')'
+        int pos = length - 1;
+        while (pos >= 0 && stat[pos] != ')') {
+            pos--;
+        }
+        if (pos < 0) {
+            return false;
+        }
+        // utime and stime are the 12th and 13th fields after comm (fields 14 and 15 of the stat file)
+        long utime = -1;
+        int field = -1;
+        long value = 0;
+        boolean inField = false;
+        for (int i = pos + 1; i <= length; i++) {
+            byte b = i < length ? stat[i] : (byte) ' ';
+            if (b == ' ' || b == '\n') {
+                if (inField) {
+                    if (field == 11) {
+                        utime = value;
+                    } else if (field == 12) {
+                        this.userTicks = utime;
+                        this.systemTicks = value;
+                        return true;
+                    }
+                    inField = false;
+                }
+                continue;
+            }
+            if (!inField) {
+                inField = true;
+                field++;
+                value = 0;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return false;
+    }
+
+    private void closeStatChannel(Task task) {
+
+        if (task.statChannel != null) {
+            try {
+                task.statChannel.close();
+            } catch (IOException e) {
+                LOGGER.fine("Unable to close " + task.path + "/stat due to: " + e.getMessage());
+            }
+            task.statChannel = null;
+            openStatFiles--;
+        }
+    }
+
+    /**
+     * A native thread (task) of the monitored JVM.
+     */
+    private static final class Task {
+
+        private final long tid;
+        private final String path;
+        private String name;
+        // the Java thread ID the task is mapped to (0 = not mapped)
+        private long threadId;
+        private FileChannel statChannel;
+
+        private Task(long tid, String path) {
+            this.tid = tid;
+            this.path = path;
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import io.top4j.javaagent.utils.StackTraceStore;
+import io.top4j.javaagent.utils.ThreadHelper;
+
+/**
+ * Caches the interned stack trace ID of a thread MBean's thread between thread usage updates, so the stack trace is only
+ * fetched via the ThreadMXBean once per update however many times it's requested, e.g. by the stats logger and the CLI.
+ * The cache is reset whenever the MBean is assigned a thread and is refreshed if the stack trace has since been evicted
+ * from the stack trace store.
+ */
+class StackTraceIdCache {
+
+    private final ThreadHelper threadHelper;
+    private final StackTraceStore stackTraceStore = StackTraceStore.getSharedInstance();
+    private long threadId;
+    private int maxDepth = -1;
+    private int stackTraceId = StackTraceStore.NO_STACK_TRACE_ID;
+
+    StackTraceIdCache(ThreadHelper threadHelper) {
+
+        this.threadHelper = threadHelper;
+    }
+
+    /**
+     * Forget the cached stack trace ID, e.g. when the MBean is updated.
+     */
+    synchronized void reset() {
+
+        this.maxDepth = -1;
+        this.stackTraceId = StackTraceStore.NO_STACK_TRACE_ID;
+    }
+
+    /**
+     * @return the cached stack trace ID for threadId, capturing and interning the thread's stack trace if it isn't cached
+     */
+    synchronized int getStackTraceId(long threadId, int maxDepth) {
+
+        if (threadId != this.threadId || maxDepth != this.maxDepth || !stackTraceStore.contains(stackTraceId)) {
+            this.stackTraceId = threadHelper.getStackTraceId(threadId, maxDepth);
+            this.threadId = threadId;
+            this.maxDepth = maxDepth;
+        }
+        return stackTraceId;
+    }
+
+    /**
+     * @return the cached stack trace for threadId as a string, falling back to fetching it if it can't be interned
+     */
+    synchronized String getStackTrace(long threadId, int maxDepth) {
+
+        int stackTraceId = getStackTraceId(threadId, maxDepth);
+        StackTraceElement[] stackTraceElements = null;
+        if (stackTraceId != StackTraceStore.NO_STACK_TRACE_ID) {
+            stackTraceElements = stackTraceStore.getStackTrace(stackTraceId);
+        }
+        if (stackTraceElements == null) {
+            // not interned - fetch the stack trace directly
+            return threadHelper.getStackTrace(threadId, maxDepth);
+        }
+        return threadHelper.getStackTraceAsString(stackTraceElements);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+/**
+ * Source of per-thread CPU and user times used by ThreadUsage.
+ */
+public interface ThreadCpuSource {
+
+    /**
+     * Sample CPU and user times for the first count threadIds.
+     *
+     * @param threadIds       the Java thread IDs to sample - entries beyond count are padding and are ignored
+     * @param count           the number of thread IDs to sample
+     * @param threadCpuTimes  populated with the thread CPU time in nanoseconds for each thread ID (-1 if not available)
+     * @param threadUserTimes populated with the thread user time in nanoseconds for each thread ID (-1 if not available)
+     * @param systemTimes     populated with the system time (in nanos) at which each thread was sampled
+     */
+    void sampleThreadTimes(long[] threadIds, int count, long[] threadCpuTimes, long[] threadUserTimes, long[] systemTimes);
+
+    /**
+     * Get the IDs of JVM internal threads (e.g. compiler threads) which are not returned by ThreadMXBean.getAllThreadIds().
+     * IDs &lt; 0 identify native threads which have no Java thread ID (e.g. GC threads) - these can only be sampled via
+     * this source and are named via getInternalThreadName().
+     *
+     * @return the internal thread IDs known to this source (empty if none)
+     */
+    long[] getInternalThreadIds();
+
+    /**
+     * @param threadId an internal thread ID &lt; 0 returned by getInternalThreadIds()
+     * @return the name of the internal thread or null if not known to this source
+     */
+    String getInternalThreadName(long threadId);
+
+    /**
+     * @return the name of this thread CPU source
+     */
+    String getName();
+
+}
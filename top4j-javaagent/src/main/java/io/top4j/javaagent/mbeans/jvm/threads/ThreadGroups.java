@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import java.lang.Thread.State;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Aggregates thread usage by thread group, e.g. thread pool, and publishes the top thread groups by CPU usage to the
+ * TopThreadGroup MBeans.
+ * <p>
+ * Threads are grouped by normalised thread name. By default the trailing number is replaced by "*", so pool-3-thread-1 and
+ * pool-3-thread-2 both belong to pool-3-thread-*. Custom grouping rules can be provided as a semicolon separated list of
+ * regex=group name pairs, where the regex must match the whole thread name and the group name may refer to regex capturing
+ * groups, e.g. http-nio-(\d+)-exec-\d+=http-nio-$1-exec. The first matching rule wins.
+ * <p>
+ * The CPU and blocked time consumed by each group between updates are rolled into a sliding window of the last windowSize
+ * updates, so the rolling totals survive the threads within a pool being replaced. A group is dropped once it has no live
+ * threads and nothing left in its window.
+ */
+public class ThreadGroups {
+
+    // bound the thread name to group name cache in case thread names are unique, e.g. contain a request ID
+    private static final int MAX_GROUP_NAME_CACHE_SIZE = 10000;
+    private static final Pattern TRAILING_NUMBER_PATTERN = Pattern.compile("\\d+$");
+
+    private final Map<Integer, TopThreadGroup> topThreadGroupsMap;
+    private final int topThreadGroupCount;
+    private final int windowSize;
+    private int windowIndex;
+    private final List<Pattern> rulePatterns = new ArrayList<>();
+    private final List<String> ruleGroupNames = new ArrayList<>();
+    private final Map<String, String> groupNameCache = new HashMap<>();
+    private final Map<String, GroupUsage> groups = new HashMap<>();
+    private final List<GroupUsage> groupList = new ArrayList<>();
+    private final TopKSelector groupSelector = new TopKSelector(0);
+
+    private static final Logger LOGGER = Logger.getLogger(ThreadGroups.class.getName());
+
+    public ThreadGroups(Map<Integer, TopThreadGroup> topThreadGroupsMap, String rules, int windowSize) {
+
+        this.topThreadGroupsMap = topThreadGroupsMap;
+        this.topThreadGroupCount = topThreadGroupsMap.size();
+        this.windowSize = Math.max(1, windowSize);
+        parseRules(rules);
+    }
+
+    /**
+     * Aggregate the latest thread usage held within threadHistory by thread group and update the TopThreadGroup MBeans.
+     * <p>
+     * Thread counts, state counts and CPU usage are based on the last known stats for every thread in threadHistory (threads
+     * which weren't sampled this time round, e.g. when the thread usage cache is in use, contribute their previous values).
+     * The rolling CPU and blocked time totals are only incremented by the threads sampled during this update, and cover the
+     * last windowSize updates.
+     *
+     * @param threadHistory the thread history table
+     * @param sampledSlots  the threadHistory slots sampled during this update
+     * @param sampledCount  the number of sampled slots
+     */
+    synchronized void update(ThreadTable threadHistory, int[] sampledSlots, int sampledCount) {
+
+        // reset the per-interval group stats
+        for (GroupUsage group : groups.values()) {
+            group.reset();
+        }
+
+        // aggregate last known thread stats by thread group
+        for (int slot = 0; slot < threadHistory.capacity(); slot++) {
+            if (!threadHistory.isOccupied(slot)) {
+                continue;
+            }
+            String threadName = threadHistory.getName(slot);
+            State threadState = threadHistory.getState(slot);
+            if (threadName == null || threadState == null || threadState == State.TERMINATED) {
+                // thread not sampled yet or has died
+                continue;
+            }
+            GroupUsage group = getGroup(threadName);
+            group.threadCount++;
+            switch (threadState) {
+                case RUNNABLE:
+                    group.runnableThreadCount++;
+                    break;
+                case BLOCKED:
+                    group.blockedThreadCount++;
+                    break;
+                case WAITING:
+                    group.waitingThreadCount++;
+                    break;
+                case TIMED_WAITING:
+                    group.timedWaitingThreadCount++;
+                    break;
+                default:
+                    break;
+            }
+            group.cpuUsage += threadHistory.getCpuUsage(slot);
+            group.blockedTime += threadHistory.getIntervalBlockedTime(slot);
+        }
+
+        // add the CPU and blocked time consumed by the sampled threads to the rolling group totals
+        for (int i = 0; i < sampledCount; i++) {
+            int slot = sampledSlots[i];
+            String threadName = threadHistory.getName(slot);
+            if (threadName == null) {
+                continue;
+            }
+            GroupUsage group = getGroup(threadName);
+            // CPU usage is a percentage of the thread's sample interval (in nanos)
+            group.intervalCpuTime += (long) (threadHistory.getCpuUsage(slot) * threadHistory.getInterval(slot) / 100);
+            group.intervalBlockedTime += threadHistory.getIntervalBlockedTime(slot);
+        }
+
+        // roll the interval totals into the window, drop groups with no threads and an empty window and rank the remainder by CPU usage
+        groupList.clear();
+        Iterator<GroupUsage> iterator = groups.values().iterator();
+        while (iterator.hasNext()) {
+            GroupUsage group = iterator.next();
+            group.roll(windowIndex);
+            if (group.threadCount == 0 && group.windowCpuTime == 0 && group.windowBlockedTime == 0) {
+                iterator.remove();
+            } else {
+                groupList.add(group);
+            }
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+        groupSelector.reset(topThreadGroupCount);
+        for (int i = 0; i < groupList.size(); i++) {
+            // rank by CPU usage to 3 decimal places
+            groupSelector.offer((long) (groupList.get(i).cpuUsage * 1000), i);
+        }
+        groupSelector.sort();
+
+        // update TopThreadGroup MBeans
+        for (int rank = 1; rank <= topThreadGroupCount; rank++) {
+            TopThreadGroup topThreadGroupMBean = topThreadGroupsMap.get(rank);
+            if (rank <= groupSelector.size()) {
+                GroupUsage group = groupList.get((int) groupSelector.getValue(rank - 1));
+                topThreadGroupMBean.setGroupName(group.name);
+                topThreadGroupMBean.setThreadCount(group.threadCount);
+                topThreadGroupMBean.setRunnableThreadCount(group.runnableThreadCount);
+                topThreadGroupMBean.setBlockedThreadCount(group.blockedThreadCount);
+                topThreadGroupMBean.setWaitingThreadCount(group.waitingThreadCount);
+                topThreadGroupMBean.setTimedWaitingThreadCount(group.timedWaitingThreadCount);
+                topThreadGroupMBean.setCpuUsage(group.cpuUsage);
+                topThreadGroupMBean.setBlockedTime(group.blockedTime);
+                topThreadGroupMBean.setRollingCpuTime(group.windowCpuTime / 1000000);
+                topThreadGroupMBean.setRollingBlockedTime(group.windowBlockedTime);
+                LOGGER.fine("groupCounter: " + rank + ", groupCpuUsage: " + group.cpuUsage + ", groupName: " + group.name);
+            } else {
+                // fewer thread groups than ranks - clear this rank
+                topThreadGroupMBean.setGroupName(null);
+                topThreadGroupMBean.setThreadCount(0);
+                topThreadGroupMBean.setRunnableThreadCount(0);
+                topThreadGroupMBean.setBlockedThreadCount(0);
+                topThreadGroupMBean.setWaitingThreadCount(0);
+                topThreadGroupMBean.setTimedWaitingThreadCount(0);
+                topThreadGroupMBean.setCpuUsage(0.0);
+                topThreadGroupMBean.setBlockedTime(0);
+                topThreadGroupMBean.setRollingCpuTime(0);
+                topThreadGroupMBean.setRollingBlockedTime(0);
+            }
+        }
+    }
+
+    /**
+     * Get the thread group name for threadName, i.e. the group name of the first matching rule or, if no rule matches,
+     * the thread name with any trailing number replaced by "*".
+     *
+     * @param threadName the thread name
+     * @return the thread group name
+     */
+    public String getGroupName(String threadName) {
+
+        for (int i = 0; i < rulePatterns.size(); i++) {
+            Matcher matcher = rulePatterns.get(i).matcher(threadName);
+            if (matcher.matches()) {
+                try {
+                    return matcher.replaceFirst(ruleGroupNames.get(i));
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    // group name refers to a capturing group which doesn't exist - use the group name as is
+                    return ruleGroupNames.get(i);
+                }
+            }
+        }
+        return TRAILING_NUMBER_PATTERN.matcher(threadName).replaceFirst("*");
+    }
+
+    private GroupUsage getGroup(String threadName) {
+
+        String groupName = groupNameCache.get(threadName);
+        if (groupName == null) {
+            if (groupNameCache.size() >= MAX_GROUP_NAME_CACHE_SIZE) {
+                groupNameCache.clear();
+            }
+            groupName = getGroupName(threadName);
+            groupNameCache.put(threadName, groupName);
+        }
+        GroupUsage group = groups.get(groupName);
+        if (group == null) {
+            group = new GroupUsage(groupName, windowSize);
+            groups.put(groupName, group);
+        }
+        return group;
+    }
+
+    private void parseRules(String rules) {
+
+        if (rules == null || rules.trim().isEmpty()) {
+            return;
+        }
+        for (String rule : rules.split(";")) {
+            // split on the last "=" as the regex may contain "=", e.g. a lookahead
+            int separator = rule.lastIndexOf('=');
+            if (separator <= 0) {
+                LOGGER.warning("Ignoring invalid thread group rule: " + rule);
+                continue;
+            }
+            try {
+                rulePatterns.add(Pattern.compile(rule.substring(0, separator).trim()));
+                ruleGroupNames.add(rule.substring(separator + 1).trim());
+            } catch (PatternSyntaxException e) {
+                LOGGER.warning("Ignoring invalid thread group rule: " + rule + " due to: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Per thread group usage accumulator.
+     */
+    private static class GroupUsage {
+
+        private final String name;
+        private long threadCount;
+        private long runnableThreadCount;
+        private long blockedThreadCount;
+        private long waitingThreadCount;
+        private long timedWaitingThreadCount;
+        private double cpuUsage;
+        private long blockedTime;
+        // CPU time (in nanos) and blocked time (in ms) consumed since the last update
+        private long intervalCpuTime;
+        private long intervalBlockedTime;
+        // per update CPU and blocked times within the sliding window
+        private final long[] cpuTimes;
+        private final long[] blockedTimes;
+        private long windowCpuTime;
+        private long windowBlockedTime;
+
+        GroupUsage(String name, int windowSize) {
+            this.name = name;
+            this.cpuTimes = new long[windowSize];
+            this.blockedTimes = new long[windowSize];
+        }
+
+        void roll(int windowIndex) {
+
+            // replace the oldest window slot with the interval totals
+            windowCpuTime += intervalCpuTime - cpuTimes[windowIndex];
+            windowBlockedTime += intervalBlockedTime - blockedTimes[windowIndex];
+            cpuTimes[windowIndex] = intervalCpuTime;
+            blockedTimes[windowIndex] = intervalBlockedTime;
+            intervalCpuTime = 0;
+            intervalBlockedTime = 0;
+        }
+
+        void reset() {
+
+            threadCount = 0;
+            runnableThreadCount = 0;
+            blockedThreadCount = 0;
+            waitingThreadCount = 0;
+            timedWaitingThreadCount = 0;
+            cpuUsage = 0.0;
+            blockedTime = 0;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import javax.management.MBeanServerConnection;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Thread CPU source backed by the JMX ThreadMXBean - available on all platforms.
+ */
+public class ThreadMXBeanCpuSource implements ThreadCpuSource {
+
+    private final ThreadMXBean threadMXBean;
+    private com.sun.management.ThreadMXBean sunThreadMXBean;
+    private boolean batchedThreadSamplingEnabled;
+    private final long[] internalThreadIds;
+
+    private static final Logger LOGGER = Logger.getLogger(ThreadMXBeanCpuSource.class.getName());
+
+    public ThreadMXBeanCpuSource(MBeanServerConnection mbsc, ThreadMXBean threadMXBean, int internalThreadScanLimit) {
+
+        this.threadMXBean = threadMXBean;
+        // use the com.sun.management.ThreadMXBean array based CPU time operations where available
+        initBatchedThreadSampling(mbsc);
+        this.internalThreadIds = scanInternalThreadIds(internalThreadScanLimit);
+    }
+
+    /**
+     * Sample CPU and user times for threadIds. Where the com.sun.management.ThreadMXBean array based operations are
+     * available the CPU and user times for all threads are retrieved via two JMX calls, otherwise each thread is sampled individually.
+     */
+    @Override
+    public void sampleThreadTimes(long[] threadIds, int count, long[] threadCpuTimes, long[] threadUserTimes, long[] systemTimes) {
+
+        if (batchedThreadSamplingEnabled) {
+            try {
+                long[] cpuTimes = sunThreadMXBean.getThreadCpuTime(threadIds);
+                long[] userTimes = sunThreadMXBean.getThreadUserTime(threadIds);
+                final long systemTime = System.nanoTime();
+                System.arraycopy(cpuTimes, 0, threadCpuTimes, 0, count);
+                System.arraycopy(userTimes, 0, threadUserTimes, 0, count);
+                Arrays.fill(systemTimes, 0, count, systemTime);
+                return;
+            } catch (RuntimeException e) {
+                // the target JVM doesn't support the array based operations - fall back to per thread sampling from now on
+                LOGGER.warning("Batched thread sampling not supported by this JVM due to: " + e.getMessage() + " - falling back to per thread sampling.");
+                this.batchedThreadSamplingEnabled = false;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            threadCpuTimes[i] = threadMXBean.getThreadCpuTime(threadIds[i]);
+            threadUserTimes[i] = threadMXBean.getThreadUserTime(threadIds[i]);
+            systemTimes[i] = System.nanoTime();
+        }
+    }
+
+    @Override
+    public long[] getInternalThreadIds() {
+        return internalThreadIds;
+    }
+
+    @Override
+    public String getInternalThreadName(long threadId) {
+        // all internal threads found by the internal thread ID scan are Java threads named via ThreadMXBean
+        return null;
+    }
+
+    @Override
+    public String getName() {
+        return "jmx";
+    }
+
+    private void initBatchedThreadSampling(MBeanServerConnection mbsc) {
+
+        try {
+            this.sunThreadMXBean = ManagementFactory.getPlatformMXBean(mbsc, com.sun.management.ThreadMXBean.class);
+            this.batchedThreadSamplingEnabled = true;
+        } catch (IllegalArgumentException | IOException e) {
+            LOGGER.fine("com.sun.management.ThreadMXBean not available - using per thread sampling.");
+            this.batchedThreadSamplingEnabled = false;
+        }
+    }
+
+    private long[] scanInternalThreadIds(int internalThreadScanLimit) {
+        // if internalThreadScanLimit>0, check for additional system threads which are known to ThreadMXBean
+        // but are not returned by ThreadMXBean.getAllThreadIds. We only do this once.
+        Set<Long> seen = new HashSet<>();
+        for (long id : threadMXBean.getAllThreadIds()) {
+            seen.add(id);  // record normal threads
+        }
+        List<Long> internalIds = new ArrayList<Long>();
+        // now scan for unseen ids in range [1,internalThreadScanLimit] inclusive.
+        for (long id = 1; id <= internalThreadScanLimit; id++) {
+            if (seen.contains(id))
+                continue;
+            if (threadMXBean.getThreadInfo(id) != null)
+                internalIds.add(id);
+        }
+        long[] ids = new long[internalIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = internalIds.get(i);
+        }
+        return ids;
+    }
+
+}
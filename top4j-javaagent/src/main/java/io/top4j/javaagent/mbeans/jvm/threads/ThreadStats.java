@@ -74,6 +74,62 @@ public class ThreadStats implements ThreadStatsMXBean {
 
     }
 
+    /**
+     * Enable top allocator tracking.
+     * @param topAllocatorsMap the TopAllocator MBeans keyed by rank
+     */
+    public void initTopAllocatorTracker(Map<Integer, TopAllocator> topAllocatorsMap) {
+
+        LOGGER.fine("Initialising Thread Stats top allocator tracking....");
+
+        // enable per-thread allocation rate tracking
+        this.threadUsage.initTopAllocatorTracker(topAllocatorsMap);
+
+    }
+
+    /**
+     * Enable waiting thread tracking.
+     * @param waitingThreadsMap the WaitingThread MBeans keyed by rank
+     */
+    public void initWaitingThreadTracker(Map<Integer, WaitingThread> waitingThreadsMap) {
+
+        LOGGER.fine("Initialising Thread Stats waiting thread tracking....");
+
+        // enable waiting thread tracking
+        this.threadUsage.initWaitingThreadTracker(waitingThreadsMap);
+
+    }
+
+    /**
+     * Enable thread group aggregation.
+     * @param threadGroups the thread group aggregator
+     */
+    public void initThreadGroupTracker(ThreadGroups threadGroups) {
+
+        LOGGER.fine("Initialising Thread Stats thread group aggregation....");
+
+        // enable thread group aggregation
+        this.threadUsage.initThreadGroupTracker(threadGroups);
+
+    }
+
+    /**
+     * Enable hot lock tracking.
+     * @param hotLocks the hot lock aggregator
+     */
+    public void initHotLockTracker(HotLocks hotLocks) {
+
+        LOGGER.fine("Initialising Thread Stats hot lock tracking....");
+
+        // enable hot lock tracking
+        this.threadUsage.initHotLockTracker(hotLocks);
+
+    }
+
+    public ThreadUsage getThreadUsage() {
+        return threadUsage;
+    }
+
 
     /**
      * Update Thread stats.
@@ -206,6 +262,78 @@ public class ThreadStats implements ThreadStatsMXBean {
         this.threadUsage.setTimedWaitingThreadCount(timedWaitingThreadCount);
     }
 
+    @Override
+    public double getThreadCacheHitRatio() {
+        return this.threadUsage.getThreadCacheHitRatio();
+    }
+
+    @Override
+    public long getThreadCacheMissWindow() {
+        return this.threadUsage.getThreadCacheMissWindow();
+    }
+
+    @Override
+    public long getSampledThreadCount() {
+        return this.threadUsage.getSampledThreadCount();
+    }
+
+    @Override
+    public double getCpuUsageMarginOfError() {
+        return this.threadUsage.getCpuUsageMarginOfError();
+    }
+
+    @Override
+    public double getRunnableThreadCountMarginOfError() {
+        return this.threadUsage.getRunnableThreadCountMarginOfError();
+    }
+
+    @Override
+    public double getBlockedThreadCountMarginOfError() {
+        return this.threadUsage.getBlockedThreadCountMarginOfError();
+    }
+
+    @Override
+    public double getWaitingThreadCountMarginOfError() {
+        return this.threadUsage.getWaitingThreadCountMarginOfError();
+    }
+
+    @Override
+    public double getTimedWaitingThreadCountMarginOfError() {
+        return this.threadUsage.getTimedWaitingThreadCountMarginOfError();
+    }
+
+    @Override
+    public boolean isContentionMonitoringActive() {
+        return this.threadUsage.isContentionMonitoringActive();
+    }
+
+    @Override
+    public void setTopThreadRanking(String topThreadRanking) {
+        this.threadUsage.setTopThreadRanking(topThreadRanking);
+    }
+
+    @Override
+    public String getTopThreadRanking() {
+        return this.threadUsage.getTopThreadRanking();
+    }
+
+    @Override
+    public void setHotMethodRanking(String hotMethodRanking) {
+        if (hotMethodProfilingEnabled) {
+            this.threadUsage.getHotMethods().setHotMethodRanking(hotMethodRanking);
+        }
+    }
+
+    @Override
+    public String getHotMethodRanking() {
+        return hotMethodProfilingEnabled ? this.threadUsage.getHotMethods().getHotMethodRanking() : null;
+    }
+
+    @Override
+    public String dumpCollapsedStacks() {
+        return hotMethodProfilingEnabled ? this.threadUsage.getHotMethods().getCollapsedStacks() : null;
+    }
+
     @Override
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
@@ -150,4 +150,106 @@ public interface ThreadStatsMXBean extends StatsMXBean {
      */
     long getTimedWaitingThreadCount();
 
+    /**
+     * Returns the thread usage cache hit ratio (&lt;0 if not available).
+     * <p>
+     * The hit ratio is the CPU time weighted share of the top threads which were already present in the thread usage cache
+     * when the cache was last refreshed, i.e. a value of 1.0 means the cache held every hot thread.
+     * @return the thread cache hit ratio
+     */
+    double getThreadCacheHitRatio();
+
+    /**
+     * Returns the thread usage cache miss window in milliseconds (&lt;0 if not available).
+     * <p>
+     * The miss window is the time between the previous thread cache refresh and the refresh which most recently found a
+     * top thread missing from the cache, i.e. an upper bound on how long the thread's usage was hidden by the cache (the
+     * thread may have turned hot at any point during the window).
+     * @return the thread cache miss window
+     */
+    long getThreadCacheMissWindow();
+
+    /**
+     * Returns the number of threads sampled during the last iteration.
+     * <p>
+     * This will be less than the thread count when the thread usage cache or thread usage sampling is enabled.
+     * @return the sampled thread count
+     */
+    long getSampledThreadCount();
+
+    /**
+     * Returns the 95% margin of error of the CPU usage when estimated via thread usage sampling (0 if the CPU usage is exact).
+     * @return the CPU usage margin of error
+     */
+    double getCpuUsageMarginOfError();
+
+    /**
+     * Returns the 95% margin of error of the runnable thread count when estimated via thread usage sampling (0 if the count is exact).
+     * @return the RUNNABLE thread count margin of error
+     */
+    double getRunnableThreadCountMarginOfError();
+
+    /**
+     * Returns the 95% margin of error of the blocked thread count when estimated via thread usage sampling (0 if the count is exact).
+     * @return the BLOCKED thread count margin of error
+     */
+    double getBlockedThreadCountMarginOfError();
+
+    /**
+     * Returns the 95% margin of error of the waiting thread count when estimated via thread usage sampling (0 if the count is exact).
+     * @return the WAITING thread count margin of error
+     */
+    double getWaitingThreadCountMarginOfError();
+
+    /**
+     * Returns the 95% margin of error of the timed waiting thread count when estimated via thread usage sampling (0 if the count is exact).
+     * @return the TIMED_WAITING thread count margin of error
+     */
+    double getTimedWaitingThreadCountMarginOfError();
+
+    /**
+     * Returns true if thread contention monitoring is currently enabled.
+     * <p>
+     * In adaptive mode thread contention monitoring is only enabled while threads are contended, i.e. the BLOCKED thread
+     * count has reached the configured threshold - blocked and waited times are estimated from the sampled thread states otherwise.
+     * @return true if thread contention monitoring is active
+     */
+    boolean isContentionMonitoringActive();
+
+    /**
+     * Sets the metric used to rank the TopThread MBeans: interval (CPU usage during the last iteration), 1m, 5m or 15m
+     * (CPU usage exponentially weighted moving averages).
+     * @param topThreadRanking the top thread ranking metric
+     */
+    void setTopThreadRanking(String topThreadRanking);
+
+    /**
+     * Returns the metric used to rank the TopThread MBeans: interval (CPU usage during the last iteration), 1m, 5m or 15m
+     * (CPU usage exponentially weighted moving averages).
+     * @return the top thread ranking metric
+     */
+    String getTopThreadRanking();
+
+    /**
+     * Sets the metric used to rank the HotMethod MBeans: self (time spent executing the method itself) or total (time spent
+     * executing the method or its callees). Ignored if hot method profiling is disabled.
+     * @param hotMethodRanking the hot method ranking metric
+     */
+    void setHotMethodRanking(String hotMethodRanking);
+
+    /**
+     * Returns the metric used to rank the HotMethod MBeans: self (time spent executing the method itself) or total (time spent
+     * executing the method or its callees), or null if hot method profiling is disabled.
+     * @return the hot method ranking metric
+     */
+    String getHotMethodRanking();
+
+    /**
+     * Dumps the hot method samples of the current profiling window in the collapsed stack format, i.e. one
+     * "frame;frame;frame count" line per call path, which can be rendered as a flame graph. The profiling window spans
+     * hot.method.flame.graph.window.minutes, whether or not flame graph logging is enabled.
+     * @return the collapsed stacks of the current profiling window or null if hot method profiling is disabled
+     */
+    String dumpCollapsedStacks();
+
 }
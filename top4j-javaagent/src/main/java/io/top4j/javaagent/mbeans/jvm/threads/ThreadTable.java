@@ -0,0 +1,565 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import java.lang.Thread.State;
+
+/**
+ * Thread history table keyed by thread ID.
+ * <p>
+ * The table uses open addressing (linear probing) over a structure of parallel primitive arrays, one array per column,
+ * so that tracking a thread costs no per-thread objects and looking a thread up costs no boxing. Each thread occupies a
+ * slot; slots are stable until the next {@link #sweep()} or table resize.
+ * <p>
+ * Liveness is tracked mark-and-sweep style: call {@link #unmarkAll()}, {@link #mark(int)} (or {@link #insert(long, long)})
+ * each live thread, then {@link #sweep()} to remove the threads which were not marked.
+ */
+public class ThreadTable {
+
+    // thread IDs are always positive so 0 is used to flag an empty slot
+    private static final long EMPTY = 0;
+    private static final int MIN_CAPACITY = 64;
+    // the number of recent CPU usage samples kept per thread
+    public static final int CPU_USAGE_HISTORY_SIZE = 16;
+    // CPU usage load average windows in nanos
+    private static final double ONE_MINUTE = 60e9;
+    private static final double FIVE_MINUTES = 300e9;
+    private static final double FIFTEEN_MINUTES = 900e9;
+
+    private long[] ids;
+    private String[] names;
+    private State[] states;
+    private boolean[] marked;
+    private long[] interval;
+    private long[] startTime;
+    private long[] startCpuTime;
+    private long[] startUserTime;
+    private long[] endTime;
+    private long[] endCpuTime;
+    private long[] endUserTime;
+    private long[] lastBlockedTime;
+    private long[] intervalBlockedTime;
+    private long[] lastWaitedTime;
+    private long[] intervalWaitedTime;
+    private double[] cpuUsage;
+    private double[] userCpuUsage;
+    private long[] lastAllocatedBytes;
+    private long[] allocationRate;
+    private float[] cpuUsageHistory;
+    private int[] cpuUsageHistoryCount;
+    private double[] cpuUsage1m;
+    private double[] cpuUsage5m;
+    private double[] cpuUsage15m;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    public ThreadTable() {
+
+        this(MIN_CAPACITY);
+    }
+
+    public ThreadTable(int expectedSize) {
+
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Find the slot occupied by thread ID id.
+     *
+     * @param id the thread ID
+     * @return the slot occupied by the thread or -1 if the thread is not present
+     */
+    public int indexOf(long id) {
+
+        int slot = hash(id);
+        while (ids[slot] != EMPTY) {
+            if (ids[slot] == id) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Insert thread ID id (if not already present) and mark it live.
+     *
+     * @param id        the thread ID
+     * @param startTime the start time to initialise a new thread's interval from
+     * @return the slot occupied by the thread
+     */
+    public int insert(long id, long startTime) {
+
+        int slot = indexOf(id);
+        if (slot >= 0) {
+            marked[slot] = true;
+            return slot;
+        }
+        if (size >= resizeThreshold) {
+            resize(ids.length << 1);
+        }
+        slot = hash(id);
+        while (ids[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        clearSlot(slot);
+        ids[slot] = id;
+        marked[slot] = true;
+        this.startTime[slot] = startTime;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Clear the liveness mark on all threads.
+     */
+    public void unmarkAll() {
+
+        for (int slot = 0; slot < marked.length; slot++) {
+            marked[slot] = false;
+        }
+    }
+
+    public void mark(int slot) {
+        marked[slot] = true;
+    }
+
+    public boolean isMarked(int slot) {
+        return marked[slot];
+    }
+
+    /**
+     * Remove all threads which have not been marked live since the last call to {@link #unmarkAll()}.
+     *
+     * @return the number of threads removed
+     */
+    public int sweep() {
+
+        // start the walk just after an empty slot (the load factor guarantees there is one) so that no probe sequence
+        // wraps past the start - backward shift deletion then only ever moves entries into slots yet to be visited
+        int start = 0;
+        while (ids[start] != EMPTY) {
+            start++;
+        }
+        int removed = 0;
+        for (int step = 1; step <= ids.length; step++) {
+            int slot = (start + step) & mask;
+            // removal shifts the next entry of the probe sequence into this slot, so re-check it until it settles
+            while (ids[slot] != EMPTY && !marked[slot]) {
+                removeAt(slot);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the number of slots in the table - iterate slots 0 to capacity() - 1 and skip slots that are not occupied
+     */
+    public int capacity() {
+        return ids.length;
+    }
+
+    public boolean isOccupied(int slot) {
+        return ids[slot] != EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getId(int slot) {
+        return ids[slot];
+    }
+
+    public String getName(int slot) {
+        return names[slot];
+    }
+
+    public void setName(int slot, String name) {
+        names[slot] = name;
+    }
+
+    public State getState(int slot) {
+        return states[slot];
+    }
+
+    public void setState(int slot, State state) {
+        states[slot] = state;
+    }
+
+    public long getInterval(int slot) {
+        return interval[slot];
+    }
+
+    public void setInterval(int slot, long value) {
+        interval[slot] = value;
+    }
+
+    public long getStartTime(int slot) {
+        return startTime[slot];
+    }
+
+    public void setStartTime(int slot, long value) {
+        startTime[slot] = value;
+    }
+
+    public long getStartCpuTime(int slot) {
+        return startCpuTime[slot];
+    }
+
+    public void setStartCpuTime(int slot, long value) {
+        startCpuTime[slot] = value;
+    }
+
+    public long getStartUserTime(int slot) {
+        return startUserTime[slot];
+    }
+
+    public void setStartUserTime(int slot, long value) {
+        startUserTime[slot] = value;
+    }
+
+    public long getEndTime(int slot) {
+        return endTime[slot];
+    }
+
+    public void setEndTime(int slot, long value) {
+        endTime[slot] = value;
+    }
+
+    public long getEndCpuTime(int slot) {
+        return endCpuTime[slot];
+    }
+
+    public void setEndCpuTime(int slot, long value) {
+        endCpuTime[slot] = value;
+    }
+
+    public long getEndUserTime(int slot) {
+        return endUserTime[slot];
+    }
+
+    public void setEndUserTime(int slot, long value) {
+        endUserTime[slot] = value;
+    }
+
+    public long getLastBlockedTime(int slot) {
+        return lastBlockedTime[slot];
+    }
+
+    public void setLastBlockedTime(int slot, long value) {
+        lastBlockedTime[slot] = value;
+    }
+
+    public long getIntervalBlockedTime(int slot) {
+        return intervalBlockedTime[slot];
+    }
+
+    public void setIntervalBlockedTime(int slot, long value) {
+        intervalBlockedTime[slot] = value;
+    }
+
+    public long getLastWaitedTime(int slot) {
+        return lastWaitedTime[slot];
+    }
+
+    public void setLastWaitedTime(int slot, long value) {
+        lastWaitedTime[slot] = value;
+    }
+
+    public long getIntervalWaitedTime(int slot) {
+        return intervalWaitedTime[slot];
+    }
+
+    public void setIntervalWaitedTime(int slot, long value) {
+        intervalWaitedTime[slot] = value;
+    }
+
+    public double getCpuUsage(int slot) {
+        return cpuUsage[slot];
+    }
+
+    public void setCpuUsage(int slot, double value) {
+        cpuUsage[slot] = value;
+    }
+
+    public double getUserCpuUsage(int slot) {
+        return userCpuUsage[slot];
+    }
+
+    public void setUserCpuUsage(int slot, double value) {
+        userCpuUsage[slot] = value;
+    }
+
+    public long getLastAllocatedBytes(int slot) {
+        return lastAllocatedBytes[slot];
+    }
+
+    public void setLastAllocatedBytes(int slot, long value) {
+        lastAllocatedBytes[slot] = value;
+    }
+
+    public long getAllocationRate(int slot) {
+        return allocationRate[slot];
+    }
+
+    public void setAllocationRate(int slot, long value) {
+        allocationRate[slot] = value;
+    }
+
+    /**
+     * Record a CPU usage sample for the thread in slot - the sample is added to the thread's CPU usage history ring buffer
+     * and folded into the 1m, 5m and 15m exponentially weighted moving averages. As with the Unix load average, each sample
+     * is weighted by the length of the interval it covers, so threads sampled at irregular intervals (e.g. thread usage
+     * cache or sampling mode) decay at the same rate as threads sampled on every update.
+     *
+     * @param slot     the thread slot
+     * @param cpuUsage the thread CPU usage during the sample interval
+     * @param interval the sample interval in nanos
+     */
+    public void addCpuUsageSample(int slot, double cpuUsage, long interval) {
+
+        int count = cpuUsageHistoryCount[slot];
+        cpuUsageHistory[slot * CPU_USAGE_HISTORY_SIZE + (count % CPU_USAGE_HISTORY_SIZE)] = (float) cpuUsage;
+        // wrap the count to keep the ring position intact without overflowing
+        cpuUsageHistoryCount[slot] = count < 2 * CPU_USAGE_HISTORY_SIZE ? count + 1 : count + 1 - CPU_USAGE_HISTORY_SIZE;
+        if (interval <= 0) {
+            return;
+        }
+        cpuUsage1m[slot] = ewma(cpuUsage1m[slot], cpuUsage, interval, ONE_MINUTE);
+        cpuUsage5m[slot] = ewma(cpuUsage5m[slot], cpuUsage, interval, FIVE_MINUTES);
+        cpuUsage15m[slot] = ewma(cpuUsage15m[slot], cpuUsage, interval, FIFTEEN_MINUTES);
+    }
+
+    /**
+     * Copy the thread's recent CPU usage samples, oldest first, into history.
+     *
+     * @param slot    the thread slot
+     * @param history the array to copy the samples into - at least CPU_USAGE_HISTORY_SIZE long
+     * @return the number of samples copied
+     */
+    public int getCpuUsageHistory(int slot, double[] history) {
+
+        int count = cpuUsageHistoryCount[slot];
+        int samples = Math.min(count, CPU_USAGE_HISTORY_SIZE);
+        int base = slot * CPU_USAGE_HISTORY_SIZE;
+        for (int i = 0; i < samples; i++) {
+            history[i] = cpuUsageHistory[base + ((count - samples + i) % CPU_USAGE_HISTORY_SIZE)];
+        }
+        return samples;
+    }
+
+    public double getCpuUsage1m(int slot) {
+        return cpuUsage1m[slot];
+    }
+
+    public double getCpuUsage5m(int slot) {
+        return cpuUsage5m[slot];
+    }
+
+    public double getCpuUsage15m(int slot) {
+        return cpuUsage15m[slot];
+    }
+
+    private static double ewma(double average, double sample, long interval, double window) {
+
+        double decay = Math.exp(-interval / window);
+        return average * decay + sample * (1 - decay);
+    }
+
+    private int hash(long id) {
+
+        // Fibonacci hashing - spreads sequential thread IDs across the table
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void removeAt(int slot) {
+
+        // backward shift deletion - move later entries of the probe sequence into the gap so lookups never hit a hole
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        while (ids[i] != EMPTY) {
+            int home = hash(ids[i]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                moveSlot(i, gap);
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        clearSlot(gap);
+        ids[gap] = EMPTY;
+        size--;
+    }
+
+    private void moveSlot(int from, int to) {
+
+        ids[to] = ids[from];
+        names[to] = names[from];
+        states[to] = states[from];
+        marked[to] = marked[from];
+        interval[to] = interval[from];
+        startTime[to] = startTime[from];
+        startCpuTime[to] = startCpuTime[from];
+        startUserTime[to] = startUserTime[from];
+        endTime[to] = endTime[from];
+        endCpuTime[to] = endCpuTime[from];
+        endUserTime[to] = endUserTime[from];
+        lastBlockedTime[to] = lastBlockedTime[from];
+        intervalBlockedTime[to] = intervalBlockedTime[from];
+        lastWaitedTime[to] = lastWaitedTime[from];
+        intervalWaitedTime[to] = intervalWaitedTime[from];
+        cpuUsage[to] = cpuUsage[from];
+        userCpuUsage[to] = userCpuUsage[from];
+        lastAllocatedBytes[to] = lastAllocatedBytes[from];
+        allocationRate[to] = allocationRate[from];
+        System.arraycopy(cpuUsageHistory, from * CPU_USAGE_HISTORY_SIZE, cpuUsageHistory, to * CPU_USAGE_HISTORY_SIZE, CPU_USAGE_HISTORY_SIZE);
+        cpuUsageHistoryCount[to] = cpuUsageHistoryCount[from];
+        cpuUsage1m[to] = cpuUsage1m[from];
+        cpuUsage5m[to] = cpuUsage5m[from];
+        cpuUsage15m[to] = cpuUsage15m[from];
+    }
+
+    private void clearSlot(int slot) {
+
+        names[slot] = null;
+        states[slot] = null;
+        marked[slot] = false;
+        interval[slot] = 0;
+        startTime[slot] = 0;
+        startCpuTime[slot] = 0;
+        startUserTime[slot] = 0;
+        endTime[slot] = 0;
+        endCpuTime[slot] = 0;
+        endUserTime[slot] = 0;
+        lastBlockedTime[slot] = 0;
+        intervalBlockedTime[slot] = 0;
+        lastWaitedTime[slot] = 0;
+        intervalWaitedTime[slot] = 0;
+        cpuUsage[slot] = 0.0;
+        userCpuUsage[slot] = 0.0;
+        lastAllocatedBytes[slot] = 0;
+        allocationRate[slot] = 0;
+        cpuUsageHistoryCount[slot] = 0;
+        cpuUsage1m[slot] = 0.0;
+        cpuUsage5m[slot] = 0.0;
+        cpuUsage15m[slot] = 0.0;
+    }
+
+    private void resize(int newCapacity) {
+
+        ThreadTable resized = new ThreadTable(0);
+        resized.allocate(newCapacity);
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] != EMPTY) {
+                int newSlot = resized.insert(ids[slot], startTime[slot]);
+                resized.marked[newSlot] = marked[slot];
+                resized.names[newSlot] = names[slot];
+                resized.states[newSlot] = states[slot];
+                resized.interval[newSlot] = interval[slot];
+                resized.startCpuTime[newSlot] = startCpuTime[slot];
+                resized.startUserTime[newSlot] = startUserTime[slot];
+                resized.endTime[newSlot] = endTime[slot];
+                resized.endCpuTime[newSlot] = endCpuTime[slot];
+                resized.endUserTime[newSlot] = endUserTime[slot];
+                resized.lastBlockedTime[newSlot] = lastBlockedTime[slot];
+                resized.intervalBlockedTime[newSlot] = intervalBlockedTime[slot];
+                resized.lastWaitedTime[newSlot] = lastWaitedTime[slot];
+                resized.intervalWaitedTime[newSlot] = intervalWaitedTime[slot];
+                resized.cpuUsage[newSlot] = cpuUsage[slot];
+                resized.userCpuUsage[newSlot] = userCpuUsage[slot];
+                resized.lastAllocatedBytes[newSlot] = lastAllocatedBytes[slot];
+                resized.allocationRate[newSlot] = allocationRate[slot];
+                System.arraycopy(cpuUsageHistory, slot * CPU_USAGE_HISTORY_SIZE, resized.cpuUsageHistory, newSlot * CPU_USAGE_HISTORY_SIZE, CPU_USAGE_HISTORY_SIZE);
+                resized.cpuUsageHistoryCount[newSlot] = cpuUsageHistoryCount[slot];
+                resized.cpuUsage1m[newSlot] = cpuUsage1m[slot];
+                resized.cpuUsage5m[newSlot] = cpuUsage5m[slot];
+                resized.cpuUsage15m[newSlot] = cpuUsage15m[slot];
+            }
+        }
+        this.ids = resized.ids;
+        this.names = resized.names;
+        this.states = resized.states;
+        this.marked = resized.marked;
+        this.interval = resized.interval;
+        this.startTime = resized.startTime;
+        this.startCpuTime = resized.startCpuTime;
+        this.startUserTime = resized.startUserTime;
+        this.endTime = resized.endTime;
+        this.endCpuTime = resized.endCpuTime;
+        this.endUserTime = resized.endUserTime;
+        this.lastBlockedTime = resized.lastBlockedTime;
+        this.intervalBlockedTime = resized.intervalBlockedTime;
+        this.lastWaitedTime = resized.lastWaitedTime;
+        this.intervalWaitedTime = resized.intervalWaitedTime;
+        this.cpuUsage = resized.cpuUsage;
+        this.userCpuUsage = resized.userCpuUsage;
+        this.lastAllocatedBytes = resized.lastAllocatedBytes;
+        this.allocationRate = resized.allocationRate;
+        this.cpuUsageHistory = resized.cpuUsageHistory;
+        this.cpuUsageHistoryCount = resized.cpuUsageHistoryCount;
+        this.cpuUsage1m = resized.cpuUsage1m;
+        this.cpuUsage5m = resized.cpuUsage5m;
+        this.cpuUsage15m = resized.cpuUsage15m;
+        this.mask = resized.mask;
+        this.resizeThreshold = resized.resizeThreshold;
+    }
+
+    private void allocate(int capacity) {
+
+        this.ids = new long[capacity];
+        this.names = new String[capacity];
+        this.states = new State[capacity];
+        this.marked = new boolean[capacity];
+        this.interval = new long[capacity];
+        this.startTime = new long[capacity];
+        this.startCpuTime = new long[capacity];
+        this.startUserTime = new long[capacity];
+        this.endTime = new long[capacity];
+        this.endCpuTime = new long[capacity];
+        this.endUserTime = new long[capacity];
+        this.lastBlockedTime = new long[capacity];
+        this.intervalBlockedTime = new long[capacity];
+        this.lastWaitedTime = new long[capacity];
+        this.intervalWaitedTime = new long[capacity];
+        this.cpuUsage = new double[capacity];
+        this.userCpuUsage = new double[capacity];
+        this.lastAllocatedBytes = new long[capacity];
+        this.allocationRate = new long[capacity];
+        this.cpuUsageHistory = new float[capacity * CPU_USAGE_HISTORY_SIZE];
+        this.cpuUsageHistoryCount = new int[capacity];
+        this.cpuUsage1m = new double[capacity];
+        this.cpuUsage5m = new double[capacity];
+        this.cpuUsage15m = new double[capacity];
+        this.mask = capacity - 1;
+        // keep the load factor at or below 0.5 to keep probe sequences short
+        this.resizeThreshold = capacity >> 1;
+        this.size = 0;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+}
@@ -17,6 +17,7 @@
 package io.top4j.javaagent.mbeans.jvm.threads;
 
 import io.top4j.javaagent.config.Configurator;
+import io.top4j.javaagent.config.Constants;
 
 import javax.management.*;
 import java.io.IOException;
@@ -27,66 +28,132 @@ import java.util.logging.*;
 
 public class ThreadUsage {
 
-    private static class ThreadInfo {
-        long id;
-        String name;
-        State state;
-        boolean active = true;
-        long interval = 0;
-        long startTime = 0;
-        long startCpuTime = 0;
-        long startUserTime = 0;
-        long endTime = 0;
-        long endCpuTime = 0;
-        long endUserTime = 0;
-        long lastBlockedTime = 0;
-        long intervalBlockedTime = 0;
-        double cpuUsage = 0.0;
-        double userCpuUsage = 0.0;
-
-        private ThreadInfo(long id, long startTime) {
-            this.id = id;
-            this.startTime = startTime;
-        }
-    }
-
     private int numberOfProcessors;
-    private final Map<Long, ThreadInfo> threadHistory =
-            new HashMap<>();
+    private final ThreadTable threadHistory = new ThreadTable();
     volatile private double cpuUsage;
-    private final Map<Long, ThreadInfo> threadHistoryCache =
-            new HashMap<>();
+    private int[] threadCacheSlots = new int[0];
+    private int threadCacheCount;
     volatile private double userCpuUsage;
     volatile private double sysCpuUsage;
-    private ThreadTimeMap cpuTimeMap;
-    private ThreadTimeMap blockedTimeMap;
+    private long[] sampleThreadIds = new long[0];
+    private long[] fullSampleThreadIds = new long[0];
+    private long[] cacheSampleThreadIds = new long[0];
+    private long[] sampleCpuTimes = new long[0];
+    private long[] sampleUserTimes = new long[0];
+    private long[] sampleSystemTimes = new long[0];
+    private int[] sampledSlots = new int[0];
+    private long[] sampledCpuTimes = new long[0];
+    private long[] sampledBlockedTimes = new long[0];
+    private long[] sampledWaitedTimes = new long[0];
+    private long[] sampledAllocationRates = new long[0];
+    private long[] sampledCpuLoadAverages = new long[0];
+    volatile private String topThreadRanking = TOP_THREAD_RANKING_INTERVAL;
+    private int sampledThreadCount;
+    private final TopKSelector topThreadSelector = new TopKSelector(0);
+    private final TopKSelector blockedThreadSelector = new TopKSelector(0);
+    private final TopKSelector waitingThreadSelector = new TopKSelector(0);
+    private final TopKSelector threadCacheSelector = new TopKSelector(0);
+    private final TopKSelector topAllocatorSelector = new TopKSelector(0);
     volatile private long threadCount;
     volatile private long runnableThreadCount;
     volatile private long blockedThreadCount;
     volatile private long waitingThreadCount;
     volatile private long timedWaitingThreadCount;
     private final ThreadMXBean threadMXBean;
+    private final ThreadCpuSource threadCpuSource;
     private final MBeanServerConnection mbeanServer;
     private Map<Integer, TopThread> topThreadsMap;
     private Map<Integer, BlockedThread> blockedThreadsMap;
+    private Map<Integer, WaitingThread> waitingThreadsMap;
+    private boolean waitingThreadTrackingEnabled;
+    private int waitingThreadsCount;
+    private Map<Integer, TopAllocator> topAllocatorsMap;
+    private com.sun.management.ThreadMXBean allocationThreadMXBean;
+    private boolean topAllocatorTrackingEnabled;
+    private int topAllocatorCount;
+    private long totalAllocationRate;
+    private ThreadGroups threadGroups;
+    private HotLocks hotLocks;
     private boolean threadContentionMonitoringEnabled;
+    private boolean adaptiveContentionMonitoringEnabled;
+    private int contentionMonitoringThreshold;
+    private int contentionMonitoringWindow;
+    private int uncontendedIterations;
+    private long sampledBlockedThreadCount;
+    volatile private boolean contentionMonitoringActive;
+    volatile private boolean contentionTimeEstimated;
     private boolean hotMethodProfilingEnabled;
     private int topThreadCount;
     private int blockedThreadsCount;
     private HotMethods hotMethods;
+    private HotMethodTracker hotMethodTracker;
     private boolean threadCacheEnabled;
     private int threadCacheSize;
     private int topThreadCacheSize;
     private int blockedThreadCacheSize;
     private int threadCacheTTL;
     private long lastThreadCacheRefreshTime = 0;
+    private boolean adaptiveThreadCacheEnabled;
+    private double threadCacheDivergenceThreshold;
+    private boolean threadCacheRefreshRequired;
+    private double threadCacheCoverage = 1.0;
+    private final LongIndexMap previousThreadCache = new LongIndexMap();
+    private int previousThreadCacheCount;
+    private long lastFullThreadCount;
+    volatile private double sampledCpuUsage;
+    volatile private double threadCacheHitRatio = -1; // default - not available
+    volatile private long threadCacheMissWindow = -1; // default - not available
+    private boolean threadSamplingEnabled;
+    private boolean threadSamplingActive;
+    private int threadSamplingSize;
+    private int configuredThreadSamplingSize;
+    private int threadSamplingLimit;
+    private final Random threadSamplingRandom = new Random();
+    private long[] threadSamplingOrder = new long[0];
+    private int threadSamplingRoundSize;
+    private int threadSamplingPosition;
+    private long[] newThreadIds = new long[0];
+    private int newThreadCount;
+    // the full set of thread IDs is only listed once per sampling round - new threads are discovered incrementally in between
+    private boolean threadSamplingRefreshDue = true;
+    private final long[] newThreadProbeIds = new long[NEW_THREAD_ID_PROBE_COUNT];
+    private long maxKnownThreadId;
+    private long lastTotalStartedThreadCount;
+    private int internalThreadCount;
+    private long[] hotThreadIds = new long[0];
+    private int hotThreadCount;
+    private final LongIndexMap exactSampleIds = new LongIndexMap();
+    private int exactSampleCount;
+    private final long[] exactStateCounts = new long[State.values().length];
+    private final long[] randomStateCounts = new long[State.values().length];
+    volatile private long sampledThreadTotal;
+    volatile private double cpuUsageMarginOfError;
+    volatile private double runnableThreadCountMarginOfError;
+    volatile private double blockedThreadCountMarginOfError;
+    volatile private double waitingThreadCountMarginOfError;
+    volatile private double timedWaitingThreadCountMarginOfError;
     private long newThreadStartTime;
-    private int internalThreadScanLimit = 0;
-    private Long[] internalThreadIds;
     private long lastSystemTime;
     private long lastProcessCpuTime;
+    // private process CPU time sample used by the thread cache divergence check, which runs between the updates of the published process CPU usage
+    private long divergenceCheckSystemTime;
+    private long divergenceCheckProcessCpuTime = -1;
     volatile private double processCpuUsage = -1; // default - not available
 
+    // z-score of the 95% confidence level used for sampled thread usage estimates
+    private static final double CONFIDENCE_Z_SCORE = 1.96;
+    // the hot thread set sampled on every tick in sampling mode is this multiple of the top (and blocked) thread counts
+    private static final int HOT_THREAD_SET_FACTOR = 2;
+    // thread ID used to pad the sample thread ID buffer - no live thread ever has this ID
+    private static final long NO_THREAD_ID = Long.MAX_VALUE;
+    // the number of thread IDs above the highest known thread ID probed for new threads between sampling rounds
+    private static final int NEW_THREAD_ID_PROBE_COUNT = 64;
+    // top thread ranking metrics
+    private static final String TOP_THREAD_RANKING_INTERVAL = "interval";
+    private static final String TOP_THREAD_RANKING_1M = "1m";
+    private static final String TOP_THREAD_RANKING_5M = "5m";
+    private static final String TOP_THREAD_RANKING_15M = "15m";
+
     private static final Logger LOGGER = Logger.getLogger(ThreadUsage.class.getName());
 
     public ThreadUsage(Configurator config, Map<Integer, TopThread> topThreadsMap) throws IOException {
@@ -100,8 +167,16 @@ public class ThreadUsage {
         final RuntimeMXBean runtimeMXBean = ManagementFactory.getPlatformMXBean(config.getMBeanServerConnection(), RuntimeMXBean.class);
         long jvmStartUpTime = System.nanoTime() - (runtimeMXBean.getUptime() * 1000000);
         this.newThreadStartTime = jvmStartUpTime;
-        this.internalThreadScanLimit = Integer.parseInt(config.get("thread.internal.scan.limit"));
-        this.internalThreadIds = getInternalThreadIds();
+        // set top thread ranking metric
+        if (config.get("top.thread.ranking") != null) {
+            try {
+                setTopThreadRanking(config.get("top.thread.ranking"));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning(e.getMessage() + " - ranking top threads by " + TOP_THREAD_RANKING_INTERVAL + " CPU usage.");
+            }
+        }
+        // init thread CPU source
+        this.threadCpuSource = createThreadCpuSource(config);
         // next two for process cpu calculation:
         this.lastSystemTime = jvmStartUpTime;
         // we want to match similar calculation for thread cpu; first time through this is mean since jvm started, so if process cpu is available, we set to zero, while
@@ -111,6 +186,15 @@ public class ThreadUsage {
             this.processCpuUsage = 0;
         }
 
+        if (config.isThreadUsageSamplingEnabled()) {
+            // enable statistical thread sampling
+            this.threadSamplingEnabled = true;
+            // set threadSamplingSize
+            this.threadSamplingSize = Integer.parseInt(config.get("thread.usage.sampling.size"));
+            this.configuredThreadSamplingSize = threadSamplingSize;
+            this.newThreadIds = new long[threadSamplingSize];
+        }
+
         if (config.isThreadUsageCacheEnabled()) {
             // enable thread usage cache
             this.threadCacheEnabled = true;
@@ -120,6 +204,10 @@ public class ThreadUsage {
             this.topThreadCacheSize = threadCacheSize;
             // set threadCacheTTL
             this.threadCacheTTL = Integer.parseInt(config.get("thread.usage.cache.ttl"));
+            // set adaptive thread cache mode
+            this.adaptiveThreadCacheEnabled = config.isThreadUsageCacheAdaptiveEnabled();
+            // set threadCacheDivergenceThreshold (stored as a fraction of process CPU usage)
+            this.threadCacheDivergenceThreshold = Double.parseDouble(config.get("thread.usage.cache.divergence.threshold")) / 100;
             // warm up the threadCache via this.update()
             LOGGER.info("Warming up thread usage cache....");
             this.update();
@@ -142,9 +230,18 @@ public class ThreadUsage {
         this(config, topThreadsMap);
 
         if (threadMXBean.isThreadContentionMonitoringSupported()) {
-            // enable thread contention monitoring
-            threadMXBean.setThreadContentionMonitoringEnabled(true);
             this.threadContentionMonitoringEnabled = true;
+            if (config.isThreadContentionMonitoringAdaptiveEnabled() && !threadMXBean.isThreadContentionMonitoringEnabled()) {
+                // adaptive mode - only enable thread contention monitoring while the BLOCKED thread count is at or above the threshold
+                this.adaptiveContentionMonitoringEnabled = true;
+                this.contentionMonitoringThreshold = Integer.parseInt(config.get("thread.contention.monitoring.adaptive.threshold"));
+                this.contentionMonitoringWindow = Integer.parseInt(config.get("thread.contention.monitoring.adaptive.window"));
+                // blocked and waited times are estimated from the sampled thread states until contention is detected
+                this.contentionTimeEstimated = true;
+            } else {
+                // enable thread contention monitoring (if it's already enabled, e.g. by another tool, leave it enabled)
+                setContentionMonitoringActive(true);
+            }
             LOGGER.fine("Thread Contention Monitoring Enabled: " + threadMXBean.isThreadContentionMonitoringEnabled());
             this.blockedThreadsCount = blockedThreadsMap.size();
             if (config.isThreadUsageCacheEnabled()) {
@@ -168,7 +265,7 @@ public class ThreadUsage {
         // store hotMethods
         this.hotMethods = hotMethods;
         // init hot method tracker
-        initHotMethodTracker(topThreadsMap, hotMethods, hotMethodPollInterval);
+        initHotMethodTracker(config, hotMethods, hotMethodPollInterval, Integer.parseInt(config.get("hot.method.profiler.max.depth")));
 
     }
 
@@ -179,7 +276,7 @@ public class ThreadUsage {
         // store hotMethods
         this.hotMethods = hotMethods;
         // init hot method tracker
-        initHotMethodTracker(topThreadsMap, hotMethods, hotMethodPollInterval);
+        initHotMethodTracker(config, hotMethods, hotMethodPollInterval, Integer.parseInt(config.get("hot.method.profiler.max.depth")));
 
     }
 
@@ -188,29 +285,46 @@ public class ThreadUsage {
      */
     public synchronized void update() {
 
-        if (threadCacheEnabled && (threadCount > threadCacheSize)) {
+        // statistical sampling only pays off once there are more threads than we're prepared to sample each tick
+        threadSamplingActive = threadSamplingEnabled && (threadCount > threadSamplingSize);
+        if (threadSamplingActive) {
+            LOGGER.fine("Thread usage sampling enabled....");
+            if (threadSamplingRefreshDue) {
+                // once per sampling round - refresh threadHistory with full set of thread IDs (a single JMX call) and sweep dead threads
+                refreshThreadHistory();
+                this.threadSamplingRefreshDue = false;
+            } else {
+                // mid round - only look for threads started since the last refresh
+                discoverNewThreads();
+            }
+            // select the hot, new and random threads to sample this tick
+            selectThreadSample();
+            // update sampled threads only
+            update(false);
+            // estimate global counters from the sample
+            estimateGlobalCounters();
+        } else if (threadCacheEnabled && (threadCount > threadCacheSize)) {
             LOGGER.fine("Thread usage cache enabled....");
             // get current time in millis
             final long currentTime = System.currentTimeMillis();
-            // thread cache enabled - check if cache TTL has expired before updating thread usage history
-            if (currentTime > (lastThreadCacheRefreshTime + threadCacheTTL)) {
-                // thread cache TTL has expired - refresh threadHistory with full set of thread IDs
-                refreshThreadHistory();
-                // we've got a full set of threads - update full threadHistory and global counters
-                update(threadHistory, true);
-                // refresh threadCache ready for next update
-                refreshThreadHistoryCache();
-                // update lastThreadCacheRefreshTime
-                lastThreadCacheRefreshTime = currentTime;
+            // thread cache enabled - check if cache TTL has expired (or the cache has diverged from the process) before updating thread usage history
+            if (threadCacheRefreshRequired || currentTime > (lastThreadCacheRefreshTime + threadCacheTTL)) {
+                // thread cache TTL has expired - refresh threadHistory and threadCache with full set of thread IDs
+                refreshThreadCache(currentTime);
             } else {
                 // thread cache still fresh - update threadHistoryCache but don't update global counters
-                update(threadHistoryCache, false);
+                update(false);
+                if (adaptiveThreadCacheEnabled && isThreadCacheDivergent()) {
+                    // the cached threads no longer account for the process CPU usage - promote new threads on the next update
+                    LOGGER.fine("Thread usage cache has diverged from process CPU usage - thread cache will be refreshed on next update.");
+                    this.threadCacheRefreshRequired = true;
+                }
             }
         } else {
             // thread cache disabled - refresh threadHistory with full set of thread IDs
             refreshThreadHistory();
             // we've got a full set of threads - update full threadHistory and global counters
-            update(threadHistory, true);
+            update(true);
         }
 
         // update topThreadsMap
@@ -221,97 +335,229 @@ public class ThreadUsage {
             updateBlockedThreads();
         }
 
+        if (waitingThreadTrackingEnabled) {
+            // update waitingThreadsMap
+            updateWaitingThreads();
+        }
+
+        if (topAllocatorTrackingEnabled) {
+            // update topAllocatorsMap
+            updateTopAllocators();
+        }
+
+        if (threadGroups != null) {
+            // aggregate thread usage by thread group
+            threadGroups.update(threadHistory, sampledSlots, sampledThreadCount);
+        }
+
+        if (hotLocks != null) {
+            // rank contended locks
+            hotLocks.update();
+        }
+
+        if (threadSamplingEnabled) {
+            // remember the hottest threads so that they're sampled (and ranked exactly) on every sampled tick
+            rememberHotThreads();
+        }
+
         if (hotMethodProfilingEnabled) {
             // update hot methods
             hotMethods.update();
         }
 
+        if (adaptiveContentionMonitoringEnabled) {
+            // switch thread contention monitoring on or off for the next iteration
+            updateContentionMonitoring();
+        }
+
     }
 
     /**
-     * Update thread usage stats for threadHistory threads.
+     * Update thread usage stats for all threadHistory threads (fullUpdate) or for the thread cache threads only.
+     * <p>
+     * All per-thread state lives in the threadHistory table and the sample buffers are re-used between updates, so
+     * once the buffers have been sized the update allocates nothing beyond the results returned by the ThreadMXBean.
      */
-    private synchronized void update(Map<Long, ThreadInfo> threadHistory, boolean updateGlobalCounters) {
+    private synchronized void update(boolean fullUpdate) {
 
         double totalCpuTime = 0;
         double totalUserCpuTime = 0;
-        ThreadTimeMap cpuTimeMap = new ThreadTimeMap();
-        ThreadTimeMap blockedTimeMap = new ThreadTimeMap();
         long threadCount = 0;
         long runnableThreadCount = 0;
         long blockedThreadCount = 0;
         long waitingThreadCount = 0;
         long timedWaitingThreadCount = 0;
-        // iterate over ThreadUsage.ThreadInfo objects within threadHistory map and update with latest JMX ThreadMXBean ThreadInfo
-        for (Map.Entry<Long, ThreadInfo> entry : threadHistory.entrySet()) {
-
-            // retrieve ThreadInfo object
-            ThreadInfo threadInfo = entry.getValue();
+        // collect the slots and thread IDs to sample
+        int sampleSize = fullUpdate ? threadHistory.size() : threadCacheCount;
+        if (fullUpdate) {
+            this.fullSampleThreadIds = ensureThreadIdCapacity(fullSampleThreadIds, sampleSize);
+            this.sampleThreadIds = fullSampleThreadIds;
+        } else {
+            this.cacheSampleThreadIds = ensureThreadIdCapacity(cacheSampleThreadIds, sampleSize);
+            this.sampleThreadIds = cacheSampleThreadIds;
+        }
+        ensureSampleCapacity(sampleThreadIds.length);
+        int sampleCount = 0;
+        if (fullUpdate) {
+            for (int slot = 0; slot < threadHistory.capacity(); slot++) {
+                if (threadHistory.isOccupied(slot)) {
+                    sampledSlots[sampleCount] = slot;
+                    sampleThreadIds[sampleCount] = threadHistory.getId(slot);
+                    sampleCount++;
+                }
+            }
+        } else {
+            for (int i = 0; i < threadCacheCount; i++) {
+                sampledSlots[i] = threadCacheSlots[i];
+                sampleThreadIds[i] = threadHistory.getId(threadCacheSlots[i]);
+            }
+        }
+        // pad the rest of the thread ID buffer with an ID which never matches a live thread
+        Arrays.fill(sampleThreadIds, sampleSize, sampleThreadIds.length, NO_THREAD_ID);
+        ThreadInfo[] jmxThreadInfos = null;
+        if (sampleSize > 0) {
+            // get thread CPU and user times for all thread IDs
+            threadCpuSource.sampleThreadTimes(sampleThreadIds, sampleSize, sampleCpuTimes, sampleUserTimes, sampleSystemTimes);
+            // native threads (internal thread IDs < 0) are unknown to ThreadMXBean
+            for (int i = 0; i < sampleSize; i++) {
+                if (sampleThreadIds[i] < 0) {
+                    sampleThreadIds[i] = NO_THREAD_ID;
+                }
+            }
+            // get JMX ThreadInfo for all thread IDs from ThreadMXBean in a single call
+            jmxThreadInfos = threadMXBean.getThreadInfo(sampleThreadIds);
+        }
+        long[] threadAllocatedBytes = null;
+        if (topAllocatorTrackingEnabled && sampleSize > 0) {
+            // get allocated bytes for all thread IDs in a single call
+            threadAllocatedBytes = getThreadAllocatedBytes(sampleThreadIds);
+        }
+        long totalAllocationRate = 0;
+        if (hotLocks != null) {
+            // start a new wait-for graph
+            hotLocks.reset();
+        }
+        // iterate over sampled threadHistory slots and update with latest JMX ThreadMXBean ThreadInfo
+        int sampledThreadCount = 0;
+        // blocked and waited times are only measured if thread contention monitoring has been active since the last update
+        final boolean contentionMonitored = this.contentionMonitoringActive;
+        for (int i = 0; i < sampleSize; i++) {
+
+            // retrieve threadHistory slot
+            final int slot = sampledSlots[i];
+            final long threadId = threadHistory.getId(slot);
+            // native threads (e.g. GC threads) reported by the thread CPU source have no Java thread
+            final boolean nativeThread = threadId < 0;
             final String name;
             State state;
-            long id = threadInfo.id;
-            // get JMX ThreadInfo for thread ID from ThreadMXBean
-            java.lang.management.ThreadInfo jmxThreadInfo = threadMXBean.getThreadInfo(id);
+            // retrieve JMX ThreadInfo for thread ID
+            ThreadInfo jmxThreadInfo = jmxThreadInfos[i];
             if (jmxThreadInfo != null) {
-                id = jmxThreadInfo.getThreadId();
                 name = jmxThreadInfo.getThreadName();
                 state = jmxThreadInfo.getThreadState();
+            } else if (nativeThread) {
+                name = threadCpuSource.getInternalThreadName(threadId);
+                state = State.RUNNABLE;
             } else {
-                // assume thread died
-                threadInfo.active = false;
-                threadInfo.state = State.TERMINATED;
+                // assume thread died - it will be swept from threadHistory on the next refresh
+                threadHistory.setState(slot, State.TERMINATED);
                 continue;
             }
-            final long threadCpuTime = threadMXBean.getThreadCpuTime(id);
-            final long threadUserTime = threadMXBean.getThreadUserTime(id);
-            final long systemTime = System.nanoTime();
+            final long threadCpuTime = sampleCpuTimes[i];
+            final long threadUserTime = sampleUserTimes[i];
+            final long systemTime = sampleSystemTimes[i];
             if (threadCpuTime == -1 || threadUserTime == -1) {
                 // assume thread died
-                threadInfo.active = false;
-                threadInfo.state = State.TERMINATED;
+                threadHistory.setState(slot, State.TERMINATED);
                 continue;
             }
-            long threadBlockedTime = 0;
-            if (threadContentionMonitoringEnabled) {
+            long threadBlockedTime = -1;
+            if (contentionMonitored && !nativeThread) {
                 threadBlockedTime = jmxThreadInfo.getBlockedTime();
             }
-
-            // update ThreadInfo object
-            threadInfo.name = name;
-            threadInfo.state = state;
-            threadInfo.active = true;
-            threadInfo.endTime = systemTime;
-            threadInfo.endCpuTime = threadCpuTime;
-            threadInfo.endUserTime = threadUserTime;
-            long timeDiff = threadInfo.endTime - threadInfo.startTime;
-            threadInfo.interval = timeDiff;
-            // calculate CPU time in nano secs consumed during interval
-            long cpuTimeDiff = threadInfo.endCpuTime - threadInfo.startCpuTime;
+            // retrieve the thread state seen by the previous update (used to estimate blocked and waited times)
+            final State previousState = threadHistory.getState(slot);
+
+            // update threadHistory slot
+            threadHistory.setName(slot, name);
+            threadHistory.setState(slot, state);
+            threadHistory.setEndTime(slot, systemTime);
+            threadHistory.setEndCpuTime(slot, threadCpuTime);
+            threadHistory.setEndUserTime(slot, threadUserTime);
+            long timeDiff = systemTime - threadHistory.getStartTime(slot);
+            threadHistory.setInterval(slot, timeDiff);
+            // calculate CPU time in nano secs consumed during interval (never negative, even if the thread CPU source has changed resolution)
+            long cpuTimeDiff = Math.max(threadCpuTime - threadHistory.getStartCpuTime(slot), 0);
             // calculate thread CPU usage as percentage of wall clock time
             double threadCpuUsage = calculateCpuUsage(cpuTimeDiff, timeDiff);
-            threadInfo.cpuUsage = threadCpuUsage;
+            threadHistory.setCpuUsage(slot, threadCpuUsage);
+            // add threadCpuUsage to thread CPU usage history and load averages
+            threadHistory.addCpuUsageSample(slot, threadCpuUsage, timeDiff);
             // add threadCpuUsage to overall cpuTime
             totalCpuTime += threadCpuUsage;
-            // add cpuTimeDiff to cpuTimeMap
-            cpuTimeMap.put(cpuTimeDiff, id);
+            // add cpuTimeDiff to sampled thread CPU times (as a rate in sampling mode, where thread intervals differ)
+            sampledSlots[sampledThreadCount] = slot;
+            sampledCpuTimes[sampledThreadCount] = threadSamplingActive ? perSecond(cpuTimeDiff, timeDiff) : cpuTimeDiff;
+            sampledBlockedTimes[sampledThreadCount] = 0;
+            sampledWaitedTimes[sampledThreadCount] = 0;
             // calculate CPU user time in nano secs consumed during interval
-            long userTimeDiff = threadInfo.endUserTime - threadInfo.startUserTime;
+            long userTimeDiff = Math.max(threadUserTime - threadHistory.getStartUserTime(slot), 0);
             // calculate thread user CPU usage as percentage of wall clock time
             double threadUserCpuUsage = calculateCpuUsage(userTimeDiff, timeDiff);
-            threadInfo.userCpuUsage = threadUserCpuUsage;
+            threadHistory.setUserCpuUsage(slot, threadUserCpuUsage);
             // add threadUserCpuUsage to overall userCpuTime
             totalUserCpuTime += threadUserCpuUsage;
             // reset start timers for next iteration
-            threadInfo.startTime = systemTime;
-            threadInfo.startCpuTime = threadCpuTime;
-            threadInfo.startUserTime = threadUserTime;
+            threadHistory.setStartTime(slot, systemTime);
+            threadHistory.setStartCpuTime(slot, threadCpuTime);
+            threadHistory.setStartUserTime(slot, threadUserTime);
             if (threadContentionMonitoringEnabled) {
                 // calculate interval blocked time
-                threadInfo.intervalBlockedTime = threadBlockedTime - threadInfo.lastBlockedTime;
-                // add intervalBlockedTime to blockedTimeMap
-                blockedTimeMap.put(threadInfo.intervalBlockedTime, id);
-                // persist this threadBlockedTime
-                threadInfo.lastBlockedTime = threadBlockedTime;
+                long intervalBlockedTime;
+                if (threadBlockedTime >= 0) {
+                    intervalBlockedTime = Math.max(threadBlockedTime - threadHistory.getLastBlockedTime(slot), 0);
+                    // persist this threadBlockedTime
+                    threadHistory.setLastBlockedTime(slot, threadBlockedTime);
+                } else {
+                    // thread contention monitoring inactive - estimate blocked time from the sampled thread states
+                    intervalBlockedTime = estimateStateTime(previousState, state, State.BLOCKED, null, timeDiff);
+                }
+                threadHistory.setIntervalBlockedTime(slot, intervalBlockedTime);
+                // add intervalBlockedTime to sampled thread blocked times
+                sampledBlockedTimes[sampledThreadCount] = threadSamplingActive ? perSecond(intervalBlockedTime, timeDiff) : intervalBlockedTime;
+            }
+            if (waitingThreadTrackingEnabled) {
+                // calculate interval waited time (WAITING and TIMED_WAITING)
+                long threadWaitedTime = contentionMonitored && !nativeThread ? jmxThreadInfo.getWaitedTime() : -1;
+                long intervalWaitedTime;
+                if (threadWaitedTime >= 0) {
+                    intervalWaitedTime = Math.max(threadWaitedTime - threadHistory.getLastWaitedTime(slot), 0);
+                    // persist this threadWaitedTime
+                    threadHistory.setLastWaitedTime(slot, threadWaitedTime);
+                } else {
+                    // thread contention monitoring inactive - estimate waited time from the sampled thread states
+                    intervalWaitedTime = estimateStateTime(previousState, state, State.WAITING, State.TIMED_WAITING, timeDiff);
+                }
+                threadHistory.setIntervalWaitedTime(slot, intervalWaitedTime);
+                // add intervalWaitedTime to sampled thread waited times
+                sampledWaitedTimes[sampledThreadCount] = threadSamplingActive ? perSecond(intervalWaitedTime, timeDiff) : intervalWaitedTime;
+            }
+            if (hotLocks != null && !nativeThread && jmxThreadInfo.getLockOwnerId() != -1 && jmxThreadInfo.getLockName() != null) {
+                // add wait-for edge - only threads blocked on a monitor accumulate blocked time
+                long lockBlockedTime = threadContentionMonitoringEnabled && state == State.BLOCKED ? threadHistory.getIntervalBlockedTime(slot) : 0;
+                hotLocks.addWaiter(threadId, jmxThreadInfo.getLockName(), jmxThreadInfo.getLockOwnerId(), jmxThreadInfo.getLockOwnerName(), lockBlockedTime);
+            }
+            sampledAllocationRates[sampledThreadCount] = 0;
+            if (threadAllocatedBytes != null && threadAllocatedBytes[i] >= 0) {
+                // calculate bytes allocated during interval as a rate (thread intervals differ between cached and full updates)
+                long allocatedBytesDiff = Math.max(threadAllocatedBytes[i] - threadHistory.getLastAllocatedBytes(slot), 0);
+                long allocationRate = perSecond(allocatedBytesDiff, timeDiff);
+                threadHistory.setAllocationRate(slot, allocationRate);
+                // add allocationRate to sampled thread allocation rates
+                sampledAllocationRates[sampledThreadCount] = allocationRate;
+                totalAllocationRate += allocationRate;
+                // persist this threadAllocatedBytes
+                threadHistory.setLastAllocatedBytes(slot, threadAllocatedBytes[i]);
             }
 
             // check thread state
@@ -320,6 +566,14 @@ public class ThreadUsage {
                 state = Thread.State.TERMINATED;
             }
 
+            // increment sampledThreadCount
+            sampledThreadCount++;
+
+            if (nativeThread) {
+                // native threads are ranked by CPU usage but are not Java threads, so don't count them
+                continue;
+            }
+
             // increment threadCount
             threadCount++;
 
@@ -347,15 +601,19 @@ public class ThreadUsage {
             }
         }
 
-        // update cpuTimeMap
-        this.cpuTimeMap = cpuTimeMap;
-
-        if (threadContentionMonitoringEnabled) {
-            // update blockedTimeMap
-            this.blockedTimeMap = blockedTimeMap;
-        }
+        // update sampledThreadCount
+        this.sampledThreadCount = sampledThreadCount;
+        // record the BLOCKED count of the sampled threads (used to switch adaptive thread contention monitoring on and off)
+        this.sampledBlockedThreadCount = blockedThreadCount;
+        // record whether the blocked and waited times were measured or estimated
+        this.contentionTimeEstimated = !contentionMonitored;
+        this.sampledThreadTotal = sampledThreadCount;
+        // update totalAllocationRate, i.e. the allocation rate of the sampled threads only
+        this.totalAllocationRate = totalAllocationRate;
+        // update sampledCpuUsage, i.e. the CPU usage of the sampled threads only
+        this.sampledCpuUsage = totalCpuTime / numberOfProcessors;
 
-        if (updateGlobalCounters) {
+        if (fullUpdate) {
 
             // do this here to keep (semi-)synchronised with thread cpu calculation
             updateProcessCpuTime();
@@ -384,88 +642,186 @@ public class ThreadUsage {
             this.setWaitingThreadCount(waitingThreadCount);
             // update timedWaitingThreadCount
             this.setTimedWaitingThreadCount(timedWaitingThreadCount);
+            // all threads sampled - global counters are exact
+            this.cpuUsageMarginOfError = 0;
+            this.runnableThreadCountMarginOfError = 0;
+            this.blockedThreadCountMarginOfError = 0;
+            this.waitingThreadCountMarginOfError = 0;
+            this.timedWaitingThreadCountMarginOfError = 0;
         }
 
     }
 
-    private synchronized void resetActivityTracker() {
-
-        // reset activity tracker within threadHistory ThreadInfo to false
-        for (Map.Entry<Long, ThreadInfo> entry : threadHistory.entrySet()) {
-            entry.getValue().active = false;
-        }
-    }
-
-    private synchronized void cleanUpThreadHistory() {
-
-        // remove inactive threads from threadHistory
-        for (Iterator<Map.Entry<Long, ThreadInfo>> it = threadHistory.entrySet().iterator(); it.hasNext(); ) {
-            Map.Entry<Long, ThreadInfo> entry = it.next();
-            if (!entry.getValue().active) {
-                it.remove();
+    /**
+     * Create the thread CPU source selected via the thread.cpu.source property, falling back to the ThreadMXBean source
+     * where the selected source is not supported by the monitored JVM.
+     */
+    private ThreadCpuSource createThreadCpuSource(Configurator config) {
+
+        MBeanServerConnection mbsc = config.getMBeanServerConnection();
+        if (Constants.THREAD_CPU_SOURCE_PROCFS.equalsIgnoreCase(config.getThreadCpuSource())) {
+            String pid = ProcfsThreadCpuSource.getSupportedProcessId(mbsc);
+            if (pid != null) {
+                try {
+                    LOGGER.info("Using procfs thread CPU source for process " + pid + ".");
+                    return new ProcfsThreadCpuSource(threadMXBean, pid, config.getProcfsMaxOpenStatFiles());
+                } catch (IOException e) {
+                    LOGGER.warning("Unable to initialise procfs thread CPU source due to: " + e.getMessage());
+                }
             }
+            LOGGER.warning("procfs thread CPU source not supported for this JVM - falling back to ThreadMXBean thread CPU source.");
         }
-
+        int internalThreadScanLimit = Integer.parseInt(config.get("thread.internal.scan.limit"));
+        return new ThreadMXBeanCpuSource(mbsc, threadMXBean, internalThreadScanLimit);
     }
 
     /**
-     * Refresh global threadHistory map with with complete list of running threads via JMX ThreadMXBean.getAllThreadIds() method
+     * Refresh global threadHistory table with with complete list of running threads via JMX ThreadMXBean.getAllThreadIds() method
      */
 
     private synchronized void refreshThreadHistory() {
 
-        // reset threadHistory activity tracking
-        resetActivityTracker();
+        // reset threadHistory liveness marks
+        threadHistory.unmarkAll();
 
-        // refresh threadHistory with complete list of running threads via ThreadMXBean
+        // refresh threadHistory with complete list of running threads via ThreadMXBean - new threads are added, known threads are marked live
+        newThreadCount = 0;
+        this.lastTotalStartedThreadCount = threadMXBean.getTotalStartedThreadCount();
         for (long id : threadMXBean.getAllThreadIds()) {
-            // retrieve threadInfo object from threadHistory map
-            ThreadInfo threadInfo = threadHistory.get(id);
-            if (threadInfo == null) {
-                // create new ThreadInfo object
-                threadInfo = new ThreadInfo(id, newThreadStartTime);
-                // add new ThreadInfo object to threadHistory
-                threadHistory.put(id, threadInfo);
-            } else {
-                threadInfo.active = true;
+            this.maxKnownThreadId = Math.max(maxKnownThreadId, id);
+            int slot = threadHistory.insert(id, newThreadStartTime);
+            if (threadSamplingActive && threadHistory.getEndTime(slot) == 0 && newThreadCount < newThreadIds.length) {
+                // thread has never been sampled - sample it on the next tick
+                newThreadIds[newThreadCount++] = id;
             }
         }
 
         // Check for additional system threads which are not returned by ThreadMXBean.getAllThreadIds;
         // see getInternalThreadIds().
-        for (long id : this.internalThreadIds) {
-            ThreadInfo threadInfo = threadHistory.get(id);
+        long[] internalThreadIds = threadCpuSource.getInternalThreadIds();
+        for (long id : internalThreadIds) {
+            threadHistory.insert(id, newThreadStartTime);
+        }
+        this.internalThreadCount = internalThreadIds.length;
+
+        // sweep threads which are no longer running from threadHistory
+        threadHistory.sweep();
+
+        // threadHistory slots may have moved - invalidate the thread cache so that it's rebuilt on the next cached update
+        this.threadCacheCount = 0;
+        this.lastThreadCacheRefreshTime = 0;
+
+    }
+
+    /**
+     * Add threads started since the last threadHistory refresh without listing all threads. Java thread IDs are allocated
+     * in sequence, so when ThreadMXBean.getTotalStartedThreadCount() shows that threads have started, the next
+     * NEW_THREAD_ID_PROBE_COUNT IDs above the highest known thread ID are probed via a single ThreadMXBean.getThreadInfo()
+     * call. Threads beyond the probe window (and dead threads) are picked up by the next full refresh.
+     */
+    private void discoverNewThreads() {
+
+        newThreadCount = 0;
+        long totalStartedThreadCount = threadMXBean.getTotalStartedThreadCount();
+        if (totalStartedThreadCount == lastTotalStartedThreadCount) {
+            // no threads started since the last check
+            return;
+        }
+        this.lastTotalStartedThreadCount = totalStartedThreadCount;
+        for (int i = 0; i < newThreadProbeIds.length; i++) {
+            newThreadProbeIds[i] = maxKnownThreadId + i + 1;
+        }
+        for (ThreadInfo threadInfo : threadMXBean.getThreadInfo(newThreadProbeIds)) {
             if (threadInfo == null) {
-                // create new ThreadInfo object
-                threadInfo = new ThreadInfo(id, newThreadStartTime);
-                // add new ThreadInfo object to threadHistory
-                threadHistory.put(id, threadInfo);
-            } else {
-                threadInfo.active = true;
+                continue;
+            }
+            long id = threadInfo.getThreadId();
+            this.maxKnownThreadId = Math.max(maxKnownThreadId, id);
+            int slot = threadHistory.insert(id, newThreadStartTime);
+            if (threadHistory.getEndTime(slot) == 0 && newThreadCount < newThreadIds.length) {
+                // thread has never been sampled - sample it on the next tick
+                newThreadIds[newThreadCount++] = id;
             }
         }
+    }
 
-        // clean up threadHistory
-        cleanUpThreadHistory();
+    /**
+     * Get thread contention monitoring status.
+     * @return true if thread contention monitoring is currently enabled, i.e. blocked and waited times are being measured rather than estimated
+     */
+    public boolean isContentionMonitoringActive() {
+        return this.contentionMonitoringActive;
+    }
 
+    /**
+     * Get thread cache hit ratio (&lt;0 if not available).
+     * @return the CPU time weighted share of the top threads found in the thread cache at the last thread cache refresh
+     */
+    public double getThreadCacheHitRatio() {
+        return this.threadCacheHitRatio;
     }
 
-    private Long[] getInternalThreadIds() {
-        // if internalThreadScanLimit>0, check for additional system threads which are known to ThreadMXBean
-        // but are not returned by ThreadMXBean.getAllThreadIds. We only do this once.
-        Map seen = new HashMap<Long, Object>();
-        for (long id : threadMXBean.getAllThreadIds()) {
-            seen.put(id, null);  // record normal threads
+    /**
+     * Get thread cache miss window (&lt;0 if not available).
+     * @return the time in milliseconds between the previous thread cache refresh and the refresh which most recently found a top thread missing from the cache
+     */
+    public long getThreadCacheMissWindow() {
+        return this.threadCacheMissWindow;
+    }
+
+    /**
+     * Limit the number of randomly sampled threads per update (thread coverage), e.g. to bound the cost of thread usage
+     * updates. A limit switches on statistical thread sampling with a sampling size of at most threadSamplingLimit threads
+     * (see thread.usage.sampling.enabled); 0 removes the limit and restores the configured thread sampling mode.
+     *
+     * @param threadSamplingLimit the maximum thread sampling size (0 = no limit)
+     */
+    public synchronized void setThreadSamplingLimit(int threadSamplingLimit) {
+
+        this.threadSamplingLimit = Math.max(threadSamplingLimit, 0);
+        int samplingSize = configuredThreadSamplingSize;
+        if (this.threadSamplingLimit > 0) {
+            samplingSize = samplingSize > 0 ? Math.min(samplingSize, this.threadSamplingLimit) : this.threadSamplingLimit;
         }
-        List<Long> internalIds = new ArrayList<Long>();
-        // now scan for unseen ids in range [1,internalThreadScanLimit] inclusive.
-        for (long id = 1; id <= this.internalThreadScanLimit; id++) {
-            if (seen.containsKey(id))
-                continue;
-            if (threadMXBean.getThreadInfo(id) != null)
-                internalIds.add(id);
+        this.threadSamplingEnabled = samplingSize > 0;
+        this.threadSamplingSize = samplingSize;
+        if (newThreadIds.length != samplingSize) {
+            // newThreadIds is refilled on the next thread history refresh
+            this.newThreadIds = new long[samplingSize];
+            this.newThreadCount = 0;
         }
-        return internalIds.toArray(new Long[internalIds.size()]);
+    }
+
+    public synchronized int getThreadSamplingLimit() {
+        return threadSamplingLimit;
+    }
+
+    /**
+     * Get the number of threads sampled during the last update.
+     * @return the sampled thread count
+     */
+    public long getSampledThreadCount() {
+        return this.sampledThreadTotal;
+    }
+
+    public double getCpuUsageMarginOfError() {
+        return this.cpuUsageMarginOfError;
+    }
+
+    public double getRunnableThreadCountMarginOfError() {
+        return this.runnableThreadCountMarginOfError;
+    }
+
+    public double getBlockedThreadCountMarginOfError() {
+        return this.blockedThreadCountMarginOfError;
+    }
+
+    public double getWaitingThreadCountMarginOfError() {
+        return this.waitingThreadCountMarginOfError;
+    }
+
+    public double getTimedWaitingThreadCountMarginOfError() {
+        return this.timedWaitingThreadCountMarginOfError;
     }
 
     /**
@@ -502,10 +858,7 @@ public class ThreadUsage {
 
     public synchronized void updateTopThreads() {
 
-        Object[] threadCpuTimeArray = cpuTimeMap.descendingKeySet().toArray();
-        int threadCounter = 1;
         String threadName;
-        List<Long> threadIds;
         State threadState;
         double threadCpuUsage;
         int topThreadLimit;
@@ -515,45 +868,81 @@ public class ThreadUsage {
         } else {
             topThreadLimit = topThreadCount;
         }
-        threadLimitLoop:
-        for (int i = 0; i < topThreadLimit; i++) {
-            // get threadIds
-            threadIds = cpuTimeMap.get((Long) threadCpuTimeArray[i]);
-            for (long threadId : threadIds) {
+        // select top threads by interval CPU time or CPU usage load average
+        selectTopThreads(getTopThreadRankingTimes(), topThreadLimit, topThreadSelector);
+        for (int rank = 0; rank < topThreadSelector.size(); rank++) {
+
+            int threadCounter = rank + 1;
+            int slot = (int) topThreadSelector.getValue(rank);
+            long threadId = threadHistory.getId(slot);
+            // get cpuUsage
+            threadCpuUsage = threadHistory.getCpuUsage(slot);
+            // get threadName
+            threadName = threadHistory.getName(slot);
+            // get threadState
+            threadState = threadHistory.getState(slot);
+            // retrieve threadCounter TopThread
+            TopThread topThreadsMBean = topThreadsMap.get(threadCounter);
+            // update topThreadsMBean attributes
+            topThreadsMBean.setThreadName(threadName);
+            topThreadsMBean.setThreadId(threadId);
+            topThreadsMBean.setThreadState(threadState);
+            topThreadsMBean.setThreadCpuUsage(threadCpuUsage);
+            topThreadsMBean.setThreadCpuUsage1m(threadHistory.getCpuUsage1m(slot));
+            topThreadsMBean.setThreadCpuUsage5m(threadHistory.getCpuUsage5m(slot));
+            topThreadsMBean.setThreadCpuUsage15m(threadHistory.getCpuUsage15m(slot));
+            topThreadsMBean.setThreadCpuUsageHistory(threadHistory, slot);
+            LOGGER.fine("threadCounter: " + threadCounter + ", threadCpuUsage: " + threadCpuUsage + ", threadId: " + threadId);
+        }
 
-                // get cpuUsage
-                threadCpuUsage = threadHistory.get(threadId).cpuUsage;
-                // get threadName
-                threadName = threadHistory.get(threadId).name;
-                // get threadState
-                threadState = threadHistory.get(threadId).state;
-                // retrieve threadCounter TopThread
-                TopThread topThreadsMBean = topThreadsMap.get(threadCounter);
-                // update topThreadsMBean attributes
-                topThreadsMBean.setThreadName(threadName);
-                topThreadsMBean.setThreadId(threadId);
-                topThreadsMBean.setThreadState(threadState);
-                topThreadsMBean.setThreadCpuUsage(threadCpuUsage);
-                LOGGER.fine("threadCounter: " + threadCounter + ", threadCpuUsage: " + threadCpuUsage + ", threadId: " + threadId);
-                // check threadCount
-                if (threadCounter == topThreadLimit) {
-                    // topThreadCount reached - break out of loop
-                    break threadLimitLoop;
-                }
-                // increment threadCounter
-                threadCounter++;
+    }
+
+    /**
+     * Get the sampled thread times to rank top threads by according to the top thread ranking metric.
+     */
+    private long[] getTopThreadRankingTimes() {
+
+        String topThreadRanking = this.topThreadRanking;
+        if (topThreadRanking.equals(TOP_THREAD_RANKING_INTERVAL)) {
+            return sampledCpuTimes;
+        }
+        for (int i = 0; i < sampledThreadCount; i++) {
+            int slot = sampledSlots[i];
+            double loadAverage;
+            if (topThreadRanking.equals(TOP_THREAD_RANKING_1M)) {
+                loadAverage = threadHistory.getCpuUsage1m(slot);
+            } else if (topThreadRanking.equals(TOP_THREAD_RANKING_5M)) {
+                loadAverage = threadHistory.getCpuUsage5m(slot);
+            } else {
+                loadAverage = threadHistory.getCpuUsage15m(slot);
             }
+            // rank by CPU usage load average to 3 decimal places
+            sampledCpuLoadAverages[i] = (long) (loadAverage * 1000);
+        }
+        return sampledCpuLoadAverages;
+    }
+
+    /**
+     * Set the metric used to rank top threads.
+     * @param topThreadRanking one of interval, 1m, 5m or 15m
+     */
+    public void setTopThreadRanking(String topThreadRanking) {
 
+        String ranking = topThreadRanking == null ? "" : topThreadRanking.trim();
+        if (!(ranking.equals(TOP_THREAD_RANKING_INTERVAL) || ranking.equals(TOP_THREAD_RANKING_1M) ||
+                ranking.equals(TOP_THREAD_RANKING_5M) || ranking.equals(TOP_THREAD_RANKING_15M))) {
+            throw new IllegalArgumentException("Invalid top thread ranking: " + topThreadRanking);
         }
+        this.topThreadRanking = ranking;
+    }
 
+    public String getTopThreadRanking() {
+        return this.topThreadRanking;
     }
 
     public synchronized void updateBlockedThreads() {
 
-        Object[] threadBlockedTimeArray = blockedTimeMap.descendingKeySet().toArray();
-        int threadCounter = 1;
         String threadName;
-        List<Long> threadIds;
         State threadState;
         long threadBlockedTime;
         int blockedThreadLimit;
@@ -563,78 +952,222 @@ public class ThreadUsage {
         } else {
             blockedThreadLimit = blockedThreadsCount;
         }
-        threadLimitLoop:
-        for (int i = 0; i < blockedThreadLimit; i++) {
-            // get threadIds
-            threadIds = blockedTimeMap.get((Long) threadBlockedTimeArray[i]);
-            for (long threadId : threadIds) {
-
-                // get blockedTime
-                threadBlockedTime = threadHistory.get(threadId).intervalBlockedTime;
-                if (threadBlockedTime > 0) {
-
-                    /*
-                    /  this thread has registered some blocked time during this interval
-                    */
-
-                    // get interval time difference
-                    long timeDiff = threadHistory.get(threadId).interval;
-                    // calculate percentage of interval time spent blocked
-                    double threadBlockedPercentage = 0.0;
-                    if (timeDiff > 0) {
-                        threadBlockedPercentage = ((((double) threadBlockedTime) * 1000000) / (double) timeDiff) * 100;
-                    }
-                    // get threadName
-                    threadName = threadHistory.get(threadId).name;
-                    // get threadState
-                    threadState = threadHistory.get(threadId).state;
-                    // retrieve threadCounter BlockedThread
-                    BlockedThread blockedThreadMBean = blockedThreadsMap.get(threadCounter);
-                    // and update blockedThreadMBean attributes
-                    blockedThreadMBean.setThreadName(threadName);
-                    blockedThreadMBean.setThreadId(threadId);
-                    blockedThreadMBean.setThreadState(threadState);
-                    blockedThreadMBean.setThreadBlockedTime(threadBlockedTime);
-                    blockedThreadMBean.setThreadBlockedPercentage(threadBlockedPercentage);
-                } else {
-
-                    /*
-                    /  this thread hasn't registered any blocked time during this interval
-                    */
-
-                    // retrieve threadCounter BlockedThread
-                    BlockedThread blockedThreadMBean = blockedThreadsMap.get(threadCounter);
-                    // and update blockedThreadMBean attributes with null values
-                    blockedThreadMBean.setThreadName(null);
-                    blockedThreadMBean.setThreadId(0);
-                    blockedThreadMBean.setThreadState(null);
-                    blockedThreadMBean.setThreadBlockedTime(0);
-                    blockedThreadMBean.setThreadBlockedPercentage(0.0);
+        // select top threads by interval blocked time
+        selectTopThreads(sampledBlockedTimes, blockedThreadLimit, blockedThreadSelector);
+        for (int rank = 0; rank < blockedThreadSelector.size(); rank++) {
+
+            int threadCounter = rank + 1;
+            int slot = (int) blockedThreadSelector.getValue(rank);
+            long threadId = threadHistory.getId(slot);
+            // get blockedTime
+            threadBlockedTime = threadHistory.getIntervalBlockedTime(slot);
+            if (threadBlockedTime > 0) {
+
+                /*
+                /  this thread has registered some blocked time during this interval
+                */
+
+                // get interval time difference
+                long timeDiff = threadHistory.getInterval(slot);
+                // calculate percentage of interval time spent blocked
+                double threadBlockedPercentage = 0.0;
+                if (timeDiff > 0) {
+                    threadBlockedPercentage = ((((double) threadBlockedTime) * 1000000) / (double) timeDiff) * 100;
                 }
+                // get threadName
+                threadName = threadHistory.getName(slot);
+                // get threadState
+                threadState = threadHistory.getState(slot);
+                // retrieve threadCounter BlockedThread
+                BlockedThread blockedThreadMBean = blockedThreadsMap.get(threadCounter);
+                // and update blockedThreadMBean attributes
+                blockedThreadMBean.setThreadName(threadName);
+                blockedThreadMBean.setThreadId(threadId);
+                blockedThreadMBean.setThreadState(threadState);
+                blockedThreadMBean.setThreadBlockedTime(threadBlockedTime);
+                blockedThreadMBean.setThreadBlockedPercentage(threadBlockedPercentage);
+                blockedThreadMBean.setThreadBlockedTimeEstimated(contentionTimeEstimated);
+            } else {
+
+                /*
+                /  this thread hasn't registered any blocked time during this interval
+                */
+
+                // retrieve threadCounter BlockedThread
+                BlockedThread blockedThreadMBean = blockedThreadsMap.get(threadCounter);
+                // and update blockedThreadMBean attributes with null values
+                blockedThreadMBean.setThreadName(null);
+                blockedThreadMBean.setThreadId(0);
+                blockedThreadMBean.setThreadState(null);
+                blockedThreadMBean.setThreadBlockedTime(0);
+                blockedThreadMBean.setThreadBlockedPercentage(0.0);
+                blockedThreadMBean.setThreadBlockedTimeEstimated(contentionTimeEstimated);
+            }
+
+            LOGGER.fine("threadCounter: " + threadCounter + ", threadBlockedTime: " + threadBlockedTime + ", threadId: " + threadId);
+        }
+
+    }
+
+    public synchronized void updateWaitingThreads() {
 
-                LOGGER.fine("threadCounter: " + threadCounter + ", threadBlockedTime: " + threadBlockedTime + ", threadId: " + threadId);
-                // check threadCount
-                if (threadCounter == blockedThreadLimit) {
-                    // blockedThreadsCount reached - break out of loop
-                    break threadLimitLoop;
+        String threadName;
+        State threadState;
+        long threadWaitedTime;
+        int waitingThreadLimit;
+        // handle situation where threadCount less than waitingThreadsCount
+        if (threadCount < waitingThreadsCount) {
+            waitingThreadLimit = (int) threadCount;
+        } else {
+            waitingThreadLimit = waitingThreadsCount;
+        }
+        // select top threads by interval waited time
+        selectTopThreads(sampledWaitedTimes, waitingThreadLimit, waitingThreadSelector);
+        for (int rank = 0; rank < waitingThreadSelector.size(); rank++) {
+
+            int threadCounter = rank + 1;
+            int slot = (int) waitingThreadSelector.getValue(rank);
+            long threadId = threadHistory.getId(slot);
+            // get waitedTime
+            threadWaitedTime = threadHistory.getIntervalWaitedTime(slot);
+            // retrieve threadCounter WaitingThread
+            WaitingThread waitingThreadMBean = waitingThreadsMap.get(threadCounter);
+            if (threadWaitedTime > 0) {
+
+                /*
+                /  this thread has registered some waited time during this interval
+                */
+
+                // get interval time difference
+                long timeDiff = threadHistory.getInterval(slot);
+                // calculate percentage of interval time spent waiting
+                double threadWaitedPercentage = 0.0;
+                if (timeDiff > 0) {
+                    threadWaitedPercentage = ((((double) threadWaitedTime) * 1000000) / (double) timeDiff) * 100;
                 }
-                // increment threadCounter
-                threadCounter++;
+                // get threadName
+                threadName = threadHistory.getName(slot);
+                // get threadState
+                threadState = threadHistory.getState(slot);
+                // update waitingThreadMBean attributes
+                waitingThreadMBean.setThreadName(threadName);
+                waitingThreadMBean.setThreadId(threadId);
+                waitingThreadMBean.setThreadState(threadState);
+                waitingThreadMBean.setThreadWaitedTime(threadWaitedTime);
+                waitingThreadMBean.setThreadWaitedPercentage(threadWaitedPercentage);
+                waitingThreadMBean.setThreadWaitedTimeEstimated(contentionTimeEstimated);
+            } else {
+
+                /*
+                /  this thread hasn't registered any waited time during this interval
+                */
+
+                // update waitingThreadMBean attributes with null values
+                waitingThreadMBean.setThreadName(null);
+                waitingThreadMBean.setThreadId(0);
+                waitingThreadMBean.setThreadState(null);
+                waitingThreadMBean.setThreadWaitedTime(0);
+                waitingThreadMBean.setThreadWaitedPercentage(0.0);
+                waitingThreadMBean.setThreadWaitedTimeEstimated(contentionTimeEstimated);
             }
 
+            LOGGER.fine("threadCounter: " + threadCounter + ", threadWaitedTime: " + threadWaitedTime + ", threadId: " + threadId);
         }
 
     }
 
+    public synchronized void updateTopAllocators() {
+
+        int topAllocatorLimit;
+        // handle situation where threadCount less than topAllocatorCount
+        if (threadCount < topAllocatorCount) {
+            topAllocatorLimit = (int) threadCount;
+        } else {
+            topAllocatorLimit = topAllocatorCount;
+        }
+        // select top allocators by interval allocation rate
+        selectTopThreads(sampledAllocationRates, topAllocatorLimit, topAllocatorSelector);
+        for (int rank = 0; rank < topAllocatorSelector.size(); rank++) {
+
+            int threadCounter = rank + 1;
+            int slot = (int) topAllocatorSelector.getValue(rank);
+            long threadId = threadHistory.getId(slot);
+            // get allocation rate in bytes/sec
+            long allocationRate = topAllocatorSelector.getKey(rank);
+            // calculate share of the total allocation rate
+            double threadAllocationShare = 0.0;
+            if (totalAllocationRate > 0) {
+                threadAllocationShare = ((double) allocationRate / totalAllocationRate) * 100;
+            }
+            // retrieve threadCounter TopAllocator
+            TopAllocator topAllocatorMBean = topAllocatorsMap.get(threadCounter);
+            // update topAllocatorMBean attributes
+            topAllocatorMBean.setThreadName(threadHistory.getName(slot));
+            topAllocatorMBean.setThreadId(threadId);
+            topAllocatorMBean.setThreadState(threadHistory.getState(slot));
+            topAllocatorMBean.setThreadAllocationRate((double) allocationRate / Constants.ONE_MEGA_BYTE);
+            topAllocatorMBean.setThreadAllocationShare(threadAllocationShare);
+            LOGGER.fine("threadCounter: " + threadCounter + ", threadAllocationRate: " + allocationRate + ", threadId: " + threadId);
+        }
+
+    }
+
+    /**
+     * Select the top threadLimit sampled threads ranked by threadTimes, e.g. sampledCpuTimes.
+     *
+     * @param threadTimes the sampled thread times to rank by
+     * @param threadLimit the number of threads to select
+     * @param selector    the selector used to hold the ranked threadHistory slots
+     */
+    private void selectTopThreads(long[] threadTimes, int threadLimit, TopKSelector selector) {
+
+        selector.reset(threadLimit);
+        for (int i = 0; i < sampledThreadCount; i++) {
+            selector.offer(threadTimes[i], sampledSlots[i]);
+        }
+        selector.sort();
+    }
+
+    /**
+     * The ThreadMXBean array operations size their results from the thread ID array, so rather than allocate an exactly
+     * sized array whenever the sample size changes the thread ID buffer is padded with NO_THREAD_ID. The buffer is only
+     * re-allocated when the sample size outgrows it or shrinks to well below its length (to bound the padding).
+     */
+    private static long[] ensureThreadIdCapacity(long[] threadIds, int sampleSize) {
+
+        if (sampleSize > threadIds.length || sampleSize < threadIds.length - (threadIds.length >> 2)) {
+            return new long[sampleSize + (sampleSize >> 3)];
+        }
+        return threadIds;
+    }
+
+    private void ensureSampleCapacity(int sampleSize) {
+
+        if (sampleSize > sampledSlots.length) {
+            // grow sample buffers with some headroom to avoid re-allocating as the thread count creeps up
+            int capacity = sampleSize + (sampleSize >> 2);
+            this.sampledSlots = new int[capacity];
+            this.sampledCpuTimes = new long[capacity];
+            this.sampledBlockedTimes = new long[capacity];
+            this.sampledWaitedTimes = new long[capacity];
+            this.sampledAllocationRates = new long[capacity];
+            this.sampledCpuLoadAverages = new long[capacity];
+            this.sampleCpuTimes = new long[capacity];
+            this.sampleUserTimes = new long[capacity];
+            this.sampleSystemTimes = new long[capacity];
+        }
+    }
+
     /**
      * Get total CPU time so far in nanoseconds.
      * @return the total CPU time in nanoseconds
      */
-    public long getTotalCpuTime() {
-        final Collection<ThreadInfo> hist = threadHistory.values();
+    public synchronized long getTotalCpuTime() {
         long time = 0L;
-        for (ThreadInfo threadInfo : hist) {
-            time += threadInfo.endCpuTime - threadInfo.startCpuTime;
+        for (int slot = 0; slot < threadHistory.capacity(); slot++) {
+            if (threadHistory.isOccupied(slot)) {
+                time += threadHistory.getEndCpuTime(slot) - threadHistory.getStartCpuTime(slot);
+            }
         }
         return time;
     }
@@ -643,11 +1176,12 @@ public class ThreadUsage {
      * Get total user time so far in nanoseconds.
      * @return the total user time in nanoseconds
      */
-    public long getTotalUserTime() {
-        final Collection<ThreadInfo> hist = threadHistory.values();
+    public synchronized long getTotalUserTime() {
         long time = 0L;
-        for (ThreadInfo threadInfo : hist) {
-            time += threadInfo.endUserTime - threadInfo.startUserTime;
+        for (int slot = 0; slot < threadHistory.capacity(); slot++) {
+            if (threadHistory.isOccupied(slot)) {
+                time += threadHistory.getEndUserTime(slot) - threadHistory.getStartUserTime(slot);
+            }
         }
         return time;
     }
@@ -728,10 +1262,27 @@ public class ThreadUsage {
         this.timedWaitingThreadCount = timedWaitingThreadCount;
     }
 
-    private void initHotMethodTracker(Map<Integer, TopThread> topThreadsMap, HotMethods hotMethods, long pollInterval) {
-
+    /**
+     * Start the hot method sampler selected via the hot.method.sampler property, falling back to the ThreadMXBean
+     * HotMethodTracker where the selected sampler is not supported by the monitored JVM.
+     */
+    private void initHotMethodTracker(Configurator config, HotMethods hotMethods, long pollInterval, int maxDepth) {
+
+        if (Constants.HOT_METHOD_SAMPLER_JFR.equalsIgnoreCase(config.getHotMethodSampler())) {
+            // JFR can only sample the JVM the agent is running in
+            if (JfrHotMethodSampler.isSupported() && config.getMBeanServerConnection() == ManagementFactory.getPlatformMBeanServer()) {
+                try {
+                    new JfrHotMethodSampler(hotMethods, pollInterval, maxDepth).start();
+                    LOGGER.info("Using JFR hot method sampler.");
+                    return;
+                } catch (RuntimeException e) {
+                    LOGGER.warning("Unable to initialise JFR hot method sampler due to: " + e.getMessage());
+                }
+            }
+            LOGGER.warning("JFR hot method sampler not supported for this JVM - falling back to ThreadMXBean hot method sampler.");
+        }
         // create new TimerTask to run hot method tracker
-        TimerTask hotMethodTracker = new HotMethodTracker(topThreadsMap, hotMethods);
+        this.hotMethodTracker = new HotMethodTracker(threadMXBean, hotMethods, maxDepth);
         // create new Timer to schedule hot method tracker
         Timer timer = new Timer("Top4J Method Profiler", true);
         // run hot method tracker at fixed interval
@@ -739,21 +1290,416 @@ public class ThreadUsage {
 
     }
 
+    /**
+     * Enable per-thread allocation rate tracking via the com.sun.management.ThreadMXBean and publish the top allocating
+     * threads to topAllocatorsMap on each update.
+     *
+     * @param topAllocatorsMap the TopAllocator MBeans keyed by rank
+     */
+    public synchronized void initTopAllocatorTracker(Map<Integer, TopAllocator> topAllocatorsMap) {
+
+        try {
+            this.allocationThreadMXBean = ManagementFactory.getPlatformMXBean(mbeanServer, com.sun.management.ThreadMXBean.class);
+        } catch (IllegalArgumentException | IOException e) {
+            LOGGER.warning("Thread allocation tracking not supported by this JVM: com.sun.management.ThreadMXBean not available.");
+            return;
+        }
+        if (!allocationThreadMXBean.isThreadAllocatedMemorySupported()) {
+            LOGGER.warning("Thread allocation tracking not supported by this JVM.");
+            return;
+        }
+        if (!allocationThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+            // enable thread allocated memory measurement
+            allocationThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        this.topAllocatorsMap = topAllocatorsMap;
+        this.topAllocatorCount = topAllocatorsMap.size();
+        this.topAllocatorTrackingEnabled = true;
+        LOGGER.fine("Thread Allocated Memory Enabled: " + allocationThreadMXBean.isThreadAllocatedMemoryEnabled());
+    }
+
+    /**
+     * Enable waited time tracking and publish the top waiting threads to waitingThreadsMap on each update. Thread waited
+     * time is measured while thread contention monitoring is active and estimated from the sampled thread states otherwise.
+     *
+     * @param waitingThreadsMap the WaitingThread MBeans keyed by rank
+     */
+    public synchronized void initWaitingThreadTracker(Map<Integer, WaitingThread> waitingThreadsMap) {
+
+        if (!threadContentionMonitoringEnabled) {
+            LOGGER.warning("Waiting thread tracking requires thread contention monitoring.");
+            return;
+        }
+        this.waitingThreadsMap = waitingThreadsMap;
+        this.waitingThreadsCount = waitingThreadsMap.size();
+        this.waitingThreadTrackingEnabled = true;
+    }
+
+    /**
+     * Enable thread group aggregation - thread usage is aggregated by thread group after each update.
+     *
+     * @param threadGroups the thread group aggregator
+     */
+    public synchronized void initThreadGroupTracker(ThreadGroups threadGroups) {
+
+        this.threadGroups = threadGroups;
+    }
+
+    /**
+     * Enable hot lock tracking - a wait-for graph of the sampled threads is built on each update and the most contended
+     * locks are ranked.
+     *
+     * @param hotLocks the hot lock aggregator
+     */
+    public synchronized void initHotLockTracker(HotLocks hotLocks) {
+
+        this.hotLocks = hotLocks;
+    }
+
+    /**
+     * Get the total bytes allocated by each of threadIds (-1 for threads which have died) in a single JMX call.
+     */
+    private long[] getThreadAllocatedBytes(long[] threadIds) {
+
+        try {
+            return allocationThreadMXBean.getThreadAllocatedBytes(threadIds);
+        } catch (RuntimeException e) {
+            // the target JVM doesn't support the array based operation - disable allocation tracking from now on
+            LOGGER.warning("Thread allocation tracking failed due to: " + e.getMessage() + " - disabling thread allocation tracking.");
+            this.topAllocatorTrackingEnabled = false;
+            return null;
+        }
+    }
+
     public HotMethods getHotMethods() {
         return this.hotMethods;
     }
 
     /**
-     * Refresh top thread cache (aka threadCache). The threadCache is an array of threadCacheSize thread IDs which have consumed the most CPU time since the last cache refresh.
+     * @return the ThreadMXBean hot method tracker or null if hot method profiling is disabled or samples are taken via JFR
+     */
+    public HotMethodTracker getHotMethodTracker() {
+        return this.hotMethodTracker;
+    }
+
+    /**
+     * Select the threads to sample this tick into the thread cache, i.e. an exact stratum of hot and newly started threads,
+     * followed by a random stratum of threadSamplingSize threads taken from a shuffled round of all threads. Every thread is
+     * visited once per round, so each thread is sampled at least once every 2 * ceil(threadCount / threadSamplingSize) ticks.
+     */
+    private void selectThreadSample() {
+
+        int capacity = hotThreadCount + newThreadCount + threadSamplingSize;
+        if (threadCacheSlots.length < capacity) {
+            this.threadCacheSlots = new int[capacity];
+        }
+        exactSampleIds.clear();
+        this.threadCacheCount = 0;
+        // exact stratum - hot threads and new threads are sampled every tick
+        for (int i = 0; i < hotThreadCount; i++) {
+            addExactSample(hotThreadIds[i]);
+        }
+        for (int i = 0; i < newThreadCount; i++) {
+            addExactSample(newThreadIds[i]);
+        }
+        this.exactSampleCount = threadCacheCount;
+        // random stratum - next threadSamplingSize threads from the current round
+        int randomSampleCount = 0;
+        int visited = 0;
+        int liveThreadCount = threadHistory.size();
+        while (randomSampleCount < threadSamplingSize && visited < liveThreadCount) {
+            if (threadSamplingPosition >= threadSamplingRoundSize) {
+                startThreadSamplingRound();
+            }
+            long id = threadSamplingOrder[threadSamplingPosition++];
+            visited++;
+            int slot = threadHistory.indexOf(id);
+            if (slot < 0 || exactSampleIds.get(id) >= 0 || threadHistory.getState(slot) == State.TERMINATED) {
+                // thread died or already sampled this tick
+                continue;
+            }
+            threadCacheSlots[threadCacheCount++] = slot;
+            randomSampleCount++;
+        }
+        LOGGER.fine("Sampling " + exactSampleCount + " hot/new threads and " + randomSampleCount + " random threads of " + liveThreadCount + " threads.");
+    }
+
+    private void addExactSample(long id) {
+
+        int slot = threadHistory.indexOf(id);
+        if (slot >= 0 && exactSampleIds.get(id) < 0) {
+            exactSampleIds.put(id, threadCacheCount);
+            threadCacheSlots[threadCacheCount++] = slot;
+        }
+    }
+
+    /**
+     * Start a new sampling round - a random permutation of all threads.
+     */
+    private void startThreadSamplingRound() {
+
+        int liveThreadCount = threadHistory.size();
+        if (threadSamplingOrder.length < liveThreadCount) {
+            this.threadSamplingOrder = new long[liveThreadCount + (liveThreadCount >> 2)];
+        }
+        int count = 0;
+        for (int slot = 0; slot < threadHistory.capacity(); slot++) {
+            if (threadHistory.isOccupied(slot)) {
+                threadSamplingOrder[count++] = threadHistory.getId(slot);
+            }
+        }
+        // refresh the full set of thread IDs once per round
+        this.threadSamplingRefreshDue = true;
+        // Fisher-Yates shuffle
+        for (int i = count - 1; i > 0; i--) {
+            int j = threadSamplingRandom.nextInt(i + 1);
+            long id = threadSamplingOrder[i];
+            threadSamplingOrder[i] = threadSamplingOrder[j];
+            threadSamplingOrder[j] = id;
+        }
+        this.threadSamplingRoundSize = count;
+        this.threadSamplingPosition = 0;
+    }
+
+    /**
+     * Remember the top HOT_THREAD_SET_FACTOR * topThreadCount threads by CPU (and blocked) time sampled this tick.
+     */
+    private void rememberHotThreads() {
+
+        int capacity = HOT_THREAD_SET_FACTOR * (topThreadCount + blockedThreadsCount);
+        if (hotThreadIds.length < capacity) {
+            this.hotThreadIds = new long[capacity];
+        }
+        this.hotThreadCount = 0;
+        rememberHotThreads(sampledCpuTimes, HOT_THREAD_SET_FACTOR * topThreadCount);
+        if (threadContentionMonitoringEnabled) {
+            rememberHotThreads(sampledBlockedTimes, HOT_THREAD_SET_FACTOR * blockedThreadsCount);
+        }
+    }
+
+    private void rememberHotThreads(long[] threadTimes, int threadLimit) {
+
+        selectTopThreads(threadTimes, threadLimit, threadCacheSelector);
+        for (int rank = 0; rank < threadCacheSelector.size(); rank++) {
+            if (threadCacheSelector.getKey(rank) > 0) {
+                hotThreadIds[hotThreadCount++] = threadHistory.getId((int) threadCacheSelector.getValue(rank));
+            }
+        }
+    }
+
+    /**
+     * Estimate global CPU usage and thread state counts from the current sample.
+     * <p>
+     * The exact stratum (hot and new threads) is counted as is; the random stratum is scaled up to the remaining thread
+     * population, with a 95% margin of error derived from the sample variance (including the finite population correction).
+     */
+    private void estimateGlobalCounters() {
+
+        int exactCount = 0;
+        double exactCpuUsage = 0;
+        double exactUserCpuUsage = 0;
+        Arrays.fill(exactStateCounts, 0);
+        int randomCount = 0;
+        double randomCpuUsage = 0;
+        double randomCpuUsageSquares = 0;
+        double randomUserCpuUsage = 0;
+        Arrays.fill(randomStateCounts, 0);
+        for (int i = 0; i < threadCacheCount; i++) {
+            int slot = threadCacheSlots[i];
+            State state = threadHistory.getState(slot);
+            if (state == null || state == State.TERMINATED) {
+                // thread died
+                continue;
+            }
+            double threadCpuUsage = threadHistory.getCpuUsage(slot);
+            if (i < exactSampleCount) {
+                exactCount++;
+                exactCpuUsage += threadCpuUsage;
+                exactUserCpuUsage += threadHistory.getUserCpuUsage(slot);
+                exactStateCounts[state.ordinal()]++;
+            } else {
+                randomCount++;
+                randomCpuUsage += threadCpuUsage;
+                randomCpuUsageSquares += threadCpuUsage * threadCpuUsage;
+                randomUserCpuUsage += threadHistory.getUserCpuUsage(slot);
+                randomStateCounts[state.ordinal()]++;
+            }
+        }
+        // the random stratum population is every live thread outside the exact stratum (threadHistory still holds threads
+        // which have died since the last full refresh, so count live threads via ThreadMXBean)
+        long liveThreadCount = threadMXBean.getThreadCount() + internalThreadCount;
+        long population = Math.max(liveThreadCount - exactCount, randomCount);
+        double scale = randomCount > 0 ? (double) population / randomCount : 0;
+        double finitePopulationCorrection = population > 0 ? 1 - ((double) randomCount / population) : 0;
+        double cpuUsageVariance = 0;
+        if (randomCount > 1) {
+            cpuUsageVariance = Math.max((randomCpuUsageSquares - (randomCpuUsage * randomCpuUsage / randomCount)) / (randomCount - 1), 0);
+        }
+
+        // do this here to keep (semi-)synchronised with thread cpu calculation
+        updateProcessCpuTime();
+
+        double totalCpuTime = exactCpuUsage + scale * randomCpuUsage;
+        double totalUserCpuTime = exactUserCpuUsage + scale * randomUserCpuUsage;
+        // update cpuUsage
+        this.cpuUsage = totalCpuTime / numberOfProcessors;
+        this.cpuUsageMarginOfError = randomCount > 0 ? CONFIDENCE_Z_SCORE * population * Math.sqrt(finitePopulationCorrection * cpuUsageVariance / randomCount) / numberOfProcessors : 0;
+        LOGGER.fine("CPU Usage = " + this.cpuUsage + " +/- " + this.cpuUsageMarginOfError);
+        // update userCpuUsage
+        this.userCpuUsage = totalUserCpuTime / numberOfProcessors;
+        // update sysCpuUsage
+        if (totalCpuTime > 0 && totalCpuTime > totalUserCpuTime) {
+            this.sysCpuUsage = (totalCpuTime - totalUserCpuTime) / numberOfProcessors;
+        }
+        else {
+            this.sysCpuUsage = 0.0;
+        }
+        // update threadCount - known exactly from the full set of thread IDs
+        this.setThreadCount(liveThreadCount);
+        // update state specific thread counts
+        this.setRunnableThreadCount(estimateStateCount(State.RUNNABLE, randomCount, population));
+        this.runnableThreadCountMarginOfError = stateCountMarginOfError(State.RUNNABLE, randomCount, population, finitePopulationCorrection);
+        this.setBlockedThreadCount(estimateStateCount(State.BLOCKED, randomCount, population));
+        this.blockedThreadCountMarginOfError = stateCountMarginOfError(State.BLOCKED, randomCount, population, finitePopulationCorrection);
+        this.setWaitingThreadCount(estimateStateCount(State.WAITING, randomCount, population));
+        this.waitingThreadCountMarginOfError = stateCountMarginOfError(State.WAITING, randomCount, population, finitePopulationCorrection);
+        this.setTimedWaitingThreadCount(estimateStateCount(State.TIMED_WAITING, randomCount, population));
+        this.timedWaitingThreadCountMarginOfError = stateCountMarginOfError(State.TIMED_WAITING, randomCount, population, finitePopulationCorrection);
+    }
+
+    private long estimateStateCount(State state, int randomCount, long population) {
+
+        double estimate = exactStateCounts[state.ordinal()];
+        if (randomCount > 0) {
+            estimate += (double) population * randomStateCounts[state.ordinal()] / randomCount;
+        }
+        return Math.round(estimate);
+    }
+
+    private double stateCountMarginOfError(State state, int randomCount, long population, double finitePopulationCorrection) {
+
+        if (randomCount < 2) {
+            return 0;
+        }
+        double proportion = (double) randomStateCounts[state.ordinal()] / randomCount;
+        return CONFIDENCE_Z_SCORE * population * Math.sqrt(finitePopulationCorrection * proportion * (1 - proportion) / (randomCount - 1));
+    }
+
+    /**
+     * Scale time (e.g. CPU time consumed during interval) to a per second rate so that threads sampled over different intervals can be ranked.
+     */
+    private long perSecond(long time, long interval) {
+
+        if (interval <= 0) {
+            return 0;
+        }
+        return (long) (((double) time * 1000000000) / interval);
+    }
+
+    /**
+     * Estimate the time in milliseconds a thread spent in a state (or in one of two states) during the last interval from the
+     * states sampled at the start and end of the interval. A thread seen in the state at both ends is assumed to have been in
+     * it for the whole interval and a thread seen in the state at one end only for half of it.
+     */
+    private long estimateStateTime(State previousState, State state, State estimatedState, State otherEstimatedState, long interval) {
+
+        int samples = 0;
+        if (previousState != null && (previousState == estimatedState || previousState == otherEstimatedState)) {
+            samples++;
+        }
+        if (state != null && (state == estimatedState || state == otherEstimatedState)) {
+            samples++;
+        }
+        return interval * samples / 2000000;
+    }
+
+    /**
+     * Switch adaptive thread contention monitoring on as soon as the sampled BLOCKED thread count reaches the threshold and
+     * off again once the count has stayed below the threshold for a whole window of iterations.
+     */
+    private synchronized void updateContentionMonitoring() {
+
+        if (sampledBlockedThreadCount >= contentionMonitoringThreshold) {
+            // threads are contended - (re)start the monitoring window
+            this.uncontendedIterations = 0;
+            if (!contentionMonitoringActive) {
+                LOGGER.fine("Blocked thread count " + sampledBlockedThreadCount + " reached threshold - enabling thread contention monitoring.");
+                setContentionMonitoringActive(true);
+            }
+        } else if (contentionMonitoringActive && ++uncontendedIterations >= contentionMonitoringWindow) {
+            // contention has cleared for a whole window - stop paying for thread contention monitoring
+            LOGGER.fine("Thread contention cleared for " + uncontendedIterations + " iterations - disabling thread contention monitoring.");
+            setContentionMonitoringActive(false);
+            this.uncontendedIterations = 0;
+        }
+    }
+
+    private void setContentionMonitoringActive(boolean active) {
+
+        if (active) {
+            // the JVM resets the thread blocked and waited times when contention monitoring is enabled - reset the thread history to match
+            for (int slot = 0; slot < threadHistory.capacity(); slot++) {
+                if (threadHistory.isOccupied(slot)) {
+                    threadHistory.setLastBlockedTime(slot, 0);
+                    threadHistory.setLastWaitedTime(slot, 0);
+                }
+            }
+        }
+        threadMXBean.setThreadContentionMonitoringEnabled(active);
+        this.contentionMonitoringActive = active;
+    }
+
+    /**
+     * Refresh threadHistory with the full set of thread IDs, update all threads and global counters and rebuild the thread cache.
+     */
+    private void refreshThreadCache(long currentTime) {
+
+        // remember current thread cache (by thread ID - slots may move during the threadHistory refresh) to measure cache hits
+        previousThreadCache.clear();
+        for (int i = 0; i < threadCacheCount; i++) {
+            previousThreadCache.put(threadHistory.getId(threadCacheSlots[i]), i);
+        }
+        this.previousThreadCacheCount = threadCacheCount;
+        long previousRefreshTime = lastThreadCacheRefreshTime;
+        // refresh threadHistory with full set of thread IDs
+        refreshThreadHistory();
+        // we've got a full set of threads - update full threadHistory and global counters
+        update(true);
+        // refresh threadCache ready for next update
+        refreshThreadHistoryCache(previousRefreshTime, currentTime);
+        // update lastThreadCacheRefreshTime
+        this.lastThreadCacheRefreshTime = currentTime;
+        // start the divergence check process CPU window from the process CPU sample taken by the full update
+        this.divergenceCheckSystemTime = lastSystemTime;
+        this.divergenceCheckProcessCpuTime = lastProcessCpuTime;
+        this.threadCacheRefreshRequired = false;
+        this.lastFullThreadCount = threadCount;
+    }
+
+    /**
+     * Refresh top thread cache (aka threadCache). The threadCache is an array of up to threadCacheSize threadHistory slots holding the threads which have consumed the most CPU (or blocked) time since the last cache refresh.
      */
-    private void refreshThreadHistoryCache() {
+    private void refreshThreadHistoryCache(long previousRefreshTime, long currentTime) {
 
         LOGGER.fine("Refreshing thread history cache....");
         int topThreadLimit;
         int blockedThreadLimit;
-        Set<Long> threadSet = new HashSet<>();
         // handle situation where threadCount less than threadCacheSize
-        if (threadCount < threadCacheSize) {
+        if (adaptiveThreadCacheEnabled) {
+            // size the top and blocked partitions from the observed distribution
+            int cacheLimit = (int) Math.min(threadCacheSize, threadCount);
+            int hotThreadCount = countActiveThreads(sampledCpuTimes);
+            int contendedThreadCount = threadContentionMonitoringEnabled ? countActiveThreads(sampledBlockedTimes) : 0;
+            if (hotThreadCount + contendedThreadCount <= cacheLimit) {
+                // room for every active thread - don't waste cache slots on idle threads
+                topThreadLimit = hotThreadCount;
+                blockedThreadLimit = contendedThreadCount;
+            } else {
+                // share the cache in proportion to the number of hot and contended threads
+                blockedThreadLimit = (int) ((long) cacheLimit * contendedThreadCount / (hotThreadCount + contendedThreadCount));
+                topThreadLimit = cacheLimit - blockedThreadLimit;
+            }
+        } else if (threadCount < threadCacheSize) {
             // we shouldn't get here but just in case.... set thread limits to a percentage of threadCount
             topThreadLimit = (int) (((int) threadCount) * 0.8);
             blockedThreadLimit = (int) (((int) threadCount) * 0.2);
@@ -761,56 +1707,152 @@ public class ThreadUsage {
             topThreadLimit = topThreadCacheSize;
             blockedThreadLimit = blockedThreadCacheSize;
         }
-        // add top threadCacheSize thread IDs from cpuTimeMap to threadSet
-        threadSet.addAll(getTopThreads(cpuTimeMap, topThreadLimit));
+        LOGGER.fine("Thread cache partitions: top threads = " + topThreadLimit + ", blocked threads = " + blockedThreadLimit);
+        if (threadCacheSlots.length < topThreadLimit + blockedThreadLimit) {
+            this.threadCacheSlots = new int[topThreadLimit + blockedThreadLimit];
+        }
+        // clear existing thread cache
+        this.threadCacheCount = 0;
+        // add top topThreadLimit threads by CPU time to thread cache
+        addTopThreadsToCache(sampledCpuTimes, topThreadLimit);
+        // measure how well the previous thread cache predicted the top threads
+        updateThreadCacheHitStats(previousRefreshTime, currentTime);
         if (threadContentionMonitoringEnabled) {
-            // add top threadCacheSize thread IDs from BlockedTimeMap to threadSet
-            threadSet.addAll(getTopThreads(blockedTimeMap, blockedThreadLimit));
+            // add top blockedThreadLimit threads by blocked time to thread cache
+            addTopThreadsToCache(sampledBlockedTimes, blockedThreadLimit);
         }
-        // clear existing threadHistoryCache
-        threadHistoryCache.clear();
-        // populate threadHistoryCache with threadSet thread IDs
-        for (Long id : threadSet) {
-            // retrieve threadInfo from global threadHistory map and add it to threadHistoryCache
-            threadHistoryCache.put(id, threadHistory.get(id));
+        // record the share of process CPU usage accounted for by the cached threads
+        updateThreadCacheCoverage();
+
+    }
+
+    /**
+     * Update the thread cache hit ratio and miss window from the top threads just selected into threadCacheSelector.
+     */
+    private void updateThreadCacheHitStats(long previousRefreshTime, long currentTime) {
+
+        if (previousThreadCacheCount == 0 || previousRefreshTime == 0) {
+            // no previous thread cache to compare against
+            return;
         }
+        long totalCpuTime = 0;
+        long hitCpuTime = 0;
+        boolean missDetected = false;
+        for (int rank = 0; rank < threadCacheSelector.size(); rank++) {
+            long cpuTime = threadCacheSelector.getKey(rank);
+            if (cpuTime <= 0) {
+                continue;
+            }
+            totalCpuTime += cpuTime;
+            if (previousThreadCache.get(threadHistory.getId((int) threadCacheSelector.getValue(rank))) >= 0) {
+                hitCpuTime += cpuTime;
+            } else {
+                missDetected = true;
+            }
+        }
+        if (totalCpuTime > 0) {
+            // CPU time weighted share of the top threads which were already cached
+            this.threadCacheHitRatio = (double) hitCpuTime / totalCpuTime;
+        }
+        if (missDetected) {
+            // a hot thread was missing from the cache - it may have been invisible since the previous refresh
+            this.threadCacheMissWindow = currentTime - previousRefreshTime;
+        }
+    }
+
+    private void updateThreadCacheCoverage() {
 
+        double cachedCpuUsage = 0;
+        for (int i = 0; i < threadCacheCount; i++) {
+            cachedCpuUsage += threadHistory.getCpuUsage(threadCacheSlots[i]);
+        }
+        cachedCpuUsage = cachedCpuUsage / numberOfProcessors;
+        if (processCpuUsage > 0 && isProcessBusy(processCpuUsage)) {
+            this.threadCacheCoverage = Math.min(cachedCpuUsage / processCpuUsage, 1.0);
+        } else {
+            // process idle (or process CPU not available) - expect the cache to cover any CPU usage that appears
+            this.threadCacheCoverage = 1.0;
+        }
     }
 
     /**
-     * Get list of top threads from a ThreadTimeMap up to and including threadCount threads
+     * Check whether the thread cache has diverged from a cheap whole-process signal, i.e. the cached threads account for
+     * a significantly smaller share of the process CPU usage than they did at the last cache refresh (or, where process CPU
+     * usage is not available, the live thread count has moved significantly).
+     */
+    private boolean isThreadCacheDivergent() {
+
+        // sample process CPU time - a single JMX attribute read kept apart from the published process CPU usage
+        long currentCpu = getProcessCpuTime();
+        if (currentCpu >= 0 && divergenceCheckProcessCpuTime >= 0) {
+            long currentSystemTime = System.nanoTime();
+            double recentProcessCpuUsage = calculateCpuUsage((currentCpu - divergenceCheckProcessCpuTime) / numberOfProcessors, currentSystemTime - divergenceCheckSystemTime);
+            this.divergenceCheckSystemTime = currentSystemTime;
+            this.divergenceCheckProcessCpuTime = currentCpu;
+            if (!isProcessBusy(recentProcessCpuUsage)) {
+                // nothing significant for the cache to miss
+                return false;
+            }
+            double coverage = sampledCpuUsage / recentProcessCpuUsage;
+            LOGGER.fine("Thread cache coverage = " + coverage + ", expected = " + threadCacheCoverage);
+            if (coverage < threadCacheCoverage - threadCacheDivergenceThreshold) {
+                return true;
+            }
+            // threads promoted at the last refresh may have been hot for only part of the refresh interval - ratchet the expected coverage up
+            this.threadCacheCoverage = Math.min(Math.max(threadCacheCoverage, coverage), 1.0);
+            return false;
+        }
+        long liveThreadCount = threadMXBean.getThreadCount();
+        return Math.abs(liveThreadCount - lastFullThreadCount) > lastFullThreadCount * threadCacheDivergenceThreshold;
+    }
+
+    private boolean isProcessBusy(double processCpuUsage) {
+
+        // process is using at least 5% of a single processor
+        return processCpuUsage * numberOfProcessors >= 5;
+    }
+
+    private int countActiveThreads(long[] threadTimes) {
+
+        int activeThreadCount = 0;
+        for (int i = 0; i < sampledThreadCount; i++) {
+            if (threadTimes[i] > 0) {
+                activeThreadCount++;
+            }
+        }
+        return activeThreadCount;
+    }
+
+    /**
+     * Add top threads ranked by threadTimes up to and including threadLimit threads to the thread cache, skipping threads which are already cached.
      *
-     * @param threadTimeMap A ThreadTimeMap, e.g. cpuTimeMap
-     * @param threadLimit   The number of threads to include in the thread ID Set returned
-     * @return Set<Long> A Set of thread Ids
-     */
-    private Set<Long> getTopThreads(ThreadTimeMap threadTimeMap, int threadLimit) {
-
-        Object[] threadCpuTimeArray = threadTimeMap.descendingKeySet().toArray();
-        int threadCounter = 1;
-        List<Long> threadIds;
-        Set<Long> threadSet = new HashSet<>();
-        // add top thread IDs to threadSet
-        topThreadLimitLoop:
-        for (int i = 0; i < threadLimit; i++) {
-            // get threadIds
-            threadIds = threadTimeMap.get((Long) threadCpuTimeArray[i]);
-            for (long threadId : threadIds) {
-
-                LOGGER.fine("Adding thread: threadCounter: " + threadCounter + ", threadId: " + threadId + " to thread cache");
-                // add threadId to threadSet
-                threadSet.add(threadId);
-                // check threadCount
-                if (threadCounter == threadLimit) {
-                    // topThreadCount reached - break out of loop
-                    break topThreadLimitLoop;
-                }
-                // increment threadCounter
-                threadCounter++;
+     * @param threadTimes The sampled thread times to rank by, e.g. sampledCpuTimes
+     * @param threadLimit The number of threads to add to the thread cache
+     */
+    private void addTopThreadsToCache(long[] threadTimes, int threadLimit) {
+
+        // the top thread section of the cache is already unique - only threads added by this call need to be checked against it
+        int cachedCount = threadCacheCount;
+        selectTopThreads(threadTimes, threadLimit, threadCacheSelector);
+        for (int rank = 0; rank < threadCacheSelector.size(); rank++) {
+            int slot = (int) threadCacheSelector.getValue(rank);
+            if (isCached(slot, cachedCount)) {
+                continue;
             }
+            LOGGER.fine("Adding thread: threadCounter: " + (rank + 1) + ", threadId: " + threadHistory.getId(slot) + " to thread cache");
+            // add slot to thread cache
+            threadCacheSlots[threadCacheCount++] = slot;
         }
+    }
+
+    private boolean isCached(int slot, int cachedCount) {
 
-        return threadSet;
+        for (int i = 0; i < cachedCount; i++) {
+            if (threadCacheSlots[i] == slot) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+/**
+ * Used to store and expose stats relating to a thread that has been determined as a top heap allocator during the last iteration.
+ * Each top allocator is ranked between 1 and N via the "rank" attribute on the TopAllocator MBean Object Name, where 1 is the thread
+ * that has allocated the most heap memory and N is the thread that has allocated the least (out of the top ranked threads).
+ */
+
+public interface TopAllocatorMXBean {
+
+    /**
+     * Sets the name of the top allocator thread.
+     * @param threadName the thread name
+     */
+    void setThreadName(String threadName);
+
+    /**
+     * Returns the name of the top allocator thread.
+     * @return the thread name
+     */
+    String getThreadName();
+
+    /**
+     * Sets the thread ID of the top allocator thread.
+     * @param threadId the thread ID
+     */
+    void setThreadId(long threadId);
+
+    /**
+     * Returns the thread ID of the top allocator thread.
+     * @return the thread ID
+     */
+    long getThreadId();
+
+    /**
+     * Sets the thread state as defined by the <a href="https://docs.oracle.com/javase/8/docs/api/java/lang/Thread.State.html">java.lang.Thread.State Enum</a>.
+     * @param threadState the thread state
+     */
+    void setThreadState(Thread.State threadState);
+
+    /**
+     * Returns the thread state as defined by the <a href="https://docs.oracle.com/javase/8/docs/api/java/lang/Thread.State.html">java.lang.Thread.State Enum</a>.
+     * @return the thread state
+     */
+    Thread.State getThreadState();
+
+    /**
+     * Sets the rate at which the thread allocated heap memory during the last iteration in MB/s.
+     * @param threadAllocationRate the thread allocation rate in MB/s
+     */
+    void setThreadAllocationRate(double threadAllocationRate);
+
+    /**
+     * Returns the rate at which the thread allocated heap memory during the last iteration in MB/s.
+     * @return the thread allocation rate in MB/s
+     */
+    double getThreadAllocationRate();
+
+    /**
+     * Sets the thread allocation rate as a percentage of the total allocation rate of all sampled threads during the last iteration.
+     * @param threadAllocationShare the thread allocation share
+     */
+    void setThreadAllocationShare(double threadAllocationShare);
+
+    /**
+     * Returns the thread allocation rate as a percentage of the total allocation rate of all sampled threads during the last iteration.
+     * <p>
+     * In other words.... ( threadAllocationRate / totalAllocationRate ) * 100
+     * @return the thread allocation share
+     */
+    double getThreadAllocationShare();
+
+    /**
+     * Returns the stack trace for this top allocator thread with a maximum frame depth of maxDepth.
+     * @param maxDepth maximum frame depth
+     * @return a String representation of the stack trace
+     */
+    String getStackTrace(int maxDepth);
+
+    /**
+     * Returns the stack trace for this top allocator thread with context, e.g. thread name and thread state, with a maximum frame depth of maxDepth.
+     * @param maxDepth maximum frame depth
+     * @return a String representation of the stack trace with some additional context
+     */
+    String getStackTraceWithContext(int maxDepth);
+
+}
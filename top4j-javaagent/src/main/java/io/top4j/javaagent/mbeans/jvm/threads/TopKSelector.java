@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+/**
+ * Bounded top-K selector used to rank threads (or methods) by time without sorting the full set.
+ * <p>
+ * The selector keeps a fixed-capacity min-heap over parallel primitive arrays of keys (e.g. CPU time) and values
+ * (e.g. thread ID), so offering n entries costs O(n log k) and no objects are allocated once the selector has been sized.
+ * Entries with equal keys are ranked in the order in which they were offered, i.e. the first entry offered wins the tie.
+ * <p>
+ * Usage: call {@link #reset(int)}, {@link #offer(long, long)} each entry, then {@link #sort()} and read the ranked entries
+ * via {@link #getKey(int)} and {@link #getValue(int)}, where rank 0 holds the largest key.
+ */
+public class TopKSelector {
+
+    private long[] keys;
+    private long[] values;
+    private long[] sequence;
+    private int capacity;
+    private int size;
+    private long offered;
+
+    public TopKSelector(int capacity) {
+
+        this.keys = new long[Math.max(capacity, 1)];
+        this.values = new long[keys.length];
+        this.sequence = new long[keys.length];
+        this.capacity = capacity;
+
+    }
+
+    /**
+     * Clear the selector ready for a new selection of up to capacity entries.
+     *
+     * @param capacity the maximum number of entries to select
+     */
+    public void reset(int capacity) {
+
+        if (capacity > keys.length) {
+            // grow backing arrays - only happens when the requested capacity increases
+            this.keys = new long[capacity];
+            this.values = new long[capacity];
+            this.sequence = new long[capacity];
+        }
+        this.capacity = Math.max(capacity, 0);
+        this.size = 0;
+        this.offered = 0;
+
+    }
+
+    /**
+     * Offer an entry to the selector.
+     *
+     * @param key   the ranking key, e.g. CPU time
+     * @param value the value associated with the key, e.g. thread ID
+     */
+    public void offer(long key, long value) {
+
+        long seq = offered++;
+        if (size < capacity) {
+            // heap not full - add entry and restore heap order
+            keys[size] = key;
+            values[size] = value;
+            sequence[size] = seq;
+            siftUp(size);
+            size++;
+        } else if (size > 0 && isGreater(key, seq, keys[0], sequence[0])) {
+            // entry outranks the current minimum - replace the heap root
+            keys[0] = key;
+            values[0] = value;
+            sequence[0] = seq;
+            siftDown(0, size);
+        }
+
+    }
+
+    /**
+     * Sort the selected entries into rank order, largest key first.
+     * <p>
+     * No further entries should be offered after sort() until the selector is reset.
+     */
+    public void sort() {
+
+        // in-place heap sort - repeatedly move the minimum entry to the end of the heap
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+
+    }
+
+    /**
+     * @return the number of selected entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param rank the zero based rank
+     * @return the key of the entry at rank (valid after sort())
+     */
+    public long getKey(int rank) {
+        return keys[rank];
+    }
+
+    /**
+     * @param rank the zero based rank
+     * @return the value of the entry at rank (valid after sort())
+     */
+    public long getValue(int rank) {
+        return values[rank];
+    }
+
+    private boolean isGreater(long key, long seq, long otherKey, long otherSeq) {
+
+        // larger keys rank higher, earlier offered entries win ties
+        return key > otherKey || (key == otherKey && seq < otherSeq);
+    }
+
+    private boolean isLess(int i, int j) {
+
+        return isGreater(keys[j], sequence[j], keys[i], sequence[i]);
+    }
+
+    private void siftUp(int i) {
+
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isLess(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int heapSize) {
+
+        while (true) {
+            int left = (i << 1) + 1;
+            if (left >= heapSize) {
+                break;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < heapSize && isLess(right, left)) {
+                smallest = right;
+            }
+            if (!isLess(smallest, i)) {
+                break;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        long seq = sequence[i];
+        sequence[i] = sequence[j];
+        sequence[j] = seq;
+    }
+
+}
@@ -30,12 +30,19 @@ public class TopThread implements TopThreadMXBean {
     volatile private long threadId;
     volatile private State threadState;
     volatile private double threadCpuUsage;
+    volatile private double threadCpuUsage1m;
+    volatile private double threadCpuUsage5m;
+    volatile private double threadCpuUsage15m;
+    private final double[] threadCpuUsageHistory = new double[ThreadTable.CPU_USAGE_HISTORY_SIZE];
+    private int threadCpuUsageHistoryCount;
     private ThreadHelper threadHelper;
+    private StackTraceIdCache stackTraceIdCache;
     private ThreadInfo threadInfo;
 
     public TopThread(MBeanServerConnection mbsc) throws IOException {
 
         this.threadHelper = new ThreadHelper(mbsc);
+        this.stackTraceIdCache = new StackTraceIdCache(threadHelper);
 
     }
 
@@ -49,6 +56,8 @@ public class TopThread implements TopThreadMXBean {
 
     public void setThreadId(long threadId) {
         this.threadId = threadId;
+        // new thread usage update - capture the stack trace again when next requested
+        stackTraceIdCache.reset();
     }
 
     public long getThreadId() {
@@ -80,9 +89,58 @@ public class TopThread implements TopThreadMXBean {
         return threadCpuUsage;
     }
 
+    public void setThreadCpuUsage1m(double threadCpuUsage1m) {
+        this.threadCpuUsage1m = threadCpuUsage1m;
+    }
+
+    public double getThreadCpuUsage1m() {
+        return threadCpuUsage1m;
+    }
+
+    public void setThreadCpuUsage5m(double threadCpuUsage5m) {
+        this.threadCpuUsage5m = threadCpuUsage5m;
+    }
+
+    public double getThreadCpuUsage5m() {
+        return threadCpuUsage5m;
+    }
+
+    public void setThreadCpuUsage15m(double threadCpuUsage15m) {
+        this.threadCpuUsage15m = threadCpuUsage15m;
+    }
+
+    public double getThreadCpuUsage15m() {
+        return threadCpuUsage15m;
+    }
+
+    /**
+     * Copy the top thread CPU usage history from the thread history table.
+     */
+    synchronized void setThreadCpuUsageHistory(ThreadTable threadHistory, int slot) {
+        this.threadCpuUsageHistoryCount = threadHistory.getCpuUsageHistory(slot, threadCpuUsageHistory);
+    }
+
+    public synchronized String getThreadCpuUsageHistory() {
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < threadCpuUsageHistoryCount; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(String.format("%.1f", threadCpuUsageHistory[i]));
+        }
+        return sb.toString();
+    }
+
     public String getStackTrace(int maxDepth) {
 
-        return threadHelper.getStackTrace(threadId, maxDepth);
+        return stackTraceIdCache.getStackTrace(threadId, maxDepth);
+
+    }
+
+    public int getStackTraceId(int maxDepth) {
+
+        return stackTraceIdCache.getStackTraceId(threadId, maxDepth);
 
     }
 
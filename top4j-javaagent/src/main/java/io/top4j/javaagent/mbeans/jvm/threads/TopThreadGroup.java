@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+public class TopThreadGroup implements TopThreadGroupMXBean {
+
+    volatile private String groupName;
+    volatile private long threadCount;
+    volatile private long runnableThreadCount;
+    volatile private long blockedThreadCount;
+    volatile private long waitingThreadCount;
+    volatile private long timedWaitingThreadCount;
+    volatile private double cpuUsage;
+    volatile private long blockedTime;
+    volatile private long rollingCpuTime;
+    volatile private long rollingBlockedTime;
+
+    public void setGroupName(String groupName) {
+        this.groupName = groupName;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public void setThreadCount(long threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public long getThreadCount() {
+        return threadCount;
+    }
+
+    public void setRunnableThreadCount(long runnableThreadCount) {
+        this.runnableThreadCount = runnableThreadCount;
+    }
+
+    public long getRunnableThreadCount() {
+        return runnableThreadCount;
+    }
+
+    public void setBlockedThreadCount(long blockedThreadCount) {
+        this.blockedThreadCount = blockedThreadCount;
+    }
+
+    public long getBlockedThreadCount() {
+        return blockedThreadCount;
+    }
+
+    public void setWaitingThreadCount(long waitingThreadCount) {
+        this.waitingThreadCount = waitingThreadCount;
+    }
+
+    public long getWaitingThreadCount() {
+        return waitingThreadCount;
+    }
+
+    public void setTimedWaitingThreadCount(long timedWaitingThreadCount) {
+        this.timedWaitingThreadCount = timedWaitingThreadCount;
+    }
+
+    public long getTimedWaitingThreadCount() {
+        return timedWaitingThreadCount;
+    }
+
+    public void setCpuUsage(double cpuUsage) {
+        this.cpuUsage = cpuUsage;
+    }
+
+    public double getCpuUsage() {
+        return cpuUsage;
+    }
+
+    public void setBlockedTime(long blockedTime) {
+        this.blockedTime = blockedTime;
+    }
+
+    public long getBlockedTime() {
+        return blockedTime;
+    }
+
+    public void setRollingCpuTime(long rollingCpuTime) {
+        this.rollingCpuTime = rollingCpuTime;
+    }
+
+    public long getRollingCpuTime() {
+        return rollingCpuTime;
+    }
+
+    public void setRollingBlockedTime(long rollingBlockedTime) {
+        this.rollingBlockedTime = rollingBlockedTime;
+    }
+
+    public long getRollingBlockedTime() {
+        return rollingBlockedTime;
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+/**
+ * Used to store and expose stats relating to a group of threads, e.g. a thread pool, which has been determined as a top CPU
+ * consumer during the last iteration. Threads are grouped by normalised thread name, e.g. pool-3-thread-1 and pool-3-thread-2 both
+ * belong to the pool-3-thread-* group. Each thread group is ranked between 1 and N via the "rank" attribute on the ThreadGroup MBean
+ * Object Name, where 1 is the group that has consumed the most CPU and N is the group that has consumed the least (out of the top
+ * ranked groups).
+ */
+
+public interface TopThreadGroupMXBean {
+
+    /**
+     * Sets the thread group name.
+     * @param groupName the thread group name
+     */
+    void setGroupName(String groupName);
+
+    /**
+     * Returns the thread group name, i.e. the normalised thread name shared by the threads within the group.
+     * @return the thread group name
+     */
+    String getGroupName();
+
+    /**
+     * Sets the number of threads within the thread group.
+     * @param threadCount the thread count
+     */
+    void setThreadCount(long threadCount);
+
+    /**
+     * Returns the number of threads within the thread group.
+     * @return the thread count
+     */
+    long getThreadCount();
+
+    /**
+     * Sets the number of runnable threads within the thread group.
+     * @param runnableThreadCount the runnable thread count
+     */
+    void setRunnableThreadCount(long runnableThreadCount);
+
+    /**
+     * Returns the number of runnable threads within the thread group.
+     * @return the runnable thread count
+     */
+    long getRunnableThreadCount();
+
+    /**
+     * Sets the number of blocked threads within the thread group.
+     * @param blockedThreadCount the blocked thread count
+     */
+    void setBlockedThreadCount(long blockedThreadCount);
+
+    /**
+     * Returns the number of blocked threads within the thread group.
+     * @return the blocked thread count
+     */
+    long getBlockedThreadCount();
+
+    /**
+     * Sets the number of waiting threads within the thread group.
+     * @param waitingThreadCount the waiting thread count
+     */
+    void setWaitingThreadCount(long waitingThreadCount);
+
+    /**
+     * Returns the number of waiting threads within the thread group.
+     * @return the waiting thread count
+     */
+    long getWaitingThreadCount();
+
+    /**
+     * Sets the number of timed waiting threads within the thread group.
+     * @param timedWaitingThreadCount the timed waiting thread count
+     */
+    void setTimedWaitingThreadCount(long timedWaitingThreadCount);
+
+    /**
+     * Returns the number of timed waiting threads within the thread group.
+     * @return the timed waiting thread count
+     */
+    long getTimedWaitingThreadCount();
+
+    /**
+     * Sets the thread group CPU usage, i.e. the sum of the CPU usage of the threads within the group during the last iteration.
+     * @param cpuUsage the thread group CPU usage
+     */
+    void setCpuUsage(double cpuUsage);
+
+    /**
+     * Returns the thread group CPU usage, i.e. the sum of the CPU usage of the threads within the group during the last iteration.
+     * <p>
+     * As with the TopThread ThreadCpuUsage, each thread's CPU usage is a percentage of a single CPU, so a group of busy threads can exceed 100.
+     * @return the thread group CPU usage
+     */
+    double getCpuUsage();
+
+    /**
+     * Sets the total time in milliseconds the threads within the group spent blocked during the last iteration.
+     * @param blockedTime the thread group blocked time
+     */
+    void setBlockedTime(long blockedTime);
+
+    /**
+     * Returns the total time in milliseconds the threads within the group spent blocked during the last iteration.
+     * @return the thread group blocked time
+     */
+    long getBlockedTime();
+
+    /**
+     * Sets the rolling total CPU time in milliseconds consumed by the threads within the group over the thread group window.
+     * @param rollingCpuTime the thread group rolling CPU time
+     */
+    void setRollingCpuTime(long rollingCpuTime);
+
+    /**
+     * Returns the rolling total CPU time in milliseconds consumed by the threads within the group over the thread group window
+     * (see thread.group.window.minutes). Unlike the per-thread stats, the total survives the threads within a pool being replaced.
+     * @return the thread group rolling CPU time
+     */
+    long getRollingCpuTime();
+
+    /**
+     * Sets the rolling total time in milliseconds the threads within the group spent blocked over the thread group window.
+     * @param rollingBlockedTime the thread group rolling blocked time
+     */
+    void setRollingBlockedTime(long rollingBlockedTime);
+
+    /**
+     * Returns the rolling total time in milliseconds the threads within the group spent blocked over the thread group window
+     * (see thread.group.window.minutes).
+     * @return the thread group rolling blocked time
+     */
+    long getRollingBlockedTime();
+
+}
@@ -78,6 +78,49 @@ public interface TopThreadMXBean {
      */
     double getThreadCpuUsage();
 
+    /**
+     * Sets the thread CPU usage 1 minute exponentially weighted moving average.
+     * @param threadCpuUsage1m the thread CPU usage 1 minute average
+     */
+    void setThreadCpuUsage1m(double threadCpuUsage1m);
+
+    /**
+     * Returns the thread CPU usage 1 minute exponentially weighted moving average, i.e. the thread CPU usage averaged in the
+     * same way as the Unix 1 minute load average.
+     * @return the thread CPU usage 1 minute average
+     */
+    double getThreadCpuUsage1m();
+
+    /**
+     * Sets the thread CPU usage 5 minute exponentially weighted moving average.
+     * @param threadCpuUsage5m the thread CPU usage 5 minute average
+     */
+    void setThreadCpuUsage5m(double threadCpuUsage5m);
+
+    /**
+     * Returns the thread CPU usage 5 minute exponentially weighted moving average.
+     * @return the thread CPU usage 5 minute average
+     */
+    double getThreadCpuUsage5m();
+
+    /**
+     * Sets the thread CPU usage 15 minute exponentially weighted moving average.
+     * @param threadCpuUsage15m the thread CPU usage 15 minute average
+     */
+    void setThreadCpuUsage15m(double threadCpuUsage15m);
+
+    /**
+     * Returns the thread CPU usage 15 minute exponentially weighted moving average.
+     * @return the thread CPU usage 15 minute average
+     */
+    double getThreadCpuUsage15m();
+
+    /**
+     * Returns the thread's most recent CPU usage samples, oldest first, as a space separated list.
+     * @return the thread CPU usage history
+     */
+    String getThreadCpuUsageHistory();
+
     /**
      * Returns the stack trace for this top thread with a maximum frame depth of maxDepth.
      * @param maxDepth maximum frame depth
@@ -85,6 +128,14 @@ public interface TopThreadMXBean {
      */
     String getStackTrace(int maxDepth);
 
+    /**
+     * Returns the ID of the stack trace for this top thread with a maximum frame depth of maxDepth, as interned in the
+     * agent's shared stack trace store. Repeated calls return the same ID while the thread's stack trace is unchanged.
+     * @param maxDepth maximum frame depth
+     * @return the stack trace ID or -1 if no stack trace is available or the stack trace store is full
+     */
+    int getStackTraceId(int maxDepth);
+
     /**
      * Returns the stack trace for this blocked thread with context, e.g. thread name and thread state, with a maximum frame depth of maxDepth.
      * @param maxDepth maximum frame depth
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import io.top4j.javaagent.utils.ThreadHelper;
+
+import javax.management.MBeanServerConnection;
+import java.io.IOException;
+import java.lang.Thread.State;
+
+
+public class WaitingThread implements WaitingThreadMXBean {
+
+    volatile private String threadName;
+    volatile private long threadId;
+    volatile private State threadState;
+    volatile private long threadWaitedTime;
+    volatile private double threadWaitedPercentage;
+    volatile private boolean threadWaitedTimeEstimated;
+    private ThreadHelper threadHelper;
+    private StackTraceIdCache stackTraceIdCache;
+
+    public WaitingThread(MBeanServerConnection mbsc) throws IOException {
+
+        this.threadHelper = new ThreadHelper(mbsc);
+        this.stackTraceIdCache = new StackTraceIdCache(threadHelper);
+
+    }
+
+    public void setThreadName(String threadName) {
+        this.threadName = threadName;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public void setThreadId(long threadId) {
+        this.threadId = threadId;
+        // new thread usage update - capture the stack trace again when next requested
+        stackTraceIdCache.reset();
+    }
+
+    public long getThreadId() {
+        return threadId;
+    }
+
+    public void setThreadState(State threadState) {
+        this.threadState = threadState;
+    }
+
+    public State getThreadState() {
+        return threadState;
+    }
+
+    @Override
+    public void setThreadWaitedTime(long threadWaitedTime) {
+
+        this.threadWaitedTime = threadWaitedTime;
+
+    }
+
+    @Override
+    public long getThreadWaitedTime() {
+        return threadWaitedTime;
+    }
+
+    @Override
+    public void setThreadWaitedPercentage(double threadWaitedPercentage) {
+
+        this.threadWaitedPercentage = threadWaitedPercentage;
+
+    }
+
+    @Override
+    public double getThreadWaitedPercentage() {
+        return threadWaitedPercentage;
+    }
+
+    @Override
+    public void setThreadWaitedTimeEstimated(boolean threadWaitedTimeEstimated) {
+
+        this.threadWaitedTimeEstimated = threadWaitedTimeEstimated;
+
+    }
+
+    @Override
+    public boolean isThreadWaitedTimeEstimated() {
+        return threadWaitedTimeEstimated;
+    }
+
+    public String getStackTrace(int maxDepth) {
+
+        return stackTraceIdCache.getStackTrace(threadId, maxDepth);
+
+    }
+
+    public int getStackTraceId(int maxDepth) {
+
+        return stackTraceIdCache.getStackTraceId(threadId, maxDepth);
+
+    }
+
+    public String getStackTraceWithContext(int maxDepth) {
+
+        return threadHelper.getStackTraceWithContext(threadId, maxDepth);
+
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+/**
+ * Used to store and expose stats relating to a thread that has been waiting for some time during the last iteration,
+ * e.g. waiting on a java.util.concurrent lock, future or queue. Each waiting thread is ranked between 1 and N via the
+ * "rank" attribute on the WaitingThread MBean Object Name, where 1 is the thread that has waited the most and N is the
+ * thread that has waited the least (out of the top ranked waiting threads).
+ */
+
+public interface WaitingThreadMXBean {
+
+    /**
+     * Sets the name of the waiting thread.
+     * @param threadName the thread name
+     */
+    public void setThreadName(String threadName);
+
+    /**
+     * Returns the name of the waiting thread.
+     * @return the thread name
+     */
+    public String getThreadName();
+
+    /**
+     * Sets the thread ID of the waiting thread.
+     * @param threadId the thread ID
+     */
+    public void setThreadId(long threadId);
+
+    /**
+     * Returns the thread ID of the waiting thread.
+     * @return the thread ID
+     */
+    public long getThreadId();
+
+    /**
+     * Sets the thread state as defined by the <a href="https://docs.oracle.com/javase/8/docs/api/java/lang/Thread.State.html">java.lang.Thread.State Enum</a>.
+     * @param threadState the thread state
+     */
+    public void setThreadState(Thread.State threadState);
+
+    /**
+     * Sets the thread state as defined by the <a href="https://docs.oracle.com/javase/8/docs/api/java/lang/Thread.State.html">java.lang.Thread.State Enum</a>.
+     * @return the thread state
+     */
+    public Thread.State getThreadState();
+
+    /**
+     * Sets the time in milliseconds that the thread has been in a waiting or timed waiting state during the last iteration.
+     * @param threadWaitedTime waited time in milliseconds
+     */
+    public void setThreadWaitedTime(long threadWaitedTime);
+
+    /**
+     * Returns the time in milliseconds that the thread has been in a waiting or timed waiting state during the last iteration.
+     * @return waited time in milliseconds
+     */
+    public long getThreadWaitedTime();
+
+    /**
+     * Sets the percentage of time that the thread has been in a waiting or timed waiting state during the last iteration.
+     * <p>
+     * A high thread waited percentage for a request processing thread can be an indicator of latency spent waiting on
+     * downstream work, e.g. a java.util.concurrent lock, future or queue. Idle pool threads will typically wait 100% of the time.
+     * @param threadWaitedPercentage the thread waited percentage
+     */
+    public void setThreadWaitedPercentage(double threadWaitedPercentage);
+
+    /**
+     * Returns the percentage of time that the thread has been in a waiting or timed waiting state during the last iteration.
+     * <p>
+     * A high thread waited percentage for a request processing thread can be an indicator of latency spent waiting on
+     * downstream work, e.g. a java.util.concurrent lock, future or queue. Idle pool threads will typically wait 100% of the time.
+     * @return the thread waited percentage
+     */
+    public double getThreadWaitedPercentage();
+
+    /**
+     * Sets whether the thread waited time was estimated from the sampled thread states (thread contention monitoring inactive)
+     * rather than measured during a thread contention monitoring window.
+     * @param threadWaitedTimeEstimated true if the waited time was estimated
+     */
+    public void setThreadWaitedTimeEstimated(boolean threadWaitedTimeEstimated);
+
+    /**
+     * Returns true if the thread waited time was estimated from the sampled thread states (thread contention monitoring inactive)
+     * rather than measured during a thread contention monitoring window.
+     * @return true if the waited time was estimated
+     */
+    public boolean isThreadWaitedTimeEstimated();
+
+    /**
+     * Returns the stack trace for this waiting thread with a maximum frame depth of maxDepth.
+     * @param maxDepth maximum frame depth
+     * @return a String representation of the stack trace
+     */
+    public String getStackTrace(int maxDepth);
+
+    /**
+     * Returns the ID of the stack trace for this waiting thread with a maximum frame depth of maxDepth, as interned in the
+     * agent's shared stack trace store. Repeated calls return the same ID while the thread's stack trace is unchanged.
+     * @param maxDepth maximum frame depth
+     * @return the stack trace ID or -1 if no stack trace is available or the stack trace store is full
+     */
+    public int getStackTraceId(int maxDepth);
+
+    /**
+     * Returns the stack trace for this waiting thread with context, e.g. thread name and thread state, with a maximum frame depth of maxDepth.
+     * @param maxDepth maximum frame depth
+     * @return a String representation of the stack trace with some additional context
+     */
+    public String getStackTraceWithContext(int maxDepth);
+
+}
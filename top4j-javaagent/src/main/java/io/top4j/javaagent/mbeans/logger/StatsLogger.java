@@ -18,13 +18,17 @@ package io.top4j.javaagent.mbeans.logger;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.lang.management.ManagementFactory;
 import java.text.Collator;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -38,11 +42,16 @@ import javax.management.*;
 import io.top4j.javaagent.config.Configurator;
 import io.top4j.javaagent.config.Constants;
 import io.top4j.javaagent.exception.MBeanInitException;
+import io.top4j.javaagent.mbeans.jvm.gc.GCStatsMXBean;
 import io.top4j.javaagent.mbeans.jvm.threads.BlockedThreadMXBean;
+import io.top4j.javaagent.mbeans.jvm.threads.DeadlockStatsMXBean;
 import io.top4j.javaagent.mbeans.jvm.threads.HotMethodMXBean;
+import io.top4j.javaagent.mbeans.jvm.threads.HotMethods;
 import io.top4j.javaagent.mbeans.jvm.threads.TopThreadMXBean;
+import io.top4j.javaagent.mbeans.jvm.threads.WaitingThreadMXBean;
 import io.top4j.javaagent.profiler.CpuTime;
 import io.top4j.javaagent.utils.MBeanInfo;
+import io.top4j.javaagent.utils.StackTraceStore;
 
 public final class StatsLogger implements StatsLoggerMXBean {
 
@@ -61,21 +70,45 @@ public final class StatsLogger implements StatsLoggerMXBean {
     private int blockedThreadsStackTraceThreshold;
     private int blockedThreadsStackTraceFrames;
     private Map<String, BlockedThreadMXBean> blockedThreadsMXBeans;
+    private boolean waitingThreadsStackTraceLoggingEnabled;
+    private int waitingThreadsStackTraceThreshold;
+    private int waitingThreadsStackTraceFrames;
+    private Map<String, WaitingThreadMXBean> waitingThreadsMXBeans;
     private boolean hotMethodsStackTraceLoggingEnabled;
     private int hotMethodStackTraceLoadProfileThreshold;
     private int hotMethodStackTraceFrames;
     private Map<String, HotMethodMXBean> hotMethodsMXBeans;
+    private DeadlockStatsMXBean deadlockStatsMXBean;
+    private int deadlockStackTraceFrames;
+    private long lastLoggedDeadlockCount;
+    private GCStatsMXBean gcStatsMXBean;
+    private boolean hotMethodFlameGraphLoggingEnabled;
+    private long hotMethodFlameGraphWindow;
+    private int hotMethodFlameGraphMaxFiles;
+    private HotMethods hotMethods;
+    private long flameGraphWindowStartTime;
+    private String flameGraphWindowDateStamp;
     private MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
     private List<MBeanInfo> mbeanInfoList;
     private String lastDateStamp;
     private Map<String, StatsLogWriter> statsLogWriter = new HashMap<>();
+    // the IDs of the interned stack traces already written to each stack trace log file, relative to the first stack trace
+    // ID of the stack trace store's current generation
+    private Map<String, BitSet> loggedStackTraceIds = new HashMap<>();
+    private int loggedFirstStackTraceId;
+    private StackTraceStore stackTraceStore = StackTraceStore.getSharedInstance();
     private CpuTime cpuTime = new CpuTime();
     private boolean enabled = true;
     private String failureReason;
 
+    // deadlock reports are logged to their own stack trace log file (the DeadlockStats stats type is used by the CSV log file)
+    private static final String DEADLOCK_STACK_TRACE_TYPE = "Deadlock";
+    // GC pause histograms are logged to their own histogram log file (the GCStats stats type is used by the CSV log file)
+    private static final String GC_PAUSE_HISTOGRAM_TYPE = "GCPause";
+
     private static final Logger LOGGER = Logger.getLogger(StatsLogger.class.getName());
 
-    public StatsLogger(Configurator config) throws Exception {
+    public StatsLogger(Configurator config, HotMethods hotMethods) throws Exception {
         LOGGER.fine("Initialising Top4J Stats LoggerThread MBean....");
         this.statsLoggerEnabled = config.isStatsLoggerEnabled();
         this.statsLoggerFormat = config.get("stats.logger.format");
@@ -89,15 +122,27 @@ public final class StatsLogger implements StatsLoggerMXBean {
         this.blockedThreadsStackTraceLoggingEnabled = config.isBlockedThreadsStackTraceLoggingEnabled();
         this.blockedThreadsStackTraceThreshold = Integer.parseInt(config.get("blocked.threads.stack.trace.blocked.percentage.threshold"));
         this.blockedThreadsStackTraceFrames = Integer.parseInt(config.get("blocked.threads.stack.trace.frames"));
+        this.waitingThreadsStackTraceLoggingEnabled = config.isWaitingThreadsStackTraceLoggingEnabled();
+        this.waitingThreadsStackTraceThreshold = Integer.parseInt(config.get("waiting.threads.stack.trace.waited.percentage.threshold"));
+        this.waitingThreadsStackTraceFrames = Integer.parseInt(config.get("waiting.threads.stack.trace.frames"));
         this.hotMethodsStackTraceLoggingEnabled = config.isHotMethodStackTraceLoggingEnabled();
         this.hotMethodStackTraceLoadProfileThreshold = Integer.parseInt(config.get("hot.method.stack.trace.load.profile.percentage.threshold"));
         this.hotMethodStackTraceFrames = Integer.parseInt(config.get("hot.method.stack.trace.frames"));
+        this.hotMethodFlameGraphLoggingEnabled = config.isHotMethodProfilingEnabledEnabled() && config.isHotMethodFlameGraphLoggingEnabled();
+        // the hot method profiler used to rotate the hot method flame graph windows
+        this.hotMethods = hotMethodFlameGraphLoggingEnabled ? hotMethods : null;
+        // convert the flame graph window from minutes to ms (0 = one window per log file date stamp)
+        this.hotMethodFlameGraphWindow = Long.parseLong(config.get("hot.method.flame.graph.window.minutes")) * 60000;
+        this.hotMethodFlameGraphMaxFiles = Integer.parseInt(config.get("hot.method.flame.graph.max.files"));
         this.mbeanInfoList = new ArrayList<>();
         // create statsLoggerDirectory
         createLogDirectory(statsLoggerDirectory);
         // get current dateStamp
         String dateStamp = new SimpleDateFormat(dateStampFormat).format(new Date());
         this.lastDateStamp = dateStamp;
+        // start the first flame graph window
+        this.flameGraphWindowStartTime = System.currentTimeMillis();
+        this.flameGraphWindowDateStamp = dateStamp;
         ObjectName top4jStatsName = null;
         try {
             top4jStatsName = new ObjectName(Constants.DOMAIN + ":type=" + Constants.JVM_STATS_TYPE + ",*");
@@ -165,6 +210,18 @@ public final class StatsLogger implements StatsLoggerMXBean {
                     initStackTraceLogFile(statsType, dateStamp);
                 }
             }
+            // store this statsType, e.g. type=JVM,statsType=WaitingThread,rank=1
+            else if (statsType.equals("WaitingThread")) {
+                String rank = keyPropertyList.split(",")[2].split("=")[1];
+                String waitingThreadsStatsType = statsType + "-" + rank;
+                mbeanInfo.setStatsType(waitingThreadsStatsType);
+                // initialise stats log file
+                initStatsLogFile(waitingThreadsStatsType, dateStamp, mbeanAttributeNames);
+                if (waitingThreadsStackTraceLoggingEnabled && rank.equals("1")) {
+                    // initialise stack trace log file
+                    initStackTraceLogFile(statsType, dateStamp);
+                }
+            }
             // store this statsType, e.g. type=JVM,statsType=HotMethod,rank=1
             else if (statsType.equals("HotMethod")) {
                 String rank = keyPropertyList.split(",")[2].split("=")[1];
@@ -176,10 +233,55 @@ public final class StatsLogger implements StatsLoggerMXBean {
                     // initialise stack trace log file
                     initStackTraceLogFile(statsType, dateStamp);
                 }
+            }
+            // store this statsType, e.g. type=JVM,statsType=TopAllocator,rank=1
+            else if (statsType.equals("TopAllocator")) {
+                String rank = keyPropertyList.split(",")[2].split("=")[1];
+                String topAllocatorsStatsType = statsType + "-" + rank;
+                mbeanInfo.setStatsType(topAllocatorsStatsType);
+                // initialise stats log file
+                initStatsLogFile(topAllocatorsStatsType, dateStamp, mbeanAttributeNames);
+            }
+            // store this statsType, e.g. type=JVM,statsType=ThreadGroup,rank=1
+            else if (statsType.equals("ThreadGroup")) {
+                String rank = keyPropertyList.split(",")[2].split("=")[1];
+                String threadGroupsStatsType = statsType + "-" + rank;
+                mbeanInfo.setStatsType(threadGroupsStatsType);
+                // initialise stats log file
+                initStatsLogFile(threadGroupsStatsType, dateStamp, mbeanAttributeNames);
+            }
+            // store this statsType, e.g. type=JVM,statsType=HotLock,rank=1
+            else if (statsType.equals("HotLock")) {
+                String rank = keyPropertyList.split(",")[2].split("=")[1];
+                String hotLocksStatsType = statsType + "-" + rank;
+                mbeanInfo.setStatsType(hotLocksStatsType);
+                // initialise stats log file
+                initStatsLogFile(hotLocksStatsType, dateStamp, mbeanAttributeNames);
+            }
+            // store this statsType, e.g. type=JVM,statsType=GCCause,rank=1
+            else if (statsType.equals("GCCause")) {
+                String rank = keyPropertyList.split(",")[2].split("=")[1];
+                String gcCausesStatsType = statsType + "-" + rank;
+                mbeanInfo.setStatsType(gcCausesStatsType);
+                // initialise stats log file
+                initStatsLogFile(gcCausesStatsType, dateStamp, mbeanAttributeNames);
             } else {
                 mbeanInfo.setStatsType(statsType);
                 // initialise stats log file
                 initStatsLogFile(statsType, dateStamp, mbeanAttributeNames);
+                if (statsType.equals(Constants.DEADLOCK_STATS_TYPE)) {
+                    // instantiate new deadlockStatsMXBean proxy used to log deadlock reports
+                    this.deadlockStatsMXBean = JMX.newMBeanProxy(mbs, top4jMbean, DeadlockStatsMXBean.class);
+                    this.deadlockStackTraceFrames = Integer.parseInt(config.get("deadlock.stack.trace.frames"));
+                    // initialise deadlock stack trace log file
+                    initStackTraceLogFile(DEADLOCK_STACK_TRACE_TYPE, dateStamp);
+                }
+                if (statsType.equals(Constants.GC_STATS_TYPE)) {
+                    // instantiate new gcStatsMXBean proxy used to log GC pause histograms
+                    this.gcStatsMXBean = JMX.newMBeanProxy(mbs, top4jMbean, GCStatsMXBean.class);
+                    // initialise GC pause histogram log file
+                    initHistogramLogFile(GC_PAUSE_HISTOGRAM_TYPE, dateStamp);
+                }
             }
 
             // store this MBean info bean
@@ -238,6 +340,33 @@ public final class StatsLogger implements StatsLoggerMXBean {
 
             }
 
+        }
+        if (waitingThreadsStackTraceLoggingEnabled) {
+
+            int waitingThreadCount = Integer.parseInt(config.get("waiting.thread.count"));
+
+            this.waitingThreadsMXBeans = new HashMap<>();
+
+            for (int rank = 1; rank <= waitingThreadCount; rank++) {
+
+                // convert rank to String
+                String ranking = String.valueOf(rank);
+                // set Map key to MBean key property list
+                String key = "type=" + Constants.JVM_STATS_TYPE + ",statsType=" + Constants.WAITING_THREAD_STATS_TYPE + ",rank=" + ranking;
+                // create WaitingThread objectName based on this type, statsType and rank
+                ObjectName waitingThreadsObjectName = null;
+                try {
+                    waitingThreadsObjectName = new ObjectName(Constants.DOMAIN + ":" + key);
+                } catch (MalformedObjectNameException e) {
+                    throw new MBeanInitException(e, "JMX MalformedObjectNameException: " + e.getMessage());
+                }
+                // instantiate new waitingThreadMXBean proxy based on waitingThreadsObjectName
+                WaitingThreadMXBean waitingThreadMXBean = JMX.newMBeanProxy(mbs, waitingThreadsObjectName, WaitingThreadMXBean.class);
+                // add waitingThreadMXBean to map of waitingThreadsMXBeans
+                this.waitingThreadsMXBeans.put(key, waitingThreadMXBean);
+
+            }
+
         }
         if (hotMethodsStackTraceLoggingEnabled) {
 
@@ -400,6 +529,18 @@ public final class StatsLogger implements StatsLoggerMXBean {
                 }
             }
 
+            if (waitingThreadsStackTraceLoggingEnabled) {
+
+                if (statsType.startsWith(Constants.WAITING_THREAD_STATS_TYPE)) {
+                    // check if date has rolled since last iteration
+                    if (rollStatsLogFile) {
+                        // reinitialise stack trace log file
+                        initStackTraceLogFile(Constants.WAITING_THREAD_STATS_TYPE, dateStamp);
+                    }
+                    logWaitingThreadsStackTrace(keyPropertyList, timestamp);
+                }
+            }
+
             if (hotMethodsStackTraceLoggingEnabled) {
 
                 if (statsType.startsWith(Constants.HOT_METHOD_STATS_TYPE)) {
@@ -412,6 +553,29 @@ public final class StatsLogger implements StatsLoggerMXBean {
                 }
             }
 
+            if (deadlockStatsMXBean != null && statsType.equals(Constants.DEADLOCK_STATS_TYPE)) {
+                // check if date has rolled since last iteration
+                if (rollStatsLogFile) {
+                    // reinitialise stack trace log file
+                    initStackTraceLogFile(DEADLOCK_STACK_TRACE_TYPE, dateStamp);
+                }
+                logDeadlockStackTrace(keyPropertyList, timestamp);
+            }
+
+            if (gcStatsMXBean != null && statsType.equals(Constants.GC_STATS_TYPE)) {
+                // check if date has rolled since last iteration
+                if (rollStatsLogFile) {
+                    // reinitialise histogram log file
+                    initHistogramLogFile(GC_PAUSE_HISTOGRAM_TYPE, dateStamp);
+                }
+                logGCPauseHistogram(keyPropertyList, timestamp);
+            }
+
+        }
+
+        if (hotMethods != null) {
+            // write the hot method flame graph window to file if it's complete
+            logCollapsedStacks(dateStamp);
         }
 
         // update agent stats CPU time
@@ -429,8 +593,10 @@ public final class StatsLogger implements StatsLoggerMXBean {
                             ",Thread CPU usage (" + String.format("%.2f", threadCpuUsage) + ") exceeded threshold (" +
                             topThreadsStackTraceCpuThreshold + ")");
             // log stack trace for this TopThread
-            writeToFile(Constants.TOP_THREAD_STATS_TYPE,
-                    topThreadsMXBeans.get(keyPropertyList).getStackTrace(topThreadsStackTraceFrames));
+            if (!writeStackTraceToFile(Constants.TOP_THREAD_STATS_TYPE, topThreadMXBean.getStackTraceId(topThreadsStackTraceFrames))) {
+                // stack trace not interned - log it in full
+                writeToFile(Constants.TOP_THREAD_STATS_TYPE, topThreadMXBean.getStackTrace(topThreadsStackTraceFrames));
+            }
         }
 
     }
@@ -445,8 +611,28 @@ public final class StatsLogger implements StatsLoggerMXBean {
                             ",Thread blocked time percentage (" + String.format("%.2f", threadBlockedPercentage) + ") exceeded threshold (" +
                             blockedThreadsStackTraceThreshold + ")");
             // log stack trace for this BlockedThread
-            writeToFile(Constants.BLOCKED_THREAD_STATS_TYPE,
-                    blockedThreadsMXBeans.get(keyPropertyList).getStackTrace(blockedThreadsStackTraceFrames));
+            if (!writeStackTraceToFile(Constants.BLOCKED_THREAD_STATS_TYPE, blockedThreadMXBean.getStackTraceId(blockedThreadsStackTraceFrames))) {
+                // stack trace not interned - log it in full
+                writeToFile(Constants.BLOCKED_THREAD_STATS_TYPE, blockedThreadMXBean.getStackTrace(blockedThreadsStackTraceFrames));
+            }
+        }
+
+    }
+
+    private synchronized void logWaitingThreadsStackTrace(String keyPropertyList, String timestamp) {
+
+        WaitingThreadMXBean waitingThreadMXBean = waitingThreadsMXBeans.get(keyPropertyList);
+        double threadWaitedPercentage = waitingThreadMXBean.getThreadWaitedPercentage();
+        if (threadWaitedPercentage > waitingThreadsStackTraceThreshold) {
+            writeToFile(Constants.WAITING_THREAD_STATS_TYPE,
+                    timestamp + "," + keyPropertyList +
+                            ",Thread waited time percentage (" + String.format("%.2f", threadWaitedPercentage) + ") exceeded threshold (" +
+                            waitingThreadsStackTraceThreshold + ")");
+            // log stack trace for this WaitingThread
+            if (!writeStackTraceToFile(Constants.WAITING_THREAD_STATS_TYPE, waitingThreadMXBean.getStackTraceId(waitingThreadsStackTraceFrames))) {
+                // stack trace not interned - log it in full
+                writeToFile(Constants.WAITING_THREAD_STATS_TYPE, waitingThreadMXBean.getStackTrace(waitingThreadsStackTraceFrames));
+            }
         }
 
     }
@@ -461,12 +647,115 @@ public final class StatsLogger implements StatsLoggerMXBean {
                             ",Hot method load profile (" + String.format("%.2f", hotMethodLoadProfile) + ") exceeded threshold (" +
                             hotMethodStackTraceLoadProfileThreshold + ")");
             // log stack trace for this HotMethod
-            writeToFile(Constants.HOT_METHOD_STATS_TYPE,
-                    hotMethodsMXBeans.get(keyPropertyList).getStackTrace(hotMethodStackTraceFrames));
+            if (!writeStackTraceToFile(Constants.HOT_METHOD_STATS_TYPE, hotMethodMXBean.getStackTraceId(hotMethodStackTraceFrames))) {
+                // stack trace not interned - log it in full
+                writeToFile(Constants.HOT_METHOD_STATS_TYPE, hotMethodMXBean.getStackTrace(hotMethodStackTraceFrames));
+            }
         }
 
     }
 
+    private synchronized void logDeadlockStackTrace(String keyPropertyList, String timestamp) {
+
+        long deadlockCount = deadlockStatsMXBean.getDeadlockCount();
+        if (deadlockCount > lastLoggedDeadlockCount) {
+            // a new deadlock has been detected since the last iteration
+            writeToFile(DEADLOCK_STACK_TRACE_TYPE,
+                    timestamp + "," + keyPropertyList +
+                            ",Deadlock detected between " + deadlockStatsMXBean.getDeadlockedThreadCount() + " threads");
+            // log lock owners and stack traces for the deadlocked threads
+            writeToFile(DEADLOCK_STACK_TRACE_TYPE, deadlockStatsMXBean.getDeadlockReport(deadlockStackTraceFrames));
+            this.lastLoggedDeadlockCount = deadlockCount;
+        }
+
+    }
+
+    private synchronized void logGCPauseHistogram(String keyPropertyList, String timestamp) {
+
+        String gcPauseHistogram = gcStatsMXBean.dumpGCPauseHistogram();
+        if (gcPauseHistogram != null) {
+            // at least one GC event occurred during the last iteration
+            writeToFile(GC_PAUSE_HISTOGRAM_TYPE, timestamp + "," + keyPropertyList + ",GC pause time histogram");
+            writeToFile(GC_PAUSE_HISTOGRAM_TYPE, gcPauseHistogram);
+        }
+
+    }
+
+    private synchronized void logCollapsedStacks(String dateStamp) {
+
+        long currentTime = System.currentTimeMillis();
+        boolean windowComplete;
+        if (hotMethodFlameGraphWindow > 0) {
+            windowComplete = currentTime >= flameGraphWindowStartTime + hotMethodFlameGraphWindow;
+        } else {
+            windowComplete = !dateStamp.equals(flameGraphWindowDateStamp);
+        }
+        if (!windowComplete) {
+            return;
+        }
+        // name the flame graph file after the start of the window, e.g. HotMethod.Collapsed.20190801-1215.txt
+        String windowName = flameGraphWindowDateStamp;
+        if (hotMethodFlameGraphWindow > 0) {
+            windowName = new SimpleDateFormat(dateStampFormat + "-HHmm").format(new Date(flameGraphWindowStartTime));
+        }
+        // start the next window
+        this.flameGraphWindowStartTime = currentTime;
+        this.flameGraphWindowDateStamp = dateStamp;
+        String collapsedStacks = hotMethods.rotateCollapsedStacks();
+        if (collapsedStacks == null) {
+            // no samples taken during this window
+            return;
+        }
+        String fileName = statsLoggerDirectory + Constants.FILE_SEPARATOR + Constants.HOT_METHOD_STATS_TYPE + ".Collapsed." + windowName + ".txt";
+        LOGGER.fine("Writing hot method flame graph window to " + fileName);
+        StatsLogWriter flameGraphWriter = null;
+        try {
+            flameGraphWriter = new StatsLogWriter(fileName);
+            // collapsedStacks is newline terminated
+            flameGraphWriter.println(collapsedStacks.substring(0, Math.max(collapsedStacks.length() - 1, 0)));
+        } catch (Exception e) {
+            LOGGER.warning("Unable to write hot method flame graph file " + fileName + " due to: " + e.getMessage());
+        } finally {
+            if (flameGraphWriter != null) {
+                flameGraphWriter.close();
+            }
+        }
+        // delete the oldest flame graph files beyond the retention limit
+        deleteExpiredCollapsedStacks();
+
+    }
+
+    private void deleteExpiredCollapsedStacks() {
+
+        if (hotMethodFlameGraphMaxFiles <= 0) {
+            // unlimited retention
+            return;
+        }
+        final String prefix = Constants.HOT_METHOD_STATS_TYPE + ".Collapsed.";
+        File[] files = new File(statsLoggerDirectory).listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(prefix) && name.endsWith(".txt");
+            }
+        });
+        if (files == null || files.length <= hotMethodFlameGraphMaxFiles) {
+            return;
+        }
+        // sort oldest first
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return Long.compare(file1.lastModified(), file2.lastModified());
+            }
+        });
+        for (int i = 0; i < files.length - hotMethodFlameGraphMaxFiles; i++) {
+            LOGGER.fine("Deleting expired hot method flame graph file " + files[i]);
+            if (!files[i].delete()) {
+                LOGGER.warning("Unable to delete expired hot method flame graph file " + files[i]);
+            }
+        }
+    }
+
     private void createLogDirectory(String statsLoggerDirectory) {
 
         File statsDir = new File(statsLoggerDirectory);
@@ -541,6 +830,31 @@ public final class StatsLogger implements StatsLoggerMXBean {
         }
         // store statsType statsLogWriter
         this.statsLogWriter.put(statsType, statsLogWriter);
+        // new stack trace log file - stack traces must be written in full again
+        this.loggedStackTraceIds.put(statsType, new BitSet());
+    }
+
+    @SuppressWarnings("resource")
+    private void initHistogramLogFile(String statsType, String datestamp) {
+
+        // initialise histogram log file
+        String fileName = statsLoggerDirectory + Constants.FILE_SEPARATOR + statsType + ".Histogram." + datestamp + ".log";
+        LOGGER.finest("Histogram log file name: " + fileName);
+        // get previous statsLogWriter (if it exists)
+        StatsLogWriter statsLogWriter = this.statsLogWriter.get(statsType);
+        if (statsLogWriter != null) {
+            // close statsLogWriter
+            statsLogWriter.close();
+        }
+        // init new statsLogWriter
+        try {
+            statsLogWriter = new StatsLogWriter(fileName);
+        } catch (Exception e) {
+            LOGGER.severe("Unable to initialise histogram log file " + fileName + " due to: " + e.getMessage());
+            this.statsLoggerEnabled = false;
+        }
+        // store statsType statsLogWriter
+        this.statsLogWriter.put(statsType, statsLogWriter);
     }
 
     private String createCsvHeader(Collection<String> mbeanAttributeNames) {
@@ -561,6 +875,48 @@ public final class StatsLogger implements StatsLoggerMXBean {
 
     }
 
+    /**
+     * Write an interned stack trace to the statsType stack trace log file. The stack trace is written in full the first
+     * time it's logged to the file and referred to by its stack trace ID afterwards.
+     *
+     * @return false if the stack trace hasn't been interned, i.e. stackTraceId is NO_STACK_TRACE_ID, or has been evicted
+     */
+    private synchronized boolean writeStackTraceToFile(String statsType, int stackTraceId) {
+
+        if (stackTraceId == StackTraceStore.NO_STACK_TRACE_ID) {
+            return false;
+        }
+        int firstStackTraceId = stackTraceStore.getFirstStackTraceId();
+        if (firstStackTraceId != loggedFirstStackTraceId) {
+            // the stack trace store has evicted the stack traces logged so far - forget them
+            for (BitSet bitSet : this.loggedStackTraceIds.values()) {
+                bitSet.clear();
+            }
+            this.loggedFirstStackTraceId = firstStackTraceId;
+        }
+        StackTraceElement[] stackTrace = stackTraceStore.getStackTrace(stackTraceId);
+        if (stackTrace == null) {
+            // evicted since the ID was handed out
+            return false;
+        }
+        BitSet loggedStackTraceIds = this.loggedStackTraceIds.get(statsType);
+        int stackTraceIndex = stackTraceId - firstStackTraceId;
+        if (loggedStackTraceIds.get(stackTraceIndex)) {
+            // stack trace already written to this log file - refer to it by ID
+            writeToFile(statsType, "Stack trace #" + stackTraceId + " (as logged above)");
+        } else {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Stack trace #").append(stackTraceId).append(":");
+            for (StackTraceElement element : stackTrace) {
+                sb.append("\n");
+                sb.append(element.toString());
+            }
+            writeToFile(statsType, sb.toString());
+            loggedStackTraceIds.set(stackTraceIndex);
+        }
+        return true;
+    }
+
     @Override
     public void setMBeanCpuTime(double mBeanCpuTime) {
         this.mBeanCpuTime = mBeanCpuTime;
@@ -16,11 +16,11 @@
 
 package io.top4j.javaagent.utils;
 
+import io.top4j.javaagent.mbeans.jvm.gc.CollectorDescriptor;
 import io.top4j.javaagent.mbeans.jvm.gc.GarbageCollectorMXBeanHelper;
 
 import javax.management.MBeanServer;
 import java.lang.management.ManagementFactory;
-import java.util.List;
 
 public class GarbageCollectorNames {
 
@@ -43,15 +43,12 @@ public class GarbageCollectorNames {
             System.err.println("ERROR: Unable to initialise GarbageCollectorMXBeanHelper due to : " + e.getMessage());
         }
 
-        // get list of garbage collector names
-        List<String> gcNames = gcMxBeanHelper.listGarbageCollectorNames();
-
         System.out.println("JVM Garbage Collector Names");
         System.out.println("===========================");
-        for (String gcName : gcNames) {
+        for (CollectorDescriptor collectorDescriptor : gcMxBeanHelper.getCollectorDescriptors()) {
 
-            // print mpName to stdout
-            System.out.println(gcName);
+            // print gcName and classification to stdout
+            System.out.println(collectorDescriptor);
         }
     }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of non-negative long values, in the style of HdrHistogram.
+ * <p>
+ * Values below SUB_BUCKET_COUNT are counted exactly. Larger values are counted in buckets covering successive powers of
+ * two, each split linearly into SUB_BUCKET_COUNT / 2 sub-buckets, so every recorded value is accurate to within ~3% while
+ * the whole histogram is a fixed array of counters. Values above the highest trackable value are counted in the last
+ * bucket (the exact maximum is tracked separately).
+ * <p>
+ * Values are recorded via atomic increments, so recording never blocks and can run concurrently with copyAndReset(),
+ * which is used to take an interval histogram, i.e. the values recorded since the last copy. A value recorded while a
+ * copy is in progress is counted in either the current or the next interval.
+ */
+public class LogLinearHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+    // track values up to 2^40 - 1, e.g. ~12 days in microseconds
+    private static final int MAX_VALUE_BITS = 40;
+    private static final int BUCKET_COUNT = indexOf((1L << MAX_VALUE_BITS) - 1) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Record a value in the histogram.
+     *
+     * @param value the value to record - negative values are ignored
+     */
+    public void recordValue(long value) {
+
+        if (value < 0) {
+            return;
+        }
+        counts.incrementAndGet(Math.min(indexOf(value), BUCKET_COUNT - 1));
+        // update max value
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * Move the values recorded so far into target, replacing its contents, and reset this histogram.
+     *
+     * @param target the histogram to copy to
+     */
+    public void copyAndReset(LogLinearHistogram target) {
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            target.counts.set(i, counts.getAndSet(i, 0));
+        }
+        target.maxValue.set(maxValue.getAndSet(0));
+    }
+
+    /**
+     * Add the values recorded by another histogram to this histogram.
+     *
+     * @param other the histogram to add
+     */
+    public void add(LogLinearHistogram other) {
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        // update max value
+        long otherMax = other.getMaxValue();
+        long max = maxValue.get();
+        while (otherMax > max && !maxValue.compareAndSet(max, otherMax)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * Reset the histogram.
+     */
+    public void reset() {
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        maxValue.set(0);
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long getTotalCount() {
+
+        long totalCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            totalCount += counts.get(i);
+        }
+        return totalCount;
+    }
+
+    /**
+     * @return the maximum value recorded or 0 if no values have been recorded
+     */
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    /**
+     * Get the value at a given percentile, i.e. the highest value equivalent to the value below which percentile % of the
+     * recorded values fall. The value is capped at the maximum value recorded.
+     *
+     * @param percentile the percentile, e.g. 99.9
+     * @return the value at percentile or 0 if no values have been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+
+        long totalCount = getTotalCount();
+        if (totalCount == 0) {
+            return 0;
+        }
+        // the number of values at or below the requested percentile (at least one)
+        long countAtPercentile = Math.max((long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount), 1);
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+            if (count >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    /**
+     * Get a report of the histogram buckets holding recorded values, one "value: count" line per bucket, where value is
+     * either a single value or the lowest-highest values counted by the bucket.
+     *
+     * @param unit the unit appended to each value, e.g. " ms"
+     * @return the histogram report or an empty string if no values have been recorded
+     */
+    public String getBucketReport(String unit) {
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            if (count == 0) {
+                continue;
+            }
+            long lowestValue = lowestEquivalentValue(i);
+            long highestValue = highestEquivalentValue(i);
+            if (sb.length() > 0) {
+                sb.append("\n");
+            }
+            sb.append(lowestValue);
+            if (highestValue != lowestValue) {
+                sb.append("-").append(highestValue);
+            }
+            sb.append(unit).append(": ").append(count);
+        }
+        return sb.toString();
+    }
+
+    private static int indexOf(long value) {
+
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // shift value down so that it fits in the upper half of the sub-buckets
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+    }
+
+    private static long lowestEquivalentValue(int index) {
+
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return subBucket << shift;
+    }
+
+    private static long highestEquivalentValue(int index) {
+
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        return lowestEquivalentValue(index) + (1L << shift) - 1;
+    }
+
+}
@@ -16,11 +16,10 @@
 
 package io.top4j.javaagent.utils;
 
-import io.top4j.javaagent.mbeans.jvm.memory.MemoryPoolMXBeanHelper;
+import io.top4j.javaagent.mbeans.jvm.memory.MemoryPoolDescriptor;
 
-import javax.management.MBeanServer;
 import java.lang.management.ManagementFactory;
-import java.util.List;
+import java.lang.management.MemoryPoolMXBean;
 
 public class MemoryPoolNames {
 
@@ -32,26 +31,12 @@ public class MemoryPoolNames {
 
     private static void list() {
 
-        // get platform MBean server
-        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
-
-        // instantiate new MemoryPoolMXBeanHelper
-        MemoryPoolMXBeanHelper memoryPoolMxBeanHelper = null;
-        try {
-            memoryPoolMxBeanHelper = new MemoryPoolMXBeanHelper(mbs);
-        } catch (Exception e) {
-            System.err.println("ERROR: Unable to initialise MemoryPoolMXBeanHelper due to : " + e.getMessage());
-        }
-
-        // get list of memory pool names
-        List<String> memoryPoolNames = memoryPoolMxBeanHelper.listMemoryPoolNames();
-
         System.out.println("JVM Memory Pool Names");
         System.out.println("=====================");
-        for (String mpName : memoryPoolNames) {
+        for (MemoryPoolMXBean memPoolMXBean : ManagementFactory.getMemoryPoolMXBeans()) {
 
-            // print mpName to stdout
-            System.out.println(mpName);
+            // print mpName and role to stdout
+            System.out.println(MemoryPoolDescriptor.describe(memPoolMXBean.getName(), memPoolMXBean.getType()));
         }
     }
 }
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interning store which hash-conses stack traces into compact int IDs, shared by the agent's stack trace consumers.
+ * <p>
+ * Each distinct frame (StackTraceElement) is stored once and each distinct stack trace is stored once as an array of frame
+ * IDs, executing frame first, so a stack trace which is sampled repeatedly, e.g. a hot thread which stays hot for several
+ * iterations, costs a hash lookup rather than a new copy. The stack trace ID can then be used as a cheap reference to the
+ * stack trace, e.g. the stats logger writes each stack trace in full once per log file and refers to it by ID afterwards.
+ * <p>
+ * Memory is bounded by the limit, which caps both the number of frames and the number of stack traces. Once the limit
+ * has been reached, interning a new stack trace evicts the current generation of frames and stack traces, i.e. the store
+ * is cleared and starts again. Stack trace IDs keep increasing across generations, so an evicted ID is never reused for a
+ * different stack trace: getStackTrace() returns null for an evicted ID and contains() can be used to check whether an ID
+ * held by a caller is still live. Consumers which track IDs, e.g. the stats logger, can detect an eviction via
+ * getFirstStackTraceId().
+ */
+public class StackTraceStore {
+
+    public static final int NO_STACK_TRACE_ID = -1;
+    public static final int DEFAULT_LIMIT = 20000;
+
+    private static final StackTraceStore SHARED_INSTANCE = new StackTraceStore(DEFAULT_LIMIT);
+
+    private int limit;
+    // the ID of the first stack trace of the current generation
+    private int firstStackTraceId;
+    private long evictionCount;
+    // interned frames
+    private final Map<StackTraceElement, Integer> frameIds = new HashMap<>();
+    private StackTraceElement[] frames = new StackTraceElement[64];
+    // interned stack traces - frame IDs, executing frame first
+    private int[][] stackTraces = new int[64][];
+    private int[] stackTraceHashes = new int[64];
+    private int stackTraceCount;
+    // open-addressing hash table of stack trace ID + 1 (0 marks an empty slot)
+    private int[] stackTraceTable = new int[128];
+    private int[] frameBuffer = new int[64];
+
+    public StackTraceStore(int limit) {
+
+        this.limit = limit;
+    }
+
+    /**
+     * @return the stack trace store shared by the agent's MBeans and stats logger
+     */
+    public static StackTraceStore getSharedInstance() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Set the maximum number of frames and stack traces held by the store. Lowering the limit below the number of frames
+     * or stack traces already interned evicts them the next time a new stack trace is interned.
+     *
+     * @param limit the frame and stack trace limit
+     */
+    public synchronized void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Intern a stack trace.
+     *
+     * @param stackTrace the stack trace elements, executing frame first
+     * @return the stack trace ID or NO_STACK_TRACE_ID if stackTrace is null or is deeper than the limit
+     */
+    public synchronized int intern(StackTraceElement[] stackTrace) {
+
+        if (stackTrace == null || stackTrace.length > limit) {
+            return NO_STACK_TRACE_ID;
+        }
+        int index = internStackTrace(stackTrace);
+        if (index < 0) {
+            // limit reached - evict the current generation and try again
+            evict();
+            index = internStackTrace(stackTrace);
+        }
+        return index < 0 ? NO_STACK_TRACE_ID : firstStackTraceId + index;
+    }
+
+    /**
+     * @return the stack trace index within the current generation or -1 if the limit has been reached
+     */
+    private int internStackTrace(StackTraceElement[] stackTrace) {
+
+        int depth = stackTrace.length;
+        if (depth > frameBuffer.length) {
+            this.frameBuffer = new int[Math.max(depth, frameBuffer.length << 1)];
+        }
+        // intern frames and hash the resulting frame IDs
+        int hash = 1;
+        for (int i = 0; i < depth; i++) {
+            int frameId = internFrame(stackTrace[i]);
+            if (frameId < 0) {
+                // frame limit reached
+                return -1;
+            }
+            frameBuffer[i] = frameId;
+            hash = 31 * hash + frameId;
+        }
+        // look up stack trace
+        int mask = stackTraceTable.length - 1;
+        int slot = slot(hash, mask);
+        while (stackTraceTable[slot] != 0) {
+            int stackTraceId = stackTraceTable[slot] - 1;
+            if (stackTraceHashes[stackTraceId] == hash && matches(stackTraces[stackTraceId], depth)) {
+                return stackTraceId;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (stackTraceCount >= limit) {
+            // stack trace limit reached
+            return -1;
+        }
+        // add stack trace
+        int stackTraceId = stackTraceCount++;
+        if (stackTraceId == stackTraces.length) {
+            this.stackTraces = Arrays.copyOf(stackTraces, stackTraceId << 1);
+            this.stackTraceHashes = Arrays.copyOf(stackTraceHashes, stackTraceId << 1);
+        }
+        stackTraces[stackTraceId] = Arrays.copyOf(frameBuffer, depth);
+        stackTraceHashes[stackTraceId] = hash;
+        stackTraceTable[slot] = stackTraceId + 1;
+        if (stackTraceCount > stackTraceTable.length >> 1) {
+            // keep the load factor at or below 0.5
+            rehash(stackTraceTable.length << 1);
+        }
+        return stackTraceId;
+    }
+
+    /**
+     * Clear all frames and stack traces and start a new generation.
+     */
+    private void evict() {
+
+        frameIds.clear();
+        this.frames = new StackTraceElement[64];
+        this.stackTraces = new int[64][];
+        this.stackTraceHashes = new int[64];
+        this.stackTraceTable = new int[128];
+        this.firstStackTraceId += stackTraceCount;
+        if (firstStackTraceId > Integer.MAX_VALUE >> 1) {
+            // start again from 0 well before the IDs overflow
+            this.firstStackTraceId = 0;
+        }
+        this.stackTraceCount = 0;
+        this.evictionCount++;
+    }
+
+    /**
+     * Rebuild an interned stack trace.
+     *
+     * @param stackTraceId the stack trace ID returned by intern()
+     * @return the stack trace elements, executing frame first, or null if the stack trace has been evicted
+     */
+    public synchronized StackTraceElement[] getStackTrace(int stackTraceId) {
+
+        if (stackTraceId >= 0 && stackTraceId < firstStackTraceId) {
+            // evicted
+            return null;
+        }
+        int[] frameIds = stackTraces[checkStackTraceId(stackTraceId)];
+        StackTraceElement[] stackTrace = new StackTraceElement[frameIds.length];
+        for (int i = 0; i < frameIds.length; i++) {
+            stackTrace[i] = frames[frameIds[i]];
+        }
+        return stackTrace;
+    }
+
+    /**
+     * @return the number of frames in an interned stack trace
+     */
+    public synchronized int getDepth(int stackTraceId) {
+        return stackTraces[checkStackTraceId(stackTraceId)].length;
+    }
+
+    /**
+     * @return the number of interned frames
+     */
+    public synchronized int getFrameCount() {
+        return frameIds.size();
+    }
+
+    /**
+     * @return the number of interned stack traces - live stack trace IDs run from getFirstStackTraceId() to
+     * getFirstStackTraceId() + getStackTraceCount() - 1
+     */
+    public synchronized int getStackTraceCount() {
+        return stackTraceCount;
+    }
+
+    /**
+     * @return the ID of the first stack trace of the current generation - IDs below this have been evicted
+     */
+    public synchronized int getFirstStackTraceId() {
+        return firstStackTraceId;
+    }
+
+    /**
+     * @return the number of times the store has been cleared since it was created
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return true if stackTraceId is a live, i.e. interned and not yet evicted, stack trace ID
+     */
+    public synchronized boolean contains(int stackTraceId) {
+        return stackTraceId >= firstStackTraceId && stackTraceId - firstStackTraceId < stackTraceCount;
+    }
+
+    /**
+     * @return the interned frame ID or -1 if the frame hasn't been interned and the limit has been reached
+     */
+    private int internFrame(StackTraceElement stackTraceElement) {
+
+        Integer frameId = frameIds.get(stackTraceElement);
+        if (frameId != null) {
+            return frameId;
+        }
+        int id = frameIds.size();
+        if (id >= limit) {
+            return -1;
+        }
+        if (id == frames.length) {
+            this.frames = Arrays.copyOf(frames, id << 1);
+        }
+        frames[id] = stackTraceElement;
+        frameIds.put(stackTraceElement, id);
+        return id;
+    }
+
+    private boolean matches(int[] frameIds, int depth) {
+
+        if (frameIds.length != depth) {
+            return false;
+        }
+        for (int i = 0; i < depth; i++) {
+            if (frameIds[i] != frameBuffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+
+        this.stackTraceTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int stackTraceId = 0; stackTraceId < stackTraceCount; stackTraceId++) {
+            int slot = slot(stackTraceHashes[stackTraceId], mask);
+            while (stackTraceTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            stackTraceTable[slot] = stackTraceId + 1;
+        }
+    }
+
+    private static int slot(int hash, int mask) {
+
+        // spread the high bits of the frame ID hash into the table index
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private int checkStackTraceId(int stackTraceId) {
+
+        if (!contains(stackTraceId)) {
+            throw new IllegalArgumentException("Unknown stack trace ID: " + stackTraceId);
+        }
+        return stackTraceId - firstStackTraceId;
+    }
+
+}
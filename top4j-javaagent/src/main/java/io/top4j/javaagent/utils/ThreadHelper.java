@@ -26,6 +26,7 @@ import java.lang.Thread.State;
 public class ThreadHelper {
 
     ThreadMXBean threadMXBean;
+    private final StackTraceStore stackTraceStore = StackTraceStore.getSharedInstance();
 
     public ThreadHelper(MBeanServerConnection mbsc) throws IOException {
 
@@ -49,7 +50,7 @@ public class ThreadHelper {
 
     public StackTraceElement[] getStackTraceElements(long threadId, int maxDepth) {
 
-        if (threadId == 0) {
+        if (threadId <= 0) {
             return new StackTraceElement[0];
         }
         if (maxDepth == 0) {
@@ -82,11 +83,24 @@ public class ThreadHelper {
         }
     }
 
+    public int getStackTraceId(long threadId, int maxDepth) {
+
+        // get stack trace
+        StackTraceElement[] stackTraceElements = getStackTraceElements(threadId, maxDepth);
+
+        // intern stack trace via shared stack trace store
+        return stackTraceStore.intern(stackTraceElements);
+    }
+
     public String getStackTraceWithContext(long threadId, int maxDepth) {
 
         if (threadId == 0) {
             return null;
         }
+        if (threadId < 0) {
+            // native JVM thread (e.g. GC thread) reported by the procfs thread CPU source - no Java stack
+            return "Native thread (TID " + (-threadId) + ")\n\nNo stack trace available.";
+        }
         if (maxDepth == 0) {
             maxDepth = Integer.MAX_VALUE;
         }
@@ -138,9 +152,23 @@ public class ThreadHelper {
         return sb.toString();
     }
 
+    public String getStackTraceAsString(int stackTraceId) {
+
+        StackTraceElement[] stackTraceElements = null;
+        if (stackTraceId != StackTraceStore.NO_STACK_TRACE_ID) {
+            stackTraceElements = stackTraceStore.getStackTrace(stackTraceId);
+        }
+        if (stackTraceElements == null) {
+            // not interned or evicted
+            return "No stack trace available.";
+        }
+
+        return getStackTraceAsString(stackTraceElements);
+    }
+
     public State getThreadState(long threadId) {
 
-        if (threadId == 0) {
+        if (threadId <= 0) {
             return null;
         }
 
@@ -158,7 +186,7 @@ public class ThreadHelper {
 
     public long getThreadCpuTime(long threadId) {
 
-        if (threadId == 0) {
+        if (threadId <= 0) {
             return -1;
         }
 
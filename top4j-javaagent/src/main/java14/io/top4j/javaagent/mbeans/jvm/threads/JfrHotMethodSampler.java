@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.top4j.javaagent.mbeans.jvm.threads;
+
+import io.top4j.javaagent.profiler.CpuTime;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Hot method sampler which feeds JDK Flight Recorder jdk.ExecutionSample events into HotMethods (Java 14+).
+ * <p>
+ * Unlike ThreadMXBean.getThreadInfo(), JFR samples threads asynchronously without a safepoint, so the application isn't
+ * paused and the samples aren't biased towards safepoint polls. JFR only samples threads which are running Java code
+ * (threads in native code are reported via jdk.NativeMethodSample events instead) and samples a bounded number of threads
+ * per sample period, so self and total times are estimates of CPU hot spots rather than of all RUNNABLE time.
+ * <p>
+ * Events are consumed on a daemon event stream thread as they're flushed (roughly once a second). The CPU time consumed
+ * by the stream thread, including parsing the JFR repository, is added to the HotMethods MBean CPU time on each flush.
+ */
+public class JfrHotMethodSampler {
+
+    private static final String EXECUTION_SAMPLE_EVENT = "jdk.ExecutionSample";
+    // events are consumed as they're flushed so only keep a short history in the JFR disk repository
+    private static final Duration MAX_AGE = Duration.ofSeconds(10);
+
+    private final HotMethods hotMethods;
+    private final long samplePeriod;
+    private final int maxDepth;
+    private RecordingStream recordingStream;
+    // created on the event stream thread
+    private CpuTime cpuTime;
+
+    private static final Logger LOGGER = Logger.getLogger(JfrHotMethodSampler.class.getName());
+
+    public JfrHotMethodSampler(HotMethods hotMethods, long samplePeriod, int maxDepth) {
+
+        // store hotMethods
+        this.hotMethods = hotMethods;
+        // store JFR execution sample period
+        this.samplePeriod = samplePeriod;
+        // store stack trace maximum frame depth
+        this.maxDepth = maxDepth;
+
+    }
+
+    /**
+     * @return true if JFR event streaming is available in this JVM
+     */
+    public static boolean isSupported() {
+
+        try {
+            return FlightRecorder.isAvailable();
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * Start streaming execution samples into HotMethods.
+     */
+    public synchronized void start() {
+
+        if (recordingStream != null) {
+            return;
+        }
+        RecordingStream recordingStream = new RecordingStream();
+        try {
+            recordingStream.enable(EXECUTION_SAMPLE_EVENT).withPeriod(Duration.ofMillis(samplePeriod)).withStackTrace();
+            recordingStream.setMaxAge(MAX_AGE);
+            recordingStream.onEvent(EXECUTION_SAMPLE_EVENT, this::addSample);
+            recordingStream.onFlush(this::addCpuTime);
+        } catch (RuntimeException e) {
+            recordingStream.close();
+            throw e;
+        }
+        this.recordingStream = recordingStream;
+        // consume the event stream on a daemon thread (RecordingStream.startAsync() threads inherit the caller's daemon
+        // status and would keep the JVM alive when started from the agent's premain thread)
+        Thread streamThread = new Thread(() -> consumeEvents(recordingStream), "Top4J JFR Method Profiler");
+        streamThread.setDaemon(true);
+        streamThread.start();
+        LOGGER.fine("Started JFR " + EXECUTION_SAMPLE_EVENT + " stream with a " + samplePeriod + " ms period.");
+    }
+
+    /**
+     * Stop streaming execution samples.
+     */
+    public synchronized void close() {
+
+        if (recordingStream != null) {
+            recordingStream.close();
+            this.recordingStream = null;
+        }
+    }
+
+    private void consumeEvents(RecordingStream recordingStream) {
+
+        try {
+            recordingStream.start();
+        } catch (RuntimeException e) {
+            LOGGER.warning("JFR hot method sampler stopped due to: " + e.getMessage());
+        }
+    }
+
+    private void addSample(RecordedEvent event) {
+
+        if (cpuTime == null) {
+            // initialise event stream thread CPU timer
+            this.cpuTime = new CpuTime();
+        }
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        RecordedThread thread = event.getThread("sampledThread");
+        if (stackTrace == null || thread == null) {
+            return;
+        }
+        // convert JFR frames (executing frame first) to stack trace elements
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        int depth = maxDepth > 0 ? Math.min(frames.size(), maxDepth) : frames.size();
+        StackTraceElement[] ste = new StackTraceElement[depth];
+        for (int i = 0; i < depth; i++) {
+            RecordedFrame frame = frames.get(i);
+            RecordedMethod method = frame.getMethod();
+            ste[i] = new StackTraceElement(method.getType().getName(), method.getName(), null, frame.getLineNumber());
+        }
+        // add sampled thread stack trace, name and ID to hotMethods
+        hotMethods.addSample(ste, thread.getJavaName(), thread.getJavaThreadId());
+    }
+
+    private void addCpuTime() {
+
+        if (cpuTime == null) {
+            // initialise event stream thread CPU timer
+            this.cpuTime = new CpuTime();
+            return;
+        }
+        LOGGER.finer("JFR Hot Method Sampler CPU Time: " + cpuTime.getMillis() + " ms");
+        // update hot method tracker CPU time
+        hotMethods.addMBeanCpuTime(cpuTime.getMillis());
+        cpuTime.init();
+    }
+
+}
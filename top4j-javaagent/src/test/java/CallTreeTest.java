@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import io.top4j.javaagent.mbeans.jvm.threads.CallTree;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CallTreeTest {
+
+    private static StackTraceElement frame(String method, int line) {
+        return new StackTraceElement("app.Service", method, "Service.java", line);
+    }
+
+    @Test
+    public void selfAndTotalSamplesAreCreditedPerMethod() {
+
+        CallTree callTree = new CallTree(100);
+        StackTraceElement[] hashing = {frame("hash", 10), frame("handle", 20), frame("run", 30)};
+        StackTraceElement[] parsing = {frame("parse", 40), frame("handle", 21), frame("run", 30)};
+        // recursion - handle appears twice but is only counted once per sample
+        StackTraceElement[] recursing = {frame("handle", 22), frame("handle", 20), frame("run", 30)};
+        callTree.addSample(hashing, "worker-1", 1);
+        callTree.addSample(hashing, "worker-2", 2);
+        callTree.addSample(parsing, "worker-1", 1);
+        callTree.addSample(recursing, "worker-3", 3);
+
+        assertEquals(4, callTree.getSampleCount());
+        assertEquals(4, callTree.getMethodCount());
+        int run = method(callTree, "app.Service.run");
+        int handle = method(callTree, "app.Service.handle");
+        int hash = method(callTree, "app.Service.hash");
+        assertEquals(0, callTree.getMethodSelfSamples(run));
+        assertEquals(4, callTree.getMethodTotalSamples(run));
+        assertEquals(1, callTree.getMethodSelfSamples(handle));
+        assertEquals(4, callTree.getMethodTotalSamples(handle));
+        assertEquals(2, callTree.getMethodSelfSamples(hash));
+        assertEquals(2, callTree.getMethodTotalSamples(hash));
+        assertEquals("worker-2", callTree.getMethodThreadName(hash));
+        assertArrayEquals(hashing, callTree.getMethodStackTrace(hash));
+        // root + run + handle:20 + hash + handle:21 + parse + handle:22
+        assertEquals(7, callTree.getNodeCount());
+        assertEquals(4, callTree.getNodeTotalSamples(0));
+        assertEquals(0, callTree.getTruncatedSampleCount());
+    }
+
+    @Test
+    public void collapsedStacksMergeCallPathsByMethod() {
+
+        CallTree callTree = new CallTree(100);
+        callTree.addSample(new StackTraceElement[]{frame("hash", 10), frame("handle", 20), frame("run", 30)}, "worker-1", 1);
+        callTree.addSample(new StackTraceElement[]{frame("hash", 11), frame("handle", 20), frame("run", 30)}, "worker-1", 1);
+        callTree.addSample(new StackTraceElement[]{frame("handle", 21), frame("run", 30)}, "worker-2", 2);
+
+        assertEquals("app.Service.run;app.Service.handle;app.Service.hash 2\n" +
+                "app.Service.run;app.Service.handle 1\n", callTree.getCollapsedStacks());
+    }
+
+    @Test
+    public void nodeLimitTruncatesNewCallPaths() {
+
+        CallTree callTree = new CallTree(3);
+        callTree.addSample(new StackTraceElement[]{frame("hash", 10), frame("run", 30)}, "worker-1", 1);
+        callTree.addSample(new StackTraceElement[]{frame("parse", 40), frame("run", 30)}, "worker-1", 1);
+
+        assertEquals(3, callTree.getNodeCount());
+        assertEquals(1, callTree.getTruncatedSampleCount());
+        // the truncated sample is credited to the deepest existing node, i.e. run
+        int run = method(callTree, "app.Service.run");
+        assertEquals(2, callTree.getMethodTotalSamples(run));
+        callTree.clear();
+        assertEquals(1, callTree.getNodeCount());
+        assertEquals(0, callTree.getMethodCount());
+    }
+
+    private static int method(CallTree callTree, String methodName) {
+
+        for (int method = 0; method < callTree.getMethodCount(); method++) {
+            if (callTree.getMethodName(method).equals(methodName)) {
+                return method;
+            }
+        }
+        throw new AssertionError("Method not found: " + methodName);
+    }
+}
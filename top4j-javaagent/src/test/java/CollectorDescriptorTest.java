@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import io.top4j.javaagent.mbeans.jvm.gc.CollectorDescriptor;
+import io.top4j.javaagent.mbeans.jvm.memory.MemoryPoolDescriptor;
+import org.junit.Test;
+
+import java.lang.management.MemoryType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CollectorDescriptorTest {
+
+    @Test
+    public void concurrentCyclesAreNotPauses() {
+
+        CollectorDescriptor g1Concurrent = CollectorDescriptor.describe("G1 Concurrent GC");
+        assertTrue(g1Concurrent.isPause());
+        assertFalse(g1Concurrent.isCollection());
+        assertFalse(g1Concurrent.isYoung());
+
+        CollectorDescriptor zgcMinorCycles = CollectorDescriptor.describe("ZGC Minor Cycles");
+        assertFalse(zgcMinorCycles.isPause());
+        assertTrue(zgcMinorCycles.isCollection());
+        assertTrue(zgcMinorCycles.isYoung());
+
+        CollectorDescriptor zgcMajorPauses = CollectorDescriptor.describe("ZGC Major Pauses");
+        assertTrue(zgcMajorPauses.isPause());
+        assertFalse(zgcMajorPauses.isYoung());
+
+        CollectorDescriptor g1Young = CollectorDescriptor.describe("G1 Young Generation");
+        assertTrue(g1Young.isPause());
+        assertTrue(g1Young.isCollection());
+        assertTrue(g1Young.isYoung());
+    }
+
+    @Test
+    public void unknownCollectorsAreClassifiedByName() {
+
+        assertEquals(CollectorDescriptor.Kind.CYCLE_PAUSE, CollectorDescriptor.describe("Shenandoah Minor Pauses").getKind());
+        assertTrue(CollectorDescriptor.describe("Shenandoah Minor Pauses").isYoung());
+        assertEquals(CollectorDescriptor.Kind.CYCLE, CollectorDescriptor.describe("Shenandoah Old Cycles").getKind());
+        assertFalse(CollectorDescriptor.describe("Shenandoah Old Cycles").isYoung());
+        assertEquals(CollectorDescriptor.Kind.COLLECTION, CollectorDescriptor.describe("GPGC New").getKind());
+        assertTrue(CollectorDescriptor.describe("GPGC New").isYoung());
+    }
+
+    @Test
+    public void memoryPoolsAreClassifiedByRole() {
+
+        assertEquals(MemoryPoolDescriptor.Role.NURSERY, MemoryPoolDescriptor.describe("G1 Eden Space", MemoryType.HEAP).getRole());
+        assertEquals(MemoryPoolDescriptor.Role.NURSERY, MemoryPoolDescriptor.describe("ZGC Young Generation", MemoryType.HEAP).getRole());
+        assertEquals(MemoryPoolDescriptor.Role.TENURED, MemoryPoolDescriptor.describe("ZGC Old Generation", MemoryType.HEAP).getRole());
+        assertEquals(MemoryPoolDescriptor.Role.SURVIVOR, MemoryPoolDescriptor.describe("Shenandoah Survivor Space", MemoryType.HEAP).getRole());
+        assertEquals(MemoryPoolDescriptor.Role.NON_HEAP, MemoryPoolDescriptor.describe("Metaspace", MemoryType.NON_HEAP).getRole());
+        assertNull(MemoryPoolDescriptor.describe("Mystery Heap", MemoryType.HEAP).getRole());
+    }
+}
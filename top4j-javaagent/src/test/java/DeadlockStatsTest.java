@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import io.top4j.javaagent.config.Configurator;
+import io.top4j.javaagent.config.Constants;
+import io.top4j.javaagent.mbeans.jvm.threads.DeadlockStats;
+import io.top4j.javaagent.mbeans.jvm.threads.ThreadStatsMXBean;
+import org.junit.Test;
+
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlockStatsTest {
+
+    @Test
+    public void detectsDeadlockAndNotifiesOnce() throws Exception {
+
+        Configurator config = new Configurator(ManagementFactory.getPlatformMBeanServer(), "deadlock.detection.time.budget=0");
+        DeadlockStats deadlockStats = new DeadlockStats(config, blockedThreadStats(2));
+        final List<Notification> notifications = new ArrayList<>();
+        deadlockStats.addNotificationListener(new NotificationListener() {
+            @Override
+            public void handleNotification(Notification notification, Object handback) {
+                notifications.add(notification);
+            }
+        }, null, null);
+
+        // deadlock two threads on a pair of interruptible locks so that they can be released afterwards
+        final ReentrantLock lockA = new ReentrantLock();
+        final ReentrantLock lockB = new ReentrantLock();
+        final CountDownLatch locked = new CountDownLatch(2);
+        Thread threadA = new Thread(new LockPair(lockA, lockB, locked), "deadlock-a");
+        Thread threadB = new Thread(new LockPair(lockB, lockA, locked), "deadlock-b");
+        threadA.setDaemon(true);
+        threadB.setDaemon(true);
+        threadA.start();
+        threadB.start();
+        try {
+            locked.await();
+            // allow both threads to park on the second lock
+            for (int i = 0; i < 100 && !(lockA.hasQueuedThreads() && lockB.hasQueuedThreads()); i++) {
+                Thread.sleep(10);
+            }
+            deadlockStats.update();
+            deadlockStats.update();
+
+            assertEquals(2, deadlockStats.getDeadlockedThreadCount());
+            assertEquals(1, deadlockStats.getDeadlockCount());
+            assertEquals(1, notifications.size());
+            assertEquals(Constants.DEADLOCK_NOTIFICATION_TYPE, notifications.get(0).getType());
+            String report = deadlockStats.getDeadlockReport(5);
+            assertNotNull(report);
+            assertTrue(report.contains("\"deadlock-a\""));
+            assertTrue(report.contains("owned by \"deadlock-b\""));
+        } finally {
+            threadA.interrupt();
+            threadB.interrupt();
+        }
+    }
+
+    private static ThreadStatsMXBean blockedThreadStats(final long blockedThreadCount) {
+
+        return (ThreadStatsMXBean) Proxy.newProxyInstance(ThreadStatsMXBean.class.getClassLoader(),
+                new Class<?>[]{ThreadStatsMXBean.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return method.getName().equals("getBlockedThreadCount") ? blockedThreadCount : null;
+                    }
+                });
+    }
+
+    private static class LockPair implements Runnable {
+
+        private final ReentrantLock first;
+        private final ReentrantLock second;
+        private final CountDownLatch locked;
+
+        LockPair(ReentrantLock first, ReentrantLock second, CountDownLatch locked) {
+            this.first = first;
+            this.second = second;
+            this.locked = locked;
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                first.lockInterruptibly();
+                locked.countDown();
+                locked.await();
+                second.lockInterruptibly();
+            } catch (InterruptedException e) {
+                // released
+            }
+        }
+    }
+}
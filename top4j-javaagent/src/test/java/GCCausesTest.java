@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import io.top4j.javaagent.mbeans.jvm.gc.CollectorDescriptor;
+import io.top4j.javaagent.mbeans.jvm.gc.GCCause;
+import io.top4j.javaagent.mbeans.jvm.gc.GCCauses;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GCCausesTest {
+
+    private static final CollectorDescriptor YOUNG = CollectorDescriptor.describe("G1 Young Generation");
+    private static final CollectorDescriptor ZGC_CYCLES = CollectorDescriptor.describe("ZGC Cycles");
+    private static final CollectorDescriptor ZGC_PAUSES = CollectorDescriptor.describe("ZGC Pauses");
+
+    @Test
+    public void ranksCausesByPauseTimeWithinWindow() {
+
+        Map<Integer, GCCause> gcCausesMap = gcCausesMap(3);
+        GCCauses gcCauses = new GCCauses(gcCausesMap, 2);
+
+        gcCauses.record(YOUNG, "G1 Evacuation Pause", "end of minor GC", 5);
+        gcCauses.record(YOUNG, "G1 Evacuation Pause", "end of minor GC", 7);
+        gcCauses.record(YOUNG, "System.gc()", "end of major GC", 30);
+        gcCauses.update();
+        assertEquals("System.gc()", gcCausesMap.get(1).getGcCause());
+        assertEquals("G1 Evacuation Pause", gcCausesMap.get(2).getGcCause());
+        assertEquals(2, gcCausesMap.get(2).getCollectionCount());
+        assertEquals(12, gcCausesMap.get(2).getPauseTime());
+        assertEquals(7, gcCausesMap.get(2).getMaxPauseTime());
+        assertNull(gcCausesMap.get(3).getGcCause());
+
+        // System.gc() is still within the window
+        gcCauses.record(YOUNG, "G1 Evacuation Pause", "end of minor GC", 25);
+        gcCauses.update();
+        assertEquals("G1 Evacuation Pause", gcCausesMap.get(1).getGcCause());
+        assertEquals(37, gcCausesMap.get(1).getPauseTime());
+        assertEquals("System.gc()", gcCausesMap.get(2).getGcCause());
+
+        // System.gc() drops out of the window, but is still counted in the totals
+        gcCauses.record(YOUNG, "System.gc()", "end of major GC", 1);
+        gcCauses.update();
+        assertEquals("G1 Evacuation Pause", gcCausesMap.get(1).getGcCause());
+        assertEquals(25, gcCausesMap.get(1).getPauseTime());
+        assertEquals(25, gcCausesMap.get(1).getMaxPauseTime());
+        assertEquals("System.gc()", gcCausesMap.get(2).getGcCause());
+        assertEquals(1, gcCausesMap.get(2).getPauseTime());
+        assertEquals(2, gcCausesMap.get(2).getTotalCollectionCount());
+        assertEquals(31, gcCausesMap.get(2).getTotalPauseTime());
+    }
+
+    @Test
+    public void countsConcurrentCyclesOnceAndTheirPausesAsPauseTime() {
+
+        Map<Integer, GCCause> gcCausesMap = gcCausesMap(1);
+        GCCauses gcCauses = new GCCauses(gcCausesMap, 1);
+
+        gcCauses.record(ZGC_PAUSES, "Allocation Rate", "end of GC pause", 1);
+        gcCauses.record(ZGC_PAUSES, "Allocation Rate", "end of GC pause", 2);
+        gcCauses.record(ZGC_CYCLES, "Allocation Rate", "end of GC cycle", 300);
+        gcCauses.update();
+        assertEquals(1, gcCausesMap.get(1).getCollectionCount());
+        assertEquals(3, gcCausesMap.get(1).getPauseTime());
+        assertEquals("end of GC pause; end of GC cycle", gcCausesMap.get(1).getGcActions());
+    }
+
+    private static Map<Integer, GCCause> gcCausesMap(int gcCauseCount) {
+
+        Map<Integer, GCCause> gcCausesMap = new HashMap<>();
+        for (int rank = 1; rank <= gcCauseCount; rank++) {
+            gcCausesMap.put(rank, new GCCause());
+        }
+        return gcCausesMap;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import io.top4j.javaagent.mbeans.jvm.GCTimeline;
+import io.top4j.javaagent.mbeans.jvm.gc.CollectorDescriptor;
+import org.junit.Test;
+
+import java.lang.management.MemoryUsage;
+
+import static org.junit.Assert.assertEquals;
+
+public class GCTimelineTest {
+
+    private static final CollectorDescriptor YOUNG = CollectorDescriptor.describe("G1 Young Generation");
+    private static final CollectorDescriptor OLD = CollectorDescriptor.describe("G1 Old Generation");
+    private static final CollectorDescriptor ZGC_CYCLES = CollectorDescriptor.describe("ZGC Cycles");
+    private static final long START = 1600000000000L;
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void gcOverheadCoversEachWindow() {
+
+        GCTimeline gcTimeline = new GCTimeline("G1 Old Gen", false, START);
+
+        // a 500ms GC storm 2 minutes in, after 100ms of GC in the first second
+        gcTimeline.record(YOUNG, "end of minor GC", START, 100, null);
+        gcTimeline.record(YOUNG, "end of minor GC", START + 120000, 200, null);
+        gcTimeline.record(YOUNG, "end of minor GC", START + 120500, 300, null);
+        long now = START + 125000;
+        assertEquals(5.0, gcTimeline.getGCOverhead(10, now), 0.001);
+        assertEquals(500.0 / 600, gcTimeline.getGCOverhead(60, now), 0.001);
+        // the 5 and 15 minute windows only cover the 126 seconds since the timeline started
+        assertEquals(600.0 / 1260, gcTimeline.getGCOverhead(300, now), 0.001);
+        assertEquals(600.0 / 1260, gcTimeline.getGCOverhead(900, now), 0.001);
+
+        // concurrent cycles don't contribute to the GC overhead
+        gcTimeline.record(ZGC_CYCLES, "end of GC cycle", now, 5000, null);
+        assertEquals(5.0, gcTimeline.getGCOverhead(10, now), 0.001);
+
+        // the storm drops out of the 10s window, and the ring slots are recycled after 15 minutes
+        assertEquals(0.0, gcTimeline.getGCOverhead(10, now + 10000), 0.001);
+        assertEquals(0.0, gcTimeline.getGCOverhead(900, START + 1200000), 0.001);
+    }
+
+    @Test
+    public void projectsTimeToExhaustionFromPostGCUsageTrend() {
+
+        GCTimeline gcTimeline = new GCTimeline("G1 Old Gen", false, START);
+        assertEquals(-1, gcTimeline.getTimeToExhaustion(START));
+
+        // tenured heap grows by 1MB every 10 seconds, from 100MB towards its 200MB max
+        for (int i = 0; i <= 10; i++) {
+            gcTimeline.record(OLD, "end of major GC", START + i * 10000, 5, new MemoryUsage(0, (100 + i) * MB, 200 * MB, 200 * MB));
+        }
+        long now = START + 100000;
+        assertEquals(0.1 * MB, gcTimeline.getTenuredGrowthRate(now), 1);
+        assertEquals(900, gcTimeline.getTimeToExhaustion(now));
+
+        // a collection which frees the tenured heap flattens the trend
+        gcTimeline.record(OLD, "end of major GC", now + 10000, 5, new MemoryUsage(0, 50 * MB, 200 * MB, 200 * MB));
+        gcTimeline.record(OLD, "end of major GC", now + 20000, 5, new MemoryUsage(0, 50 * MB, 200 * MB, 200 * MB));
+        assertEquals(-1, gcTimeline.getTimeToExhaustion(now + 20000));
+    }
+
+    @Test
+    public void ignoresTenuredUsageAfterYoungCollectionsOfGenerationalHeaps() {
+
+        GCTimeline gcTimeline = new GCTimeline("G1 Old Gen", false, START);
+
+        // promotion makes tenured heap usage rise after every young collection - not a trend
+        for (int i = 0; i <= 10; i++) {
+            gcTimeline.record(YOUNG, "end of minor GC", START + i * 10000, 5, new MemoryUsage(0, (100 + i) * MB, 200 * MB, 200 * MB));
+        }
+        long now = START + 100000;
+        assertEquals(0.0, gcTimeline.getTenuredGrowthRate(now), 0);
+        assertEquals(-1, gcTimeline.getTimeToExhaustion(now));
+
+        // every cycle of a single generation heap collects the whole heap
+        GCTimeline singleGenerationTimeline = new GCTimeline("ZHeap", true, START);
+        for (int i = 0; i <= 10; i++) {
+            singleGenerationTimeline.record(ZGC_CYCLES, "end of GC cycle", START + i * 10000, 50, new MemoryUsage(0, (100 + i) * MB, 200 * MB, 200 * MB));
+        }
+        assertEquals(900, singleGenerationTimeline.getTimeToExhaustion(now));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import io.top4j.javaagent.utils.LogLinearHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogLinearHistogramTest {
+
+    @Test
+    public void longPauseIsNotHiddenByShortPauses() {
+
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int i = 0; i < 50; i++) {
+            histogram.recordValue(5 + i % 3);
+        }
+        histogram.recordValue(800);
+
+        assertEquals(51, histogram.getTotalCount());
+        assertEquals(800, histogram.getMaxValue());
+        assertEquals(6, histogram.getValueAtPercentile(50));
+        assertEquals(7, histogram.getValueAtPercentile(90));
+        assertEquals(800, histogram.getValueAtPercentile(99));
+        assertEquals(800, histogram.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    public void largeValuesAreAccurateToWithinThreePercent() {
+
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (long value = 1; value < 10000000; value = value * 3 + 1) {
+            histogram.reset();
+            histogram.recordValue(value);
+            histogram.recordValue(value * 2);
+            long p50 = histogram.getValueAtPercentile(50);
+            assertTrue(value + " recorded as " + p50, p50 >= value && p50 <= value * 1.03);
+        }
+    }
+
+    @Test
+    public void copyAndResetStartsNewInterval() {
+
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        LogLinearHistogram intervalHistogram = new LogLinearHistogram();
+        histogram.recordValue(10);
+        histogram.recordValue(100);
+        histogram.copyAndReset(intervalHistogram);
+
+        assertEquals(2, intervalHistogram.getTotalCount());
+        assertEquals(100, intervalHistogram.getMaxValue());
+        assertEquals("10 ms: 1\n100-101 ms: 1", intervalHistogram.getBucketReport(" ms"));
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMaxValue());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import io.top4j.javaagent.mbeans.jvm.gc.CollectorDescriptor;
+import io.top4j.javaagent.mbeans.jvm.memory.MemoryAccountant;
+import org.junit.Test;
+
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryAccountantTest {
+
+    private static final CollectorDescriptor YOUNG = CollectorDescriptor.describe("G1 Young Generation");
+    private static final CollectorDescriptor OLD = CollectorDescriptor.describe("G1 Old Generation");
+
+    @Test
+    public void accountsEachCollectionExactly() {
+
+        MemoryAccountant memoryAccountant = new MemoryAccountant("G1 Eden Space", "G1 Survivor Space", "G1 Old Gen",
+                Arrays.asList(YOUNG, OLD), 100);
+
+        // two young collections: 900 then 1000 bytes allocated since the previous collection
+        memoryAccountant.account(YOUNG, usage(1000, 50, 500), usage(0, 80, 520));
+        memoryAccountant.account(YOUNG, usage(1000, 80, 520), usage(0, 60, 560));
+        assertEquals(1900, memoryAccountant.getAllocatedBytes());
+        assertEquals(140, memoryAccountant.getSurvivedBytes());
+        assertEquals(60, memoryAccountant.getPromotedBytes());
+
+        // a full collection accounts for allocation only
+        memoryAccountant.account(OLD, usage(300, 60, 600), usage(0, 0, 200));
+        assertEquals(2200, memoryAccountant.getAllocatedBytes());
+        assertEquals(140, memoryAccountant.getSurvivedBytes());
+        assertEquals(60, memoryAccountant.getPromotedBytes());
+        assertEquals(3, memoryAccountant.getCollectionCount());
+
+        // allocation since the last collection
+        assertEquals(2450, memoryAccountant.getAllocatedBytes(250));
+    }
+
+    @Test
+    public void concurrentOldCyclesAndPausesAreNotAccounted() {
+
+        assertTrue(MemoryAccountant.isAccounted(CollectorDescriptor.describe("ZGC Cycles")));
+        assertTrue(MemoryAccountant.isAccounted(CollectorDescriptor.describe("PS MarkSweep")));
+        assertFalse(MemoryAccountant.isAccounted(CollectorDescriptor.describe("ZGC Pauses")));
+        assertFalse(MemoryAccountant.isAccounted(CollectorDescriptor.describe("ConcurrentMarkSweep")));
+    }
+
+    private static Map<String, MemoryUsage> usage(long eden, long survivor, long old) {
+
+        Map<String, MemoryUsage> usage = new HashMap<>();
+        usage.put("G1 Eden Space", new MemoryUsage(0, eden, 4096, -1));
+        usage.put("G1 Survivor Space", new MemoryUsage(0, survivor, 4096, -1));
+        usage.put("G1 Old Gen", new MemoryUsage(0, old, 4096, -1));
+        return usage;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import io.top4j.javaagent.mbeans.jvm.MemorySnapshot;
+import io.top4j.javaagent.mbeans.jvm.MemorySnapshotBus;
+import io.top4j.javaagent.mbeans.jvm.gc.GarbageCollectorMXBeanHelper;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class MemorySnapshotBusTest {
+
+    @Test
+    public void helperReadsSnapshotUntilRefreshed() throws Exception {
+
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        MemorySnapshotBus memorySnapshotBus = new MemorySnapshotBus(mbs);
+        GarbageCollectorMXBeanHelper gcMXBeanHelper = new GarbageCollectorMXBeanHelper(mbs, memorySnapshotBus);
+        GarbageCollectorMXBeanHelper liveGcMXBeanHelper = new GarbageCollectorMXBeanHelper(mbs);
+
+        MemorySnapshot snapshot = memorySnapshotBus.getSnapshot();
+        long gcCount = gcMXBeanHelper.getNurseryGCCount() + gcMXBeanHelper.getTenuredGCCount();
+        System.gc();
+
+        // the snapshot is unchanged by the GC
+        assertEquals(gcCount, gcMXBeanHelper.getNurseryGCCount() + gcMXBeanHelper.getTenuredGCCount());
+        assertTrue(liveGcMXBeanHelper.getNurseryGCCount() + liveGcMXBeanHelper.getTenuredGCCount() > gcCount);
+
+        // until the bus publishes a new snapshot
+        memorySnapshotBus.refresh();
+        assertNotSame(snapshot, memorySnapshotBus.getSnapshot());
+        assertEquals(liveGcMXBeanHelper.getNurseryGCCount() + liveGcMXBeanHelper.getTenuredGCCount(),
+                gcMXBeanHelper.getNurseryGCCount() + gcMXBeanHelper.getTenuredGCCount());
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import io.top4j.javaagent.mbeans.jvm.nonheap.NonHeapUsage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class NonHeapUsageTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void tracksUsageGrowthRateAndHeadroom() {
+
+        NonHeapUsage nonHeapUsage = new NonHeapUsage();
+        nonHeapUsage.update(10 * MB, 100 * MB, 10);
+        assertEquals(10.0, nonHeapUsage.getUsed(), 0.001);
+        assertEquals(0.0, nonHeapUsage.getGrowthRate(), 0.001);
+        assertEquals(90.0, nonHeapUsage.getHeadroom(), 0.001);
+
+        nonHeapUsage.update(30 * MB, 100 * MB, 10);
+        assertEquals(2.0, nonHeapUsage.getGrowthRate(), 0.001);
+        assertEquals(70.0, nonHeapUsage.getHeadroom(), 0.001);
+
+        // unbounded region
+        nonHeapUsage.update(20 * MB, -1, 10);
+        assertEquals(-1.0, nonHeapUsage.getGrowthRate(), 0.001);
+        assertEquals(-1.0, nonHeapUsage.getHeadroom(), 0.001);
+
+        // region not available
+        nonHeapUsage.update(-1, -1, 10);
+        assertEquals(0.0, nonHeapUsage.getUsed(), 0.001);
+        assertEquals(-1.0, nonHeapUsage.getHeadroom(), 0.001);
+    }
+}
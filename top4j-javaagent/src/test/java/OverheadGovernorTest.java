@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import io.top4j.javaagent.mbeans.agent.OverheadGovernor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OverheadGovernorTest {
+
+    // a 1% of one core budget, i.e. 10ms of agent CPU time per 1000ms iteration
+    private static final double BUDGET = 1.0;
+    private static final long ITERATION = 1000;
+    private static final double OVER_BUDGET = 20;
+    private static final double WITHIN_BUDGET = 7;
+    private static final double UNDER_HALF_BUDGET = 1;
+
+    @Test
+    public void overBudgetRaisesLevelOneStep() {
+
+        OverheadGovernor overheadGovernor = new OverheadGovernor(BUDGET, null, 1000);
+        assertEquals(0, overheadGovernor.getDegradationLevel());
+
+        overheadGovernor.update(OVER_BUDGET, ITERATION);
+        assertEquals(2.0, overheadGovernor.getAgentCoreUsage(), 0.001);
+        assertEquals(1, overheadGovernor.getDegradationLevel());
+        overheadGovernor.update(OVER_BUDGET, ITERATION);
+        assertEquals(2, overheadGovernor.getDegradationLevel());
+
+        // within budget but above half of it - hold the level
+        overheadGovernor.update(WITHIN_BUDGET, ITERATION);
+        assertEquals(2, overheadGovernor.getDegradationLevel());
+    }
+
+    @Test
+    public void restoreRequiresConsecutiveIterationsUnderHalfBudget() {
+
+        OverheadGovernor overheadGovernor = new OverheadGovernor(BUDGET, null, 1000);
+        overheadGovernor.update(OVER_BUDGET, ITERATION);
+        assertEquals(1, overheadGovernor.getDegradationLevel());
+
+        // an iteration above half of the budget restarts the count
+        for (int i = 1; i < OverheadGovernor.RESTORE_ITERATIONS; i++) {
+            overheadGovernor.update(UNDER_HALF_BUDGET, ITERATION);
+        }
+        overheadGovernor.update(WITHIN_BUDGET, ITERATION);
+        assertEquals(1, overheadGovernor.getDegradationLevel());
+
+        for (int i = 1; i < OverheadGovernor.RESTORE_ITERATIONS; i++) {
+            overheadGovernor.update(UNDER_HALF_BUDGET, ITERATION);
+            assertEquals(1, overheadGovernor.getDegradationLevel());
+        }
+        overheadGovernor.update(UNDER_HALF_BUDGET, ITERATION);
+        assertEquals(0, overheadGovernor.getDegradationLevel());
+    }
+
+    @Test
+    public void levelClampsAtMaxLevel() {
+
+        OverheadGovernor overheadGovernor = new OverheadGovernor(BUDGET, null, 1000);
+        for (int i = 0; i < OverheadGovernor.MAX_LEVEL + 3; i++) {
+            overheadGovernor.update(OVER_BUDGET, ITERATION);
+        }
+        assertEquals(OverheadGovernor.MAX_LEVEL, overheadGovernor.getDegradationLevel());
+    }
+
+    @Test
+    public void zeroBudgetResetsLevel() {
+
+        OverheadGovernor overheadGovernor = new OverheadGovernor(BUDGET, null, 1000);
+        overheadGovernor.update(OVER_BUDGET, ITERATION);
+        overheadGovernor.update(OVER_BUDGET, ITERATION);
+        assertEquals(2, overheadGovernor.getDegradationLevel());
+
+        // no budget - full fidelity whatever the agent CPU usage
+        overheadGovernor.setOverheadBudget(0);
+        overheadGovernor.update(OVER_BUDGET, ITERATION);
+        assertEquals(0, overheadGovernor.getDegradationLevel());
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import io.top4j.javaagent.utils.StackTraceStore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StackTraceStoreTest {
+
+    private static StackTraceElement frame(String method, int line) {
+        return new StackTraceElement("io.top4j.Test", method, "Test.java", line);
+    }
+
+    @Test
+    public void equalStackTracesShareIdAndFrames() {
+
+        StackTraceStore store = new StackTraceStore(100);
+        StackTraceElement[] a = {frame("b", 2), frame("a", 1)};
+        StackTraceElement[] b = {frame("c", 3), frame("a", 1)};
+        int id = store.intern(a);
+        assertEquals(id, store.intern(new StackTraceElement[]{frame("b", 2), frame("a", 1)}));
+        assertNotEquals(id, store.intern(b));
+        assertEquals(2, store.getStackTraceCount());
+        // frame a is only stored once
+        assertEquals(3, store.getFrameCount());
+        assertArrayEquals(a, store.getStackTrace(id));
+        assertArrayEquals(b, store.getStackTrace(store.intern(b)));
+    }
+
+    @Test
+    public void storeIsEvictedOnceLimitReached() {
+
+        StackTraceStore store = new StackTraceStore(2);
+        StackTraceElement[] a = {frame("a", 1)};
+        StackTraceElement[] c = {frame("c", 1)};
+        int idA = store.intern(a);
+        int idB = store.intern(new StackTraceElement[]{frame("b", 1)});
+        // already interned stack traces are still found
+        assertEquals(idA, store.intern(new StackTraceElement[]{frame("a", 1)}));
+        // a new stack trace evicts the current generation and gets a fresh ID
+        int idC = store.intern(c);
+        assertEquals(1, store.getEvictionCount());
+        assertEquals(idC, store.getFirstStackTraceId());
+        assertTrue(idC > idB);
+        assertTrue(store.contains(idC));
+        assertFalse(store.contains(idA));
+        assertNull(store.getStackTrace(idA));
+        assertArrayEquals(c, store.getStackTrace(idC));
+        // evicted stack traces are interned again under a new ID
+        assertNotEquals(idA, store.intern(a));
+        // stack traces which can never fit aren't interned
+        assertEquals(StackTraceStore.NO_STACK_TRACE_ID, store.intern(new StackTraceElement[]{frame("d", 1), frame("e", 1), frame("f", 1)}));
+        assertEquals(StackTraceStore.NO_STACK_TRACE_ID, store.intern(null));
+        assertEquals(1, store.getEvictionCount());
+    }
+}
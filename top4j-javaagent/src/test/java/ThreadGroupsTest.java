@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import io.top4j.javaagent.mbeans.jvm.threads.ThreadGroups;
+import io.top4j.javaagent.mbeans.jvm.threads.TopThreadGroup;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class ThreadGroupsTest {
+
+    @Test
+    public void defaultGroupNameReplacesTrailingNumber() {
+
+        ThreadGroups threadGroups = new ThreadGroups(new HashMap<Integer, TopThreadGroup>(), null, 1);
+        assertEquals("pool-3-thread-*", threadGroups.getGroupName("pool-3-thread-12"));
+        assertEquals("http-nio-8080-exec-*", threadGroups.getGroupName("http-nio-8080-exec-7"));
+        assertEquals("ForkJoinPool.commonPool-worker-*", threadGroups.getGroupName("ForkJoinPool.commonPool-worker-3"));
+        assertEquals("main", threadGroups.getGroupName("main"));
+    }
+
+    @Test
+    public void firstMatchingRuleWins() {
+
+        ThreadGroups threadGroups = new ThreadGroups(new HashMap<Integer, TopThreadGroup>(),
+                "http-nio-(\\d+)-exec-\\d+=http-nio-$1-exec; pool-\\d+-thread-\\d+=pools;pool-.*=unused", 1);
+        assertEquals("http-nio-8080-exec", threadGroups.getGroupName("http-nio-8080-exec-7"));
+        assertEquals("pools", threadGroups.getGroupName("pool-3-thread-12"));
+        assertEquals("Thread-*", threadGroups.getGroupName("Thread-5"));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import io.top4j.javaagent.mbeans.jvm.threads.ThreadTable;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThreadTableTest {
+
+    @Test
+    public void markAndSweepMatchesHashMap() {
+
+        Random random = new Random(42);
+        ThreadTable table = new ThreadTable();
+        Map<Long, Long> reference = new HashMap<>();
+        long nextId = 1;
+        for (int iteration = 0; iteration < 500; iteration++) {
+            // keep a random subset of the known threads alive and start some new ones
+            List<Long> live = new ArrayList<>();
+            for (Long id : reference.keySet()) {
+                if (random.nextInt(10) > 1) {
+                    live.add(id);
+                }
+            }
+            int newThreads = random.nextInt(iteration < 250 ? 40 : 10);
+            for (int i = 0; i < newThreads; i++) {
+                live.add(nextId++);
+            }
+            table.unmarkAll();
+            reference.keySet().retainAll(live);
+            for (Long id : live) {
+                int slot = table.insert(id, 0);
+                if (!reference.containsKey(id)) {
+                    // tag new threads with a per-thread value so that moved slots can be checked
+                    table.setStartCpuTime(slot, id * 7);
+                    reference.put(id, id * 7);
+                }
+            }
+            table.sweep();
+            assertEquals(reference.size(), table.size());
+            int occupied = 0;
+            for (int slot = 0; slot < table.capacity(); slot++) {
+                if (table.isOccupied(slot)) {
+                    occupied++;
+                    assertTrue(table.isMarked(slot));
+                    assertEquals((long) reference.get(table.getId(slot)), table.getStartCpuTime(slot));
+                }
+            }
+            assertEquals(reference.size(), occupied);
+            for (Map.Entry<Long, Long> entry : reference.entrySet()) {
+                int slot = table.indexOf(entry.getKey());
+                assertTrue(slot >= 0);
+                assertEquals((long) entry.getValue(), table.getStartCpuTime(slot));
+            }
+            assertEquals(-1, table.indexOf(nextId));
+        }
+    }
+
+    @Test
+    public void sweepRemovesDeadThreadsFromWrappedProbeSequence() {
+
+        ThreadTable table = new ThreadTable();
+        int capacity = table.capacity();
+        // find thread IDs which hash to the last slots of the table so that their probe sequence wraps to slot 0
+        List<Long> tail = new ArrayList<>();
+        for (long id = 1; tail.size() < 6; id++) {
+            if (homeSlot(id, capacity) >= capacity - 2) {
+                tail.add(id);
+            }
+        }
+        Set<Long> live = new HashSet<>();
+        for (int i = 0; i < tail.size(); i++) {
+            table.insert(tail.get(i), 0);
+            // keep every other thread alive
+            if (i % 2 == 1) {
+                live.add(tail.get(i));
+            }
+        }
+        assertTrue(table.isOccupied(0));
+        table.unmarkAll();
+        for (Long id : live) {
+            table.insert(id, 0);
+        }
+        assertEquals(tail.size() - live.size(), table.sweep());
+        assertEquals(live.size(), table.size());
+        for (int slot = 0; slot < capacity; slot++) {
+            if (table.isOccupied(slot)) {
+                assertTrue(live.contains(table.getId(slot)));
+            }
+        }
+        for (Long id : tail) {
+            assertEquals(live.contains(id), table.indexOf(id) >= 0);
+        }
+    }
+
+    private static int homeSlot(long id, int capacity) {
+
+        // mirrors ThreadTable's Fibonacci hash
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (capacity - 1);
+    }
+
+    @Test
+    public void cpuUsageHistoryKeepsMostRecentSamples() {
+
+        ThreadTable table = new ThreadTable();
+        int slot = table.insert(1, 0);
+        double[] history = new double[ThreadTable.CPU_USAGE_HISTORY_SIZE];
+        for (int sample = 1; sample <= 100; sample++) {
+            // one second samples at a steady 50% CPU
+            table.addCpuUsageSample(slot, sample % 2 == 0 ? 50.0 : sample, 1000000000L);
+        }
+        assertEquals(ThreadTable.CPU_USAGE_HISTORY_SIZE, table.getCpuUsageHistory(slot, history));
+        assertEquals(85.0, history[0], 0.0);
+        assertEquals(50.0, history[ThreadTable.CPU_USAGE_HISTORY_SIZE - 1], 0.0);
+        // the 1m average follows recent samples more closely than the 15m average
+        assertTrue(table.getCpuUsage1m(slot) > table.getCpuUsage5m(slot));
+        assertTrue(table.getCpuUsage5m(slot) > table.getCpuUsage15m(slot));
+        for (int sample = 0; sample < 600; sample++) {
+            table.addCpuUsageSample(slot, 0.0, 1000000000L);
+        }
+        // 10 minutes idle - the 1m average has decayed to nothing
+        assertEquals(0.0, table.getCpuUsage1m(slot), 0.01);
+        assertTrue(table.getCpuUsage15m(slot) > 1.0);
+    }
+}
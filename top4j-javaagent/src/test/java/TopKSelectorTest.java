@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019 Open Answers Ltd. https://www.openanswers.co.uk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import io.top4j.javaagent.mbeans.jvm.threads.TopKSelector;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class TopKSelectorTest {
+
+    @Test
+    public void selectionMatchesTreeMapRanking() {
+
+        Random random = new Random(42);
+        TopKSelector selector = new TopKSelector(0);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            int entryCount = random.nextInt(500);
+            int limit = 1 + random.nextInt(20);
+            // use a small key range so that plenty of ties are generated
+            long[] keys = new long[entryCount];
+            for (int i = 0; i < entryCount; i++) {
+                keys[i] = random.nextInt(50);
+            }
+            List<Long> expected = rankWithTreeMap(keys, limit);
+            selector.reset(limit);
+            for (int i = 0; i < entryCount; i++) {
+                selector.offer(keys[i], i);
+            }
+            selector.sort();
+            assertEquals(expected.size(), selector.size());
+            for (int rank = 0; rank < selector.size(); rank++) {
+                assertEquals("rank " + rank, (long) expected.get(rank), selector.getValue(rank));
+                assertEquals(keys[(int) selector.getValue(rank)], selector.getKey(rank));
+            }
+        }
+    }
+
+    /**
+     * Reference ranking as produced by the original TreeMap based ThreadTimeMap, i.e. descending key order with ties
+     * ranked in insertion order.
+     */
+    private List<Long> rankWithTreeMap(long[] keys, int limit) {
+
+        NavigableMap<Long, List<Long>> timeMap = new TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            List<Long> ids = timeMap.get(keys[i]);
+            if (ids == null) {
+                ids = new ArrayList<>();
+                timeMap.put(keys[i], ids);
+            }
+            ids.add((long) i);
+        }
+        List<Long> ranked = new ArrayList<>();
+        for (Long key : timeMap.descendingKeySet()) {
+            for (Long id : timeMap.get(key)) {
+                if (ranked.size() == limit) {
+                    return ranked;
+                }
+                ranked.add(id);
+            }
+        }
+        return ranked;
+    }
+}
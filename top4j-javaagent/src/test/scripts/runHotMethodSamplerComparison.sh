@@ -0,0 +1,56 @@
+#!/bin/bash
+#
+# runHotMethodSamplerComparison.sh
+#
+#  - compare the overhead of the jmx and jfr hot method samplers by running the Top4J multi-threaded test harness
+#    with hot method profiling disabled and with each sampler in turn
+#
+#    Arguments:
+#
+#      1. NUM_THREADS: Number of threads, e.g. 50
+#      2. NUM_ITERATIONS: Number of iterations per thread, e.g. 200
+#      3. PAUSE_TIME: Pause time between iterations in milliseconds, e.g. 5
+#      4. POLL_FREQUENCY: Hot method poll frequency (sample period) in milliseconds, e.g. 10
+#
+#    Example Usage:
+#
+#      ./runHotMethodSamplerComparison.sh 50 200 5 10
+#
+
+TOP4J_JAVAAGENT_JAR=`ls -1rt ../../../target/top4j-javaagent-*.jar | tail -1`
+ARG_COUNT=$#
+NUM_THREADS=$1
+NUM_ITERATIONS=$2
+PAUSE_TIME=$3
+POLL_FREQUENCY=$4
+
+if [[ ! -f ${TOP4J_JAVAAGENT_JAR} ]]
+then
+	echo "ERROR: Unable to find Top4J java agent jar."
+	echo "HINT: Try building the top4j-javaagent Maven project via \"mvn clean package\""
+	exit 1
+fi
+
+if [[ ${ARG_COUNT} -ne 4 ]]
+then
+	echo "USAGE: <num-threads> <num-iterations> <pause-time> <poll-frequency>"
+	exit 1
+fi
+
+for SAMPLER in none jmx jfr
+do
+	if [[ ${SAMPLER} == "none" ]]
+	then
+		AGENT_ARGS="hot.method.profiling.enabled=false"
+	else
+		AGENT_ARGS="hot.method.profiling.enabled=true,hot.method.sampler=${SAMPLER},hot.method.poll.frequency=${POLL_FREQUENCY}"
+	fi
+	STATS_DIRECTORY=top4j-stats-${SAMPLER}
+	rm -rf ${STATS_DIRECTORY}
+	echo "Running multi-threaded test with hot method sampler: ${SAMPLER}"
+	# report the test harness duration and TPS followed by the process user and system CPU time in seconds
+	TIMEFORMAT="Process CPU time (user/sys): %U/%S"
+	time (java -classpath "${TOP4J_JAVAAGENT_JAR}" -javaagent:${TOP4J_JAVAAGENT_JAR}=${AGENT_ARGS},stats.logger.enabled=true,stats.logger.directory=${STATS_DIRECTORY} ${JAVA_OPTS} io.top4j.javaagent.test.MultiThreadedTest ${NUM_THREADS} ${NUM_ITERATIONS} ${PAUSE_TIME} 2>&1 | grep "Duration\|TPS\|sampler")
+	# report the mean ThreadStats MBean CPU time (which includes the hot method sampler CPU time) per collector iteration
+	awk -F, 'NR == 1 { for (i = 1; i <= NF; i++) if ($i == "MBeanCpuTime") col = i } NR > 1 { sum += $col; n++ } END { if (n > 0) printf "ThreadStats MBeanCpuTime (mean ms per iteration): %.2f\n", sum / n }' ${STATS_DIRECTORY}/ThreadStats.*.csv
+done